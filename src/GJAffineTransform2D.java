@@ -664,6 +664,72 @@ public class GJAffineTransform2D implements GJBijection2D, GJGeometricObject2D,
 		return dst;
 	}
 
+	/**
+	 * Transforms the coordinates of the point, and stores the result in the
+	 * destination point, that may be the same as the source.
+	 * 
+	 * @return the destination point
+	 */
+	public GJMutablePoint2D transform(GJPoint2D src, GJMutablePoint2D dst) {
+		return dst.set(
+				src.x * m00 + src.y * m01 + m02,
+				src.x * m10 + src.y * m11 + m12);
+	}
+
+	/**
+	 * Transforms count points stored in an array of coordinates in the order
+	 * x0, y0, x1, y1..., and stores the result in the destination array.
+	 * The two arrays may be the same.
+	 */
+	public void transform(double[] src, double[] dst, int count) {
+		transform(src, 0, dst, 0, count);
+	}
+
+	/**
+	 * Transforms count points stored in an array of coordinates in the order
+	 * x0, y0, x1, y1..., starting from the given offsets, and stores the
+	 * result in the destination array. The two arrays may be the same, with
+	 * overlapping ranges.
+	 * 
+	 * @param src the coordinates of the points to transform
+	 * @param srcOffset the position of the first coordinate in src
+	 * @param dst the array receiving the coordinates of transformed points
+	 * @param dstOffset the position of the first coordinate in dst
+	 * @param count the number of points to transform
+	 */
+	public void transform(double[] src, int srcOffset, double[] dst,
+			int dstOffset, int count) {
+		if (src == dst && dstOffset > srcOffset
+				&& dstOffset < srcOffset + 2 * count) {
+			// process points backward to avoid overwriting sources
+			for (int i = 2 * count - 2; i >= 0; i -= 2) {
+				double x = src[srcOffset + i], y = src[srcOffset + i + 1];
+				dst[dstOffset + i] = x * m00 + y * m01 + m02;
+				dst[dstOffset + i + 1] = x * m10 + y * m11 + m12;
+			}
+			return;
+		}
+		for (int i = 0; i < 2 * count; i += 2) {
+			double x = src[srcOffset + i], y = src[srcOffset + i + 1];
+			dst[dstOffset + i] = x * m00 + y * m01 + m02;
+			dst[dstOffset + i + 1] = x * m10 + y * m11 + m12;
+		}
+	}
+
+	/**
+	 * Transforms count points stored in separate arrays for each coordinate,
+	 * and stores the result in the destination arrays. Source and
+	 * destination arrays may be the same.
+	 */
+	public void transform(double[] xs, double[] ys, double[] dstXs,
+			double[] dstYs, int count) {
+		for (int i = 0; i < count; i++) {
+			double x = xs[i], y = ys[i];
+			dstXs[i] = x * m00 + y * m01 + m02;
+			dstYs[i] = x * m10 + y * m11 + m12;
+		}
+	}
+
 	// ===================================================================
 	// implements the GJGeometricObject2D interface
 
@@ -712,16 +778,28 @@ public class GJAffineTransform2D implements GJBijection2D, GJGeometricObject2D,
 			return false;
 		if (!GJEqualUtils.areEqual(this.m02, that.m02))
 			return false;
-		if (!GJEqualUtils.areEqual(this.m00, that.m00))
+		if (!GJEqualUtils.areEqual(this.m10, that.m10))
 			return false;
-		if (!GJEqualUtils.areEqual(this.m01, that.m01))
+		if (!GJEqualUtils.areEqual(this.m11, that.m11))
 			return false;
-		if (!GJEqualUtils.areEqual(this.m02, that.m02))
+		if (!GJEqualUtils.areEqual(this.m12, that.m12))
 			return false;
 
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		int hash = GJHashCodeUtils.SEED;
+		hash = GJHashCodeUtils.hash(hash, m00);
+		hash = GJHashCodeUtils.hash(hash, m01);
+		hash = GJHashCodeUtils.hash(hash, m02);
+		hash = GJHashCodeUtils.hash(hash, m10);
+		hash = GJHashCodeUtils.hash(hash, m11);
+		hash = GJHashCodeUtils.hash(hash, m12);
+		return hash;
+	}
+
 	/**
 	 * @deprecated immutable objects do not need to be cloned (0.11.2)
 	 */
@@ -0,0 +1,566 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+
+/**
+ * Collects some useful methods for Bezier curves of arbitrary degree, given
+ * by the coordinates of their control points.
+ * <br>
+ * Polynomials are represented by their coefficients in the Bernstein basis
+ * of [0, 1]. By the variation diminishing property, the number of real roots
+ * of the polynomial within [0, 1] is bounded by the number of sign changes
+ * of its coefficients. Roots are isolated by recursive subdivision of the
+ * interval, using de Casteljau algorithm, until the coefficients of each
+ * interval change sign at most once, and are then refined by a bracketed
+ * secant method.
+ * <br>
+ * Intersections of two curves are computed by Bezier clipping: each curve is
+ * alternately clipped to the parameter range where its control polygon lies
+ * within the fat line of the other curve, and the bounding boxes of the
+ * control points are compared at every step to reject disjoint parts.
+ */
+public abstract class GJBezierCurves2D {
+
+    // ===================================================================
+    // constants
+
+    /** The maximal depth of subdivision when isolating roots */
+    private final static int MAX_DEPTH = 48;
+
+    /** The maximal number of clipping steps for computing curve intersections */
+    private final static int MAX_CLIP_STEPS = 10000;
+
+    /** The precision of intersections, relative to the magnitude of coordinates */
+    private final static double RELATIVE_PRECISION = 1e-12;
+
+    /** The ratio between the merging distance of points and the precision */
+    private final static double MERGE_FACTOR = 1024;
+
+
+    // ===================================================================
+    // static methods
+
+    /**
+     * Computes the position of the orthogonal projection of the point (x, y)
+     * on the Bezier curve given by its control points. The result is the
+     * parameter between 0 and 1 of the closest point of the curve. The
+     * critical points of the squared distance are the roots of the
+     * polynomial (B(t)-P).B'(t), of degree 2n-1 for a curve of degree n.
+     *
+     * @param xs the x-coordinates of the control points
+     * @param ys the y-coordinates of the control points
+     * @param x the x-coordinate of the point to project
+     * @param y the y-coordinate of the point to project
+     * @return the parameter of the closest point, between 0 and 1
+     */
+    public static double project(double[] xs, double[] ys, double x, double y) {
+        int n = xs.length - 1;
+        if (n < 1)
+            return 0;
+
+        // coefficients of (B(t)-P).B'(t) in the Bernstein basis of degree 2n-1
+        int m = 2 * n - 1;
+        double[] coefs = new double[m + 1];
+        for (int i = 0; i <= n; i++) {
+            double dx = xs[i] - x, dy = ys[i] - y;
+            for (int j = 0; j < n; j++) {
+                double tx = n * (xs[j + 1] - xs[j]);
+                double ty = n * (ys[j + 1] - ys[j]);
+                coefs[i + j] += binomial(n, i) * binomial(n - 1, j)
+                        * (dx * tx + dy * ty);
+            }
+        }
+        for (int k = 0; k <= m; k++)
+            coefs[k] /= binomial(m, k);
+
+        // compare the critical points with the extremities
+        double tBest = 0;
+        double dBest = squaredDistance(xs, ys, 0, x, y);
+        double d1 = squaredDistance(xs, ys, 1, x, y);
+        if (d1 < dBest) {
+            tBest = 1;
+            dBest = d1;
+        }
+        for (double t : bernsteinRoots(coefs)) {
+            double d = squaredDistance(xs, ys, t, x, y);
+            if (d < dBest) {
+                tBest = t;
+                dBest = d;
+            }
+        }
+        return tBest;
+    }
+
+    /**
+     * Computes the intersections of the Bezier curve given by its control
+     * points with a linear shape. The signed distances of the control points
+     * to the supporting line are the Bernstein coefficients of the signed
+     * distance of the curve, whose roots give the intersections. Points
+     * outside of the bounds of the linear shape are discarded.
+     */
+    public static Collection<GJPoint2D> lineIntersections(double[] xs,
+            double[] ys, GJLinearShape2D line) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>(xs.length - 1);
+        GJPoint2D origin = line.origin();
+        GJVector2D direction = line.direction();
+        double x0 = origin.x(), y0 = origin.y();
+        double dx = direction.x(), dy = direction.y();
+        double denom = dx * dx + dy * dy;
+
+        int n = xs.length - 1;
+        double[] coefs = new double[n + 1];
+        for (int i = 0; i <= n; i++)
+            coefs[i] = (xs[i] - x0) * dy - (ys[i] - y0) * dx;
+
+        double t0 = line.t0(), t1 = line.t1();
+        double eps = precision(xs, ys);
+        for (double t : bernsteinRoots(coefs)) {
+            double x = bernsteinValue(xs, t), y = bernsteinValue(ys, t);
+            double pos = ((x - x0) * dx + (y - y0) * dy) / denom;
+            if (pos < t0 - GJShape2D.ACCURACY || pos > t1 + GJShape2D.ACCURACY)
+                continue;
+            addPoint(points, x, y, eps);
+        }
+        return points;
+    }
+
+    /**
+     * Computes the intersections of the Bezier curve given by its control
+     * points with a circular shape. The squared distance to the center minus
+     * the squared radius is a polynomial of degree 2n, whose Bernstein
+     * coefficients are obtained by product of the coordinate polynomials.
+     * For circle arcs, points too far from the arc are discarded.
+     */
+    public static Collection<GJPoint2D> circleIntersections(double[] xs,
+            double[] ys, GJCircularShape2D circle) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>(4);
+        GJCircle2D support = circle.supportingCircle();
+        GJPoint2D center = support.center();
+        double xc = center.x(), yc = center.y();
+        double r = support.radius();
+
+        // reject curves whose box is outside of the circle, or inside it
+        double[] box = bounds(xs, ys);
+        double ex = Math.max(box[0] - xc, Math.max(0, xc - box[1]));
+        double ey = Math.max(box[2] - yc, Math.max(0, yc - box[3]));
+        if (ex * ex + ey * ey > r * r)
+            return points;
+        double fx = Math.max(Math.abs(box[0] - xc), Math.abs(box[1] - xc));
+        double fy = Math.max(Math.abs(box[2] - yc), Math.abs(box[3] - yc));
+        if (fx * fx + fy * fy < r * r)
+            return points;
+
+        int n = xs.length - 1;
+        int m = 2 * n;
+        double[] coefs = new double[m + 1];
+        for (int i = 0; i <= n; i++) {
+            for (int j = 0; j <= n; j++) {
+                double dot = (xs[i] - xc) * (xs[j] - xc)
+                        + (ys[i] - yc) * (ys[j] - yc);
+                coefs[i + j] += binomial(n, i) * binomial(n, j) * dot;
+            }
+        }
+        for (int k = 0; k <= m; k++)
+            coefs[k] = coefs[k] / binomial(m, k) - r * r;
+
+        double eps = precision(xs, ys);
+        boolean arc = !(circle instanceof GJCircle2D);
+        for (double t : bernsteinRoots(coefs)) {
+            double x = bernsteinValue(xs, t), y = bernsteinValue(ys, t);
+            if (arc && circle.distance(x, y) > Math.max(eps, GJShape2D.ACCURACY))
+                continue;
+            addPoint(points, x, y, eps);
+        }
+        return points;
+    }
+
+    /**
+     * Computes the intersections of two Bezier curves given by their control
+     * points, using Bezier clipping. Tangent intersections are found with
+     * lower precision. Overlapping curves have infinitely many intersections,
+     * and only some of them are returned.
+     */
+    public static Collection<GJPoint2D> curveIntersections(double[] xs1,
+            double[] ys1, double[] xs2, double[] ys2) {
+        double eps = Math.max(precision(xs1, ys1), precision(xs2, ys2));
+        BezierClipping clipping = new BezierClipping(eps);
+        clipping.clip(xs1.clone(), ys1.clone(), xs2.clone(), ys2.clone());
+        return clipping.points;
+    }
+
+    /**
+     * Computes the roots within [0, 1] of the polynomial given by its
+     * coefficients in the Bernstein basis. Roots are returned in increasing
+     * order. Roots of even multiplicity may not be detected.
+     *
+     * @param coefs the Bernstein coefficients of the polynomial
+     * @return the sorted array of roots within [0, 1]
+     */
+    public static double[] bernsteinRoots(double[] coefs) {
+        int n = coefs.length - 1;
+        double[] roots = new double[Math.max(n, 0) + 1];
+        int count = 0;
+        if (n < 0)
+            return new double[0];
+
+        if (coefs[0] == 0)
+            roots[count++] = 0;
+        count = isolateRoots(coefs, 0, 1, 0, roots, count);
+        if (coefs[n] == 0 && count < roots.length)
+            roots[count++] = 1;
+
+        double[] result = Arrays.copyOf(roots, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Evaluates the polynomial given by its Bernstein coefficients, using de
+     * Casteljau algorithm.
+     */
+    public static double bernsteinValue(double[] coefs, double t) {
+        return deCasteljau(coefs, t, new double[coefs.length]);
+    }
+
+
+    // ===================================================================
+    // private methods
+
+    /**
+     * Adds to the array the roots of the polynomial located in the open
+     * interval (lo, hi), the coefficients being given relative to this
+     * interval. Returns the new number of roots.
+     */
+    private static int isolateRoots(double[] coefs, double lo, double hi,
+            int depth, double[] roots, int count) {
+        int n = coefs.length - 1;
+        int changes = signChanges(coefs);
+        if (changes == 0 || count == roots.length)
+            return count;
+
+        // a single sign change between the extremities isolates one root
+        if (changes == 1 && coefs[0] * coefs[n] < 0) {
+            roots[count++] = lo + (hi - lo) * refineRoot(coefs);
+            return count;
+        }
+
+        double mid = (lo + hi) / 2;
+        if (depth == MAX_DEPTH) {
+            roots[count++] = mid;
+            return count;
+        }
+
+        // split the polynomial at the middle of the interval
+        double[] left = new double[n + 1], right = new double[n + 1];
+        double[] tmp = coefs.clone();
+        for (int r = 0; r <= n; r++) {
+            left[r] = tmp[0];
+            right[n - r] = tmp[n - r];
+            for (int i = 0; i < n - r; i++)
+                tmp[i] = (tmp[i] + tmp[i + 1]) / 2;
+        }
+
+        count = isolateRoots(left, lo, mid, depth + 1, roots, count);
+        if (left[n] == 0 && count < roots.length)
+            roots[count++] = mid;
+        return isolateRoots(right, mid, hi, depth + 1, roots, count);
+    }
+
+    /**
+     * Computes the root within [0, 1] of a polynomial whose extreme
+     * coefficients have opposite signs, using the Illinois variant of the
+     * regula falsi method. The bracketing interval always contains the root,
+     * and bisection is used when the secant step falls outside the interval.
+     */
+    private static double refineRoot(double[] coefs) {
+        double[] tmp = new double[coefs.length];
+        double s0 = 0, s1 = 1;
+        double f0 = coefs[0], f1 = coefs[coefs.length - 1];
+        int side = 0;
+        for (int i = 0; i < 100; i++) {
+            double s = (s0 * f1 - s1 * f0) / (f1 - f0);
+            if (!(s > s0 && s < s1))
+                s = (s0 + s1) / 2;
+            if (s == s0 || s == s1)
+                return s;
+            double value = deCasteljau(coefs, s, tmp);
+            if (value == 0)
+                return s;
+            if ((value > 0) == (f1 > 0)) {
+                s1 = s;
+                f1 = value;
+                if (side == -1)
+                    f0 /= 2;
+                side = -1;
+            } else {
+                s0 = s;
+                f0 = value;
+                if (side == 1)
+                    f1 /= 2;
+                side = 1;
+            }
+            if (s1 - s0 <= 2 * Math.ulp(s1))
+                break;
+        }
+        return (s0 + s1) / 2;
+    }
+
+    /**
+     * Evaluates the polynomial with de Casteljau algorithm, using the given
+     * array for storing intermediate values.
+     */
+    private static double deCasteljau(double[] coefs, double t, double[] tmp) {
+        int n = coefs.length - 1;
+        if (n < 0)
+            return 0;
+        System.arraycopy(coefs, 0, tmp, 0, n + 1);
+        double s = 1 - t;
+        for (int r = 1; r <= n; r++)
+            for (int i = 0; i <= n - r; i++)
+                tmp[i] = s * tmp[i] + t * tmp[i + 1];
+        return tmp[0];
+    }
+
+    /**
+     * Counts the sign changes in the sequence of coefficients, ignoring
+     * zero coefficients.
+     */
+    private static int signChanges(double[] coefs) {
+        int changes = 0;
+        double prev = 0;
+        for (double c : coefs) {
+            if (c == 0)
+                continue;
+            if (prev != 0 && (c > 0) != (prev > 0))
+                changes++;
+            prev = c;
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the bounds {xmin, xmax, ymin, ymax} of the control points.
+     */
+    private static double[] bounds(double[] xs, double[] ys) {
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) {
+            xmin = Math.min(xmin, xs[i]);
+            xmax = Math.max(xmax, xs[i]);
+            ymin = Math.min(ymin, ys[i]);
+            ymax = Math.max(ymax, ys[i]);
+        }
+        return new double[]{xmin, xmax, ymin, ymax};
+    }
+
+    /**
+     * Returns the precision of the computations on the curve, relative to
+     * the magnitude of the coordinates of its control points.
+     */
+    private static double precision(double[] xs, double[] ys) {
+        double magnitude = 0;
+        for (int i = 0; i < xs.length; i++)
+            magnitude = Math.max(magnitude,
+                    Math.max(Math.abs(xs[i]), Math.abs(ys[i])));
+        return Math.max(magnitude * RELATIVE_PRECISION, Double.MIN_NORMAL);
+    }
+
+    /**
+     * Adds the point to the list, unless the list already contains a point
+     * within the merging distance. Near tangent intersections converge
+     * slowly, and may be found several times with lower precision.
+     */
+    private static void addPoint(ArrayList<GJPoint2D> points, double x,
+            double y, double eps) {
+        double tol = MERGE_FACTOR * eps;
+        for (GJPoint2D point : points)
+            if (Math.abs(point.x() - x) <= tol && Math.abs(point.y() - y) <= tol)
+                return;
+        points.add(new GJPoint2D(x, y));
+    }
+
+    /**
+     * Splits the Bezier curve given by its coefficients at parameter t, and
+     * stores the coefficients of the two parts in the given arrays.
+     */
+    private static void split(double[] coefs, double t, double[] left,
+            double[] right) {
+        int n = coefs.length - 1;
+        double[] tmp = coefs.clone();
+        double s = 1 - t;
+        for (int r = 0; r <= n; r++) {
+            left[r] = tmp[0];
+            right[n - r] = tmp[n - r];
+            for (int i = 0; i < n - r; i++)
+                tmp[i] = s * tmp[i] + t * tmp[i + 1];
+        }
+    }
+
+    /**
+     * Returns the coefficients of the part of the Bezier curve between
+     * parameters t0 and t1, with 0 <= t0 < t1 <= 1.
+     */
+    private static double[] subCurve(double[] coefs, double t0, double t1) {
+        int n = coefs.length - 1;
+        double[] left = new double[n + 1], right = new double[n + 1];
+        split(coefs, t1, left, right);
+        if (t0 <= 0)
+            return left;
+        split(left, t0 / t1, new double[n + 1], right);
+        return right;
+    }
+
+    private static double squaredDistance(double[] xs, double[] ys, double t,
+            double x, double y) {
+        double dx = bernsteinValue(xs, t) - x;
+        double dy = bernsteinValue(ys, t) - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int i = 1; i <= k; i++)
+            result = result * (n - k + i) / i;
+        return result;
+    }
+
+
+    // ===================================================================
+    // inner class
+
+    /**
+     * Computes the intersections of two curves by Bezier clipping. The
+     * precision is used both for stopping the clipping and for merging the
+     * points found in several parts of the curves.
+     */
+    private static class BezierClipping {
+        final double eps;
+        final ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        int steps = 0;
+
+        BezierClipping(double eps) {
+            this.eps = eps;
+        }
+
+        /**
+         * Clips the first curve by the fat line of the second one, and
+         * recursively processes the clipped curve with the roles swapped.
+         */
+        void clip(double[] xs1, double[] ys1, double[] xs2, double[] ys2) {
+            if (++steps > MAX_CLIP_STEPS)
+                return;
+
+            // reject parts whose boxes do not intersect
+            double[] box1 = bounds(xs1, ys1);
+            double[] box2 = bounds(xs2, ys2);
+            if (box1[1] < box2[0] - eps || box2[1] < box1[0] - eps
+                    || box1[3] < box2[2] - eps || box2[3] < box1[2] - eps)
+                return;
+
+            double size1 = Math.max(box1[1] - box1[0], box1[3] - box1[2]);
+            double size2 = Math.max(box2[1] - box2[0], box2[3] - box2[2]);
+            if (size1 <= eps && size2 <= eps) {
+                addPoint(points, (box1[0] + box1[1]) / 2,
+                        (box1[2] + box1[3]) / 2, eps);
+                return;
+            }
+
+            // the range of the first curve within the fat line of the second
+            double[] range = size2 <= eps ? null
+                    : fatLineRange(xs1, ys1, xs2, ys2);
+            if (range != null && range[0] > range[1])
+                return;
+
+            if (range == null || range[1] - range[0] > .8) {
+                // not enough reduction: split the larger curve
+                int n1 = xs1.length, n2 = xs2.length;
+                if (size1 >= size2) {
+                    double[] xl = new double[n1], xr = new double[n1];
+                    double[] yl = new double[n1], yr = new double[n1];
+                    split(xs1, .5, xl, xr);
+                    split(ys1, .5, yl, yr);
+                    clip(xs2, ys2, xl, yl);
+                    clip(xs2, ys2, xr, yr);
+                } else {
+                    double[] xl = new double[n2], xr = new double[n2];
+                    double[] yl = new double[n2], yr = new double[n2];
+                    split(xs2, .5, xl, xr);
+                    split(ys2, .5, yl, yr);
+                    clip(xs1, ys1, xl, yl);
+                    clip(xs1, ys1, xr, yr);
+                }
+                return;
+            }
+
+            clip(xs2, ys2, subCurve(xs1, range[0], range[1]),
+                    subCurve(ys1, range[0], range[1]));
+        }
+
+        /**
+         * Computes the parameter range [tmin, tmax] of the first curve where
+         * the convex hull of its distance control polygon lies within the fat
+         * line of the second curve. The range is empty if tmin > tmax.
+         */
+        double[] fatLineRange(double[] xs1, double[] ys1, double[] xs2,
+                double[] ys2) {
+            // line joining the extremities of the second curve, or the
+            // farthest control point if the extremities coincide
+            int n2 = xs2.length - 1;
+            double x0 = xs2[0], y0 = ys2[0];
+            int far = n2;
+            double best = Math.hypot(xs2[n2] - x0, ys2[n2] - y0);
+            if (best <= eps) {
+                for (int i = 1; i < n2; i++) {
+                    double d = Math.hypot(xs2[i] - x0, ys2[i] - y0);
+                    if (d > best) {
+                        best = d;
+                        far = i;
+                    }
+                }
+            }
+            double nx = -(ys2[far] - y0) / best;
+            double ny = (xs2[far] - x0) / best;
+
+            // width of the fat line
+            double dmin = 0, dmax = 0;
+            for (int i = 0; i <= n2; i++) {
+                double d = (xs2[i] - x0) * nx + (ys2[i] - y0) * ny;
+                dmin = Math.min(dmin, d);
+                dmax = Math.max(dmax, d);
+            }
+            dmin -= eps;
+            dmax += eps;
+
+            // distances of the first curve, as an explicit Bezier function
+            int n1 = xs1.length - 1;
+            double[] d = new double[n1 + 1];
+            for (int i = 0; i <= n1; i++)
+                d[i] = (xs1[i] - x0) * nx + (ys1[i] - y0) * ny;
+
+            // the convex hull is the union of the segments between points
+            double tmin = Double.POSITIVE_INFINITY;
+            double tmax = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i <= n1; i++) {
+                for (int j = i; j <= n1; j++) {
+                    double ti = (double) i / n1, tj = (double) j / n1;
+                    double lo = 0, hi = 1;
+                    double dd = d[j] - d[i];
+                    if (dd == 0) {
+                        if (d[i] < dmin || d[i] > dmax)
+                            continue;
+                    } else {
+                        double a = (dmin - d[i]) / dd, b = (dmax - d[i]) / dd;
+                        lo = Math.max(lo, Math.min(a, b));
+                        hi = Math.min(hi, Math.max(a, b));
+                        if (lo > hi)
+                            continue;
+                    }
+                    tmin = Math.min(tmin, ti + lo * (tj - ti));
+                    tmax = Math.max(tmax, ti + hi * (tj - ti));
+                }
+            }
+            return new double[]{Math.max(tmin, 0), Math.min(tmax, 1)};
+        }
+    }
+}
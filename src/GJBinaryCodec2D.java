@@ -0,0 +1,543 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+
+/**
+ * Encodes geometries into a compact binary format, and decodes them into
+ * instances of the original classes. Supported classes are GJPoint2D,
+ * GJPolyline2D, GJLinearRing2D, GJSimplePolygon2D, GJMultiPolygon2D,
+ * GJCircleArc2D and GJGeneralPath2D.
+ * <br>
+ * Each geometry starts with the format version, the type of the geometry,
+ * and the encoding of its coordinates. By default, coordinates are written
+ * as doubles, and decoding restores them exactly. When a scale is given,
+ * the coordinates of points, polylines, polygons and paths are rounded to
+ * multiples of 1/scale, and each coordinate is written as a variable length
+ * integer giving the difference with the previous one, so that neighbor
+ * vertices need only a few bytes. Values such as radius and angles are
+ * always written as doubles.
+ * <br>
+ * Geometries can be written to a DataOutput or to a ByteBuffer, and read
+ * from a DataInput or from a ByteBuffer, in any combination: the format
+ * always uses the big-endian byte order. Decoding does not depend on the
+ * settings of the codec.
+ */
+public class GJBinaryCodec2D {
+
+    // ===================================================================
+    // constants
+
+    /** The version of the format, written at the beginning of each geometry */
+    public final static int VERSION = 1;
+
+    /**
+     * Maximal number of elements allocated before reading them, such that
+     * corrupted counts do not exhaust memory
+     */
+    private final static int MAX_PREALLOCATION = 1 << 16;
+
+    private final static int POINT = 1;
+    private final static int POLYLINE = 2;
+    private final static int LINEAR_RING = 3;
+    private final static int SIMPLE_POLYGON = 4;
+    private final static int MULTI_POLYGON = 5;
+    private final static int CIRCLE_ARC = 6;
+    private final static int GENERAL_PATH = 7;
+
+    /** Coordinates are written as doubles */
+    private final static int RAW = 0;
+
+    /** Coordinates are written as delta-encoded variable length integers */
+    private final static int DELTA = 1;
+
+    /** Absolute value of the largest coordinate that can be quantized */
+    private final static double MAX_QUANTIZED = 0x1p62;
+
+    private final static int PATH_MOVE = 0;
+    private final static int PATH_LINE = 1;
+    private final static int PATH_QUAD = 2;
+    private final static int PATH_CUBIC = 3;
+    private final static int PATH_CLOSE = 4;
+
+
+    // ===================================================================
+    // class variables
+
+    /** The number of quantization steps per unit, or 0 for raw doubles */
+    private final double scale;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates a codec that writes coordinates as doubles.
+     */
+    public GJBinaryCodec2D() {
+        this.scale = 0;
+    }
+
+    /**
+     * Creates a codec that rounds coordinates to multiples of 1/scale, and
+     * writes them as delta-encoded variable length integers. For example, a
+     * scale of 1000 keeps coordinates with a precision of 1e-3.
+     * @param scale the number of quantization steps per unit
+     */
+    public GJBinaryCodec2D(double scale) {
+        if (!(scale > 0) || Double.isInfinite(scale))
+            throw new IllegalArgumentException(
+                    "Scale must be positive and finite: " + scale);
+        this.scale = scale;
+    }
+
+
+    // ===================================================================
+    // encoding
+
+    /**
+     * Writes the geometry to the output.
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported, or if a coordinate is too large to be quantized
+     */
+    public void write(GJGeometricObject2D geometry, DataOutput output)
+            throws IOException {
+        encode(geometry, new DataSink(output));
+    }
+
+    /**
+     * Writes the geometry at the current position of the buffer.
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported, or if a coordinate is too large to be quantized
+     */
+    public void write(GJGeometricObject2D geometry, ByteBuffer buffer) {
+        try {
+            encode(geometry, new BufferSink(buffer));
+        } catch (IOException ex) {
+            // buffer sinks do not throw IOException
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void encode(GJGeometricObject2D geometry, Sink out)
+            throws IOException {
+        int type = type(geometry);
+        out.writeByte(VERSION);
+        out.writeByte(type);
+        out.writeByte(scale == 0 ? RAW : DELTA);
+        if (scale != 0)
+            out.writeDouble(scale);
+
+        Coordinates coords = new Coordinates(out);
+        switch (type) {
+        case POINT:
+            GJPoint2D point = (GJPoint2D) geometry;
+            coords.write(point.x(), point.y());
+            break;
+        case POLYLINE:
+        case LINEAR_RING:
+            coords.write(((GJLinearCurve2D) geometry).vertices);
+            break;
+        case SIMPLE_POLYGON:
+            coords.write(((GJSimplePolygon2D) geometry).vertices);
+            break;
+        case MULTI_POLYGON:
+            GJMultiPolygon2D polygon = (GJMultiPolygon2D) geometry;
+            writeVarLong(out, polygon.rings.size());
+            for (GJLinearRing2D ring : polygon.rings)
+                coords.write(ring.vertices);
+            break;
+        case CIRCLE_ARC:
+            GJCircleArc2D arc = (GJCircleArc2D) geometry;
+            out.writeDouble(arc.circle.xc);
+            out.writeDouble(arc.circle.yc);
+            out.writeDouble(arc.circle.r);
+            out.writeDouble(arc.startAngle);
+            out.writeDouble(arc.angleExtent);
+            break;
+        case GENERAL_PATH:
+            GJGeneralPath2D path = (GJGeneralPath2D) geometry;
+            writeVarLong(out, path.segments.size());
+            for (GJGeneralPath2D.Segment segment : path.segments) {
+                out.writeByte(pathType(segment.type()));
+                for (GJPoint2D p : segment.controlPoints())
+                    coords.write(p.x(), p.y());
+            }
+            break;
+        }
+    }
+
+    private static int type(GJGeometricObject2D geometry) {
+        if (geometry instanceof GJPoint2D)
+            return POINT;
+        if (geometry instanceof GJPolyline2D)
+            return POLYLINE;
+        if (geometry instanceof GJLinearRing2D)
+            return LINEAR_RING;
+        if (geometry instanceof GJSimplePolygon2D)
+            return SIMPLE_POLYGON;
+        if (geometry instanceof GJMultiPolygon2D)
+            return MULTI_POLYGON;
+        if (geometry instanceof GJCircleArc2D)
+            return CIRCLE_ARC;
+        if (geometry instanceof GJGeneralPath2D)
+            return GENERAL_PATH;
+        throw new IllegalArgumentException("Unsupported geometry class: "
+                + geometry.getClass().getName());
+    }
+
+    private static int pathType(GJGeneralPath2D.Type type) {
+        switch (type) {
+        case MOVE:
+            return PATH_MOVE;
+        case LINE:
+            return PATH_LINE;
+        case QUAD:
+            return PATH_QUAD;
+        case CUBIC:
+            return PATH_CUBIC;
+        default:
+            return PATH_CLOSE;
+        }
+    }
+
+
+    // ===================================================================
+    // decoding
+
+    /**
+     * Reads a geometry written by any codec.
+     * @throws StreamCorruptedException if the data do not correspond to an
+     *             encoded geometry
+     */
+    public static GJGeometricObject2D read(DataInput input)
+            throws IOException {
+        return decode(new DataSource(input));
+    }
+
+    /**
+     * Reads a geometry written by any codec, from the current position of
+     * the buffer.
+     * @throws java.nio.BufferUnderflowException if the buffer ends before
+     *             the geometry
+     * @throws StreamCorruptedException if the data do not correspond to an
+     *             encoded geometry
+     */
+    public static GJGeometricObject2D read(ByteBuffer buffer)
+            throws IOException {
+        return decode(new BufferSource(buffer));
+    }
+
+    private static GJGeometricObject2D decode(Source in) throws IOException {
+        int version = in.readByte();
+        if (version != VERSION)
+            throw new StreamCorruptedException(
+                    "Unsupported format version: " + version);
+        int type = in.readByte();
+        int encoding = in.readByte();
+        double scale;
+        if (encoding == RAW)
+            scale = 0;
+        else if (encoding == DELTA)
+            scale = in.readDouble();
+        else
+            throw new StreamCorruptedException(
+                    "Unknown coordinate encoding: " + encoding);
+
+        CoordinateReader coords = new CoordinateReader(in, scale);
+        switch (type) {
+        case POINT:
+            return new GJPoint2D(coords.readX(), coords.readY());
+        case POLYLINE: {
+            int n = readCount(in);
+            GJPolyline2D polyline = new GJPolyline2D(
+                    Math.min(n, MAX_PREALLOCATION));
+            coords.read(polyline.vertices, n);
+            return polyline;
+        }
+        case LINEAR_RING:
+            return readRing(in, coords);
+        case SIMPLE_POLYGON: {
+            int n = readCount(in);
+            GJSimplePolygon2D polygon = new GJSimplePolygon2D(
+                    Math.min(n, MAX_PREALLOCATION));
+            coords.read(polygon.vertices, n);
+            return polygon;
+        }
+        case MULTI_POLYGON: {
+            int nRings = readCount(in);
+            GJMultiPolygon2D polygon = new GJMultiPolygon2D(
+                    Math.min(nRings, MAX_PREALLOCATION));
+            for (int i = 0; i < nRings; i++)
+                polygon.addRing(readRing(in, coords));
+            return polygon;
+        }
+        case CIRCLE_ARC: {
+            double xc = in.readDouble();
+            double yc = in.readDouble();
+            double r = in.readDouble();
+            double start = in.readDouble();
+            double extent = in.readDouble();
+            return new GJCircleArc2D(xc, yc, r, start, extent);
+        }
+        case GENERAL_PATH:
+            return readPath(in, coords);
+        default:
+            throw new StreamCorruptedException("Unknown geometry type: "
+                    + type);
+        }
+    }
+
+    private static GJLinearRing2D readRing(Source in,
+            CoordinateReader coords) throws IOException {
+        int n = readCount(in);
+        GJLinearRing2D ring = new GJLinearRing2D(
+                Math.min(n, MAX_PREALLOCATION));
+        coords.read(ring.vertices, n);
+        return ring;
+    }
+
+    private static GJGeneralPath2D readPath(Source in,
+            CoordinateReader coords) throws IOException {
+        int n = readCount(in);
+        GJGeneralPath2D path = new GJGeneralPath2D();
+        for (int i = 0; i < n; i++) {
+            int type = in.readByte();
+            switch (type) {
+            case PATH_MOVE:
+                path.moveTo(coords.readPoint());
+                break;
+            case PATH_LINE:
+                path.lineTo(coords.readPoint());
+                break;
+            case PATH_QUAD:
+                path.quadTo(coords.readPoint(), coords.readPoint());
+                break;
+            case PATH_CUBIC:
+                path.cubicTo(coords.readPoint(), coords.readPoint(),
+                        coords.readPoint());
+                break;
+            case PATH_CLOSE:
+                path.closePath();
+                break;
+            default:
+                throw new StreamCorruptedException(
+                        "Unknown path segment type: " + type);
+            }
+        }
+        return path;
+    }
+
+    private static int readCount(Source in) throws IOException {
+        long n = readVarLong(in);
+        if (n < 0 || n > Integer.MAX_VALUE)
+            throw new StreamCorruptedException("Invalid element count: " + n);
+        return (int) n;
+    }
+
+
+    // ===================================================================
+    // variable length integers
+
+    /**
+     * Writes a non negative value with 7 bits per byte, the highest bit
+     * indicating whether other bytes follow.
+     */
+    private static void writeVarLong(Sink out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(Source in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Malformed variable length integer");
+    }
+
+
+    // ===================================================================
+    // coordinates
+
+    /**
+     * Writes coordinates of a geometry, either as doubles or as differences
+     * with the previous coordinates.
+     */
+    private class Coordinates {
+        final Sink out;
+        long x = 0, y = 0;
+
+        Coordinates(Sink out) {
+            this.out = out;
+        }
+
+        void write(GJPackedPointList2D vertices) throws IOException {
+            int n = vertices.size();
+            writeVarLong(out, n);
+            for (int i = 0; i < n; i++)
+                write(vertices.x(i), vertices.y(i));
+        }
+
+        void write(double x, double y) throws IOException {
+            if (scale == 0) {
+                out.writeDouble(x);
+                out.writeDouble(y);
+                return;
+            }
+            long qx = quantize(x), qy = quantize(y);
+            writeVarLong(out, zigzag(qx - this.x));
+            writeVarLong(out, zigzag(qy - this.y));
+            this.x = qx;
+            this.y = qy;
+        }
+
+        long quantize(double value) {
+            double q = Math.rint(value * scale);
+            if (!(Math.abs(q) < MAX_QUANTIZED))
+                throw new IllegalArgumentException(
+                        "Coordinate can not be quantized: " + value);
+            return (long) q;
+        }
+    }
+
+    /**
+     * Reads coordinates written by the Coordinates class.
+     */
+    private static class CoordinateReader {
+        final Source in;
+        final double scale;
+        long x = 0, y = 0;
+
+        CoordinateReader(Source in, double scale) {
+            this.in = in;
+            this.scale = scale;
+        }
+
+        void read(GJPackedPointList2D vertices, int n) throws IOException {
+            vertices.ensureCapacity(Math.min(n, MAX_PREALLOCATION));
+            for (int i = 0; i < n; i++)
+                vertices.add(readX(), readY());
+        }
+
+        GJPoint2D readPoint() throws IOException {
+            return new GJPoint2D(readX(), readY());
+        }
+
+        double readX() throws IOException {
+            if (scale == 0)
+                return in.readDouble();
+            x += unzigzag(readVarLong(in));
+            return x / scale;
+        }
+
+        double readY() throws IOException {
+            if (scale == 0)
+                return in.readDouble();
+            y += unzigzag(readVarLong(in));
+            return y / scale;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    // ===================================================================
+    // inner classes for reading and writing bytes
+
+    private interface Sink {
+        void writeByte(int b) throws IOException;
+        void writeDouble(double value) throws IOException;
+    }
+
+    private interface Source {
+        int readByte() throws IOException;
+        double readDouble() throws IOException;
+    }
+
+    private static class DataSink implements Sink {
+        final DataOutput output;
+
+        DataSink(DataOutput output) {
+            this.output = output;
+        }
+
+        public void writeByte(int b) throws IOException {
+            output.writeByte(b);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            output.writeDouble(value);
+        }
+    }
+
+    private static class DataSource implements Source {
+        final DataInput input;
+
+        DataSource(DataInput input) {
+            this.input = input;
+        }
+
+        public int readByte() throws IOException {
+            return input.readUnsignedByte();
+        }
+
+        public double readDouble() throws IOException {
+            return input.readDouble();
+        }
+    }
+
+    private static class BufferSink implements Sink {
+        final ByteBuffer buffer;
+        final boolean swap;
+
+        BufferSink(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.swap = buffer.order() != ByteOrder.BIG_ENDIAN;
+        }
+
+        public void writeByte(int b) {
+            buffer.put((byte) b);
+        }
+
+        public void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            buffer.putLong(swap ? Long.reverseBytes(bits) : bits);
+        }
+    }
+
+    private static class BufferSource implements Source {
+        final ByteBuffer buffer;
+        final boolean swap;
+
+        BufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.swap = buffer.order() != ByteOrder.BIG_ENDIAN;
+        }
+
+        public int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        public double readDouble() {
+            long bits = buffer.getLong();
+            return Double.longBitsToDouble(swap ? Long.reverseBytes(bits) : bits);
+        }
+    }
+}
@@ -174,6 +174,18 @@ public class GJBox2D implements GJGeometricObject2D, Cloneable {
 		return true;
 	}
 
+	/**
+	 * Checks which points, given by their coordinates, are contained in the
+	 * box, and stores the results in the output array.
+	 */
+	public void containsAll(double[] xs, double[] ys, boolean[] result) {
+		for (int i = 0; i < xs.length; i++) {
+			double x = xs[i];
+			double y = ys[i];
+			result[i] = !(x < xmin || y < ymin || x > xmax || y > ymax);
+		}
+	}
+
     /**
      * Tests if the specified Shape is totally contained in this GJBox2D. Note that
      * the test is performed on the bounding box of the shape, then for rotated
@@ -433,6 +445,18 @@ public class GJBox2D implements GJGeometricObject2D, Cloneable {
         return new GJBox2D(xmin, xmax, ymin, ymax);
     }
 
+    /**
+     * Returns true if this box and the specified box share at least one
+     * point, boundaries included.
+     * 
+     * @param box the bounding box to test
+     * @return true if the two boxes intersect
+     */
+    public boolean intersects(GJBox2D box) {
+        return !(box.xmax < this.xmin || box.xmin > this.xmax
+                || box.ymax < this.ymin || box.ymin > this.ymax);
+    }
+
     /**
      * Changes the bounds of this box to also include bounds of the argument.
      * 
@@ -613,6 +637,16 @@ public class GJBox2D implements GJGeometricObject2D, Cloneable {
         
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, xmin);
+        hash = GJHashCodeUtils.hash(hash, xmax);
+        hash = GJHashCodeUtils.hash(hash, ymin);
+        hash = GJHashCodeUtils.hash(hash, ymax);
+        return hash;
+    }
     
 	/**
 	 * @deprecated not necessary to clone immutable objects (0.11.2)
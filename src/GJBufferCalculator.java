@@ -1,6 +1,10 @@
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 
 /**
@@ -9,7 +13,10 @@ import java.util.Iterator;
  * This class can be instantiated, but also contains a lot of static methods.
  * The default instance of GJBufferCalculator is accessible through the static
  * method 'getDefaultInstance'. The public constructor can be called if
- * different cap or join need to be specified.
+ * different cap or join need to be specified.<p>
+ * In parallel mode, the buffers of the continuous curves composing a curve
+ * are computed concurrently, and the partial buffers are merged pairwise in
+ * a fork/join tree.
  * 
  * @author dlegland
  *
@@ -30,12 +37,26 @@ public class GJBufferCalculator {
 		return defaultInstance;
 	}
 	
+	/**
+	 * Creates a new buffer calculator with round joins and caps flattened to
+	 * the given chord error. Buffers of linear curves are then computed
+	 * using only line segments.
+	 * @see #computePolygonalBuffer(GJCirculinearCurve2D, double, double)
+	 */
+	public static GJBufferCalculator createPolygonalInstance(double tolerance) {
+		return new GJBufferCalculator(new GJRoundJoinFactory(tolerance),
+				new GJRoundCapFactory(tolerance));
+	}
+	
     // ===================================================================
     // Class variables
 
 	private GJJoinFactory joinFactory;
 	private GJCapFactory capFactory;
 	
+	/** Flag for computing buffers of curve sets in parallel */
+	private boolean parallel = false;
+	
     // ===================================================================
     // Constructors
 
@@ -56,6 +77,29 @@ public class GJBufferCalculator {
 	}
 	
 	
+    // ===================================================================
+    // Accessors
+
+	/**
+	 * Returns true if buffers of curves made of several continuous curves are
+	 * computed in parallel.
+	 */
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Enables or disables the parallel computation of buffers. In parallel
+	 * mode, the buffer of each continuous curve is computed in a separate
+	 * task, and partial buffers are merged pairwise. The resulting domain
+	 * has the same shape as in sequential mode, but its boundary may be
+	 * split into different contours.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	
     // ===================================================================
     // General methods
 
@@ -226,38 +270,99 @@ public class GJBufferCalculator {
 	public GJCirculinearDomain2D computeBuffer(
             GJCirculinearCurve2D curve, double dist) {
 		
+		ArrayList<GJCirculinearContinuousCurve2D> curves =
+			new ArrayList<GJCirculinearContinuousCurve2D>(curve.continuousCurves());
+		
+		ArrayList<GJCirculinearContour2D> contours2;
+		if (parallel && curves.size() > 1) {
+			// compute and merge partial buffers of continuous curves
+			contours2 = new BufferTask(curves, 0, curves.size(), dist).invoke();
+		} else {
+			ArrayList<GJCirculinearContour2D> contours =
+				new ArrayList<GJCirculinearContour2D>();
+			
+			// iterate on all continuous curves
+			for (GJCirculinearContinuousCurve2D cont : curves)
+				contours.addAll(computeBufferContinuousCurve(cont, dist));
+			
+			// split contours which intersect each others
+			contours = new ArrayList<GJCirculinearContour2D>(
+					GJCirculinearCurves2D.splitIntersectingContours(contours));
+			
+			// Remove contours that cross or that are too close from base curve
+			contours2 = filterContours(contours, curves, curve.vertices(), dist);
+		}
+		
+		// All the rings are created, we can now createFromCollection a new domain with the
+		// set of rings
+		return new GJGenericCirculinearDomain2D(
+				GJCirculinearContourArray2D.createCirculinearContour2DFromCollection(contours2));
+	}
+	
+	/**
+	 * Computes the contours of the buffer of a continuous curve, before
+	 * splitting intersecting contours.
+	 */
+	private Collection<GJCirculinearContour2D> computeBufferContinuousCurve(
+			GJCirculinearContinuousCurve2D cont, double dist) {
 		ArrayList<GJCirculinearContour2D> contours =
 			new ArrayList<GJCirculinearContour2D>();
 		
-		// iterate on all continuous curves
-		for (GJCirculinearContinuousCurve2D cont : curve.continuousCurves()) {
-			// split the curve into a set of non self-intersecting curves
-			for (GJCirculinearContinuousCurve2D splitted :
-				GJCirculinearCurves2D.splitContinuousCurve(cont)) {
-				// compute the rings composing the simple curve buffer
-				contours.addAll(computeBufferSimpleCurve(splitted, dist));
-			}
+		// split the curve into a set of non self-intersecting curves
+		for (GJCirculinearContinuousCurve2D splitted :
+			GJCirculinearCurves2D.splitContinuousCurve(cont)) {
+			// compute the rings composing the simple curve buffer
+			contours.addAll(computeBufferSimpleCurve(splitted, dist));
 		}
+		return contours;
+	}
+	
+	/**
+	 * Removes the contours that cross the base curves, or that are too close
+	 * from them. The smooth pieces of the base curves are stored in a spatial
+	 * index, so that each contour is only compared with the pieces close to
+	 * it.
+	 * 
+	 * @param contours the contours to filter
+	 * @param curves the continuous curves composing the base curve
+	 * @param vertices the vertices of the base curve, that are not
+	 *            considered as crossing points
+	 * @param dist the buffer distance
+	 */
+	private ArrayList<GJCirculinearContour2D> filterContours(
+			Collection<GJCirculinearContour2D> contours,
+			List<? extends GJCirculinearContinuousCurve2D> curves,
+			Collection<GJPoint2D> vertices, double dist) {
+		
+		// index the smooth pieces of the base curves
+		ArrayList<GJCirculinearElement2D> elements =
+			new ArrayList<GJCirculinearElement2D>();
+		for (GJCirculinearContinuousCurve2D cont : curves)
+			elements.addAll(cont.smoothPieces());
+		GJShapeIndex2D<GJCirculinearElement2D> index =
+			new GJShapeIndex2D<GJCirculinearElement2D>(elements);
 		
-		// split contours which intersect each others
-		contours = new ArrayList<GJCirculinearContour2D>(
-				GJCirculinearCurves2D.splitIntersectingContours(contours));
-		
-		// Remove contours that cross or that are too close from base curve
 		ArrayList<GJCirculinearContour2D> contours2 =
 			new ArrayList<GJCirculinearContour2D>(contours.size());
-		Collection<GJPoint2D> intersects;
-		Collection<GJPoint2D> vertices;
+		ArrayList<GJCirculinearElement2D> candidates =
+			new ArrayList<GJCirculinearElement2D>();
+		ArrayList<GJPoint2D> intersects = new ArrayList<GJPoint2D>();
+		
+		// hash the vertices, for removing them in constant time per point
+		HashSet<GJPoint2D> vertexSet = new HashSet<GJPoint2D>(vertices);
 		
 		for (GJCirculinearContour2D contour : contours) {
 			
 			// do not keep contours which cross original curve
-			intersects = GJCirculinearCurves2D.findIntersections(curve, contour);
+			candidates.clear();
+			queryBounds(index, contour, GJShape2D.ACCURACY, candidates);
+			intersects.clear();
+			for (GJCirculinearElement2D element : candidates)
+				intersects.addAll(
+						GJCirculinearCurves2D.findIntersections(element, contour));
 			
 			// remove intersection points that are vertices of the reference curve
-			vertices = curve.singularPoints();
-			vertices = curve.vertices();
-			intersects.removeAll(vertices);
+			intersects.removeAll(vertexSet);
 			
 			if (intersects.size() > 0)
 				continue;
@@ -265,18 +370,89 @@ public class GJBufferCalculator {
 			// check that vertices of contour are not too close from original
 			// curve
 			double distCurves = 
-				getDistanceCurveSingularPoints(curve, contour);
+				getDistanceCurveSingularPoints(index, contour);
 			if(distCurves < dist- GJShape2D.ACCURACY)
 				continue;
 			
 			// keep the contours that meet the above conditions
 			contours2.add(contour);
 		}
+		return contours2;
+	}
+	
+	/**
+	 * Adds to the collection the shapes of the index whose bounds intersect
+	 * the bounds of the curve enlarged by the margin, or all shapes if the
+	 * curve is unbounded.
+	 */
+	private static <T extends GJShape2D> void queryBounds(
+			GJShapeIndex2D<T> index, GJCurve2D curve, double margin,
+			Collection<T> result) {
+		double xmin = Double.NEGATIVE_INFINITY, xmax = Double.POSITIVE_INFINITY;
+		double ymin = Double.NEGATIVE_INFINITY, ymax = Double.POSITIVE_INFINITY;
+		if (curve.isBounded()) {
+			GJBox2D box = curve.boundingBox();
+			xmin = Math.min(box.getMinX(), box.getMaxX()) - margin;
+			xmax = Math.max(box.getMinX(), box.getMaxX()) + margin;
+			ymin = Math.min(box.getMinY(), box.getMaxY()) - margin;
+			ymax = Math.max(box.getMinY(), box.getMaxY()) + margin;
+		}
+		if (Double.isNaN(xmin + xmax + ymin + ymax)) {
+			xmin = ymin = Double.NEGATIVE_INFINITY;
+			xmax = ymax = Double.POSITIVE_INFINITY;
+		}
+		index.query(xmin, xmax, ymin, ymax, result);
+	}
+	
+	/**
+	 * Computes the buffer contours of a range of continuous curves, by
+	 * recursively computing buffers of each half of the range and merging
+	 * them. Contours of each partial buffer are filtered against the curves
+	 * of the range.
+	 */
+	private class BufferTask
+	extends RecursiveTask<ArrayList<GJCirculinearContour2D>> {
+		private static final long serialVersionUID = 1L;
+		
+		final List<GJCirculinearContinuousCurve2D> curves;
+		final int lo, hi;
+		final double dist;
+		
+		BufferTask(List<GJCirculinearContinuousCurve2D> curves, int lo, int hi,
+				double dist) {
+			this.curves = curves;
+			this.lo = lo;
+			this.hi = hi;
+			this.dist = dist;
+		}
 		
-		// All the rings are created, we can now createFromCollection a new domain with the
-		// set of rings
-		return new GJGenericCirculinearDomain2D(
-				GJCirculinearContourArray2D.createCirculinearContour2DFromCollection(contours2));
+		@Override
+		protected ArrayList<GJCirculinearContour2D> compute() {
+			ArrayList<GJCirculinearContour2D> contours =
+				new ArrayList<GJCirculinearContour2D>();
+			if (hi - lo == 1) {
+				contours.addAll(computeBufferContinuousCurve(curves.get(lo), dist));
+			} else {
+				int mid = (lo + hi) >>> 1;
+				BufferTask task1 = new BufferTask(curves, lo, mid, dist);
+				BufferTask task2 = new BufferTask(curves, mid, hi, dist);
+				ForkJoinTask.invokeAll(task1, task2);
+				contours.addAll(task1.join());
+				contours.addAll(task2.join());
+			}
+			
+			// split contours which intersect each others
+			contours = new ArrayList<GJCirculinearContour2D>(
+					GJCirculinearCurves2D.splitIntersectingContours(contours));
+			
+			// Remove contours that cross or that are too close from the
+			// curves of the range
+			List<GJCirculinearContinuousCurve2D> range = curves.subList(lo, hi);
+			ArrayList<GJPoint2D> vertices = new ArrayList<GJPoint2D>();
+			for (GJCirculinearContinuousCurve2D cont : range)
+				vertices.addAll(cont.vertices());
+			return filterContours(contours, range, vertices, dist);
+		}
 	}
 	
 	/**
@@ -296,6 +472,13 @@ public class GJBufferCalculator {
 		// process circles to remove intersections
 		contours = GJCirculinearCurves2D.splitIntersectingContours(contours);
 		
+		// index the points, to compare each contour only with the points
+		// whose distance may be lower than buffer distance
+		GJShapeIndex2D<GJPoint2D> index =
+			new GJShapeIndex2D<GJPoint2D>(set.points());
+		ArrayList<GJPoint2D> candidates = new ArrayList<GJPoint2D>();
+		double margin = Math.abs(dist) + GJShape2D.ACCURACY;
+		
 		// Remove contours that cross or that are too close from base curve
 		ArrayList<GJCirculinearContour2D> contours2 =
 			new ArrayList<GJCirculinearContour2D>(contours.size());
@@ -303,8 +486,12 @@ public class GJBufferCalculator {
 			
 			// check that vertices of contour are not too close from original
 			// curve
-			double minDist = GJCirculinearCurves2D.getDistanceCurvePoints(
-					ring, set.points());
+			// (points outside of the enlarged box can not be too close)
+			candidates.clear();
+			queryBounds(index, ring, margin, candidates);
+			double minDist = Double.MAX_VALUE;
+			for (GJPoint2D point : candidates)
+				minDist = Math.min(minDist, ring.distance(point));
 			if(minDist < dist- GJShape2D.ACCURACY)
 				continue;
 			
@@ -316,6 +503,86 @@ public class GJBufferCalculator {
 				GJCirculinearContourArray2D.createCirculinearContour2DFromCollection(contours2));
 	}
 
+	/**
+	 * Computes an approximation of the buffer of a bounded circulinear curve,
+	 * as a polygon.<p>
+	 * Circle arcs of the curve are first replaced by polylines whose vertices
+	 * lie on the arcs, and whose distance to the arcs is lower than the
+	 * tolerance. The buffer is then computed with the join and cap factories
+	 * of this calculator, and the circle arcs of the resulting contours are
+	 * flattened in the same way. When the factories produce linear joins and
+	 * caps (see createPolygonalInstance), all the intermediate contours are
+	 * composed of line segments.
+	 * @param curve the curve to buffer
+	 * @param dist the buffer distance
+	 * @param tolerance the maximal chord error of flattened arcs
+	 * @throws GJUnboundedShape2DException if the curve is not bounded
+	 */
+	public GJMultiPolygon2D computePolygonalBuffer(
+			GJCirculinearCurve2D curve, double dist, double tolerance) {
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		if (!curve.isBounded())
+			throw new GJUnboundedShape2DException(curve);
+		
+		// convert each continuous curve to a polyline or a linear ring
+		Collection<? extends GJCirculinearContinuousCurve2D> curves =
+			curve.continuousCurves();
+		GJCirculinearCurveArray2D<GJLinearCurve2D> linearCurves =
+			new GJCirculinearCurveArray2D<GJLinearCurve2D>(curves.size());
+		for (GJCirculinearContinuousCurve2D cont : curves) {
+			boolean closed = cont.isClosed();
+			List<GJPoint2D> vertices = flattenVertices(cont, tolerance);
+			if (closed) {
+				linearCurves.add(new GJLinearRing2D(vertices));
+			} else {
+				vertices.add(cont.lastPoint());
+				linearCurves.add(new GJPolyline2D(vertices));
+			}
+		}
+		
+		// compute buffer of linear curves
+		GJCirculinearDomain2D buffer = computeBuffer(linearCurves, dist);
+		
+		// convert each contour of the buffer to a linear ring
+		Collection<? extends GJCirculinearContour2D> contours =
+			buffer.boundary().continuousCurves();
+		ArrayList<GJLinearRing2D> rings =
+			new ArrayList<GJLinearRing2D>(contours.size());
+		for (GJCirculinearContour2D contour : contours) {
+			List<GJPoint2D> vertices = GJPointSets2D.filterMultipleVertices(
+					flattenVertices(contour, tolerance), true);
+			if (vertices.size() > 2)
+				rings.add(new GJLinearRing2D(vertices));
+		}
+		
+		return new GJMultiPolygon2D(rings);
+	}
+	
+	/**
+	 * Returns the vertices of the polyline approximating the continuous
+	 * curve, without the last point. Circle arcs and circles are flattened
+	 * with the given tolerance, other smooth pieces are assumed to be linear.
+	 */
+	private static List<GJPoint2D> flattenVertices(
+			GJCirculinearContinuousCurve2D curve, double tolerance) {
+		ArrayList<GJPoint2D> vertices = new ArrayList<GJPoint2D>();
+		for (GJCirculinearElement2D element : curve.smoothPieces()) {
+			if (element instanceof GJCircleArc2D) {
+				GJPolyline2D polyline = ((GJCircleArc2D) element).flatten(tolerance);
+				int n = polyline.vertexNumber();
+				for (int i = 0; i < n - 1; i++)
+					vertices.add(polyline.vertex(i));
+			} else if (element instanceof GJCircle2D) {
+				vertices.addAll(
+						((GJCircle2D) element).flatten(tolerance).vertices());
+			} else {
+				vertices.add(element.firstPoint());
+			}
+		}
+		return vertices;
+	}
+	
 	/**
 	 * Computes the buffer of a simple curve.
 	 * This method should replace the method 'computeBufferSimpleContour'.
@@ -491,7 +758,8 @@ public class GJBufferCalculator {
 	}
 	
 	private double getDistanceCurveSingularPoints(
-            GJCirculinearCurve2D ref, GJCirculinearCurve2D curve){
+            GJShapeIndex2D<? extends GJCirculinearElement2D> ref,
+            GJCirculinearCurve2D curve){
 		// extract singular points
 		Collection<GJPoint2D> points = curve.singularPoints();
 		
@@ -505,7 +773,7 @@ public class GJBufferCalculator {
 		// Iterate on points to get minimal distance
 		double minDist = Double.MAX_VALUE;
 		for (GJPoint2D point : points){
-			minDist = Math.min(minDist, ref.distance(point));
+			minDist = Math.min(minDist, ref.distance(point.x(), point.y()));
 		}
 		return minDist;
 	}
@@ -701,6 +701,17 @@ Cloneable {
 	public GJLinearRing2D asPolyline(int n) {
         return this.asPolylineClosed(n);
 	}
+
+	/**
+	 * Converts this circle to a linear ring whose vertices lie on the circle,
+	 * such that the distance between each edge and the circle does not
+	 * exceed the given tolerance.
+	 * @see GJCircleArc2D#flatteningSteps(double, double, double)
+	 */
+	public GJLinearRing2D flatten(double tolerance) {
+        return this.asPolylineClosed(
+        		GJCircleArc2D.flatteningSteps(r, 2 * PI, tolerance));
+	}
 	
 
 	// ===================================================================
@@ -1017,6 +1028,16 @@ Cloneable {
         return super.equals(obj);
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, xc);
+        hash = GJHashCodeUtils.hash(hash, yc);
+        hash = GJHashCodeUtils.hash(hash, r);
+        hash = GJHashCodeUtils.hash(hash, direct);
+        return hash;
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
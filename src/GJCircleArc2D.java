@@ -423,6 +423,70 @@ implements GJCircularShape2D, GJCirculinearElement2D, Cloneable {
         return new GJPolyline2D(points);
 	}
 
+	/**
+	 * Converts this circle arc to a polyline whose vertices lie on the arc,
+	 * using the smallest number of edges such that the distance between each
+	 * edge and the arc does not exceed the given tolerance.
+	 */
+	public GJPolyline2D flatten(double tolerance) {
+		return asPolyline(
+				flatteningSteps(circle.radius(), angleExtent, tolerance));
+	}
+
+	/**
+	 * Converts this circle arc to a polyline that encloses the arc, and whose
+	 * distance to the arc does not exceed the given tolerance. The polyline
+	 * starts and ends at the arc extremities, and its inner vertices are
+	 * regularly distributed around the arc, far enough from the circle such
+	 * that no edge enters the disk. Therefore no point of the polyline is
+	 * closer to the arc center than the radius, and the first and last edges
+	 * are not colinear with the tangents at the arc extremities.
+	 */
+	public GJPolyline2D flattenOutside(double tolerance) {
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		// maximal angle step, such that r/cos(step) <= r + tolerance
+		double r = circle.radius();
+		double step = min(PI / 3, acos(r / (r + tolerance)));
+		int n = max(1, (int) ceil(abs(angleExtent) / step - GJShape2D.ACCURACY));
+		
+		// Inner vertices are located at the middle of n angular sectors. 
+		// Their radius ensures the first edge lies strictly outside the
+		// tangent at the first point, and inner edges outside the circle.
+		double dt = angleExtent / n;
+		double r2 = r / cos(dt);
+		GJPoint2D center = circle.center();
+		
+		GJPoint2D[] points = new GJPoint2D[n + 2];
+		points[0] = this.firstPoint();
+		for (int i = 0; i < n; i++)
+			points[i + 1] = GJPoint2D.createPolar(center, r2,
+					startAngle + (i + .5) * dt);
+		points[n + 1] = this.lastPoint();
+		
+		return new GJPolyline2D(points);
+	}
+	
+	/**
+	 * Returns the number of edges required for approximating a circle arc
+	 * with the given radius and angle extent by a polyline, such that the
+	 * chord error does not exceed the tolerance. The angle step is bounded by
+	 * 2*PI/3, such that a full circle is approximated by at least a triangle.
+	 */
+	public static int flatteningSteps(double radius, double angleExtent,
+			double tolerance) {
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		// maximal angle step, such that sagitta r*(1-cos(step/2)) <= tolerance
+		double step = 2 * PI / 3;
+		if (tolerance < radius)
+			step = min(step, 2 * acos(1 - tolerance / radius));
+		
+		return max(1, (int) ceil(abs(angleExtent) / step - GJShape2D.ACCURACY));
+	}
+
 
     // ====================================================================
     // methods from interface GJCurve2D
@@ -924,6 +988,15 @@ implements GJCircularShape2D, GJCirculinearElement2D, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, circle);
+        hash = GJHashCodeUtils.hash(hash, startAngle);
+        hash = GJHashCodeUtils.hash(hash, angleExtent);
+        return hash;
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
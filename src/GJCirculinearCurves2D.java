@@ -1,7 +1,12 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Some utilities for working with circulinear curves.
@@ -154,20 +159,24 @@ public class GJCirculinearCurves2D {
 		// createFromCollection array for storing result
 		ArrayList<GJPoint2D> result = new ArrayList<GJPoint2D>(0);
 
-		// iterate on each couple of elements
+		// iterate on each couple of elements with overlapping bounds, in the
+		// same order as a loop over all couples (i, j) with i <= j
 		int n = elements.size();
-		for (int i = 0; i < n - 1; i++) {
+		long[] pairs = candidatePairs(elements, true);
+		for (long pair : pairs) {
+			int i = (int) (pair / n);
+			int j = (int) (pair % n);
+			if (i >= n - 1)
+				continue;
 			GJCirculinearElement2D elem1 = elements.get(i);
-			for (int j = i; j < n; j++) {
-				GJCirculinearElement2D elem2 = elements.get(j);
-				// iterate on intersections between consecutive elements
-				for (GJPoint2D inter : findIntersections(elem1, elem2)) {
-					// do not keep extremities
-					if (isCommonVertex(inter, elem1, elem2))
-						continue;
-
-					result.add(inter);
-				}
+			GJCirculinearElement2D elem2 = elements.get(j);
+			// iterate on intersections between consecutive elements
+			for (GJPoint2D inter : findIntersections(elem1, elem2)) {
+				// do not keep extremities
+				if (isCommonVertex(inter, elem1, elem2))
+					continue;
+
+				result.add(inter);
 			}
 		}
 
@@ -181,44 +190,104 @@ public class GJCirculinearCurves2D {
 		// createFromCollection array for storing result
 		ArrayList<Double> list1 = new ArrayList<Double>(0);
 		ArrayList<Double> list2 = new ArrayList<Double>(0);
+		ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>(0);
 		double dt;
 
-		// iterate on each couple of elements
-		int n = curve.size();
-		for (int i = 0; i < n - 1; i++) {
-			GJCirculinearElement2D elem1 = curve.get(i);
-			for (int j = i + 1; j < n; j++) {
-				GJCirculinearElement2D elem2 = curve.get(j);
-				// iterate on intersection between consecutive elements
-				for (GJPoint2D inter : findIntersections(elem1, elem2)) {
-					// do not keep extremities
-					if (isCommonVertex(inter, elem1, elem2))
-						continue;
-
-					// add the intersection if we keep it
-					dt = GJCurves2D.toUnitSegment(elem1.position(inter),
-							elem1.t0(), elem1.t1());
-					list1.add(2 * i + dt);
-
-					dt = GJCurves2D.toUnitSegment(elem2.position(inter),
-							elem2.t0(), elem2.t1());
-					list2.add(2 * j + dt);
-				}
+		// iterate on each couple of elements with overlapping bounds
+		ArrayList<GJCirculinearElement2D> elements =
+			new ArrayList<GJCirculinearElement2D>(curve.curves());
+		int n = elements.size();
+		long[] pairs = candidatePairs(elements, false);
+		for (long pair : pairs) {
+			int i = (int) (pair / n);
+			int j = (int) (pair % n);
+			GJCirculinearElement2D elem1 = elements.get(i);
+			GJCirculinearElement2D elem2 = elements.get(j);
+			// iterate on intersection between consecutive elements
+			for (GJPoint2D inter : findIntersections(elem1, elem2)) {
+				// do not keep extremities
+				if (isCommonVertex(inter, elem1, elem2))
+					continue;
+
+				// add the intersection if we keep it
+				dt = GJCurves2D.toUnitSegment(elem1.position(inter),
+						elem1.t0(), elem1.t1());
+				list1.add(2 * i + dt);
+
+				dt = GJCurves2D.toUnitSegment(elem2.position(inter),
+						elem2.t0(), elem2.t1());
+				list2.add(2 * j + dt);
+				points.add(inter);
 			}
 		}
 
+		// an intersection located at a vertex of the curve is found with
+		// each element containing the vertex, and must be kept only once
+		boolean[] multiple = findMultiplePoints(points);
+
 		// convert the 2 lists into a n*2 array
-		int np = list1.size();
+		int np = 0;
+		for (boolean b : multiple)
+			if (!b)
+				np++;
 		double[][] result = new double[np][2];
-		for (int i = 0; i < np; i++) {
-			result[i][0] = list1.get(i);
-			result[i][1] = list2.get(i);
+		for (int i = 0, k = 0; i < multiple.length; i++) {
+			if (multiple[i])
+				continue;
+			result[k][0] = list1.get(i);
+			result[k][1] = list2.get(i);
+			k++;
 		}
 
 		// return the array of positions
 		return result;
 	}
 
+	/**
+	 * Identifies the points that are almost equal to a previous point of the
+	 * list, by sorting them along the x axis.
+	 * @return an array of flags indicating points to be discarded
+	 */
+	private static boolean[] findMultiplePoints(final List<GJPoint2D> points) {
+		int n = points.size();
+		boolean[] multiple = new boolean[n];
+		if (n < 2)
+			return multiple;
+
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(points.get(i1).x(), points.get(i2).x());
+			}
+		});
+
+		for (int k1 = 0; k1 < n; k1++) {
+			int a = order[k1];
+			if (multiple[a])
+				continue;
+			GJPoint2D p1 = points.get(a);
+			double eps = GJShape2D.ACCURACY
+					* (1 + Math.max(Math.abs(p1.x()), Math.abs(p1.y())));
+			for (int k2 = k1 + 1; k2 < n; k2++) {
+				int b = order[k2];
+				GJPoint2D p2 = points.get(b);
+				if (p2.x() - p1.x() > eps)
+					break;
+				if (Math.abs(p2.y() - p1.y()) > eps)
+					continue;
+				// keep the point found first
+				if (b < a) {
+					multiple[a] = true;
+					break;
+				}
+				multiple[b] = true;
+			}
+		}
+		return multiple;
+	}
+
 	/**
 	 * Checks if the point is a common extremity between the two curve elements.
 	 */
@@ -265,18 +334,16 @@ public class GJCirculinearCurves2D {
 		// createFromCollection array for storing result
 		ArrayList<GJPoint2D> result = new ArrayList<GJPoint2D>(0);
 
-		// iterate on each couple of elements
-		int n1 = elements1.size();
+		// iterate on each couple of elements with overlapping bounds
 		int n2 = elements2.size();
-		for (int i = 0; i < n1; i++) {
-			GJCirculinearElement2D elem1 = elements1.get(i);
-			for (int j = 0; j < n2; j++) {
-				GJCirculinearElement2D elem2 = elements2.get(j);
-				// iterate on intersection between consecutive elements
-				for (GJPoint2D inter : findIntersections(elem1, elem2)) {
-					// add the intersection if we keep it
-					result.add(inter);
-				}
+		long[] pairs = candidatePairs(elements1, elements2);
+		for (long pair : pairs) {
+			GJCirculinearElement2D elem1 = elements1.get((int) (pair / n2));
+			GJCirculinearElement2D elem2 = elements2.get((int) (pair % n2));
+			// iterate on intersection between consecutive elements
+			for (GJPoint2D inter : findIntersections(elem1, elem2)) {
+				// add the intersection if we keep it
+				result.add(inter);
 			}
 		}
 
@@ -307,23 +374,21 @@ public class GJCirculinearCurves2D {
 		for (GJCirculinearContinuousCurve2D cont : curve2.continuousCurves())
 			elements2.addAll(cont.smoothPieces());
 
-		// iterate on each couple of elements
-		int n1 = elements1.size();
+		// iterate on each couple of elements with overlapping bounds
 		int n2 = elements2.size();
-		for (int i = 0; i < n1; i++) {
-			GJCirculinearElement2D elem1 = elements1.get(i);
-			for (int j = 0; j < n2; j++) {
-				GJCirculinearElement2D elem2 = elements2.get(j);
-				// iterate on intersections between consecutive elements
-				for (GJPoint2D inter : findIntersections(elem1, elem2)) {
-					double pos1 = curve1.position(inter);
-					double pos2 = curve2.position(inter);
-					if (curve1.isSingular(pos1) && curve2.isSingular(pos2))
-						continue;
-					// add the intersection if we keep it
-					list1.add(pos1);
-					list2.add(pos2);
-				}
+		long[] pairs = candidatePairs(elements1, elements2);
+		for (long pair : pairs) {
+			GJCirculinearElement2D elem1 = elements1.get((int) (pair / n2));
+			GJCirculinearElement2D elem2 = elements2.get((int) (pair % n2));
+			// iterate on intersections between consecutive elements
+			for (GJPoint2D inter : findIntersections(elem1, elem2)) {
+				double pos1 = curve1.position(inter);
+				double pos2 = curve2.position(inter);
+				if (curve1.isSingular(pos1) && curve2.isSingular(pos2))
+					continue;
+				// add the intersection if we keep it
+				list1.add(pos1);
+				list2.add(pos2);
 			}
 		}
 
@@ -339,6 +404,162 @@ public class GJCirculinearCurves2D {
 		return result;
 	}
 
+	/**
+	 * Computes the couples of elements, one from each list, whose bounding
+	 * boxes overlap, using a sort-and-sweep along the x axis. Each couple
+	 * (i, j) is encoded as i * n2 + j, and the result is sorted such that
+	 * couples are processed in the same order as by a double loop over the
+	 * two lists. Elements whose bounds do not overlap can not intersect.
+	 */
+	static long[] candidatePairs(
+			List<? extends GJShape2D> elements1,
+			List<? extends GJShape2D> elements2) {
+		int n1 = elements1.size();
+		int n2 = elements2.size();
+		double[] bounds1 = elementBounds(elements1);
+		double[] bounds2 = elementBounds(elements2);
+		Integer[] order1 = sortByMinX(bounds1, n1);
+		Integer[] order2 = sortByMinX(bounds2, n2);
+
+		long[] pairs = new long[Math.max(n1, n2)];
+		int count = 0;
+
+		// sweep the two sorted lists, starting from the box with smallest x
+		int i1 = 0, i2 = 0;
+		while (i1 < n1 && i2 < n2) {
+			int a = order1[i1];
+			int b = order2[i2];
+			if (bounds1[4 * a] < bounds2[4 * b]) {
+				// report boxes of second list starting within box a
+				for (int k = i2; k < n2; k++) {
+					int c = order2[k];
+					if (bounds2[4 * c] > bounds1[4 * a + 1])
+						break;
+					if (overlapY(bounds1, a, bounds2, c)) {
+						if (count == pairs.length)
+							pairs = Arrays.copyOf(pairs, count * 2);
+						pairs[count++] = (long) a * n2 + c;
+					}
+				}
+				i1++;
+			} else {
+				// report boxes of first list starting within box b
+				for (int k = i1; k < n1; k++) {
+					int c = order1[k];
+					if (bounds1[4 * c] > bounds2[4 * b + 1])
+						break;
+					if (overlapY(bounds1, c, bounds2, b)) {
+						if (count == pairs.length)
+							pairs = Arrays.copyOf(pairs, count * 2);
+						pairs[count++] = (long) c * n2 + b;
+					}
+				}
+				i2++;
+			}
+		}
+
+		pairs = Arrays.copyOf(pairs, count);
+		Arrays.sort(pairs);
+		return pairs;
+	}
+
+	/**
+	 * Computes the couples (i, j) with i < j of elements of the list whose
+	 * bounding boxes overlap, encoded as i * n + j and sorted. If
+	 * includeDiagonal is true, the couples (i, i) are also included.
+	 */
+	static long[] candidatePairs(
+			List<? extends GJShape2D> elements,
+			boolean includeDiagonal) {
+		int n = elements.size();
+		double[] bounds = elementBounds(elements);
+		Integer[] order = sortByMinX(bounds, n);
+
+		long[] pairs = new long[Math.max(n, 1)];
+		int count = 0;
+		if (includeDiagonal) {
+			for (int i = 0; i < n; i++)
+				pairs[count++] = (long) i * n + i;
+		}
+
+		for (int k1 = 0; k1 < n; k1++) {
+			int a = order[k1];
+			for (int k2 = k1 + 1; k2 < n; k2++) {
+				int b = order[k2];
+				if (bounds[4 * b] > bounds[4 * a + 1])
+					break;
+				if (overlapY(bounds, a, bounds, b)) {
+					if (count == pairs.length)
+						pairs = Arrays.copyOf(pairs, count * 2);
+					pairs[count++] = a < b ? (long) a * n + b : (long) b * n + a;
+				}
+			}
+		}
+
+		pairs = Arrays.copyOf(pairs, count);
+		Arrays.sort(pairs);
+		return pairs;
+	}
+
+	/**
+	 * Returns the bounds of the elements as an array of 4n values (xmin,
+	 * xmax, ymin, ymax), enlarged by a tolerance consistent with the
+	 * accuracy used for intersection tests. Unbounded elements get infinite
+	 * bounds.
+	 */
+	private static double[] elementBounds(List<? extends GJShape2D> elements) {
+		int n = elements.size();
+		double[] bounds = new double[4 * n];
+		for (int i = 0; i < n; i++) {
+			GJShape2D elem = elements.get(i);
+			if (!elem.isBounded()) {
+				bounds[4 * i] = Double.NEGATIVE_INFINITY;
+				bounds[4 * i + 1] = Double.POSITIVE_INFINITY;
+				bounds[4 * i + 2] = Double.NEGATIVE_INFINITY;
+				bounds[4 * i + 3] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+
+			// some boxes have swapped bounds, so reorder them
+			GJBox2D box = elem.boundingBox();
+			double xmin = Math.min(box.getMinX(), box.getMaxX());
+			double xmax = Math.max(box.getMinX(), box.getMaxX());
+			double ymin = Math.min(box.getMinY(), box.getMaxY());
+			double ymax = Math.max(box.getMinY(), box.getMaxY());
+			if (Double.isNaN(xmin + xmax + ymin + ymax)) {
+				xmin = ymin = Double.NEGATIVE_INFINITY;
+				xmax = ymax = Double.POSITIVE_INFINITY;
+			}
+			double eps = GJShape2D.ACCURACY * (1 + Math.max(
+					Math.max(Math.abs(xmin), Math.abs(xmax)),
+					Math.max(Math.abs(ymin), Math.abs(ymax))));
+
+			bounds[4 * i] = xmin - eps;
+			bounds[4 * i + 1] = xmax + eps;
+			bounds[4 * i + 2] = ymin - eps;
+			bounds[4 * i + 3] = ymax + eps;
+		}
+		return bounds;
+	}
+
+	private static Integer[] sortByMinX(final double[] bounds, int n) {
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(bounds[4 * i1], bounds[4 * i2]);
+			}
+		});
+		return order;
+	}
+
+	private static boolean overlapY(double[] bounds1, int i1,
+			double[] bounds2, int i2) {
+		return bounds1[4 * i1 + 2] <= bounds2[4 * i2 + 3]
+				&& bounds2[4 * i2 + 2] <= bounds1[4 * i1 + 3];
+	}
+
 	/**
 	 * Computes the intersections, if they exist, of two circulinear elements.
 	 */
@@ -607,100 +828,216 @@ public class GJCirculinearCurves2D {
 	/**
 	 * Split a collection of contours which possibly intersect each other to a
 	 * set of contours which do not intersect each others. Each contour is
-	 * assumed not to self-intersect.
+	 * assumed not to self-intersect.<br>
+	 * Intersections are only computed for couples of contours whose bounding
+	 * boxes overlap. Contours connected by intersections are then processed
+	 * by connected components. For large inputs, both steps run in parallel
+	 * on the fork/join pool, and the resulting contours are returned in the
+	 * same order as a sequential processing.
 	 */
 	public static Collection<GJCirculinearContour2D> splitIntersectingContours(
 			Collection<? extends GJCirculinearContour2D> curves) {
 
-		double pos0 = 0, pos1, pos2;
-
 		// ----------------
 		// Initializations
 
 		// convert collection to array
-		GJCirculinearContour2D[] curveArray =
+		final GJCirculinearContour2D[] curveArray =
 			curves.toArray(new GJCirculinearContour2D[0]);
-
-		// Create array of tree maps for storing
-		// 1) index of crossing curve for each intersection of i-th curve
-		// 2) position on crossing curve of the intersection point
-		int nCurves = curves.size();
-		ArrayList<TreeMap<Double, Integer>> twinIndices = 
-			new ArrayList<TreeMap<Double, Integer>>(nCurves);
-		ArrayList<TreeMap<Double, Double>> twinPositions = 
-			new ArrayList<TreeMap<Double, Double>>(nCurves);
-
-		// Populate the two arrays with empty trees
-		for (int i = 0; i < nCurves; i++) {
-			twinIndices.add(i, new TreeMap<Double, Integer>());
-			twinPositions.add(i, new TreeMap<Double, Double>());
-		}
-
-		// Create array of tree sets for storing positions of intersections
-		// on each curve
-		ArrayList<TreeSet<Double>> positions = 
-			new ArrayList<TreeSet<Double>>(nCurves);
-
-		// populate the array with empty tree sets
-		for (int i = 0; i < nCurves; i++) {
-			positions.add(i, new TreeSet<Double>());
-		}
+		int nCurves = curveArray.length;
 
 		// identify couples of intersections on each couple (i,j) of curves
-		for (int i = 0; i < nCurves - 1; i++) {
-			GJCirculinearContour2D curve1 = curveArray[i];
-
-			for (int j = i + 1; j < nCurves; j++) {
-				GJCirculinearContour2D curve2 = curveArray[j];
-				double[][] couples = locateIntersections(curve1, curve2);
-
-				// iterate on intersections to populate the data
-				for (int k = 0; k < couples.length; k++) {
-					// position on each curve
-					pos1 = couples[k][0];
-					pos2 = couples[k][1];
-
-					// add positions in their tree sets
-					positions.get(i).add(pos1);
-					positions.get(j).add(pos2);
-
-					// store indices of corresponding intersecting curves
-					twinIndices.get(i).put(pos1, j);
-					twinIndices.get(j).put(pos2, i);
-
-					// store positions of intersection point on the
-					// corresponding curve
-					twinPositions.get(i).put(pos1, pos2);
-					twinPositions.get(j).put(pos2, pos1);
-				}
+		// whose bounds overlap
+		final long[] pairs = candidatePairs(Arrays.asList(curveArray), false);
+		final double[][][] couples = new double[pairs.length][][];
+		new RecursiveAction() {
+			@Override
+			protected void compute() {
+				locateIntersections(curveArray, pairs, couples, 0, pairs.length);
 			}
+		}.invoke();
+
+		// Create array of intersection data for each curve, storing position
+		// of intersection, index of crossing curve, and position on crossing
+		// curve. Also computes connected components of intersecting curves.
+		final CurveIntersections[] intersections = new CurveIntersections[nCurves];
+		for (int i = 0; i < nCurves; i++)
+			intersections[i] = new CurveIntersections();
+		int[] parents = new int[nCurves];
+		for (int i = 0; i < nCurves; i++)
+			parents[i] = i;
+
+		for (int p = 0; p < pairs.length; p++) {
+			int i = (int) (pairs[p] / nCurves);
+			int j = (int) (pairs[p] % nCurves);
+			for (int k = 0; k < couples[p].length; k++) {
+				// position on each curve
+				double pos1 = couples[p][k][0];
+				double pos2 = couples[p][k][1];
+				intersections[i].add(pos1, j, pos2);
+				intersections[j].add(pos2, i, pos1);
+			}
+			if (couples[p].length > 0)
+				parents[findRoot(parents, i)] = findRoot(parents, j);
 		}
+		for (int i = 0; i < nCurves; i++)
+			intersections[i].sort();
 
 		// createFromCollection the array of resulting curves
 		ArrayList<GJCirculinearContour2D> contours = new ArrayList<GJCirculinearContour2D>();
 
-		// process curves without intersections
+		// process curves without intersections, and group the other ones by
+		// connected components, sorted by lowest index
+		ArrayList<int[]> components = new ArrayList<int[]>();
+		int[] componentIndex = new int[nCurves];
+		int[] componentSize = new int[nCurves];
+		Arrays.fill(componentIndex, -1);
 		for (int i = 0; i < nCurves; i++) {
 			// If the curve has no intersection, use it as contour
-			if (twinPositions.get(i).isEmpty()) {
+			if (intersections[i].isEmpty()) {
 				contours.add(curveArray[i]);
+				continue;
+			}
+			int root = findRoot(parents, i);
+			if (componentIndex[root] == -1) {
+				componentIndex[root] = components.size();
+				components.add(null);
 			}
+			componentSize[root]++;
 		}
+		int[] fill = new int[components.size()];
+		for (int i = 0; i < nCurves; i++) {
+			if (intersections[i].isEmpty())
+				continue;
+			int root = findRoot(parents, i);
+			int c = componentIndex[root];
+			if (components.get(c) == null)
+				components.set(c, new int[componentSize[root]]);
+			components.get(c)[fill[c]++] = i;
+		}
+
+		// split the contours of each component
+		final int[][] componentArray = components.toArray(new int[0][]);
+		final ComponentContours[] results =
+			new ComponentContours[componentArray.length];
+		new RecursiveAction() {
+			@Override
+			protected void compute() {
+				splitComponents(curveArray, intersections, componentArray,
+						results, 0, componentArray.length);
+			}
+		}.invoke();
+
+		// merge contours of components, first the ones stemming from
+		// infinite curves, then the other ones, ordered by index of the
+		// first curve with unprocessed intersections
+		mergeComponentContours(results, true, contours);
+		mergeComponentContours(results, false, contours);
+
+		return contours;
+	}
+
+	/**
+	 * Number of couples of curves or of components processed by a single
+	 * task when splitting contours in parallel.
+	 */
+	private final static int PARALLEL_THRESHOLD = 16;
+
+	/**
+	 * Computes intersections of the couples of curves identified by pairs
+	 * with indices between lo and hi, splitting the range into parallel
+	 * tasks if it is large.
+	 */
+	private static void locateIntersections(
+			final GJCirculinearContour2D[] curves, final long[] pairs,
+			final double[][][] couples, final int lo, final int hi) {
+		if (hi - lo > PARALLEL_THRESHOLD) {
+			final int mid = (lo + hi) >>> 1;
+			ForkJoinTask.invokeAll(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					locateIntersections(curves, pairs, couples, lo, mid);
+				}
+			}, new RecursiveAction() {
+				@Override
+				protected void compute() {
+					locateIntersections(curves, pairs, couples, mid, hi);
+				}
+			});
+			return;
+		}
+
+		int n = curves.length;
+		for (int p = lo; p < hi; p++) {
+			GJCirculinearContour2D curve1 = curves[(int) (pairs[p] / n)];
+			GJCirculinearContour2D curve2 = curves[(int) (pairs[p] % n)];
+			couples[p] = locateIntersections(curve1, curve2);
+		}
+	}
+
+	/**
+	 * Splits the contours of the components with indices between lo and hi,
+	 * splitting the range into parallel tasks if it is large.
+	 */
+	private static void splitComponents(
+			final GJCirculinearContour2D[] curves,
+			final CurveIntersections[] intersections,
+			final int[][] components, final ComponentContours[] results,
+			final int lo, final int hi) {
+		if (hi - lo > 1) {
+			// compare the number of curves with threshold
+			int size = 0;
+			for (int c = lo; c < hi; c++)
+				size += components[c].length;
+			if (size > PARALLEL_THRESHOLD) {
+				final int mid = (lo + hi) >>> 1;
+				ForkJoinTask.invokeAll(new RecursiveAction() {
+					@Override
+					protected void compute() {
+						splitComponents(curves, intersections, components,
+								results, lo, mid);
+					}
+				}, new RecursiveAction() {
+					@Override
+					protected void compute() {
+						splitComponents(curves, intersections, components,
+								results, mid, hi);
+					}
+				});
+				return;
+			}
+		}
+
+		for (int c = lo; c < hi; c++)
+			results[c] = splitComponent(curves, intersections, components[c]);
+	}
+
+	/**
+	 * Splits the curves of a connected component, given by increasing
+	 * indices. The intersection data of the curves are consumed.
+	 */
+	private static ComponentContours splitComponent(
+			GJCirculinearContour2D[] curveArray,
+			CurveIntersections[] intersections, int[] indices) {
+
+		double pos0, pos1, pos2;
+		ComponentContours result = new ComponentContours();
 
 		// process infinite curves
-		for (int i = 0; i < nCurves; i++) {
+		for (int i : indices) {
 			// filter bounded curves
 			if (curveArray[i].isBounded())
 				continue;
 
 			// If the curve has no intersection, it was already processed
-			if (twinPositions.get(i).isEmpty()) {
+			CurveIntersections inters0 = intersections[i];
+			if (inters0.isEmpty())
 				continue;
-			}
 
 			// find first unprocessed intersection
-			pos0 = twinPositions.get(i).firstEntry().getKey();
-			int ind0 = twinIndices.get(i).firstEntry().getValue();
+			int first = inters0.first();
+			pos0 = inters0.positions[first];
+			int ind0 = inters0.twinIndices[first];
 
 			// createFromCollection new empty array of elements for current contour
 			ArrayList<GJCirculinearElement2D> elements = new ArrayList<GJCirculinearElement2D>();
@@ -710,7 +1047,7 @@ public class GJCirculinearCurves2D {
 			addElements(elements, curve0.subCurve(curve0.t0(), pos0));
 
 			// init
-			pos1 = twinPositions.get(i).firstEntry().getValue();
+			pos1 = inters0.twinPositions[first];
 			int ind = ind0;
 
 			do {
@@ -718,7 +1055,7 @@ public class GJCirculinearCurves2D {
 				GJCirculinearContour2D curve = curveArray[ind];
 
 				// extract next position
-				pos2 = nextValue(positions.get(ind), pos1);
+				pos2 = intersections[ind].next(pos1);
 
 				if ((pos2 < pos1) && !curve.isBounded()) {
 					// We got the last point of an infinite curve.
@@ -732,63 +1069,237 @@ public class GJCirculinearCurves2D {
 					addElements(elements, curve.subCurve(pos1, pos2));
 
 					// get the position of end intersection on second curve
-					pos1 = twinPositions.get(ind).remove(pos2);
-					ind = twinIndices.get(ind).remove(pos2);
+					int k = intersections[ind].remove(pos2);
+					pos1 = intersections[ind].twinPositions[k];
+					ind = intersections[ind].twinIndices[k];
 				}
 			} while (ind != ind0);
 
-			twinPositions.get(i).remove(pos0);
-			twinIndices.get(i).remove(pos0);
+			inters0.remove(pos0);
 
 			// createFromCollection continuous curve formed only by circulinear elements
 			// and add it to the set of curves
-			contours.add(GJBoundaryPolyCirculinearCurve2D.createCirculinearContinuousCurve2DFromCollection(elements, true));
+			result.add(true, i, GJBoundaryPolyCirculinearCurve2D
+					.createCirculinearContinuousCurve2DFromCollection(elements, true));
 		}
 
 		// Process other curves, while there are intersections left
-		while (!isAllEmpty(twinPositions)) {
+		int start = 0;
+		while (true) {
+			// find the first curve with unprocessed intersections
+			while (start < indices.length && intersections[indices[start]].isEmpty())
+				start++;
+			if (start == indices.length)
+				break;
+			int i = indices[start];
+
 			// createFromCollection new empty array of elements for current contour
 			ArrayList<GJCirculinearElement2D> elements = new ArrayList<GJCirculinearElement2D>();
 
-			// indices of the two considered curves.
-			int ind0 = 0, ind;
-
-			// get first intersection
-			for (int i = 0; i < nCurves; i++) {
-				// find a curve with unprocessed intersections
-				if (twinPositions.get(i).isEmpty())
-					continue;
-
-				// find first unprocessed intersection
-				pos0 = twinPositions.get(i).firstEntry().getValue();
-				ind0 = twinIndices.get(i).firstEntry().getValue();
-				break;
-			}
-
-			if (ind0 == 0) {
-				System.out.println("No more intersections, but was not detected");
-			}
+			// find first unprocessed intersection
+			int first = intersections[i].first();
+			pos0 = intersections[i].twinPositions[first];
+			int ind0 = intersections[i].twinIndices[first];
 
 			pos1 = pos0;
-			ind = ind0;
+			int ind = ind0;
 
 			do {
-				pos2 = nextValue(positions.get(ind), pos1);
+				pos2 = intersections[ind].next(pos1);
 
 				// add a portion of the first curve
 				addElements(elements, curveArray[ind].subCurve(pos1, pos2));
 
 				// get the position of end intersection on second curve
-				pos1 = twinPositions.get(ind).remove(pos2);
-				ind = twinIndices.get(ind).remove(pos2);
+				int k = intersections[ind].remove(pos2);
+				pos1 = intersections[ind].twinPositions[k];
+				ind = intersections[ind].twinIndices[k];
 			} while (pos1 != pos0 || ind != ind0);
 
 			// createFromCollection continuous curve formed only by circulinear elements
 			// and add it to the set of curves
-			contours.add(GJBoundaryPolyCirculinearCurve2D.createCirculinearContinuousCurve2DFromCollection(elements, true));
+			result.add(false, i, GJBoundaryPolyCirculinearCurve2D
+					.createCirculinearContinuousCurve2DFromCollection(elements, true));
 		}
 
-		return contours;
+		return result;
+	}
+
+	/**
+	 * Adds to the collection the contours of all components stemming either
+	 * from infinite curves or from other curves, sorted by index of the
+	 * curve used to start each contour.
+	 */
+	private static void mergeComponentContours(ComponentContours[] results,
+			boolean infinite, Collection<GJCirculinearContour2D> contours) {
+		// count contours
+		int n = 0;
+		for (ComponentContours result : results)
+			n += result.size(infinite);
+
+		// encode start index and global rank to obtain a stable order
+		long[] keys = new long[n];
+		GJCirculinearContour2D[] array = new GJCirculinearContour2D[n];
+		int k = 0;
+		for (ComponentContours result : results) {
+			for (int c = 0; c < result.size(infinite); c++) {
+				keys[k] = ((long) result.startIndex(infinite, c) << 32) | k;
+				array[k] = result.contour(infinite, c);
+				k++;
+			}
+		}
+		Arrays.sort(keys);
+		for (long key : keys)
+			contours.add(array[(int) (key & 0xFFFFFFFFL)]);
+	}
+
+	private static int findRoot(int[] parents, int i) {
+		while (parents[i] != i) {
+			parents[i] = parents[parents[i]];
+			i = parents[i];
+		}
+		return i;
+	}
+
+	/**
+	 * The intersections located on a curve, stored in primitive arrays
+	 * sorted by position on the curve. For each intersection, the index of
+	 * the crossing curve and the position on the crossing curve are stored.
+	 * Intersections are removed when processed, but their positions are
+	 * kept for searching the next intersection on the curve.
+	 */
+	private static class CurveIntersections {
+		int count = 0;
+		double[] positions = new double[0];
+		int[] twinIndices = new int[0];
+		double[] twinPositions = new double[0];
+		boolean[] removed;
+		int remaining;
+		int first;
+
+		void add(double pos, int twinIndex, double twinPos) {
+			if (count == positions.length) {
+				int size = Math.max(4, count * 2);
+				positions = Arrays.copyOf(positions, size);
+				twinIndices = Arrays.copyOf(twinIndices, size);
+				twinPositions = Arrays.copyOf(twinPositions, size);
+			}
+			positions[count] = pos;
+			twinIndices[count] = twinIndex;
+			twinPositions[count] = twinPos;
+			count++;
+		}
+
+		/**
+		 * Sorts intersections by position. For identical positions, only
+		 * the last added intersection is kept.
+		 */
+		void sort() {
+			Integer[] order = new Integer[count];
+			for (int i = 0; i < count; i++)
+				order[i] = i;
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					int res = Double.compare(positions[i1], positions[i2]);
+					return res != 0 ? res : i1 - i2;
+				}
+			});
+
+			double[] pos = new double[count];
+			int[] inds = new int[count];
+			double[] twins = new double[count];
+			int n = 0;
+			for (int k = 0; k < count; k++) {
+				int i = order[k];
+				if (n > 0 && Double.compare(pos[n - 1], positions[i]) == 0)
+					n--;
+				pos[n] = positions[i];
+				inds[n] = twinIndices[i];
+				twins[n] = twinPositions[i];
+				n++;
+			}
+
+			count = n;
+			positions = pos;
+			twinIndices = inds;
+			twinPositions = twins;
+			removed = new boolean[n];
+			remaining = n;
+			first = 0;
+		}
+
+		boolean isEmpty() {
+			return remaining == 0;
+		}
+
+		/**
+		 * Returns the index of the first unprocessed intersection.
+		 */
+		int first() {
+			while (removed[first])
+				first++;
+			return first;
+		}
+
+		/**
+		 * Returns either the next position, or the first position if the
+		 * given value is greater than or equal to the last position.
+		 */
+		double next(double value) {
+			int lo = 0, hi = count;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (Double.compare(positions[mid], value) <= 0)
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo < count ? positions[lo] : positions[0];
+		}
+
+		/**
+		 * Marks the intersection at the given position as processed, and
+		 * returns its index.
+		 */
+		int remove(double pos) {
+			int k = Arrays.binarySearch(positions, 0, count, pos);
+			if (k < 0 || removed[k])
+				throw new IllegalStateException(
+						"Could not find intersection at position " + pos);
+			removed[k] = true;
+			remaining--;
+			return k;
+		}
+	}
+
+	/**
+	 * The contours computed for a connected component of curves, together
+	 * with the index of the curve each contour was started from.
+	 */
+	private static class ComponentContours {
+		ArrayList<GJCirculinearContour2D> infiniteContours =
+			new ArrayList<GJCirculinearContour2D>();
+		ArrayList<Integer> infiniteIndices = new ArrayList<Integer>();
+		ArrayList<GJCirculinearContour2D> contours =
+			new ArrayList<GJCirculinearContour2D>();
+		ArrayList<Integer> indices = new ArrayList<Integer>();
+
+		void add(boolean infinite, int index, GJCirculinearContour2D contour) {
+			(infinite ? infiniteContours : contours).add(contour);
+			(infinite ? infiniteIndices : indices).add(index);
+		}
+
+		int size(boolean infinite) {
+			return (infinite ? infiniteContours : contours).size();
+		}
+
+		int startIndex(boolean infinite, int c) {
+			return (infinite ? infiniteIndices : indices).get(c);
+		}
+
+		GJCirculinearContour2D contour(boolean infinite, int c) {
+			return (infinite ? infiniteContours : contours).get(c);
+		}
 	}
 
 	/**
@@ -800,14 +1311,6 @@ public class GJCirculinearCurves2D {
 		elements.addAll(curve.smoothPieces());
 	}
 
-	private static boolean isAllEmpty(Collection<TreeMap<Double, Double>> coll) {
-		for (TreeMap<?, ?> map : coll) {
-			if (!map.isEmpty())
-				return false;
-		}
-		return true;
-	}
-
 	/**
 	 * Returns either the next value, or the first value of the tree if the
 	 * given value is the last one of the tree.
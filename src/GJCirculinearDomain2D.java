@@ -20,4 +20,14 @@ public interface GJCirculinearDomain2D extends GJCirculinearShape2D, GJDomain2D
     public GJCirculinearDomain2D complement();
 
     public GJCirculinearDomain2D transform(GJCircleInversion2D inv);
+
+    /**
+     * Checks which points, given by their coordinates, are contained in the
+     * domain, and stores the results in the output array. The result for
+     * each point is the same as the result of the contains method.
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @param result the array that receives the results
+     */
+    public void containsAll(double[] xs, double[] ys, boolean[] result);
 }
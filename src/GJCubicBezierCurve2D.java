@@ -44,7 +44,10 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
 	protected double ctrlx1, ctrly1;
 	protected double ctrlx2, ctrly2;
 	protected double x2, y2;
-	
+
+    /** The adaptive polyline approximation, computed on first demand */
+    private GJFlattenedCurve2D flattened = null;
+
 	
     // ===================================================================
     // constructors
@@ -171,6 +174,30 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
         return tab;
     }
 
+    /**
+     * Returns the x-coordinates of the 4 control points.
+     */
+    private double[] xControls() {
+    	return new double[]{x1, ctrlx1, ctrlx2, x2};
+    }
+
+    /**
+     * Returns the y-coordinates of the 4 control points.
+     */
+    private double[] yControls() {
+    	return new double[]{y1, ctrly1, ctrly2, y2};
+    }
+
+    /**
+     * Returns the adaptive polyline approximation of this curve, computed
+     * once and reused by the approximated queries.
+     */
+    protected GJFlattenedCurve2D flattened() {
+        if (flattened == null)
+            flattened = new GJFlattenedCurve2D(this);
+        return flattened;
+    }
+
 
     // ===================================================================
     // methods from GJOrientedCurve2D interface
@@ -181,7 +208,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      * @see math.geom2d.domain.OrientedCurve2D#windingAngle(GJPoint2D)
      */
     public double windingAngle(GJPoint2D point) {
-        return this.asPolyline(100).windingAngle(point);
+        return this.flattened().polyline().windingAngle(point);
     }
 
     /**
@@ -192,7 +219,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      * @return true if the point is on the left side of the curve.
      */
     public boolean isInside(GJPoint2D pt) {
-        return this.asPolyline(100).isInside(pt);
+        return this.flattened().polyline().isInside(pt);
     }
 
     public double signedDistance(GJPoint2D point) {
@@ -297,12 +324,32 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
     }
     
     /**
-     * Use approximation, by replacing Bezier curve with a polyline.
+     * Computes intersections with a linear shape, as the roots of the signed
+     * distance of the curve to the line.
      * 
      * @see math.geom2d.curve.Curve2D#intersections(math.geom2d.line.LinearShape2D)
      */
     public Collection<GJPoint2D> intersections(GJLinearShape2D line) {
-        return this.asPolyline(100).intersections(line);
+        return GJBezierCurves2D.lineIntersections(
+        		this.xControls(), this.yControls(), line);
+    }
+
+    /**
+     * Computes intersections with another cubic Bezier curve, using Bezier
+     * clipping.
+     */
+    public Collection<GJPoint2D> intersections(GJCubicBezierCurve2D curve) {
+        return GJBezierCurves2D.curveIntersections(
+        		this.xControls(), this.yControls(),
+        		curve.xControls(), curve.yControls());
+    }
+
+    /**
+     * Computes intersections with a circle or a circle arc.
+     */
+    public Collection<GJPoint2D> intersections(GJCircularShape2D circle) {
+        return GJBezierCurves2D.circleIntersections(
+        		this.xControls(), this.yControls(), circle);
     }
 
     /**
@@ -337,19 +384,21 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
     }
 
     /**
-     * Computes position by approximating cubic spline with a polyline.
+     * Computes position of the closest point of the curve.
+     * 
+     * @see #project(GJPoint2D)
      */
     public double position(GJPoint2D point) {
-        int N = 100;
-        return this.asPolyline(N).position(point)/(N);
+        return this.project(point);
     }
 
     /**
-     * Computes position by approximating cubic spline with a polyline.
+     * Computes position of the orthogonal projection of the point on the
+     * curve, by isolating the roots of the quintic polynomial (B(t)-P).B'(t).
      */
     public double project(GJPoint2D point) {
-        int N = 100;
-		return this.asPolyline(N).project(point) / (N);
+        return GJBezierCurves2D.project(
+        		this.xControls(), this.yControls(), point.x(), point.y());
     }
 
     /**
@@ -384,7 +433,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
 	 * @see math.geom2d.GJShape2D#contains(double, double)
 	 */
 	public boolean contains(double x, double y) {
-		return this.asPolyline(180).contains(x, y);
+		return this.distance(x, y) < GJShape2D.ACCURACY;
 	}
 
 	/* (non-Javadoc)
@@ -402,12 +451,12 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
     }
 
     /**
-     * Compute approximated distance, computed on a polyline.
+     * Computes distance to the orthogonal projection of the point.
      * 
      * @see math.geom2d.Shape2D#distance(double, double)
      */
     public double distance(double x, double y) {
-    	return this.asPolyline(100).distance(x, y);
+    	return this.point(this.project(new GJPoint2D(x, y))).distance(x, y);
     }
 
     /**
@@ -540,6 +589,16 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
         
         return true;
     }
+
+    /**
+     * As curves are compared with a tolerance, the coordinates of the control
+     * points can not be used for computing the hash code. All curves share
+     * the same hash code, which is consistent with the equals method.
+     */
+    @Override
+    public int hashCode() {
+        return GJCubicBezierCurve2D.class.hashCode();
+    }
     
 	/**
 	 * @deprecated not necessary to clone immutable objects (0.11.2)
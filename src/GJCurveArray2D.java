@@ -774,6 +774,11 @@ implements GJCurveSet2D<T>, Iterable<T>, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        return curves.hashCode();
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
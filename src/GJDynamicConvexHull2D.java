@@ -0,0 +1,651 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Maintains the convex hull of a set of points that is modified by
+ * insertions and deletions of points. This avoids computing the hull of the
+ * whole set again when only a few points change.<br>
+ * The structure follows the approach of Overmars and van Leeuwen. The upper
+ * hull is stored in a balanced binary tree whose leaves are the points
+ * sorted by x, then by y. Each inner node stores the bridge joining the
+ * upper hulls of its two subtrees, such that the hull of a subtree is the
+ * hull of its left subtree up to the bridge, followed by the hull of its
+ * right subtree from the bridge. The lower hull is stored in the same way,
+ * as the upper hull of the points reflected through the origin.<br>
+ * Hulls of subtrees are not stored explicitly, but are navigated through
+ * the bridges of the nodes. Finding a bridge requires O(log^2 n)
+ * operations, and an insertion or a deletion recomputes the bridges of the
+ * ancestors of the modified leaf, resulting in O(log^3 n) operations.
+ * Subtrees are rebuilt when they become unbalanced, as in GJKDTree2D.<br>
+ * Containment and extreme point queries descend the trees in O(log n)
+ * operations. The hull polygon is computed on demand, and kept until the
+ * next modification of the hull.<br>
+ * The same point can be added several times, and is removed from the hull
+ * when all its copies have been removed. Hull vertices follow the
+ * conventions of GJMonotoneChain2D.
+ *
+ * @see GJMonotoneChain2D
+ */
+public class GJDynamicConvexHull2D {
+
+    /**
+     * The weight-balance factor used to detect unbalanced subtrees.
+     */
+    private final static double ALPHA = 0.7;
+
+    /** The upper hull of the points */
+    private final Chain upper = new Chain(1);
+
+    /** The upper hull of the points reflected through the origin */
+    private final Chain lower = new Chain(-1);
+
+    /** number of points, including repeated ones */
+    private int size = 0;
+
+    /** the polygon of the current hull, or null if it has to be computed */
+    private GJSimplePolygon2D hull = null;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates an empty convex hull.
+     */
+    public GJDynamicConvexHull2D() {
+    }
+
+    /**
+     * Creates the convex hull of a collection of points. The trees are
+     * built in O(n log n) operations, which is faster than adding the
+     * points one by one.
+     */
+    public GJDynamicConvexHull2D(Collection<? extends GJPoint2D> points) {
+        int n = points.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int i = 0;
+        for (GJPoint2D point : points) {
+            xs[i] = point.x();
+            ys[i] = point.y();
+            i++;
+        }
+        GJMonotoneChain2D.sort(xs, ys, 0, n);
+
+        // create one leaf for each distinct point
+        ArrayList<Node> upperLeaves = new ArrayList<Node>(n);
+        ArrayList<Node> lowerLeaves = new ArrayList<Node>(n);
+        for (i = 0; i < n; i++) {
+            int k = upperLeaves.size() - 1;
+            if (k >= 0 && upperLeaves.get(k).x == xs[i]
+                    && upperLeaves.get(k).y == ys[i]) {
+                upperLeaves.get(k).count++;
+                lowerLeaves.get(k).count++;
+                continue;
+            }
+            upperLeaves.add(new Node(xs[i], ys[i]));
+            lowerLeaves.add(new Node(-xs[i], -ys[i]));
+        }
+
+        // the order of reflected points is reversed
+        int m = lowerLeaves.size();
+        for (i = 0; i < m / 2; i++) {
+            Node tmp = lowerLeaves.get(i);
+            lowerLeaves.set(i, lowerLeaves.get(m - 1 - i));
+            lowerLeaves.set(m - 1 - i, tmp);
+        }
+
+        if (m > 0) {
+            upper.root = Chain.build(upperLeaves, 0, m);
+            lower.root = Chain.build(lowerLeaves, 0, m);
+        }
+        this.size = n;
+    }
+
+
+    // ===================================================================
+    // modification of the point set
+
+    /**
+     * Adds a point to the set of points.
+     */
+    public void add(GJPoint2D point) {
+        add(point.x(), point.y());
+    }
+
+    /**
+     * Adds the point with the given coordinates to the set of points.
+     */
+    public void add(double x, double y) {
+        if (Double.isNaN(x) || Double.isNaN(y))
+            throw new IllegalArgumentException("Coordinates must not be NaN");
+        upper.insert(x, y);
+        lower.insert(x, y);
+        if (upper.vertex || lower.vertex)
+            hull = null;
+        size++;
+    }
+
+    /**
+     * Removes a point from the set of points. If the point was added several
+     * times, only one copy is removed.
+     * @return true if the point was found in the set
+     */
+    public boolean remove(GJPoint2D point) {
+        return remove(point.x(), point.y());
+    }
+
+    public boolean remove(double x, double y) {
+        if (upper.root == null)
+            return false;
+        if (!upper.delete(x, y))
+            return false;
+        lower.delete(x, y);
+        if (upper.vertex || lower.vertex)
+            hull = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves one copy of a point to a new position. This is equivalent to
+     * removing the point and adding the new one.
+     * @return true if the point was found in the set
+     */
+    public boolean move(GJPoint2D from, GJPoint2D to) {
+        if (!remove(from))
+            return false;
+        add(to);
+        return true;
+    }
+
+    /**
+     * Removes all the points.
+     */
+    public void clear() {
+        upper.root = null;
+        lower.root = null;
+        size = 0;
+        hull = null;
+    }
+
+
+    // ===================================================================
+    // queries
+
+    /**
+     * Returns the number of points in the set, including repeated points.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the convex hull of the current set of points, oriented
+     * counter-clockwise. The vertices are computed in O(h log n) operations
+     * after the hull has been modified, and are cached until the next
+     * modification. Each call returns a new polygon, that can be modified
+     * without changing the cached hull.
+     */
+    public GJSimplePolygon2D hull() {
+        if (hull == null)
+            hull = computeHull();
+        return new GJSimplePolygon2D(hull);
+    }
+
+    /**
+     * Checks if the point is located inside or on the boundary of the
+     * convex hull.
+     */
+    public boolean contains(GJPoint2D point) {
+        return contains(point.x(), point.y());
+    }
+
+    public boolean contains(double x, double y) {
+        if (upper.root == null)
+            return false;
+        Node min = upper.root.min, max = upper.root.max;
+        if (x < min.x || x > max.x)
+            return false;
+        if (min.x == max.x)
+            return y >= min.y && y <= max.y;
+        return upper.below(x, y) && lower.below(-x, -y);
+    }
+
+    /**
+     * Returns a vertex of the hull that is extreme in the given direction,
+     * or null if the set is empty.
+     */
+    public GJPoint2D extremePoint(GJVector2D direction) {
+        return extremePoint(direction.x(), direction.y());
+    }
+
+    public GJPoint2D extremePoint(double dx, double dy) {
+        if (upper.root == null)
+            return null;
+        if (dy > 0 || (dy == 0 && dx > 0)) {
+            Node node = Chain.extreme(upper.root, 0, 0, dy, -dx);
+            return new GJPoint2D(node.x, node.y);
+        }
+        Node node = Chain.extreme(lower.root, 0, 0, -dy, dx);
+        return new GJPoint2D(-node.x, -node.y);
+    }
+
+    private GJSimplePolygon2D computeHull() {
+        GJSimplePolygon2D polygon = new GJSimplePolygon2D();
+        if (upper.root == null)
+            return polygon;
+
+        // the reflected upper hull goes from the last point to the first
+        // one along the lower hull, the upper hull from the first to the last
+        ArrayList<Node> lowerNodes = new ArrayList<Node>();
+        Chain.collect(lower.root, null, null, lowerNodes);
+        ArrayList<Node> upperNodes = new ArrayList<Node>();
+        Chain.collect(upper.root, null, null, upperNodes);
+
+        GJPackedPointList2D vertices = polygon.vertices;
+        vertices.ensureCapacity(lowerNodes.size() + upperNodes.size() - 2);
+        for (int i = lowerNodes.size() - 1; i > 0; i--)
+            vertices.add(-lowerNodes.get(i).x, -lowerNodes.get(i).y);
+        for (int i = upperNodes.size() - 1; i > 0; i--)
+            vertices.add(upperNodes.get(i).x, upperNodes.get(i).y);
+        if (vertices.isEmpty())
+            vertices.add(upper.root.min.x, upper.root.min.y);
+        return polygon;
+    }
+
+
+    // ===================================================================
+    // inner classes
+
+    private static class Node {
+        /** the coordinates of a leaf, in the coordinates of the chain */
+        final double x, y;
+
+        /** the number of copies of the point of a leaf */
+        int count;
+
+        Node left, right;
+
+        /** the number of leaves of the subtree */
+        int size;
+
+        /** the first and last leaves of the subtree */
+        Node min, max;
+
+        /** the leaves joined by the bridge of an inner node */
+        Node bridgeLeft, bridgeRight;
+
+        Node(double x, double y) {
+            this.x = x;
+            this.y = y;
+            this.count = 1;
+            this.size = 1;
+            this.min = this;
+            this.max = this;
+        }
+
+        Node(Node left, Node right) {
+            this.x = Double.NaN;
+            this.y = Double.NaN;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * The upper hull of a set of points, multiplied by a sign. Methods
+     * navigating the hull of a subtree keep track of the range [lo, hi] of
+     * vertices that belong to the hull of the tree being navigated, null
+     * bounds meaning unbounded ranges.
+     */
+    private static class Chain {
+        final int sign;
+
+        Node root = null;
+
+        /** true if the last modification changed the set of leaves */
+        boolean changed;
+
+        /**
+         * true if the modified point is a vertex of the hull of the subtree
+         * processed last, or was a vertex before its removal. The hulls of
+         * the ancestors are not modified once the point is not a vertex.
+         */
+        boolean vertex;
+
+        Chain(int sign) {
+            this.sign = sign;
+        }
+
+        /**
+         * Inserts a point given in original coordinates.
+         */
+        void insert(double x, double y) {
+            x *= sign;
+            y *= sign;
+            changed = false;
+            vertex = false;
+            if (root == null) {
+                root = new Node(x, y);
+                changed = true;
+                vertex = true;
+            } else {
+                root = insert(root, x, y);
+            }
+        }
+
+        private Node insert(Node node, double x, double y) {
+            if (node.left == null) {
+                int c = GJMonotoneChain2D.compare(x, y, node.x, node.y);
+                if (c == 0) {
+                    node.count++;
+                    return node;
+                }
+                changed = true;
+                vertex = true;
+                Node leaf = new Node(x, y);
+                return update(c < 0 ? new Node(leaf, node) : new Node(node,
+                        leaf), true);
+            }
+            Node max = node.left.max;
+            boolean left = GJMonotoneChain2D.compare(x, y, max.x, max.y) <= 0;
+            if (left)
+                node.left = insert(node.left, x, y);
+            else
+                node.right = insert(node.right, x, y);
+            if (!changed)
+                return node;
+
+            Node result = update(node, vertex);
+            if (result != node)
+                vertex = true;
+            else if (vertex)
+                vertex = onHull(node, x, y, left);
+            return result;
+        }
+
+        /**
+         * Removes a point given in original coordinates, and returns true
+         * if the point was found.
+         */
+        boolean delete(double x, double y) {
+            x *= sign;
+            y *= sign;
+            changed = false;
+            vertex = false;
+            Node leaf = root;
+            while (leaf.left != null) {
+                Node max = leaf.left.max;
+                leaf = GJMonotoneChain2D.compare(x, y, max.x, max.y) <= 0
+                        ? leaf.left : leaf.right;
+            }
+            if (leaf.x != x || leaf.y != y)
+                return false;
+            if (leaf.count > 1) {
+                leaf.count--;
+                return true;
+            }
+            changed = true;
+            vertex = true;
+            root = delete(root, x, y);
+            return true;
+        }
+
+        /**
+         * Removes the leaf with the given coordinates, and returns the new
+         * root of the subtree, or null if the subtree was the leaf.
+         */
+        private Node delete(Node node, double x, double y) {
+            if (node.left == null)
+                return null;
+            Node max = node.left.max;
+            boolean left = GJMonotoneChain2D.compare(x, y, max.x, max.y) <= 0;
+            if (left) {
+                node.left = delete(node.left, x, y);
+                if (node.left == null)
+                    return node.right;
+            } else {
+                node.right = delete(node.right, x, y);
+                if (node.right == null)
+                    return node.left;
+            }
+
+            // the previous bridge tells if the point was on the hull
+            if (vertex)
+                vertex = onHull(node, x, y, left);
+            Node result = update(node, vertex);
+            if (result != node)
+                vertex = true;
+            return result;
+        }
+
+        /**
+         * Checks if a vertex of the hull of a child of the node is also a
+         * vertex of the hull of the node.
+         */
+        private static boolean onHull(Node node, double x, double y,
+                boolean left) {
+            if (left)
+                return compare(x, y, node.bridgeLeft) <= 0;
+            return compare(x, y, node.bridgeRight) >= 0;
+        }
+
+        /**
+         * Updates the size and the bounds of an inner node whose children
+         * have changed, and its bridge if required. Rebuilds the subtree if
+         * it is unbalanced.
+         */
+        private static Node update(Node node, boolean bridge) {
+            node.size = node.left.size + node.right.size;
+            if (Math.max(node.left.size, node.right.size) > ALPHA * node.size) {
+                ArrayList<Node> leaves = new ArrayList<Node>(node.size);
+                collectLeaves(node, leaves);
+                return build(leaves, 0, leaves.size());
+            }
+            node.min = node.left.min;
+            node.max = node.right.max;
+            if (bridge)
+                computeBridge(node);
+            return node;
+        }
+
+        private static void collectLeaves(Node node, ArrayList<Node> leaves) {
+            if (node.left == null) {
+                leaves.add(node);
+                return;
+            }
+            collectLeaves(node.left, leaves);
+            collectLeaves(node.right, leaves);
+        }
+
+        /**
+         * Builds a balanced tree from sorted leaves in the range [lo, hi).
+         */
+        static Node build(ArrayList<Node> leaves, int lo, int hi) {
+            if (hi - lo == 1)
+                return leaves.get(lo);
+            int mid = (lo + hi) >>> 1;
+            Node node = new Node(build(leaves, lo, mid), build(leaves, mid, hi));
+            node.size = hi - lo;
+            node.min = node.left.min;
+            node.max = node.right.max;
+            computeBridge(node);
+            return node;
+        }
+
+        /**
+         * Computes the bridge between the hulls of the children of the node.
+         * The left end is the last vertex of the left hull whose previous
+         * edge has all the points of the right subtree strictly below its
+         * supporting line. The right end is the farthest point of tangency
+         * from the left end.
+         */
+        private static void computeBridge(Node node) {
+            Node right = node.right;
+            Node u = node.left, lo = null, hi = null;
+            while (u.left != null) {
+                Node p = u.bridgeLeft, q = u.bridgeRight;
+                if (hi != null && compare(hi, p) <= 0) {
+                    u = u.left;
+                } else if (lo != null && compare(lo, q) >= 0) {
+                    u = u.right;
+                } else {
+                    Node t = extreme(right, p.x, p.y, q.x, q.y);
+                    if (GJMonotoneChain2D.orientation(p.x, p.y, q.x, q.y,
+                            t.x, t.y) < 0) {
+                        u = u.right;
+                        lo = q;
+                    } else {
+                        u = u.left;
+                        hi = p;
+                    }
+                }
+            }
+            node.bridgeLeft = u;
+            node.bridgeRight = tangent(right, u);
+        }
+
+        /**
+         * Returns the vertex of the hull of the subtree that is extreme in
+         * the direction of the left normal of the vector (ax,ay)-(bx,by).
+         * The normal must not point downwards.
+         */
+        static Node extreme(Node root, double ax, double ay, double bx,
+                double by) {
+            Node u = root, lo = null, hi = null;
+            while (u.left != null) {
+                Node p = u.bridgeLeft, q = u.bridgeRight;
+                if (hi != null && compare(hi, p) <= 0) {
+                    u = u.left;
+                } else if (lo != null && compare(lo, q) >= 0) {
+                    u = u.right;
+                } else if (crossSign(ax, ay, bx, by, p.x, p.y, q.x, q.y) >= 0) {
+                    u = u.right;
+                    lo = q;
+                } else {
+                    u = u.left;
+                    hi = p;
+                }
+            }
+            return u;
+        }
+
+        /**
+         * Returns the vertex of the hull of the subtree such that the
+         * subtree is below the line joining the point and the vertex,
+         * choosing the farthest vertex in case of colinear vertices. The
+         * point must be located before the points of the subtree.
+         */
+        private static Node tangent(Node root, Node point) {
+            Node u = root, lo = null, hi = null;
+            while (u.left != null) {
+                Node p = u.bridgeLeft, q = u.bridgeRight;
+                if (hi != null && compare(hi, p) <= 0) {
+                    u = u.left;
+                } else if (lo != null && compare(lo, q) >= 0) {
+                    u = u.right;
+                } else if (GJMonotoneChain2D.orientation(point.x, point.y,
+                        p.x, p.y, q.x, q.y) >= 0) {
+                    u = u.right;
+                    lo = q;
+                } else {
+                    u = u.left;
+                    hi = p;
+                }
+            }
+            return u;
+        }
+
+        /**
+         * Checks if the point is below or on the hull. The x-coordinate of
+         * the point must be within the range of the chain, and the chain
+         * must contain points with different x-coordinates.
+         */
+        boolean below(double x, double y) {
+            Node u = root, lo = null, hi = null;
+            while (u.left != null) {
+                Node p = u.bridgeLeft, q = u.bridgeRight;
+                if (hi != null && compare(hi, p) <= 0) {
+                    u = u.left;
+                } else if (lo != null && compare(lo, q) >= 0) {
+                    u = u.right;
+                } else if (x < p.x) {
+                    u = u.left;
+                    hi = p;
+                } else if (x > q.x || p.x == q.x) {
+                    // vertical edges are only found at the beginning
+                    u = u.right;
+                    lo = q;
+                } else {
+                    return GJMonotoneChain2D.orientation(p.x, p.y, q.x, q.y,
+                            x, y) <= 0;
+                }
+            }
+            return y <= u.y;
+        }
+
+        /**
+         * Adds the vertices of the hull of the subtree, within the range
+         * [lo, hi], to the list.
+         */
+        static void collect(Node node, Node lo, Node hi, ArrayList<Node> list) {
+            while (node.left != null) {
+                Node p = node.bridgeLeft, q = node.bridgeRight;
+                if (hi != null && compare(hi, p) <= 0) {
+                    node = node.left;
+                } else if (lo != null && compare(lo, q) >= 0) {
+                    node = node.right;
+                } else {
+                    collect(node.left, lo, p, list);
+                    node = node.right;
+                    lo = q;
+                }
+            }
+            list.add(node);
+        }
+
+        private static int compare(Node node1, Node node2) {
+            return GJMonotoneChain2D.compare(node1.x, node1.y, node2.x,
+                    node2.y);
+        }
+
+        private static int compare(double x, double y, Node node) {
+            return GJMonotoneChain2D.compare(x, y, node.x, node.y);
+        }
+    }
+
+
+    // ===================================================================
+    // predicates
+
+    /**
+     * Returns the sign of the cross product of the vectors (ax,ay)-(bx,by)
+     * and (cx,cy)-(dx,dy), computed exactly. A floating point filter
+     * decides the sign in most cases.
+     */
+    private static int crossSign(double ax, double ay, double bx, double by,
+            double cx, double cy, double dx, double dy) {
+        double left = (bx - ax) * (dy - cy);
+        double right = (by - ay) * (dx - cx);
+        double det = left - right;
+        double bound = 0x1p-50 * (Math.abs(left) + Math.abs(right));
+        if (det > bound)
+            return 1;
+        if (-det > bound)
+            return -1;
+        if (left == 0 && right == 0)
+            return 0;
+
+        BigDecimal x1 = new BigDecimal(bx).subtract(new BigDecimal(ax));
+        BigDecimal y1 = new BigDecimal(by).subtract(new BigDecimal(ay));
+        BigDecimal x2 = new BigDecimal(dx).subtract(new BigDecimal(cx));
+        BigDecimal y2 = new BigDecimal(dy).subtract(new BigDecimal(cy));
+        return x1.multiply(y2).compareTo(y1.multiply(x2));
+    }
+}
@@ -0,0 +1,426 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * Computes the intersection points between the edges of linear curves,
+ * working directly on their packed vertex coordinates.
+ * <br>
+ * Each curve is split into monotone chains, that are sequences of edges
+ * whose directions lie in the same quadrant, such that the bounding box of
+ * any part of a chain is given by its extremities. Chains are sorted by
+ * their minimal x-coordinate and swept, and the pairs of chains whose boxes
+ * overlap are split recursively, such that only edges with overlapping
+ * boxes are tested. The number of tests depends on the number of edges and
+ * of intersections, instead of the product of the numbers of edges.
+ * <br>
+ * Intersection points closer than GJShape2D.ACCURACY in both coordinates
+ * are merged by using a GJPointHashSet. Points are returned in the order
+ * of the first couple of edges producing them, as in the naive algorithm.
+ *
+ * @see GJPolylines2D#intersect(GJLinearCurve2D, GJLinearCurve2D)
+ * @see GJPolylines2D#selfIntersections(GJLinearCurve2D)
+ */
+class GJEdgeIntersector2D {
+
+    // ===================================================================
+    // constants
+
+    private final static double EPS = GJShape2D.ACCURACY;
+
+
+    // ===================================================================
+    // class variables
+
+    /** Vertex coordinates of the curves */
+    private final double[] coords1, coords2;
+
+    /** Number of vertices and of edges of each curve */
+    private final int n1, n2, nEdges1, nEdges2;
+
+    /** true when computing the intersections of a curve with itself */
+    private final boolean self;
+
+    /** true if the last edge of the curve ends at its first vertex */
+    private final boolean closed;
+
+    /** true if the computation stops at the first intersection */
+    private final boolean stopAtFirst;
+
+    /** true when the computation can stop */
+    private boolean done = false;
+
+    /** The intersection points, without duplicates */
+    private final GJPointHashSet points = new GJPointHashSet(EPS);
+
+    /** The first couple of edges giving each point, as i * nEdges2 + j */
+    private long[] pairs = new long[16];
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Prepares the computation of intersections between the edges of two
+     * curves. Edge i joins the vertices i and (i+1) modulo the number of
+     * vertices.
+     */
+    GJEdgeIntersector2D(GJPackedPointList2D vertices1, int nEdges1,
+            GJPackedPointList2D vertices2, int nEdges2) {
+        this.coords1 = vertices1.coordinates();
+        this.coords2 = vertices2.coordinates();
+        this.n1 = vertices1.size();
+        this.n2 = vertices2.size();
+        this.nEdges1 = nEdges1;
+        this.nEdges2 = nEdges2;
+        this.self = false;
+        this.closed = false;
+        this.stopAtFirst = false;
+    }
+
+    /**
+     * Prepares the computation of the self-intersections of a curve.
+     * Adjacent edges intersect only if they overlap beyond their common
+     * vertex. If the curve is closed, the first and the last edges are
+     * adjacent; the last edge either joins the last vertex to the first
+     * one, or ends at a last vertex that repeats the first one.
+     */
+    GJEdgeIntersector2D(GJPackedPointList2D vertices, int nEdges,
+            boolean closed, boolean stopAtFirst) {
+        this.coords1 = vertices.coordinates();
+        this.coords2 = this.coords1;
+        this.n1 = vertices.size();
+        this.n2 = this.n1;
+        this.nEdges1 = nEdges;
+        this.nEdges2 = nEdges;
+        this.self = true;
+        this.closed = closed;
+        this.stopAtFirst = stopAtFirst;
+    }
+
+
+    // ===================================================================
+    // public methods
+
+    /**
+     * Computes the intersections, and returns them in the order of the
+     * couples of edges.
+     */
+    ArrayList<GJPoint2D> compute() {
+        int[] chains1 = chains(coords1, n1, nEdges1);
+        int[] chains2 = self ? new int[0] : chains(coords2, n2, nEdges2);
+        int nc1 = chains1.length / 2, nc = nc1 + chains2.length / 2;
+
+        // boxes and curve of each chain
+        double[] boxes = new double[4 * nc];
+        int[] starts = new int[nc], ends = new int[nc];
+        for (int k = 0; k < nc; k++) {
+            boolean first = k < nc1;
+            int[] chains = first ? chains1 : chains2;
+            int kk = first ? k : k - nc1;
+            starts[k] = chains[2 * kk];
+            ends[k] = chains[2 * kk + 1];
+            chainBox(first, starts[k], ends[k], boxes, k);
+        }
+
+        // sort chains by minimal x, using the index to break ties
+        double[] xmins = new double[nc], order = new double[nc];
+        for (int k = 0; k < nc; k++) {
+            xmins[k] = boxes[4 * k];
+            order[k] = k;
+        }
+        GJMonotoneChain2D.sort(xmins, order, 0, nc);
+
+        // sweep the chains, processing couples with overlapping boxes
+        for (int a = 0; a < nc && !done; a++) {
+            int ka = (int) order[a];
+            boolean firstA = ka < nc1;
+            if (self)
+                selfOverlaps(starts[ka], ends[ka]);
+            for (int b = a + 1; b < nc && !done; b++) {
+                int kb = (int) order[b];
+                if (boxes[4 * kb] > boxes[4 * ka + 1] + EPS)
+                    break;
+                if (!self && firstA == (kb < nc1))
+                    continue;
+                if (boxes[4 * kb + 2] > boxes[4 * ka + 3] + EPS
+                        || boxes[4 * ka + 2] > boxes[4 * kb + 3] + EPS)
+                    continue;
+                if (self || firstA)
+                    overlaps(starts[ka], ends[ka], starts[kb], ends[kb]);
+                else
+                    overlaps(starts[kb], ends[kb], starts[ka], ends[ka]);
+            }
+        }
+
+        return sortedPoints();
+    }
+
+
+    // ===================================================================
+    // monotone chains
+
+    /**
+     * Splits the edges into monotone chains, and returns the indices of
+     * the first and last edges of each chain.
+     */
+    private static int[] chains(double[] c, int n, int nEdges) {
+        int[] chains = new int[16];
+        int nChains = 0;
+        int start = 0;
+        int qx = 0, qy = 0;
+        for (int i = 0; i < nEdges; i++) {
+            int j = (i + 1) % n;
+            int sx = sign(c[2 * j] - c[2 * i]);
+            int sy = sign(c[2 * j + 1] - c[2 * i + 1]);
+            if ((sx != 0 && qx != 0 && sx != qx)
+                    || (sy != 0 && qy != 0 && sy != qy)) {
+                if (2 * nChains + 2 > chains.length)
+                    chains = Arrays.copyOf(chains, 2 * chains.length);
+                chains[2 * nChains] = start;
+                chains[2 * nChains + 1] = i - 1;
+                nChains++;
+                start = i;
+                qx = 0;
+                qy = 0;
+            }
+            if (sx != 0)
+                qx = sx;
+            if (sy != 0)
+                qy = sy;
+        }
+        if (nEdges > 0) {
+            if (2 * nChains + 2 > chains.length)
+                chains = Arrays.copyOf(chains, 2 * chains.length);
+            chains[2 * nChains] = start;
+            chains[2 * nChains + 1] = nEdges - 1;
+            nChains++;
+        }
+        return Arrays.copyOf(chains, 2 * nChains);
+    }
+
+    private static int sign(double value) {
+        return value > 0 ? 1 : (value < 0 ? -1 : 0);
+    }
+
+    /**
+     * Stores the box of the edges from start to end as xmin, xmax, ymin,
+     * ymax, at the given index of the array.
+     */
+    private void chainBox(boolean first, int start, int end, double[] boxes,
+            int index) {
+        double[] c = first ? coords1 : coords2;
+        int j = (end + 1) % (first ? n1 : n2);
+        double x1 = c[2 * start], y1 = c[2 * start + 1];
+        double x2 = c[2 * j], y2 = c[2 * j + 1];
+        boxes[4 * index] = Math.min(x1, x2);
+        boxes[4 * index + 1] = Math.max(x1, x2);
+        boxes[4 * index + 2] = Math.min(y1, y2);
+        boxes[4 * index + 3] = Math.max(y1, y2);
+    }
+
+    /**
+     * Processes the couples of edges of two parts of chains, given by the
+     * indices of their first and last edges.
+     */
+    private void overlaps(int start1, int end1, int start2, int end2) {
+        if (done)
+            return;
+
+        // compare the boxes of the parts of chains
+        int j1 = (end1 + 1) % n1, j2 = (end2 + 1) % n2;
+        double xa = coords1[2 * start1], xb = coords1[2 * j1];
+        double xc = coords2[2 * start2], xd = coords2[2 * j2];
+        if (Math.min(xa, xb) > Math.max(xc, xd) + EPS
+                || Math.min(xc, xd) > Math.max(xa, xb) + EPS)
+            return;
+        double ya = coords1[2 * start1 + 1], yb = coords1[2 * j1 + 1];
+        double yc = coords2[2 * start2 + 1], yd = coords2[2 * j2 + 1];
+        if (Math.min(ya, yb) > Math.max(yc, yd) + EPS
+                || Math.min(yc, yd) > Math.max(ya, yb) + EPS)
+            return;
+
+        if (start1 == end1 && start2 == end2) {
+            if (!self)
+                intersectEdges(start1, start2);
+            else if (start1 < start2)
+                intersectEdges(start1, start2);
+            else
+                intersectEdges(start2, start1);
+            return;
+        }
+
+        // split the longest part
+        if (end1 - start1 >= end2 - start2) {
+            int mid = (start1 + end1) >>> 1;
+            overlaps(start1, mid, start2, end2);
+            overlaps(mid + 1, end1, start2, end2);
+        } else {
+            int mid = (start2 + end2) >>> 1;
+            overlaps(start1, end1, start2, mid);
+            overlaps(start1, end1, mid + 1, end2);
+        }
+    }
+
+    /**
+     * Processes the couples of distinct edges within a part of a chain.
+     */
+    private void selfOverlaps(int start, int end) {
+        if (start == end || done)
+            return;
+        int mid = (start + end) >>> 1;
+        selfOverlaps(start, mid);
+        selfOverlaps(mid + 1, end);
+        overlaps(start, mid, mid + 1, end);
+    }
+
+
+    // ===================================================================
+    // intersection of edges
+
+    /**
+     * Computes the intersection of the edge i of the first curve with the
+     * edge j of the second one, with i < j for self-intersections.
+     */
+    private void intersectEdges(int i, int j) {
+        int i2 = (i + 1) % n1, j2 = (j + 1) % n2;
+        double x1 = coords1[2 * i], y1 = coords1[2 * i + 1];
+        double dx1 = coords1[2 * i2] - x1, dy1 = coords1[2 * i2 + 1] - y1;
+        double x3 = coords2[2 * j], y3 = coords2[2 * j + 1];
+        double dx2 = coords2[2 * j2] - x3, dy2 = coords2[2 * j2 + 1] - y3;
+
+        // parallel edges, using the same tolerance as GJAbstractLine2D
+        double denom = dx1 * dy2 - dy1 * dx2;
+        if (Math.abs(denom) < EPS) {
+            if (self)
+                overlapEdges(i, j);
+            return;
+        }
+
+        // adjacent edges only meet at their common vertex
+        if (self && adjacentVertex(i, j) >= 0)
+            return;
+
+        double t = ((y1 - y3) * dx2 - (x1 - x3) * dy2) / denom;
+        if (t < -EPS || t - 1 > EPS)
+            return;
+        double s = ((y1 - y3) * dx1 - (x1 - x3) * dy1) / denom;
+        if (s < -EPS || s - 1 > EPS)
+            return;
+        addPoint(x1 + t * dx1, y1 + t * dy1, i, j);
+    }
+
+    /**
+     * Returns the index of the vertex common to the edges i < j of a curve,
+     * or -1 if they are not adjacent.
+     */
+    private int adjacentVertex(int i, int j) {
+        if (j == i + 1)
+            return j;
+        if (i == 0 && j == nEdges1 - 1 && closed)
+            return 0;
+        return -1;
+    }
+
+    /**
+     * Checks if the vertex v is the common vertex returned by
+     * adjacentVertex, or the last vertex of a curve closed through a
+     * duplicate of its first vertex.
+     */
+    private boolean isCommonVertex(int v, int common) {
+        if (v == common)
+            return true;
+        return common == 0 && closed && nEdges1 < n1 && v == nEdges1;
+    }
+
+    /**
+     * Checks if two parallel edges of a curve overlap, by testing the
+     * extremities of the shortest edge against the longest one. The common
+     * vertex of adjacent edges is not considered.
+     */
+    private void overlapEdges(int i, int j) {
+        double[] c = coords1;
+        int i2 = (i + 1) % n1, j2 = (j + 1) % n1;
+        double len1 = squaredLength(i, i2), len2 = squaredLength(j, j2);
+        int shortStart = i, shortEnd = i2, longStart = j, longEnd = j2;
+        if (len1 > len2) {
+            shortStart = j;
+            shortEnd = j2;
+            longStart = i;
+            longEnd = i2;
+        }
+
+        int common = adjacentVertex(i, j);
+        double x1 = c[2 * longStart], y1 = c[2 * longStart + 1];
+        double dx = c[2 * longEnd] - x1, dy = c[2 * longEnd + 1] - y1;
+        double denom = dx * dx + dy * dy;
+        for (int k = 0; k < 2; k++) {
+            int v = k == 0 ? shortStart : shortEnd;
+            if (isCommonVertex(v, common))
+                continue;
+            double x = c[2 * v], y = c[2 * v + 1];
+            double t = denom == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / denom;
+            t = Math.max(0, Math.min(t, 1));
+            if (Math.abs(x1 + t * dx - x) <= EPS
+                    && Math.abs(y1 + t * dy - y) <= EPS) {
+                addPoint(x, y, i, j);
+                return;
+            }
+        }
+    }
+
+    private double squaredLength(int i, int i2) {
+        double dx = coords1[2 * i2] - coords1[2 * i];
+        double dy = coords1[2 * i2 + 1] - coords1[2 * i + 1];
+        return dx * dx + dy * dy;
+    }
+
+
+    // ===================================================================
+    // management of intersection points
+
+    /**
+     * Adds an intersection point, unless a point closer than the tolerance
+     * was already found.
+     */
+    private void addPoint(double x, double y, int i, int j) {
+        long pair = (long) i * nEdges2 + j;
+        int k = points.indexOf(x, y);
+        if (k >= 0) {
+            if (pair < pairs[k])
+                pairs[k] = pair;
+            return;
+        }
+
+        k = points.size();
+        points.add(x, y);
+        if (k == pairs.length)
+            pairs = Arrays.copyOf(pairs, 2 * k);
+        pairs[k] = pair;
+        if (stopAtFirst)
+            done = true;
+    }
+
+    /**
+     * Returns the points sorted by the first couple of edges producing
+     * them. As a couple of edges produces at most one point, all the keys
+     * are different.
+     */
+    private ArrayList<GJPoint2D> sortedPoints() {
+        int n = points.size();
+        Integer[] indices = new Integer[n];
+        for (int k = 0; k < n; k++)
+            indices[k] = k;
+        Arrays.sort(indices, new Comparator<Integer>() {
+            public int compare(Integer k1, Integer k2) {
+                long p1 = pairs[k1], p2 = pairs[k2];
+                return p1 < p2 ? -1 : (p1 > p2 ? 1 : 0);
+            }
+        });
+        ArrayList<GJPoint2D> result = new ArrayList<GJPoint2D>(n);
+        for (Integer k : indices)
+            result.add(new GJPoint2D(points.x(k), points.y(k)));
+        return result;
+    }
+}
@@ -769,11 +769,11 @@ implements GJEllipseShape2D, Cloneable {
     }
 
     /**
-     * Returns an approximation of the signed distance to the ellipse.
-     * In the current implementation, the ellipse is converted to a polyline.
+     * Returns the signed distance to the ellipse, negative for points inside
+     * the ellipse.
      */
     public double signedDistance(GJPoint2D point) {
-    	double dist = this.asPolyline(180).distance(point);
+    	double dist = this.distance(point);
     	return isInside(point) ? -dist : dist;
     }
 
@@ -956,21 +956,109 @@ implements GJEllipseShape2D, Cloneable {
     }
 
     /**
-     * Computes the approximate projection position of the point on the ellipse.
-     * The ellipse is first converted to a unit circle, then the angular
-     * position of the point is computed in the transformed basis.
+     * Computes the position of the orthogonal projection of the point on the
+     * ellipse. The point is expressed in the basis of the ellipse and
+     * reflected into the first quadrant, then the closest point is computed
+     * with the robust method described by D. Eberly in "Distance from a point
+     * to an ellipse, an ellipsoid, or a hyperellipsoid".
      */
     public double project(GJPoint2D point) {
-        GJPoint2D p2 = toUnitCircle(point);
-        double xp = p2.x();
-        double yp = p2.y();
-
-        // compute angle
-        double angle = GJAngle2D.horizontalAngle(xp, yp);
+        // coordinates in the basis of the ellipse
+		double cot = cos(theta);
+		double sit = sin(theta);
+		double dx = point.x() - xc;
+		double dy = point.y() - yc;
+		double xp = dx * cot + dy * sit;
+		double yp = -dx * sit + dy * cot;
+
+		// work in the first quadrant, with the largest semi-axis along x
+		boolean swap = r1 < r2;
+		double e0 = swap ? r2 : r1;
+		double e1 = swap ? r1 : r2;
+		double y0 = abs(swap ? yp : xp);
+		double y1 = abs(swap ? xp : yp);
+
+		double x0, x1;
+		if (e1 == 0) {
+			// degenerate ellipse reduced to a segment
+			x0 = min(y0, e0);
+			x1 = 0;
+		} else if (y1 > 0) {
+			if (y0 > 0) {
+				double z0 = y0 / e0;
+				double z1 = y1 / e1;
+				double g = z0 * z0 + z1 * z1 - 1;
+				if (g != 0) {
+					double r0 = (e0 / e1) * (e0 / e1);
+					double s = eberlyRoot(r0, z0, z1, g);
+					x0 = r0 * y0 / (s + r0);
+					x1 = y1 / (s + 1);
+				} else {
+					x0 = y0;
+					x1 = y1;
+				}
+			} else {
+				x0 = 0;
+				x1 = e1;
+			}
+		} else {
+			double numer0 = e0 * y0;
+			double denom0 = e0 * e0 - e1 * e1;
+			if (numer0 < denom0) {
+				double xde0 = numer0 / denom0;
+				x0 = e0 * xde0;
+				x1 = e1 * sqrt(1 - xde0 * xde0);
+			} else {
+				x0 = e0;
+				x1 = 0;
+			}
+		}
 
-        return angle;
+		// back to the original quadrant and axes
+		double xq = copySign(swap ? x1 : x0, xp);
+		double yq = copySign(swap ? x0 : x1, yp);
+		double cost, sint;
+		if (r1 == 0 && r2 == 0) {
+			cost = 1;
+			sint = 0;
+		} else if (r2 == 0) {
+			cost = max(-1, min(xq / r1, 1));
+			sint = sqrt(1 - cost * cost);
+		} else if (r1 == 0) {
+			sint = max(-1, min(yq / r2, 1));
+			cost = sqrt(1 - sint * sint);
+		} else {
+			cost = xq / r1;
+			sint = yq / r2;
+		}
+		return GJAngle2D.horizontalAngle(cost, direct ? sint : -sint);
     }
 
+    /**
+     * Computes by bisection the root s of the function
+     * (r0*z0/(s+r0))^2 + (z1/(s+1))^2 - 1, following the method of Eberly.
+     */
+    private static double eberlyRoot(double r0, double z0, double z1, double g) {
+		double n0 = r0 * z0;
+		double s0 = z1 - 1;
+		double s1 = g < 0 ? 0 : hypot(n0, z1) - 1;
+		double s = 0;
+		while (true) {
+			s = (s0 + s1) / 2;
+			if (s == s0 || s == s1)
+				return s;
+			double ratio0 = n0 / (s + r0);
+			double ratio1 = z1 / (s + 1);
+			g = ratio0 * ratio0 + ratio1 * ratio1 - 1;
+			if (g > 0)
+				s0 = s;
+			else if (g < 0)
+				s1 = s;
+			else
+				return s;
+		}
+	}
+
     /**
      * Returns the ellipse with same center and same radius, but with the other
      * orientation.
@@ -1004,12 +1092,11 @@ implements GJEllipseShape2D, Cloneable {
     // methods of GJShape2D interface
 
     /**
-     * Computes distance using a polyline approximation.
+     * Computes distance to the orthogonal projection of the point on the
+     * ellipse.
      */
     public double distance(GJPoint2D point) {
-        // PolarVector2D vector = this.getProjectedVector(point, 1e-10);
-        // return abs(vector.getRho());
-        return this.asPolyline(180).distance(point);
+        return this.point(this.project(point)).distance(point);
     }
 
     public double distance(double x, double y) {
@@ -1241,6 +1328,18 @@ implements GJEllipseShape2D, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, xc);
+        hash = GJHashCodeUtils.hash(hash, yc);
+        hash = GJHashCodeUtils.hash(hash, r1);
+        hash = GJHashCodeUtils.hash(hash, r2);
+        hash = GJHashCodeUtils.hash(hash, theta);
+        hash = GJHashCodeUtils.hash(hash, direct);
+        return hash;
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
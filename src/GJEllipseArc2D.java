@@ -103,6 +103,9 @@ public static GJEllipseArc2D create(GJEllipse2D ell, double start, double end,
     /** The signed angle extent, in radians between -2PI and +2PI. */
     protected double    angleExtent = PI;
 
+    /** The adaptive polyline approximation, computed on first demand */
+    private GJFlattenedCurve2D flattened = null;
+
     
     // ====================================================================
     // Constructors
@@ -166,6 +169,16 @@ public static GJEllipseArc2D create(GJEllipse2D ell, double start, double end,
     // ====================================================================
     // methods specific to GJEllipseArc2D
 
+    /**
+     * Returns the adaptive polyline approximation of this curve, computed
+     * once and reused by the approximated queries.
+     */
+    protected GJFlattenedCurve2D flattened() {
+        if (flattened == null)
+            flattened = new GJFlattenedCurve2D(this);
+        return flattened;
+    }
+
     public GJEllipse2D getSupportingEllipse() {
     	return ellipse;
     }
@@ -516,8 +529,7 @@ public static GJEllipseArc2D create(GJEllipse2D ell, double start, double end,
      * @see math.geom2d.GJShape2D#distance(double, double)
      */
     public double distance(double x, double y) {
-        GJPoint2D p = point(project(new GJPoint2D(x, y)));
-        return p.distance(x, y);
+        return this.flattened().distance(x, y);
     }
 
     /** Always return true: an ellipse arc is bounded by definition */
@@ -842,6 +854,15 @@ public static GJEllipseArc2D create(GJEllipse2D ell, double start, double end,
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, ellipse);
+        hash = GJHashCodeUtils.hash(hash, startAngle);
+        hash = GJHashCodeUtils.hash(hash, angleExtent);
+        return hash;
+    }
     
     @Override
     public GJEllipseArc2D clone() {
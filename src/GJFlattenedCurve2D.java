@@ -0,0 +1,332 @@
+import java.util.Arrays;
+
+
+/**
+ * An adaptive polyline approximation of a smooth curve. The parameterization
+ * interval is first divided into a few regular intervals, then each interval
+ * is recursively split in two halves until the distances between the
+ * corresponding chord and the points of the curve at the middle and at the
+ * quarters of the interval fall below the flatness tolerance. The tolerance
+ * is given relative to the size of the curve, so that small and large curves
+ * are approximated with the same relative precision, with more vertices
+ * where the curvature is high.
+ * <br>
+ * The vertices are stored in arrays of doubles, together with the curve
+ * parameter of each vertex. Distance and projection queries are computed
+ * directly on the arrays, and do not allocate memory. The polyline
+ * representation is built only once, when it is first requested.
+ * <br>
+ * Instances are immutable, and are typically cached by the curves they
+ * approximate.
+ */
+public class GJFlattenedCurve2D {
+
+    // ===================================================================
+    // constants
+
+    /** The default flatness tolerance, relative to the size of the curve */
+    public final static double RELATIVE_TOLERANCE = 1e-5;
+
+    /** The number of regular intervals before adaptive subdivision */
+    private final static int MIN_SEGMENTS = 8;
+
+    /** The maximal number of subdivisions of each regular interval */
+    private final static int MAX_DEPTH = 16;
+
+
+    // ===================================================================
+    // class variables
+
+    /** The curve parameter of each vertex */
+    private final double[] ts;
+
+    /** The coordinates of the vertices */
+    private final double[] xs, ys;
+
+    /** The number of vertices, including the repeated vertex of closed curves */
+    private final int size;
+
+    /** Whether the last vertex is a repetition of the first one */
+    private final boolean closed;
+
+    /** The absolute flatness tolerance used for building the vertices */
+    private final double tolerance;
+
+    /** The polyline representation, computed on first demand */
+    private volatile GJLinearCurve2D polyline = null;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Flattens the whole curve, with the default relative tolerance.
+     */
+    public GJFlattenedCurve2D(GJSmoothCurve2D curve) {
+        this(curve, curve.t0(), curve.t1(), curve.isClosed(),
+                RELATIVE_TOLERANCE);
+    }
+
+    /**
+     * Flattens the portion of the curve between parameters t0 and t1, that
+     * must be finite. If the curve is closed, the polyline representation is
+     * a linear ring, and the point at t1 is assumed to coincide with the
+     * point at t0.
+     *
+     * @param curve the curve to flatten
+     * @param t0 the parameter of the first vertex
+     * @param t1 the parameter of the last vertex
+     * @param closed true if the flattened curve is closed
+     * @param relativeTolerance the flatness tolerance, relative to the
+     *            diagonal of the box of the regularly sampled points
+     */
+    public GJFlattenedCurve2D(GJSmoothCurve2D curve, double t0, double t1,
+            boolean closed, double relativeTolerance) {
+        if (Double.isInfinite(t0) || Double.isInfinite(t1))
+            throw new GJUnboundedShape2DException(curve);
+        this.closed = closed;
+
+        // regular sampling of the curve
+        double[] t = new double[MIN_SEGMENTS + 1];
+        double[] x = new double[MIN_SEGMENTS + 1];
+        double[] y = new double[MIN_SEGMENTS + 1];
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= MIN_SEGMENTS; i++) {
+            t[i] = i == MIN_SEGMENTS ? t1 : t0 + (t1 - t0) * i / MIN_SEGMENTS;
+            GJPoint2D point = curve.point(t[i]);
+            x[i] = point.x();
+            y[i] = point.y();
+            xmin = Math.min(xmin, x[i]);
+            xmax = Math.max(xmax, x[i]);
+            ymin = Math.min(ymin, y[i]);
+            ymax = Math.max(ymax, y[i]);
+        }
+        this.tolerance = relativeTolerance * Math.hypot(xmax - xmin, ymax - ymin);
+
+        // adaptive subdivision of each interval
+        Buffer buffer = new Buffer(4 * MIN_SEGMENTS + 1);
+        buffer.add(t[0], x[0], y[0]);
+        for (int i = 0; i < MIN_SEGMENTS; i++) {
+            double tm = (t[i] + t[i + 1]) / 2;
+            GJPoint2D middle = curve.point(tm);
+            subdivide(curve, t[i], x[i], y[i], tm, middle.x(), middle.y(),
+                    t[i + 1], x[i + 1], y[i + 1], 0, buffer);
+            buffer.add(t[i + 1], x[i + 1], y[i + 1]);
+        }
+
+        this.ts = buffer.ts;
+        this.xs = buffer.xs;
+        this.ys = buffer.ys;
+        this.size = buffer.size;
+    }
+
+    /**
+     * Adds to the buffer the vertices located strictly between the two
+     * given extremities, in increasing order of parameter. The point of the
+     * curve at the middle of the interval is given. The interval is flat if
+     * this point and the points at the quarters of the interval are close
+     * to the chord: testing only the middle point would accept S-shaped
+     * portions that cross the chord at their middle.
+     */
+    private void subdivide(GJSmoothCurve2D curve, double ta, double xa,
+            double ya, double tm, double xm, double ym, double tb, double xb,
+            double yb, int depth, Buffer buffer) {
+        if (depth == MAX_DEPTH)
+            return;
+        double t1 = (ta + tm) / 2, t3 = (tm + tb) / 2;
+        GJPoint2D p1 = curve.point(t1), p3 = curve.point(t3);
+        double x1 = p1.x(), y1 = p1.y(), x3 = p3.x(), y3 = p3.y();
+        if (segmentDistance(xa, ya, xb, yb, xm, ym) <= tolerance
+                && segmentDistance(xa, ya, xb, yb, x1, y1) <= tolerance
+                && segmentDistance(xa, ya, xb, yb, x3, y3) <= tolerance)
+            return;
+
+        subdivide(curve, ta, xa, ya, t1, x1, y1, tm, xm, ym, depth + 1,
+                buffer);
+        buffer.add(tm, xm, ym);
+        subdivide(curve, tm, xm, ym, t3, x3, y3, tb, xb, yb, depth + 1,
+                buffer);
+    }
+
+
+    // ===================================================================
+    // accessors
+
+    /**
+     * Returns the absolute flatness tolerance used for building the vertices.
+     */
+    public double tolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the number of vertices, counting only once the first vertex
+     * of a closed curve.
+     */
+    public int vertexNumber() {
+        return closed ? size - 1 : size;
+    }
+
+    /**
+     * Returns the polyline approximating the curve, as an instance of
+     * GJLinearRing2D for closed curves, or of GJPolyline2D otherwise. The
+     * polyline is shared by successive calls, and must not be modified.
+     */
+    public GJLinearCurve2D polyline() {
+        GJLinearCurve2D result = polyline;
+        if (result == null) {
+            int n = vertexNumber();
+            double[] x = new double[n], y = new double[n];
+            System.arraycopy(xs, 0, x, 0, n);
+            System.arraycopy(ys, 0, y, 0, n);
+            if (closed)
+                result = new GJLinearRing2D(x, y);
+            else
+                result = new GJPolyline2D(x, y);
+            polyline = result;
+        }
+        return result;
+    }
+
+    /**
+     * Converts a position on the polyline into a position on the curve, by
+     * linear interpolation between the parameters of the vertices.
+     */
+    public double curveParameter(double pos) {
+        if (Double.isNaN(pos))
+            return Double.NaN;
+        int i = (int) Math.floor(pos);
+        if (i < 0)
+            return ts[0];
+        if (i >= size - 1)
+            return ts[size - 1];
+        return ts[i] + (pos - i) * (ts[i + 1] - ts[i]);
+    }
+
+
+    // ===================================================================
+    // queries
+
+    /**
+     * Returns the bounding box of the vertices.
+     */
+    public GJBox2D boundingBox() {
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            xmin = Math.min(xmin, xs[i]);
+            xmax = Math.max(xmax, xs[i]);
+            ymin = Math.min(ymin, ys[i]);
+            ymax = Math.max(ymax, ys[i]);
+        }
+        return new GJBox2D(xmin, xmax, ymin, ymax);
+    }
+
+    /**
+     * Returns the distance between the point and the closest edge.
+     */
+    public double distance(double x, double y) {
+        if (size == 1)
+            return Math.hypot(xs[0] - x, ys[0] - y);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < size - 1; i++)
+            best = Math.min(best, squaredDistance(i, x, y));
+        return Math.sqrt(best);
+    }
+
+    /**
+     * Returns true if the point lies on one of the edges, with precision
+     * given by GJShape2D.ACCURACY.
+     */
+    public boolean contains(double x, double y) {
+        return distance(x, y) < GJShape2D.ACCURACY;
+    }
+
+    /**
+     * Returns the curve parameter of the projection of the point on the
+     * closest edge.
+     */
+    public double project(double x, double y) {
+        if (size == 1)
+            return ts[0];
+        double best = Double.POSITIVE_INFINITY;
+        int ind = 0;
+        for (int i = 0; i < size - 1; i++) {
+            double dist = squaredDistance(i, x, y);
+            if (dist < best) {
+                best = dist;
+                ind = i;
+            }
+        }
+        return ts[ind] + edgePosition(ind, x, y) * (ts[ind + 1] - ts[ind]);
+    }
+
+
+    // ===================================================================
+    // edge computations
+
+    /**
+     * Returns the position of the projection of the point on the edge
+     * starting at vertex i, between 0 and 1.
+     */
+    private double edgePosition(int i, double x, double y) {
+        double dx = xs[i + 1] - xs[i], dy = ys[i + 1] - ys[i];
+        double denom = dx * dx + dy * dy;
+        if (denom == 0)
+            return 0;
+        double t = ((x - xs[i]) * dx + (y - ys[i]) * dy) / denom;
+        return Math.max(0, Math.min(t, 1));
+    }
+
+    private double squaredDistance(int i, double x, double y) {
+        double t = edgePosition(i, x, y);
+        double ex = xs[i] + t * (xs[i + 1] - xs[i]) - x;
+        double ey = ys[i] + t * (ys[i + 1] - ys[i]) - y;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Returns the distance between the point (x, y) and the segment with
+     * extremities (x1, y1) and (x2, y2).
+     */
+    private static double segmentDistance(double x1, double y1, double x2,
+            double y2, double x, double y) {
+        double dx = x2 - x1, dy = y2 - y1;
+        double denom = dx * dx + dy * dy;
+        double t = denom == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / denom;
+        t = Math.max(0, Math.min(t, 1));
+        return Math.hypot(x1 + t * dx - x, y1 + t * dy - y);
+    }
+
+
+    // ===================================================================
+    // inner class
+
+    /**
+     * A growable set of arrays storing the vertices during the subdivision.
+     */
+    private static class Buffer {
+        double[] ts, xs, ys;
+        int size = 0;
+
+        Buffer(int capacity) {
+            ts = new double[capacity];
+            xs = new double[capacity];
+            ys = new double[capacity];
+        }
+
+        void add(double t, double x, double y) {
+            if (size == ts.length) {
+                int capacity = 2 * size;
+                ts = Arrays.copyOf(ts, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+            ts[size] = t;
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+    }
+}
@@ -13,7 +13,7 @@ public class GJGeneralPath2D implements GJCurve2D {
 	// ===================================================================
 	// Static variables and constants
    
-	private enum Type {
+	enum Type {
 		MOVE,
 		LINE, 
 		QUAD,
@@ -768,6 +768,16 @@ public class GJGeneralPath2D implements GJCurve2D {
 		// if no difference was found, then the paths are almost equal
 		return true;		
 	}
+
+	public int hashCode() {
+		int hash = GJHashCodeUtils.SEED;
+		for (Segment seg : segments) {
+			hash = GJHashCodeUtils.hash(hash, seg.type());
+			for (GJPoint2D point : seg.controlPoints())
+				hash = GJHashCodeUtils.hash(hash, point);
+		}
+		return hash;
+	}
 	
 	public GJGeneralPath2D clone() {
 		GJGeneralPath2D path = new GJGeneralPath2D();
@@ -811,7 +821,7 @@ public class GJGeneralPath2D implements GJCurve2D {
 	// ===================================================================
 	// Declaration and implementation of the path segments
 
-	private interface Segment {
+	interface Segment {
 		public Type type();
 		public GJPoint2D[] controlPoints();
 		public GJSmoothCurve2D asCurve(GJPoint2D lastControl, GJPoint2D lastStart);
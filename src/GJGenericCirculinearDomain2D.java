@@ -68,6 +68,15 @@ implements GJCirculinearDomain2D {
 		return new GJGenericCirculinearDomain2D(boundary2);
 	}
 	
+	/**
+	 * Checks which points are contained in the domain, by computing the
+	 * signed distance of each point to the boundary.
+	 */
+	public void containsAll(double[] xs, double[] ys, boolean[] result) {
+		for (int i = 0; i < xs.length; i++)
+			result[i] = this.contains(xs[i], ys[i]);
+	}
+	
 	// ===================================================================
 	// methods overriding the Object class
 
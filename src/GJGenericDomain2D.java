@@ -201,4 +201,9 @@ public class GJGenericDomain2D implements GJDomain2D {
         if(!boundary.equals(domain.boundary)) return false;
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return boundary.hashCode();
+    }
 }
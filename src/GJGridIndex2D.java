@@ -0,0 +1,633 @@
+import java.util.Arrays;
+
+
+/**
+ * A spatial index based on a uniform grid, using the same origin and cell
+ * size model as GJSquareGrid2D. Items are identified by integer ids, chosen
+ * by the caller, and are either points or shapes given by their bounding
+ * box.
+ * <br>
+ * Each item is stored in the cell containing its center. The cells are
+ * hashed into buckets, whose content is stored in compressed sparse row
+ * layout: a single array of ids sorted by bucket, and an array of offsets
+ * giving the first id of each bucket. The coordinates of the items are
+ * copied in the same order, in a single array. Consecutive cells of a row
+ * are hashed to consecutive buckets, such that the items of a row of cells
+ * are read from contiguous memory. No object is created per item or per
+ * cell, and the whole plane can be indexed without bounding the grid.
+ * <br>
+ * The data of the items are stored in arrays indexed by id, and compacting
+ * the index visits all the ids up to the largest one. Ids are therefore
+ * expected to be dense, ideally from 0 to n-1 as for the rebuild method:
+ * the memory used and the time taken by compaction and by large queries
+ * are proportional to the largest id, not to the number of items.
+ * <br>
+ * Moving an item within its cell only updates its coordinates. Items added,
+ * or moved to another cell, are chained in overflow lists attached to the
+ * buckets, and the index is compacted into the sorted layout when the
+ * overflow lists become too long. With dense ids, adding, moving and
+ * removing an item therefore take constant amortized time. The index can
+ * also be rebuilt from coordinate arrays in linear time, which is
+ * convenient for data updated at each time step.
+ * <br>
+ * Queries visit the cells overlapping the query window, enlarged by the
+ * largest half-size of the indexed shapes. The index is efficient when the
+ * items are distributed evenly and are small compared to the cells.
+ * Query methods store the ids of the items found in an array, and return
+ * the number of items found, that may be greater than the length of the
+ * array; in that case only the first ids are stored.
+ * @see GJSquareGrid2D
+ * @see GJStaticKDTree2D
+ */
+public class GJGridIndex2D {
+
+    // ===================================================================
+    // class variables
+
+    /** The origin and the size of the grid cells */
+    private final double x0, y0, sx, sy;
+
+    /** The center and the half-size of each item, indexed by id */
+    private double[] xs, ys, hxs, hys;
+
+    /** The indices of the cell containing each item */
+    private long[] cxs, cys;
+
+    /** The bucket of each item, or -1 if the id is not used */
+    private int[] buckets;
+
+    /** The position of each item in the sorted layout, or -1 if in overflow */
+    private int[] positions;
+
+    /** The overflow lists, as doubly linked lists of ids */
+    private int[] heads, next, prev;
+
+    /** The offsets of the buckets in the sorted layout */
+    private int[] starts = new int[1];
+
+    /** The ids sorted by bucket, or -1 for removed items */
+    private int[] entries = new int[0];
+
+    /** The center and the half-size of the items, in the order of entries */
+    private double[] entryCoords = new double[0];
+
+    /** The number of items in the index */
+    private int size = 0;
+
+    /** The number of items in overflow lists, and of removed entries */
+    private int nOverflow = 0, nRemoved = 0;
+
+    /** The largest half-size of the indexed items */
+    private double maxHx = 0, maxHy = 0;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates an index with square cells of the given size, the origin being
+     * at (0,0).
+     */
+    public GJGridIndex2D(double s) {
+        this(0, 0, s, s);
+    }
+
+    /**
+     * Creates an index using the origin and the cell size of the grid.
+     */
+    public GJGridIndex2D(GJSquareGrid2D grid) {
+        this(grid.x0, grid.y0, grid.sx, grid.sy);
+    }
+
+    public GJGridIndex2D(double x0, double y0, double sx, double sy) {
+        this(x0, y0, sx, sy, 16);
+    }
+
+    /**
+     * Creates an index with the given grid parameters, preallocating storage
+     * for ids up to the given capacity.
+     */
+    public GJGridIndex2D(double x0, double y0, double sx, double sy,
+            int capacity) {
+        if (!(sx > 0) || !(sy > 0))
+            throw new IllegalArgumentException(
+                    "Cell sizes must be positive: " + sx + ", " + sy);
+        this.x0 = x0;
+        this.y0 = y0;
+        this.sx = sx;
+        this.sy = sy;
+        allocate(Math.max(capacity, 1));
+        this.heads = new int[1];
+        Arrays.fill(heads, -1);
+    }
+
+
+    // ===================================================================
+    // accessors
+
+    /**
+     * Returns the grid used for bucketing items.
+     */
+    public GJSquareGrid2D grid() {
+        return new GJSquareGrid2D(x0, y0, sx, sy);
+    }
+
+    /**
+     * Returns the number of items in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the index contains an item with the given id.
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < buckets.length && buckets[id] >= 0;
+    }
+
+    /**
+     * Returns the x coordinate of the item, or of the center of its bounding
+     * box.
+     */
+    public double x(int id) {
+        checkId(id);
+        return xs[id];
+    }
+
+    /**
+     * Returns the y coordinate of the item, or of the center of its bounding
+     * box.
+     */
+    public double y(int id) {
+        checkId(id);
+        return ys[id];
+    }
+
+    /**
+     * Returns the bounding box of the item, that is reduced to a point for
+     * items added as points.
+     */
+    public GJBox2D boundingBox(int id) {
+        checkId(id);
+        return new GJBox2D(xs[id] - hxs[id], xs[id] + hxs[id],
+                ys[id] - hys[id], ys[id] + hys[id]);
+    }
+
+
+    // ===================================================================
+    // modification methods
+
+    /**
+     * Adds a point item with the given id.
+     * @return false if the index already contains an item with this id
+     */
+    public boolean add(int id, double x, double y) {
+        return add(id, x, y, 0, 0);
+    }
+
+    public boolean add(int id, GJPoint2D point) {
+        return add(id, point.x, point.y, 0, 0);
+    }
+
+    /**
+     * Adds a shape item with the given id, indexed by its bounding box.
+     * @return false if the index already contains an item with this id
+     */
+    public boolean add(int id, GJBox2D box) {
+        return add(id, (box.getMinX() + box.getMaxX()) / 2,
+                (box.getMinY() + box.getMaxY()) / 2,
+                (box.getMaxX() - box.getMinX()) / 2,
+                (box.getMaxY() - box.getMinY()) / 2);
+    }
+
+    private boolean add(int id, double x, double y, double hx, double hy) {
+        if (id < 0)
+            throw new IllegalArgumentException("Negative id: " + id);
+        if (id >= buckets.length)
+            allocate(Math.max(id + 1, 2 * buckets.length));
+        if (buckets[id] >= 0)
+            return false;
+
+        set(id, x, y, hx, hy);
+        link(id);
+        size++;
+        if (2 * size > heads.length)
+            rebuild();
+        else
+            checkOverflow();
+        return true;
+    }
+
+    /**
+     * Moves the point item with the given id to a new position.
+     * @return false if the index does not contain an item with this id
+     */
+    public boolean move(int id, double x, double y) {
+        return move(id, x, y, 0, 0);
+    }
+
+    public boolean move(int id, GJPoint2D point) {
+        return move(id, point.x, point.y, 0, 0);
+    }
+
+    /**
+     * Changes the bounding box of the shape item with the given id.
+     * @return false if the index does not contain an item with this id
+     */
+    public boolean move(int id, GJBox2D box) {
+        return move(id, (box.getMinX() + box.getMaxX()) / 2,
+                (box.getMinY() + box.getMaxY()) / 2,
+                (box.getMaxX() - box.getMinX()) / 2,
+                (box.getMaxY() - box.getMinY()) / 2);
+    }
+
+    private boolean move(int id, double x, double y, double hx, double hy) {
+        if (!contains(id))
+            return false;
+
+        long cx = cell(x, x0, sx), cy = cell(y, y0, sy);
+        if (cx == cxs[id] && cy == cys[id]) {
+            // same cell: only update the geometry of the item
+            xs[id] = x;
+            ys[id] = y;
+            hxs[id] = hx;
+            hys[id] = hy;
+            int pos = positions[id];
+            if (pos >= 0) {
+                entryCoords[4 * pos] = x;
+                entryCoords[4 * pos + 1] = y;
+                entryCoords[4 * pos + 2] = hx;
+                entryCoords[4 * pos + 3] = hy;
+            }
+            maxHx = Math.max(maxHx, hx);
+            maxHy = Math.max(maxHy, hy);
+            return true;
+        }
+
+        unlink(id);
+        set(id, x, y, hx, hy);
+        link(id);
+        checkOverflow();
+        return true;
+    }
+
+    /**
+     * Removes the item with the given id.
+     * @return false if the index does not contain an item with this id
+     */
+    public boolean remove(int id) {
+        if (!contains(id))
+            return false;
+        unlink(id);
+        buckets[id] = -1;
+        size--;
+        checkOverflow();
+        return true;
+    }
+
+    /**
+     * Removes all the items, keeping the allocated memory.
+     */
+    public void clear() {
+        Arrays.fill(buckets, -1);
+        Arrays.fill(heads, -1);
+        Arrays.fill(starts, 0);
+        size = 0;
+        nOverflow = 0;
+        nRemoved = 0;
+        maxHx = 0;
+        maxHy = 0;
+    }
+
+    /**
+     * Replaces the content of the index by the points given by the first n
+     * values of the coordinate arrays, the i-th point having the id i.
+     * Inner arrays are reused if their capacity is sufficient. The input
+     * arrays are not modified.
+     */
+    public void rebuild(double[] xs, double[] ys, int n) {
+        if (xs.length < n || ys.length < n)
+            throw new IllegalArgumentException(
+                    "Coordinate arrays must contain at least " + n + " values");
+        if (this.buckets.length < n)
+            allocate(n);
+        Arrays.fill(buckets, -1);
+
+        // mark the ids as used, buckets are computed by the compaction
+        for (int i = 0; i < n; i++) {
+            set(i, xs[i], ys[i], 0, 0);
+            buckets[i] = 0;
+        }
+        size = n;
+        rebuild();
+    }
+
+    /**
+     * Compacts the index, by storing all the items in the sorted layout.
+     * This is performed automatically when needed, but can be called after
+     * a batch of modifications for making subsequent queries faster.
+     */
+    public void rebuild() {
+        int nb = heads.length;
+        if (nb < 2 * size || nb > 8 * size) {
+            nb = Integer.highestOneBit(Math.max(2 * size, 8) - 1) * 2;
+            heads = new int[nb];
+            starts = new int[nb + 1];
+        } else {
+            Arrays.fill(starts, 0);
+        }
+        Arrays.fill(heads, -1);
+        if (entries.length < size) {
+            int capacity = Math.max(size, 2 * entries.length);
+            entries = new int[capacity];
+            entryCoords = new double[4 * capacity];
+        }
+
+        // counting sort of the ids by bucket
+        int n = buckets.length;
+        maxHx = 0;
+        maxHy = 0;
+        for (int id = 0; id < n; id++) {
+            if (buckets[id] < 0)
+                continue;
+            buckets[id] = bucket(cxs[id], cys[id], nb);
+            starts[buckets[id] + 1]++;
+            maxHx = Math.max(maxHx, hxs[id]);
+            maxHy = Math.max(maxHy, hys[id]);
+        }
+        for (int b = 0; b < nb; b++)
+            starts[b + 1] += starts[b];
+        for (int id = 0; id < n; id++) {
+            if (buckets[id] < 0)
+                continue;
+            int pos = starts[buckets[id]]++;
+            entries[pos] = id;
+            entryCoords[4 * pos] = xs[id];
+            entryCoords[4 * pos + 1] = ys[id];
+            entryCoords[4 * pos + 2] = hxs[id];
+            entryCoords[4 * pos + 3] = hys[id];
+            positions[id] = pos;
+        }
+        for (int b = nb; b > 0; b--)
+            starts[b] = starts[b - 1];
+        starts[0] = 0;
+
+        nOverflow = 0;
+        nRemoved = 0;
+    }
+
+
+    // ===================================================================
+    // queries
+
+    /**
+     * Returns the ids of the items whose bounding box intersects the window.
+     */
+    public int[] query(GJBox2D window) {
+        int[] result = new int[16];
+        int n = query(window.getMinX(), window.getMaxX(), window.getMinY(),
+                window.getMaxY(), result);
+        if (n > result.length) {
+            result = new int[n];
+            query(window.getMinX(), window.getMaxX(), window.getMinY(),
+                    window.getMaxY(), result);
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Stores in the result array the ids of the items whose bounding box
+     * intersects the window given by its bounds. Returns the number of items
+     * found.
+     */
+    public int query(double xmin, double xmax, double ymin, double ymax,
+            int[] result) {
+        return search(xmin, xmax, ymin, ymax, 0, 0, -1, Double.NaN, result);
+    }
+
+    /**
+     * Stores in the result array the ids of the items whose distance to the
+     * point is at most the given radius. For shape items, the distance is
+     * measured to their bounding box. Returns the number of items found.
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int withinRadius(double x, double y, double radius, int[] result) {
+        checkRadius(radius);
+        return search(x - radius, x + radius, y - radius, y + radius, x, y,
+                -1, radius * radius, result);
+    }
+
+    public int withinRadius(GJPoint2D point, double radius, int[] result) {
+        return withinRadius(point.x, point.y, radius, result);
+    }
+
+    /**
+     * Stores in the result array the ids of the items whose distance to the
+     * given item is at most the given radius, the item itself being
+     * excluded. Distance is measured from the center of the item. Returns
+     * the number of items found.
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public int neighbors(int id, double radius, int[] result) {
+        checkId(id);
+        checkRadius(radius);
+        double x = xs[id], y = ys[id];
+        return search(x - radius, x + radius, y - radius, y + radius, x, y,
+                id, radius * radius, result);
+    }
+
+    /**
+     * Common implementation of the queries. Items must intersect the window,
+     * and, if r2 is not NaN, be at a squared distance from (x, y) smaller
+     * than r2.
+     */
+    private int search(double xmin, double xmax, double ymin, double ymax,
+            double x, double y, int exclude, double r2, int[] result) {
+        if (size == 0)
+            return 0;
+
+        long ix0 = cell(xmin - maxHx, x0, sx);
+        long ix1 = cell(xmax + maxHx, x0, sx);
+        long iy0 = cell(ymin - maxHy, y0, sy);
+        long iy1 = cell(ymax + maxHy, y0, sy);
+        double nCells = ((double) ix1 - ix0 + 1) * ((double) iy1 - iy0 + 1);
+
+        int count = 0;
+        if (!(nCells <= size)) {
+            // large windows: scan all the items
+            for (int id = 0, n = buckets.length; id < n; id++)
+                if (buckets[id] >= 0 && id != exclude
+                        && accept(xs[id], ys[id], hxs[id], hys[id],
+                                xmin, xmax, ymin, ymax, x, y, r2))
+                    count = report(id, result, count);
+            return count;
+        }
+
+        int mask = heads.length - 1;
+        long nx = ix1 - ix0 + 1, ny = iy1 - iy0 + 1;
+        for (long j = 0; j < ny; j++) {
+            long iy = iy0 + j;
+            int rowHash = rowHash(iy);
+            for (long i = 0; i < nx; i++) {
+                long ix = ix0 + i;
+                int b = (rowHash + (int) ix) & mask;
+
+                // buckets may contain several cells, keep only the items of
+                // the current cell for avoiding duplicates
+                double[] coords = entryCoords;
+                for (int k = starts[b], end = starts[b + 1]; k < end; k++) {
+                    double cx = coords[4 * k], cy = coords[4 * k + 1];
+                    if (!accept(cx, cy, coords[4 * k + 2], coords[4 * k + 3],
+                            xmin, xmax, ymin, ymax, x, y, r2))
+                        continue;
+                    int id = entries[k];
+                    if (id >= 0 && id != exclude
+                            && cell(cx, x0, sx) == ix && cell(cy, y0, sy) == iy)
+                        count = report(id, result, count);
+                }
+                for (int id = nOverflow > 0 ? heads[b] : -1; id >= 0;
+                        id = next[id]) {
+                    if (id != exclude && cxs[id] == ix && cys[id] == iy
+                            && accept(xs[id], ys[id], hxs[id], hys[id],
+                                    xmin, xmax, ymin, ymax, x, y, r2))
+                        count = report(id, result, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the item with the given center and half-size intersects the
+     * window and, if r2 is not NaN, is close enough to (x, y).
+     */
+    private static boolean accept(double cx, double cy, double hx, double hy,
+            double xmin, double xmax, double ymin, double ymax,
+            double x, double y, double r2) {
+        if (Double.isNaN(r2))
+            return cx + hx >= xmin && cx - hx <= xmax
+                    && cy + hy >= ymin && cy - hy <= ymax;
+        double dx = Math.max(Math.abs(cx - x) - hx, 0);
+        double dy = Math.max(Math.abs(cy - y) - hy, 0);
+        return dx * dx + dy * dy <= r2;
+    }
+
+    private static int report(int id, int[] result, int count) {
+        if (count < result.length)
+            result[count] = id;
+        return count + 1;
+    }
+
+
+    // ===================================================================
+    // management of buckets
+
+    private void set(int id, double x, double y, double hx, double hy) {
+        xs[id] = x;
+        ys[id] = y;
+        hxs[id] = hx;
+        hys[id] = hy;
+        cxs[id] = cell(x, x0, sx);
+        cys[id] = cell(y, y0, sy);
+        maxHx = Math.max(maxHx, hx);
+        maxHy = Math.max(maxHy, hy);
+    }
+
+    /**
+     * Inserts the item in the overflow list of its bucket.
+     */
+    private void link(int id) {
+        int b = bucket(cxs[id], cys[id], heads.length);
+        buckets[id] = b;
+        positions[id] = -1;
+        prev[id] = -1;
+        next[id] = heads[b];
+        if (heads[b] >= 0)
+            prev[heads[b]] = id;
+        heads[b] = id;
+        nOverflow++;
+    }
+
+    /**
+     * Detaches the item from the sorted layout or from its overflow list.
+     */
+    private void unlink(int id) {
+        if (positions[id] >= 0) {
+            entries[positions[id]] = -1;
+            nRemoved++;
+            return;
+        }
+        if (prev[id] >= 0)
+            next[prev[id]] = next[id];
+        else
+            heads[buckets[id]] = next[id];
+        if (next[id] >= 0)
+            prev[next[id]] = prev[id];
+        nOverflow--;
+    }
+
+    /**
+     * Compacts the index when overflow lists and removed entries represent
+     * a large part of the content.
+     */
+    private void checkOverflow() {
+        if (nOverflow + nRemoved > size / 2 + 16)
+            rebuild();
+    }
+
+    private void allocate(int capacity) {
+        int n = buckets == null ? 0 : buckets.length;
+        xs = grow(xs, capacity);
+        ys = grow(ys, capacity);
+        hxs = grow(hxs, capacity);
+        hys = grow(hys, capacity);
+        cxs = cxs == null ? new long[capacity] : Arrays.copyOf(cxs, capacity);
+        cys = cys == null ? new long[capacity] : Arrays.copyOf(cys, capacity);
+        buckets = grow(buckets, capacity);
+        Arrays.fill(buckets, n, capacity, -1);
+        positions = grow(positions, capacity);
+        next = grow(next, capacity);
+        prev = grow(prev, capacity);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        return array == null ? new double[capacity]
+                : Arrays.copyOf(array, capacity);
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        return array == null ? new int[capacity]
+                : Arrays.copyOf(array, capacity);
+    }
+
+    /**
+     * Returns the bucket of a cell. The cells of a row are associated to
+     * consecutive buckets, starting from a position depending on the row.
+     */
+    private static int bucket(long cx, long cy, int nb) {
+        return (rowHash(cy) + (int) cx) & (nb - 1);
+    }
+
+    private static int rowHash(long cy) {
+        return GJPointHashSet.hash(cy, 0);
+    }
+
+    private static long cell(double value, double origin, double size) {
+        return (long) Math.floor((value - origin) / size);
+    }
+
+    private void checkId(int id) {
+        if (!contains(id))
+            throw new IllegalArgumentException("No item with id: " + id);
+    }
+
+    private static void checkRadius(double radius) {
+        if (radius < 0)
+            throw new IllegalArgumentException("Negative radius: " + radius);
+    }
+}
@@ -404,8 +404,27 @@ public class GJHRectangle2D extends java.awt.geom.Rectangle2D.Double implements
         return true;
     }
 
+    /**
+     * Computes the hash code from the bounds of the rectangle, such that
+     * rectangles with the same corners have the same hash code.
+     */
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, Math.min(x, x + width));
+        hash = GJHashCodeUtils.hash(hash, Math.max(x, x + width));
+        hash = GJHashCodeUtils.hash(hash, Math.min(y, y + height));
+        hash = GJHashCodeUtils.hash(hash, Math.max(y, y + height));
+        return hash;
+    }
+
 	public boolean contains(GJPoint2D p) {
 		return this.contains(p.getX(), p.getY());
 	}
 
+	public void containsAll(double[] xs, double[] ys, boolean[] result) {
+		for (int i = 0; i < xs.length; i++)
+			result[i] = this.contains(xs[i], ys[i]);
+	}
+
 }
@@ -0,0 +1,57 @@
+/**
+ * Collected methods which allow easy implementation of <code>hashCode</code>,
+ * consistently with the comparisons performed by GJEqualUtils.
+ * Rewritten from http://www.javapractices.com/topic/TopicAction.do?Id=28.
+ *
+ * Example use case in a class called Car:
+ * <pre>
+public int hashCode(){
+  int result = GJHashCodeUtils.SEED;
+  result = GJHashCodeUtils.hash(result, this.name);
+  result = GJHashCodeUtils.hash(result, this.numDoors);
+  result = GJHashCodeUtils.hash(result, this.gasMileage);
+  return result;
+}
+ * </pre>
+ *
+ * Doubles are hashed from their bit representation, such that values equal
+ * for GJEqualUtils.areEqual have the same hash code.
+ */
+public final class GJHashCodeUtils {
+
+	/**
+	 * An initial value for a <code>hashCode</code>, to which is added
+	 * contributions from fields. Using a non-zero value decreases collisions
+	 * of <code>hashCode</code> values.
+	 */
+	public static final int SEED = 23;
+
+	static public int hash(int aSeed, boolean aBoolean) {
+		return firstTerm(aSeed) + (aBoolean ? 1 : 0);
+	}
+
+	static public int hash(int aSeed, int aInt) {
+		return firstTerm(aSeed) + aInt;
+	}
+
+	static public int hash(int aSeed, long aLong) {
+		return firstTerm(aSeed) + (int) (aLong ^ (aLong >>> 32));
+	}
+
+	static public int hash(int aSeed, double aDouble) {
+		return hash(aSeed, Double.doubleToLongBits(aDouble));
+	}
+
+	/**
+	 * Possibly-null object field.
+	 */
+	static public int hash(int aSeed, Object aObject) {
+		return hash(aSeed, aObject == null ? 0 : aObject.hashCode());
+	}
+
+	private static final int ODD_PRIME_NUMBER = 37;
+
+	private static int firstTerm(int aSeed) {
+		return ODD_PRIME_NUMBER * aSeed;
+	}
+}
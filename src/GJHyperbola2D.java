@@ -625,6 +625,18 @@ implements GJConic2D, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, xc);
+        hash = GJHashCodeUtils.hash(hash, yc);
+        hash = GJHashCodeUtils.hash(hash, a);
+        hash = GJHashCodeUtils.hash(hash, b);
+        hash = GJHashCodeUtils.hash(hash, theta);
+        hash = GJHashCodeUtils.hash(hash, direct);
+        return hash;
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
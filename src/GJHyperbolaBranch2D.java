@@ -385,6 +385,14 @@ implements GJSmoothContour2D, Cloneable {
         if(!hyperbola.equals(branch.hyperbola)) return false;
         return positive == branch.positive;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, hyperbola);
+        hash = GJHashCodeUtils.hash(hash, positive);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -46,6 +46,9 @@ implements GJSmoothOrientedCurve2D, Cloneable {
 	 */
 	double t1 = 1;
 
+    /** The adaptive polyline approximation, computed on first demand */
+    private GJFlattenedCurve2D flattened = null;
+
     // ===================================================================
     // constructor
 
@@ -62,6 +65,16 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     // ===================================================================
     // methods specific to the arc
 
+    /**
+     * Returns the adaptive polyline approximation of this curve, computed
+     * once and reused by the approximated queries.
+     */
+    protected GJFlattenedCurve2D flattened() {
+        if (flattened == null)
+            flattened = new GJFlattenedCurve2D(this);
+        return flattened;
+    }
+
     public GJHyperbolaBranch2D getHyperbolaBranch() {
         return branch;
     }
@@ -103,7 +116,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     // methods inherited from GJContinuousCurve2D interface
 
     public java.awt.geom.GeneralPath appendPath(java.awt.geom.GeneralPath path) {
-        return this.asPolyline(60).appendPath(path);
+        return this.flattened().polyline().appendPath(path);
     }
 
     /** Returns false. */
@@ -203,7 +216,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     public GJBox2D boundingBox() {
         if (!this.isBounded())
             throw new GJUnboundedShape2DException(this);
-        return this.asPolyline(100).boundingBox();
+        return this.flattened().boundingBox();
     }
 
     /**
@@ -287,7 +300,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     public java.awt.geom.GeneralPath getGeneralPath() {
         if (!this.isBounded())
             throw new GJUnboundedShape2DException(this);
-        return this.asPolyline(100).asGeneralPath();
+        return this.flattened().polyline().asGeneralPath();
     }
 
     
@@ -330,6 +343,15 @@ implements GJSmoothOrientedCurve2D, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, branch);
+        hash = GJHashCodeUtils.hash(hash, t0);
+        hash = GJHashCodeUtils.hash(hash, t1);
+        return hash;
+    }
+
     @Override
     public GJHyperbolaBranchArc2D clone() {
         return new GJHyperbolaBranchArc2D(branch, t0, t1);
@@ -1,3 +1,4 @@
+import java.awt.Graphics2D;
 import java.util.*;
 
 /**
@@ -7,28 +8,53 @@ import java.util.*;
  * O(log n).<br>
  * The cost for building the tree is O(n log^2 n), that can take some time for
  * large points sets.<br>
- * This implementation is semi-dynamic: points can be added, but can not be
- * removed.
+ * Points can be added and removed. Removed points are only marked as deleted,
+ * and the whole tree is rebuilt when deleted nodes outnumber the remaining
+ * points. When an insertion creates a leaf deeper than the scapegoat bound,
+ * the subtree rooted at the first unbalanced ancestor is rebuilt, keeping the
+ * depth of the tree logarithmic in the number of points.<br>
+ * Nearest neighbor, k-nearest neighbors and radius queries prune subtrees by
+ * comparing the squared distance to the splitting line with the squared
+ * distance of the current candidates.<br>
+ * Index-based methods of the GJPointSet2D interface refer to the order of
+ * points given by an in-order traversal of the tree.
  * @author dlegland
  *
  */
-public class GJKDTree2D {
-    //TODO: make GJKDTree2D implements GJPointSet2D
+public class GJKDTree2D implements GJPointSet2D {
+
+    /**
+     * The weight-balance factor used to detect unbalanced subtrees.
+     */
+    private final static double ALPHA = 0.7;
+
     public class Node{
         private GJPoint2D point;
         private Node left;
         private Node right;
 
+        /** number of nodes in the subtree, including deleted ones */
+        private int size;
+
+        /** number of points in the subtree that are not deleted */
+        private int live;
+
+        private boolean deleted = false;
+
         public Node(GJPoint2D point){
             this.point  = point;
             this.left   = null;
             this.right  = null;
+            this.size   = 1;
+            this.live   = 1;
         }
 
         public Node(GJPoint2D point, Node left, Node right){
             this.point  = point;
             this.left   = left;
             this.right  = right;
+            this.size   = 1 + sizeOf(left) + sizeOf(right);
+            this.live   = 1 + liveOf(left) + liveOf(right);
         }
 
         public GJPoint2D getPoint() {
@@ -46,6 +72,15 @@ public class GJKDTree2D {
         public boolean isLeaf() {
             return left == null && right == null;
         }
+
+        /**
+         * Returns true if the point of this node has been removed from the
+         * tree. Deleted nodes are kept until the next rebuild of their
+         * subtree.
+         */
+        public boolean isDeleted() {
+            return deleted;
+        }
     }
 
     private class XComparator implements Comparator<GJPoint2D> {
@@ -74,15 +109,32 @@ public class GJKDTree2D {
         }
     }
 
-    private Node root;
+    private Node root = null;
+
+    /** number of deleted nodes still stored in the tree */
+    private int deletedCount = 0;
+
+    /** buffer used to store the insertion path */
+    private Node[] path = new Node[32];
 
     private Comparator<GJPoint2D> xComparator;
     private Comparator<GJPoint2D> yComparator;
 
-    public GJKDTree2D(ArrayList<GJPoint2D> points) {
+    /**
+     * Creates an empty tree.
+     */
+    public GJKDTree2D() {
         this.xComparator = new XComparator();
         this.yComparator = new YComparator();
-        root = makeTree(points, 0);
+    }
+
+    /**
+     * Creates a balanced tree containing the given points. The collection is
+     * not modified.
+     */
+    public GJKDTree2D(Collection<? extends GJPoint2D> points) {
+        this();
+        root = makeTree(new ArrayList<GJPoint2D>(points), 0);
     }
 
     private Node makeTree(List<GJPoint2D> points, int depth) {
@@ -111,94 +163,248 @@ public class GJKDTree2D {
                 makeTree(points.subList(med+1, n), depth+1));
     }
 
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int liveOf(Node node) {
+        return node == null ? 0 : node.live;
+    }
+
+    private int compare(GJPoint2D point, Node node, int depth) {
+        if(depth%2==0)
+            return xComparator.compare(point, node.point);
+        else
+            return yComparator.compare(point, node.point);
+    }
+
     public Node getRoot() {
         return root;
     }
 
-    public boolean contains(GJPoint2D value){
-        return contains(value, root, 0);
+    /**
+     * Returns the depth of the tree, i.e. the number of nodes on the longest
+     * path from the root to a leaf. Deleted nodes are counted.
+     */
+    public int depth() {
+        return depth(root);
     }
 
-    private boolean contains(GJPoint2D point, Node node, int depth){
-        if(node==null) return false;
+    private int depth(Node node) {
+        if(node==null)
+            return 0;
+        return 1 + Math.max(depth(node.left), depth(node.right));
+    }
 
-        // select direction
-        int dir = depth%2;
+    /**
+     * Rebuilds the whole tree, discarding deleted nodes.
+     */
+    public void rebuild() {
+        root = makeTree(livePoints(root), 0);
+        deletedCount = 0;
+    }
 
-        // sort points according to i-th dimension
-        int res;
-        if(dir==0){
-            // Compare points based on their x-coordinate
-            res = xComparator.compare(point, node.point);
-        }else{
-            // Compare points based on their x-coordinate
-            res = yComparator.compare(point, node.point);
-        }
+    /**
+     * Returns the list of points of the subtree that are not deleted, in
+     * in-order.
+     */
+    private ArrayList<GJPoint2D> livePoints(Node node) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>(liveOf(node));
+        collectPoints(node, points);
+        return points;
+    }
 
-        if(res<0)
-            return contains(point, node.left, depth+1);
-        if(res>0)
-            return contains(point, node.right, depth+1);
+    private void collectPoints(Node node, Collection<GJPoint2D> points) {
+        if(node==null)
+            return;
+        collectPoints(node.left, points);
+        if(!node.deleted)
+            points.add(node.point);
+        collectPoints(node.right, points);
+    }
 
-        return true;
+    /**
+     * Checks if the tree contains a point with the same coordinates.
+     */
+    private boolean containsExact(GJPoint2D point) {
+        return getNode(point, root, 0) != null;
     }
 
+    /**
+     * Returns the node containing a point with the same coordinates as the
+     * given point, or null if there is no such point in the tree.
+     */
     public Node getNode(GJPoint2D point) {
         return getNode(point, root, 0);
     }
 
     private Node getNode(GJPoint2D point, Node node, int depth){
-        if(node==null) return null;
-        // select direction
-        int dir = depth%2;
+        if(node==null || node.live==0) return null;
 
-        // sort points according to i-th dimension
-        int res;
-        if(dir==0){
-            // Compare points based on their x-coordinate
-            res = xComparator.compare(point, node.point);
-        }else{
-            // Compare points based on their x-coordinate
-            res = yComparator.compare(point, node.point);
-        }
+        int res = compare(point, node, depth);
 
         if(res<0)
             return getNode(point, node.left, depth+1);
         if(res>0)
             return getNode(point, node.right, depth+1);
-
-        return node;
+        if(!node.deleted)
+            return node;
+
+        // multiple points can be located on both sides of a deleted node
+        Node result = getNode(point, node.left, depth+1);
+        if(result!=null)
+            return result;
+        return getNode(point, node.right, depth+1);
     }
 
-    public void add(GJPoint2D point){
-       add(point, root, 0);
+    /**
+     * Adds a point to the tree. Returns false if the tree already contains a
+     * point with the same coordinates.
+     * If the new leaf is deeper than allowed by the balance factor, the
+     * subtree rooted at the first unbalanced ancestor is rebuilt.
+     */
+    public boolean add(GJPoint2D point){
+        if(root==null) {
+            root = new Node(point);
+            return true;
+        }
+
+        // find the insertion position, recording the path from the root
+        int depth = 0;
+        Node node = root;
+        while(true) {
+            if(depth>=path.length)
+                path = Arrays.copyOf(path, path.length*2);
+            path[depth] = node;
+
+            int res = compare(point, node, depth);
+            if(res==0) {
+                if(!node.deleted)
+                    return false;
+
+                // revive the deleted node
+                node.deleted = false;
+                deletedCount--;
+                for(int i=0; i<=depth; i++)
+                    path[i].live++;
+                return true;
+            }
+
+            Node child = res<0 ? node.left : node.right;
+            if(child==null) {
+                child = new Node(point);
+                if(res<0)
+                    node.left = child;
+                else
+                    node.right = child;
+                break;
+            }
+            node = child;
+            depth++;
+        }
+
+        // update counts of ancestors
+        for(int i=0; i<=depth; i++) {
+            path[i].size++;
+            path[i].live++;
+        }
+
+        // depth of the new leaf, the root being at depth 0
+        int leafDepth = depth+1;
+        if(leafDepth>maxDepth(root.size))
+            rebalance(depth);
+
+        return true;
     }
 
-    private void add(GJPoint2D point, Node node, int depth) {
-        // select direction
-        int dir = depth%2;
+    /**
+     * The maximal depth allowed for a tree with the given number of nodes.
+     */
+    private static int maxDepth(int size) {
+        return (int) Math.floor(Math.log(size) / Math.log(1/ALPHA));
+    }
 
-        // sort points according to i-th dimension
-        int res;
-        if(dir==0){
-            // Compare points based on their x-coordinate
-            res = xComparator.compare(point, node.point);
-        }else{
-            // Compare points based on their x-coordinate
-            res = yComparator.compare(point, node.point);
+    /**
+     * Finds the deepest ancestor on the insertion path whose child subtree is
+     * too heavy, and rebuilds it.
+     */
+    private void rebalance(int depth) {
+        for(int i=depth; i>=0; i--) {
+            Node node = path[i];
+            int childSize = Math.max(sizeOf(node.left), sizeOf(node.right));
+            if(childSize<=ALPHA*node.size)
+                continue;
+
+            // rebuild the subtree, and remove deleted nodes from ancestor sizes
+            Node subtree = makeTree(livePoints(node), i);
+            int removed = node.size - sizeOf(subtree);
+            deletedCount -= removed;
+            if(i==0) {
+                root = subtree;
+            } else {
+                Node parent = path[i-1];
+                if(parent.left==node)
+                    parent.left = subtree;
+                else
+                    parent.right = subtree;
+                for(int j=0; j<i; j++)
+                    path[j].size -= removed;
+            }
+            return;
         }
+    }
+
+    /**
+     * Removes a point with the same coordinates as the given point. The node
+     * is marked as deleted, and the tree is rebuilt when deleted nodes
+     * outnumber the points of the tree.
+     * @return true if a point was removed
+     */
+    public boolean remove(GJPoint2D point) {
+        if(!remove(point, root, 0))
+            return false;
+        deletedCount++;
+        if(deletedCount>root.live)
+            rebuild();
+        return true;
+    }
 
-        if(res<0){
-            if(node.left==null)
-                node.left = new Node(point);
-            else
-                add(point, node.left, depth+1);
+    private boolean remove(GJPoint2D point, Node node, int depth) {
+        if(node==null || node.live==0)
+            return false;
+
+        int res = compare(point, node, depth);
+        boolean found;
+        if(res<0) {
+            found = remove(point, node.left, depth+1);
+        } else if(res>0) {
+            found = remove(point, node.right, depth+1);
+        } else if(!node.deleted) {
+            node.deleted = true;
+            found = true;
+        } else {
+            found = remove(point, node.left, depth+1)
+                    || remove(point, node.right, depth+1);
         }
-        if(res>0)
-            if(node.right==null)
-                node.right = new Node(point);
-            else
-                add(point, node.right, depth+1);
+
+        if(found)
+            node.live--;
+        return found;
+    }
+
+    /**
+     * Moves a point of the tree to a new position.
+     * @return true if the source point was found and the target position was
+     * not already occupied. In other cases the tree is not modified.
+     */
+    public boolean move(GJPoint2D source, GJPoint2D target) {
+        // check the target before removing the source, for keeping the tree
+        // unchanged when the move fails
+        if(containsExact(target))
+            return source.equals(target);
+        if(!remove(source))
+            return false;
+        return add(target);
     }
 
     public Collection<GJPoint2D> rangeSearch(GJBox2D range) {
@@ -212,7 +418,7 @@ public class GJKDTree2D {
      */
     private void rangeSearch(GJBox2D range,
                              Collection<GJPoint2D> points, Node node, int depth) {
-        if(node==null)
+        if(node==null || node.live==0)
             return;
 
         // extract the point
@@ -227,7 +433,7 @@ public class GJKDTree2D {
         boolean ty2 = y <= range.getMaxY();
 
         // adds the point if it is present
-        if(tx1 && tx2 && ty1 && ty2)
+        if(tx1 && tx2 && ty1 && ty2 && !node.deleted)
             points.add(point);
 
         // select direction
@@ -241,60 +447,485 @@ public class GJKDTree2D {
 
 
     public GJPoint2D nearestNeighbor(GJPoint2D point) {
-        return nearestNeighbor(point, root, root, 0).getPoint();
+        if(root==null || root.live==0)
+            return null;
+        return nearestNeighbor(point.x(), point.y(), null, root, 0).getPoint();
     }
 
     /**
      * Return either the same node as candidate, or another node whose point
-     * is closer.
+     * is closer. Distances are compared in squared form, and the splitting
+     * line is handled through its coordinate only. Candidate is null until
+     * a point that is not deleted has been found.
      */
-    private Node nearestNeighbor(GJPoint2D point, Node candidate, Node node,
+    private Node nearestNeighbor(double x, double y, Node candidate, Node node,
                                  int depth) {
         // Check if the current node is closest that current candidate
-        double distCand = candidate.point.distance(point);
-        double dist     = node.point.distance(point);
-        if(dist<distCand){
+        double distCand = candidate==null ?
+                Double.POSITIVE_INFINITY : squaredDistance(candidate.point, x, y);
+        double dist     = squaredDistance(node.point, x, y);
+        if(dist<distCand && !node.deleted){
             candidate = node;
+            distCand = dist;
         }
 
-        // select direction
-        int dir = depth%2;
-
-        Node node1, node2;
+        // signed distance to the splitting line
+        double delta = axisDelta(node.point, x, y, depth%2);
 
         // First try on the canonical side,
         // the result is the closest node found by depth-firth search
-        GJPoint2D anchor = node.getPoint();
-        GJStraightLine2D line;
-        if(dir==0){
-            boolean b = point.x() < anchor.x();
-            node1 = b ? node.left : node.right;
-            node2 = b ? node.right : node.left;
-            line = new GJStraightLine2D(anchor, new GJVector2D(0, 1));
-        } else {
-            boolean b = point.y() < anchor.y();
-            node1 = b ? node.left : node.right;
-            node2 = b ? node.right : node.left;
-            line = new GJStraightLine2D(anchor, new GJVector2D(1, 0));
-        }
+        Node node1 = delta < 0 ? node.left : node.right;
+        Node node2 = delta < 0 ? node.right : node.left;
 
-        if(node1!=null) {
+        if(node1!=null && node1.live>0) {
             // Try to find a better candidate
-            candidate = nearestNeighbor(point, candidate, node1, depth+1);
+            candidate = nearestNeighbor(x, y, candidate, node1, depth+1);
 
             // recomputes distance to the (possibly new) candidate
-            distCand = candidate.getPoint().distance(point);
+            distCand = squaredDistance(candidate.point, x, y);
         }
 
         // If line is close enough, there can be closer points to the other
         // side of the line
-        if(line.distance(point)<distCand && node2!=null) {
-            candidate = nearestNeighbor(point, candidate, node2, depth+1);
+        if(node2!=null && node2.live>0 && delta*delta<distCand) {
+            candidate = nearestNeighbor(x, y, candidate, node2, depth+1);
         }
 
         return candidate;
     }
 
+    /**
+     * Returns the k points of the tree closest to the given point, sorted by
+     * increasing distance. If the tree contains less than k points, all
+     * points are returned.
+     */
+    public List<GJPoint2D> kNearest(GJPoint2D point, int k) {
+        GJPoint2D[] buffer = new GJPoint2D[k];
+        int n = kNearest(point, k, buffer);
+        return Arrays.asList(buffer).subList(0, n);
+    }
+
+    /**
+     * Computes the k points of the tree closest to the given point, and
+     * stores them in the first elements of the result array, sorted by
+     * increasing distance. The result array must have at least k elements.
+     * The search uses a bounded priority queue, and does not allocate memory
+     * for each visited node.
+     * @param point the query point
+     * @param k the maximal number of neighbors to find
+     * @param result the array used to store the neighbors
+     * @return the number of points stored in the result array, that is
+     * the minimum of k and the number of points in the tree.
+     */
+    public int kNearest(GJPoint2D point, int k, GJPoint2D[] result) {
+        if(k<0)
+            throw new IllegalArgumentException("Number of neighbors must be positive");
+        if(result.length<k)
+            throw new IllegalArgumentException(
+                    "Result array must contain at least " + k + " elements");
+        if(k==0 || root==null || root.live==0)
+            return 0;
+
+        // the queue is a max-heap stored in the result array, keyed by
+        // squared distances
+        double[] dists = new double[k];
+        int n = kNearest(point.x(), point.y(), k, result, dists, 0, root, 0);
+
+        // heap-sort the queue to obtain points by increasing distances
+        for(int i=n-1; i>0; i--) {
+            GJPoint2D p = result[0];
+            double d = dists[0];
+            result[0] = result[i];
+            dists[0] = dists[i];
+            result[i] = p;
+            dists[i] = d;
+            siftDown(result, dists, 0, i);
+        }
+        return n;
+    }
+
+    /**
+     * Recursive search for the k nearest neighbors. Returns the new number of
+     * elements in the queue.
+     */
+    private int kNearest(double x, double y, int k, GJPoint2D[] heap,
+                         double[] dists, int n, Node node, int depth) {
+        // update the queue with the current node
+        double dist = squaredDistance(node.point, x, y);
+        if(node.deleted) {
+            // nothing to update
+        } else if(n<k) {
+            heap[n] = node.point;
+            dists[n] = dist;
+            siftUp(heap, dists, n);
+            n++;
+        } else if(dist<dists[0]) {
+            heap[0] = node.point;
+            dists[0] = dist;
+            siftDown(heap, dists, 0, n);
+        }
+
+        // signed distance to the splitting line
+        double delta = axisDelta(node.point, x, y, depth%2);
+        Node node1 = delta < 0 ? node.left : node.right;
+        Node node2 = delta < 0 ? node.right : node.left;
+
+        if(node1!=null && node1.live>0)
+            n = kNearest(x, y, k, heap, dists, n, node1, depth+1);
+
+        // visit other side only if the queue is not full, or if the line is
+        // closer than the farthest current neighbor
+        if(node2!=null && node2.live>0 && (n<k || delta*delta<dists[0]))
+            n = kNearest(x, y, k, heap, dists, n, node2, depth+1);
+
+        return n;
+    }
+
+    private static void siftUp(GJPoint2D[] heap, double[] dists, int i) {
+        GJPoint2D p = heap[i];
+        double d = dists[i];
+        while(i>0) {
+            int parent = (i-1)/2;
+            if(dists[parent]>=d)
+                break;
+            heap[i] = heap[parent];
+            dists[i] = dists[parent];
+            i = parent;
+        }
+        heap[i] = p;
+        dists[i] = d;
+    }
+
+    private static void siftDown(GJPoint2D[] heap, double[] dists, int i, int n) {
+        GJPoint2D p = heap[i];
+        double d = dists[i];
+        while(true) {
+            int child = 2*i+1;
+            if(child>=n)
+                break;
+            if(child+1<n && dists[child+1]>dists[child])
+                child++;
+            if(dists[child]<=d)
+                break;
+            heap[i] = heap[child];
+            dists[i] = dists[child];
+            i = child;
+        }
+        heap[i] = p;
+        dists[i] = d;
+    }
+
+    /**
+     * Returns the points of the tree located at a distance lower than or
+     * equal to the given radius from the query point.
+     */
+    public Collection<GJPoint2D> withinRadius(GJPoint2D point, double radius) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        withinRadius(point, radius, points);
+        return points;
+    }
+
+    /**
+     * Adds to the given collection the points of the tree located at a
+     * distance lower than or equal to the given radius from the query point.
+     * The collection is not cleared before the search, making it possible to
+     * reuse the same buffer for successive queries.
+     * @return the number of points added to the collection
+     */
+    public int withinRadius(GJPoint2D point, double radius,
+                            Collection<GJPoint2D> result) {
+        if(root==null || root.live==0 || radius<0)
+            return 0;
+        return withinRadius(point.x(), point.y(), radius*radius, result, root, 0);
+    }
+
+    private int withinRadius(double x, double y, double r2,
+                             Collection<GJPoint2D> result, Node node, int depth) {
+        int count = 0;
+        if(!node.deleted && squaredDistance(node.point, x, y)<=r2) {
+            result.add(node.point);
+            count++;
+        }
+
+        double delta = axisDelta(node.point, x, y, depth%2);
+        Node node1 = delta < 0 ? node.left : node.right;
+        Node node2 = delta < 0 ? node.right : node.left;
+
+        if(node1!=null && node1.live>0)
+            count += withinRadius(x, y, r2, result, node1, depth+1);
+        if(node2!=null && node2.live>0 && delta*delta<=r2)
+            count += withinRadius(x, y, r2, result, node2, depth+1);
+        return count;
+    }
+
+    private static double squaredDistance(GJPoint2D point, double x, double y) {
+        double dx = point.x() - x;
+        double dy = point.y() - y;
+        return dx*dx + dy*dy;
+    }
+
+    /**
+     * Signed difference between the query coordinate and the coordinate of
+     * the anchor point along the splitting direction.
+     */
+    private static double axisDelta(GJPoint2D anchor, double x, double y, int dir) {
+        return dir==0 ? x - anchor.x() : y - anchor.y();
+    }
+
+
+    // ===================================================================
+    // methods implementing the GJPointSet2D interface
+
+    public void addAll(Collection<? extends GJPoint2D> points) {
+        for (GJPoint2D point : points)
+            add(point);
+    }
+
+    /**
+     * Points are inserted according to their coordinates, therefore the
+     * position in the tree can not be specified.
+     * @throws UnsupportedOperationException
+     */
+    public void add(int index, GJPoint2D point) {
+        throw new UnsupportedOperationException(
+                "Points of a KD-tree can not be inserted at a given index");
+    }
+
+    /**
+     * Returns the point at the given position in the in-order traversal of
+     * the tree.
+     */
+    public GJPoint2D get(int index) {
+        if(index<0 || index>=size())
+            throw new IndexOutOfBoundsException("Index: " + index);
+
+        Node node = root;
+        while(true) {
+            int nLeft = liveOf(node.left);
+            if(index<nLeft) {
+                node = node.left;
+                continue;
+            }
+            index -= nLeft;
+            if(!node.deleted) {
+                if(index==0)
+                    return node.point;
+                index--;
+            }
+            node = node.right;
+        }
+    }
+
+    public GJPoint2D remove(int index) {
+        GJPoint2D point = get(index);
+        remove(point);
+        return point;
+    }
+
+    /**
+     * Returns the position of the given point in the in-order traversal of
+     * the tree, or -1 if the tree does not contain the point.
+     */
+    public int indexOf(GJPoint2D point) {
+        return indexOf(point, root, 0);
+    }
+
+    private int indexOf(GJPoint2D point, Node node, int depth) {
+        if(node==null || node.live==0)
+            return -1;
+
+        int res = compare(point, node, depth);
+        if(res<0)
+            return indexOf(point, node.left, depth+1);
+
+        int offset = liveOf(node.left) + (node.deleted ? 0 : 1);
+        if(res==0) {
+            if(!node.deleted)
+                return liveOf(node.left);
+            int index = indexOf(point, node.left, depth+1);
+            if(index!=-1)
+                return index;
+        }
+
+        int index = indexOf(point, node.right, depth+1);
+        return index==-1 ? -1 : offset + index;
+    }
+
+    /**
+     * Returns the points of the tree, in the order of an in-order traversal.
+     */
+    public Collection<GJPoint2D> points() {
+        return Collections.unmodifiableList(livePoints(root));
+    }
+
+    /**
+     * Returns the number of points in the tree, deleted nodes being ignored.
+     */
+    public int size() {
+        return liveOf(root);
+    }
+
+    /**
+     * Removes all points of the tree.
+     */
+    public void clear() {
+        root = null;
+        deletedCount = 0;
+    }
+
+    public Iterator<GJPoint2D> iterator() {
+        return points().iterator();
+    }
+
+    /**
+     * Returns a new tree containing the transformed points.
+     */
+    public GJKDTree2D transform(GJAffineTransform2D trans) {
+        ArrayList<GJPoint2D> points = livePoints(root);
+        for (int i = 0; i < points.size(); i++)
+            points.set(i, points.get(i).transform(trans));
+        return new GJKDTree2D(points);
+    }
+
+    /**
+     * Returns a new tree containing the points located inside the box.
+     */
+    public GJKDTree2D clip(GJBox2D box) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        clip(box, points, root, 0);
+        return new GJKDTree2D(points);
+    }
+
+    private void clip(GJBox2D box, Collection<GJPoint2D> points, Node node,
+                      int depth) {
+        if(node==null || node.live==0)
+            return;
+
+        double x = node.point.x();
+        double y = node.point.y();
+        if(!node.deleted && box.contains(x, y))
+            points.add(node.point);
+
+        int dir = depth%2;
+        if(dir==0 ? box.getMinX()<=x : box.getMinY()<=y)
+            clip(box, points, node.left, depth+1);
+        if(dir==0 ? x<=box.getMaxX() : y<=box.getMaxY())
+            clip(box, points, node.right, depth+1);
+    }
+
+
+    // ===================================================================
+    // methods implementing the GJCirculinearShape2D interface
+
+    public GJCirculinearDomain2D buffer(double dist) {
+        GJBufferCalculator bc = GJBufferCalculator.getDefaultInstance();
+        return bc.computeBuffer(this, dist);
+    }
+
+    public GJKDTree2D transform(GJCircleInversion2D inv) {
+        ArrayList<GJPoint2D> points = livePoints(root);
+        for (int i = 0; i < points.size(); i++)
+            points.set(i, points.get(i).transform(inv));
+        return new GJKDTree2D(points);
+    }
+
+
+    // ===================================================================
+    // methods implementing the GJShape2D interface
+
+    /**
+     * Checks if the tree contains a point located at a distance lower than
+     * the accuracy from the given point. Points with the same coordinates are
+     * found by a direct search, other points by a nearest neighbor search.
+     */
+    public boolean contains(GJPoint2D point) {
+        if(containsExact(point))
+            return true;
+        GJPoint2D nearest = nearestNeighbor(point);
+        return nearest!=null && nearest.distance(point)<GJShape2D.ACCURACY;
+    }
+
+    public boolean contains(double x, double y) {
+        return contains(new GJPoint2D(x, y));
+    }
+
+    /**
+     * Returns the distance to the closest point of the tree, or NaN if the
+     * tree is empty.
+     */
+    public double distance(GJPoint2D point) {
+        GJPoint2D nearest = nearestNeighbor(point);
+        if(nearest==null)
+            return Double.NaN;
+        return nearest.distance(point);
+    }
+
+    public double distance(double x, double y) {
+        return distance(new GJPoint2D(x, y));
+    }
+
+    /**
+     * Always return true.
+     */
+    public boolean isBounded() {
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return size()==0;
+    }
+
+    public GJBox2D boundingBox() {
+        double xmin = Double.POSITIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY;
+        double xmax = Double.NEGATIVE_INFINITY;
+        double ymax = Double.NEGATIVE_INFINITY;
+
+        for (GJPoint2D point : livePoints(root)) {
+            xmin = Math.min(xmin, point.x());
+            ymin = Math.min(ymin, point.y());
+            xmax = Math.max(xmax, point.x());
+            ymax = Math.max(ymax, point.y());
+        }
+
+        return new GJBox2D(xmin, xmax, ymin, ymax);
+    }
+
+    /**
+     * Draws the points of the tree on the specified Graphics2D, using default
+     * radius equal to 1.
+     */
+    public void draw(Graphics2D g2) {
+        double r = 1;
+        for (GJPoint2D point : livePoints(root))
+            g2.fill(new java.awt.geom.Ellipse2D.Double(
+                    point.x()-r, point.y()-r, 2*r, 2*r));
+    }
+
+
+    // ===================================================================
+    // methods implementing the GJGeometricObject2D interface
+
+    public boolean almostEquals(GJGeometricObject2D obj, double eps) {
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof GJPointSet2D))
+            return false;
+
+        GJPointSet2D set = (GJPointSet2D) obj;
+        if (this.size() != set.size())
+            return false;
+
+        Iterator<GJPoint2D> iter = set.iterator();
+        for (GJPoint2D point : this) {
+            if (!point.almostEquals(iter.next(), eps))
+                return false;
+        }
+
+        return true;
+    }
+
 
     /**
      * Gives a small example of use.
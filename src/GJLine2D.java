@@ -669,6 +669,14 @@ implements GJLinearElement2D, Cloneable {
         GJLine2D edge = (GJLine2D) obj;
         return p1.equals(edge.p1) && p2.equals(edge.p2);
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, p1);
+        hash = GJHashCodeUtils.hash(hash, p2);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -415,6 +415,18 @@ implements GJSmoothOrientedCurve2D, Cloneable {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, x0);
+        hash = GJHashCodeUtils.hash(hash, y0);
+        hash = GJHashCodeUtils.hash(hash, dx);
+        hash = GJHashCodeUtils.hash(hash, dy);
+        hash = GJHashCodeUtils.hash(hash, t0);
+        hash = GJHashCodeUtils.hash(hash, t1);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
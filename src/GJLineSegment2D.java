@@ -393,6 +393,16 @@ implements Cloneable, GJCirculinearElement2D {
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		int hash = GJHashCodeUtils.SEED;
+		hash = GJHashCodeUtils.hash(hash, x0);
+		hash = GJHashCodeUtils.hash(hash, y0);
+		hash = GJHashCodeUtils.hash(hash, dx);
+		hash = GJHashCodeUtils.hash(hash, dy);
+		return hash;
+	}
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
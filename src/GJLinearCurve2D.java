@@ -1,11 +1,17 @@
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 
 
 /**
  * Abstract class that is the base implementation of GJPolyline2D and GJLinearRing2D.
+ * <p>
+ * The vertices are stored in a GJPackedPointList2D, that keeps their
+ * coordinates in a single array of doubles. Length, distance, projection,
+ * containment and bounding box computations are performed directly on the
+ * coordinates, without creating points or edges.
  * @author dlegland
  *
  */
@@ -15,14 +21,14 @@ implements GJCirculinearContinuousCurve2D {
     // ===================================================================
     // class variables
     
-    protected ArrayList<GJPoint2D> vertices;
+    protected GJPackedPointList2D vertices;
 
 
     // ===================================================================
     // Contructors
 
     protected GJLinearCurve2D() {
-    	this.vertices = new ArrayList<GJPoint2D>();
+    	this.vertices = new GJPackedPointList2D();
     }
 
     /**
@@ -31,26 +37,21 @@ implements GJCirculinearContinuousCurve2D {
      * @param nVertices
      */
     protected GJLinearCurve2D(int nVertices) {
-    	this.vertices = new ArrayList<GJPoint2D>(nVertices);
+    	this.vertices = new GJPackedPointList2D(nVertices);
     }
 
     protected GJLinearCurve2D(GJPoint2D... vertices) {
-    	this.vertices = new ArrayList<GJPoint2D>(vertices.length);
+    	this.vertices = new GJPackedPointList2D(vertices.length);
         for (GJPoint2D vertex : vertices)
             this.vertices.add(vertex);
     }
 
     protected GJLinearCurve2D(Collection<? extends GJPoint2D> vertices) {
-    	this.vertices = new ArrayList<GJPoint2D>(vertices.size());
-        this.vertices.addAll(vertices);
+    	this.vertices = new GJPackedPointList2D(vertices);
     }
 
     protected GJLinearCurve2D(double[] xcoords, double[] ycoords) {
-    	this.vertices = new ArrayList<GJPoint2D>(xcoords.length);
-		int n = xcoords.length;
-    	this.vertices.ensureCapacity(n);
-        for (int i = 0; i < n; i++)
-            vertices.add(new GJPoint2D(xcoords[i], ycoords[i]));
+    	this.vertices = new GJPackedPointList2D(xcoords, ycoords);
     }
 
 
@@ -161,7 +162,8 @@ implements GJCirculinearContinuousCurve2D {
     	int index = -1;
     	
     	for (int i = 0; i < vertices.size(); i++) {
-    		double dist = vertices.get(i).distance(point);
+    		double dist = Math.hypot(vertices.x(i) - point.x(),
+    				vertices.y(i) - point.y());
     		if (dist < minDist) {
     			index = i;
     			minDist = dist;
@@ -208,10 +210,7 @@ implements GJCirculinearContinuousCurve2D {
 	 * @see math.geom2d.circulinear.GJCirculinearCurve2D#length()
 	 */
 	public double length() {
-		double sum = 0;
-		for(GJLineSegment2D edge : this.edges())
-			sum += edge.length();
-		return sum;
+		return GJPolylines2D.length(vertices, this.edgeNumber());
 	}
 
 	/* (non-Javadoc)
@@ -411,24 +410,11 @@ implements GJCirculinearContinuousCurve2D {
      * @see math.geom2d.GJCurve2D#position(math.geom2d.GJPoint2D)
      */
     public double position(GJPoint2D point) {
-        int ind = 0;
-        double dist, minDist = Double.POSITIVE_INFINITY;
-        double x = point.x();
-        double y = point.y();
-
-        int i = 0;
-        GJLineSegment2D closest = null;
-        for (GJLineSegment2D edge : this.edges()) {
-            dist = edge.distance(x, y);
-            if (dist < minDist) {
-                minDist = dist;
-                ind = i;
-                closest = edge;
-            }
-            i++;
-        }
-
-        return closest.position(point) + ind;
+        int ind = GJPolylines2D.closestEdgeIndex(vertices, this.edgeNumber(),
+        		point.x(), point.y());
+        if (ind < 0)
+        	return Double.NaN;
+        return this.edge(ind).position(point) + ind;
     }
 
     /*
@@ -438,6 +424,7 @@ implements GJCirculinearContinuousCurve2D {
      */
     public Collection<GJPoint2D> intersections(GJLinearShape2D line) {
         ArrayList<GJPoint2D> list = new ArrayList<GJPoint2D>();
+        HashSet<GJPoint2D> found = new HashSet<GJPoint2D>();
 
         // extract intersections with each edge, and add to a list
         GJPoint2D point;
@@ -448,7 +435,7 @@ implements GJCirculinearContinuousCurve2D {
         	
 			point = edge.intersection(line);
 			if (point != null)
-				if (!list.contains(point))
+				if (found.add(point))
 					list.add(point);
 		}
 
@@ -466,22 +453,13 @@ implements GJCirculinearContinuousCurve2D {
      * @see math.geom2d.GJCurve2D#position(math.geom2d.GJPoint2D)
      */
     public double project(GJPoint2D point) {
-        double dist, minDist = Double.POSITIVE_INFINITY;
         double x = point.x();
         double y = point.y();
-        double pos = Double.NaN;
-
-        int i = 0;
-        for (GJLineSegment2D edge : this.edges()) {
-            dist = edge.distance(x, y);
-            if (dist < minDist) {
-                minDist = dist;
-                pos = edge.project(point)+i;
-            }
-            i++;
-        }
-
-        return pos;
+        int ind = GJPolylines2D.closestEdgeIndex(vertices, this.edgeNumber(),
+        		x, y);
+        if (ind < 0)
+        	return Double.NaN;
+        return GJPolylines2D.edgeProjection(vertices, ind, x, y) + ind;
     }
 
     
@@ -494,13 +472,7 @@ implements GJCirculinearContinuousCurve2D {
      * @see math.geom2d.GJShape2D#distance(double, double)
      */
     public double distance(double x, double y) {
-        double dist = Double.MAX_VALUE;
-        for (GJLineSegment2D edge : this.edges()) {
-        	if (edge.length()==0)
-        		continue;
-            dist = Math.min(dist, edge.distance(x, y));
-        }
-        return dist;
+        return GJPolylines2D.distance(vertices, this.edgeNumber(), x, y);
     }
 
     /*
@@ -528,25 +500,7 @@ implements GJCirculinearContinuousCurve2D {
      * Returns the bounding box of this linear curve.
      */
     public GJBox2D boundingBox() {
-        double xmin = Double.MAX_VALUE;
-        double ymin = Double.MAX_VALUE;
-        double xmax = Double.MIN_VALUE;
-        double ymax = Double.MIN_VALUE;
-
-        Iterator<GJPoint2D> iter = vertices.iterator();
-        GJPoint2D point;
-        double x, y;
-        while (iter.hasNext()) {
-            point = iter.next();
-            x = point.x();
-            y = point.y();
-            xmin = Math.min(xmin, x);
-            xmax = Math.max(xmax, x);
-            ymin = Math.min(ymin, y);
-            ymax = Math.max(ymax, y);
-        }
-
-        return new GJBox2D(xmin, xmax, ymin, ymax);
+        return GJPolylines2D.boundingBox(vertices);
     }
 
     /*
@@ -555,13 +509,7 @@ implements GJCirculinearContinuousCurve2D {
      * @see java.awt.Shape#contains(double, double)
      */
     public boolean contains(double x, double y) {
-        for (GJLineSegment2D edge : this.edges()) {
-        	if (edge.length()==0)
-        		continue;
-            if (edge.contains(x, y))
-                return true;
-        }
-        return false;
+        return GJPolylines2D.edgesContain(vertices, this.edgeNumber(), x, y);
     }
 
     /*
@@ -77,19 +77,7 @@ public class GJLinearRing2D extends GJLinearCurve2D implements GJCirculinearRing
      * @return the signed area of the polyline.
      */
 	public double area() {
-		// start from edge joining last and first vertices
-		GJPoint2D prev = this.vertices.get(this.vertices.size() - 1);
-
-		// Iterate over all couples of adjacent vertices
-		double area = 0;
-		for (GJPoint2D point : this.vertices) {
-			// add area of elementary parallelogram
-			area += prev.x() * point.y() - prev.y() * point.x();
-			prev = point;
-		}
-		
-		// divides by 2 to consider only elementary triangles
-		return area /= 2;
+		return GJPolylines2D.signedArea(this.vertices);
 	}
 
     // ===================================================================
@@ -393,10 +381,9 @@ public class GJLinearRing2D extends GJLinearCurve2D implements GJCirculinearRing
      * Returns the transformed shape, as a LinerRing2D.
      */
     public GJLinearRing2D transform(GJAffineTransform2D trans) {
-		GJPoint2D[] pts = new GJPoint2D[vertices.size()];
-		for (int i = 0; i < vertices.size(); i++)
-			pts[i] = trans.transform(vertices.get(i));
-		return new GJLinearRing2D(pts);
+		GJLinearRing2D result = new GJLinearRing2D();
+		result.vertices = vertices.transform(trans);
+		return result;
 	}
 
     /*
@@ -461,6 +448,11 @@ public class GJLinearRing2D extends GJLinearCurve2D implements GJCirculinearRing
 				return false;
 		return true;
     }
+
+	@Override
+	public int hashCode() {
+		return vertices.hashCode();
+	}
     
     
     // ===================================================================
@@ -0,0 +1,540 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+
+
+/**
+ * A read-only collection of polygons stored in a file, and mapped into
+ * memory. The vertices are not loaded into the heap: coordinates are read
+ * directly from the mapped file, and memory is managed by the page cache of
+ * the operating system, that can be shared by several processes reading the
+ * same file. Opening a store only requires mapping the file.
+ * <br>
+ * The file contains the coordinates of all the rings as contiguous pairs of
+ * doubles, together with tables giving the first ring of each polygon, the
+ * first vertex of each ring, and the bounding box and signed area of each
+ * ring and polygon. Files are created with the write method.
+ * <br>
+ * Bounding boxes, areas and containment tests are computed without creating
+ * any object. The ring and polygon methods create regular shapes that copy
+ * the coordinates of a single ring or polygon.
+ *
+ * @see #write(File, Collection)
+ */
+public class GJMappedPolygonStore implements Closeable {
+
+    // ===================================================================
+    // constants
+
+    /** The first four bytes of a store file: "GJPS" */
+    private final static int MAGIC = 0x474A5053;
+
+    private final static int VERSION = 1;
+
+    /** The size of the header, in bytes */
+    private final static int HEADER_SIZE = 32;
+
+    /** Number of vertices in each mapped region of coordinates (1 GB) */
+    private final static int CHUNK_SHIFT = 26;
+    private final static long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final static ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+
+    // ===================================================================
+    // static methods
+
+    /**
+     * Opens a polygon store, by mapping the file into memory.
+     * @param file a file created by the write method
+     * @throws IOException if the file can not be read, or is not a polygon
+     *             store
+     */
+    public static GJMappedPolygonStore open(File file) throws IOException {
+        return new GJMappedPolygonStore(file);
+    }
+
+    /**
+     * Writes the rings of the polygons into a file, that can be opened with
+     * the open method. The polygons keep their order, and so do the rings of
+     * each polygon.
+     * @param file the file to create or to replace
+     * @param polygons the polygons to write
+     * @throws IOException if the file can not be written
+     */
+    public static void write(File file,
+            Collection<? extends GJPolygon2D> polygons) throws IOException {
+        // collect rings, and compute tables
+        ArrayList<GJLinearRing2D> rings = new ArrayList<GJLinearRing2D>();
+        int[] polygonRings = new int[polygons.size() + 1];
+        int p = 0;
+        for (GJPolygon2D polygon : polygons) {
+            polygonRings[p++] = rings.size();
+            rings.addAll(polygon.contours());
+        }
+        polygonRings[p] = rings.size();
+
+        int nRings = rings.size();
+        long[] ringVertices = new long[nRings + 1];
+        double[] ringBoxes = new double[5 * nRings];
+        for (int r = 0; r < nRings; r++) {
+            GJLinearRing2D ring = rings.get(r);
+            ringVertices[r + 1] = ringVertices[r] + ring.vertexNumber();
+            GJBox2D box = GJPolylines2D.boundingBox(ring.vertices);
+            ringBoxes[5 * r] = box.getMinX();
+            ringBoxes[5 * r + 1] = box.getMaxX();
+            ringBoxes[5 * r + 2] = box.getMinY();
+            ringBoxes[5 * r + 3] = box.getMaxY();
+            ringBoxes[5 * r + 4] = ring.area();
+        }
+
+        int nPolygons = polygons.size();
+        double[] polygonBoxes = new double[5 * nPolygons];
+        for (p = 0; p < nPolygons; p++) {
+            double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+            double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+            double area = 0;
+            for (int r = polygonRings[p]; r < polygonRings[p + 1]; r++) {
+                xmin = Math.min(xmin, ringBoxes[5 * r]);
+                xmax = Math.max(xmax, ringBoxes[5 * r + 1]);
+                ymin = Math.min(ymin, ringBoxes[5 * r + 2]);
+                ymax = Math.max(ymax, ringBoxes[5 * r + 3]);
+                area += ringBoxes[5 * r + 4];
+            }
+            polygonBoxes[5 * p] = xmin;
+            polygonBoxes[5 * p + 1] = xmax;
+            polygonBoxes[5 * p + 2] = ymin;
+            polygonBoxes[5 * p + 3] = ymax;
+            polygonBoxes[5 * p + 4] = area;
+        }
+
+        long nVertices = ringVertices[nRings];
+        long coordsOffset = coordinatesOffset(nPolygons, nRings);
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ORDER);
+
+            buffer.putInt(MAGIC).putInt(VERSION);
+            buffer.putInt(nPolygons).putInt(nRings);
+            buffer.putLong(nVertices).putLong(coordsOffset);
+            for (int value : polygonRings)
+                put(channel, buffer, 4).putInt(value);
+            if ((nPolygons + 1) % 2 != 0)
+                put(channel, buffer, 4).putInt(0);
+            for (long value : ringVertices)
+                put(channel, buffer, 8).putLong(value);
+            for (double value : polygonBoxes)
+                put(channel, buffer, 8).putDouble(value);
+            for (double value : ringBoxes)
+                put(channel, buffer, 8).putDouble(value);
+
+            for (GJLinearRing2D ring : rings) {
+                GJPackedPointList2D vertices = ring.vertices;
+                for (int i = 0, n = vertices.size(); i < n; i++) {
+                    put(channel, buffer, 16);
+                    buffer.putDouble(vertices.x(i)).putDouble(vertices.y(i));
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel if it can not receive
+     * the specified number of bytes, and returns the buffer.
+     */
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer,
+            int nBytes) throws IOException {
+        if (buffer.remaining() < nBytes) {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the position of the coordinates in the file, after the header
+     * and the tables.
+     */
+    private static long coordinatesOffset(int nPolygons, int nRings) {
+        long intTable = 4L * (nPolygons + 1);
+        intTable += intTable % 8;
+        return HEADER_SIZE + intTable + 8L * (nRings + 1)
+                + 8L * 5 * nPolygons + 8L * 5 * nRings;
+    }
+
+
+    // ===================================================================
+    // class variables
+
+    private final RandomAccessFile file;
+
+    private final int nPolygons;
+    private final int nRings;
+    private final long nVertices;
+
+    /** The index of the first ring of each polygon, followed by nRings */
+    private final IntBuffer polygonRings;
+
+    /** The index of the first vertex of each ring, followed by nVertices */
+    private final LongBuffer ringVertices;
+
+    /** Box and signed area of each polygon: xmin, xmax, ymin, ymax, area */
+    private final DoubleBuffer polygonBoxes;
+
+    /** Box and signed area of each ring: xmin, xmax, ymin, ymax, area */
+    private final DoubleBuffer ringBoxes;
+
+    /** The coordinates of the vertices, by regions of 2^CHUNK_SHIFT vertices */
+    private final DoubleBuffer[] coords;
+
+
+    // ===================================================================
+    // constructor
+
+    private GJMappedPolygonStore(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = this.file.getChannel();
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("Not a polygon store: " + file);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            while (header.hasRemaining())
+                if (channel.read(header, header.position()) < 0)
+                    throw new IOException("Not a polygon store: " + file);
+            header.flip();
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a polygon store: " + file);
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported polygon store version "
+                        + version + ": " + file);
+            this.nPolygons = header.getInt();
+            this.nRings = header.getInt();
+            this.nVertices = header.getLong();
+            long coordsOffset = header.getLong();
+            if (coordsOffset != coordinatesOffset(nPolygons, nRings)
+                    || channel.size() < coordsOffset + 16 * nVertices)
+                throw new IOException("Corrupted polygon store: " + file);
+            if (coordsOffset > Integer.MAX_VALUE)
+                throw new IOException("Too many rings in polygon store: "
+                        + file);
+
+            // map the tables
+            MappedByteBuffer tables = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, coordsOffset);
+            int pos = HEADER_SIZE;
+            this.polygonRings = slice(tables, pos).asIntBuffer();
+            pos += 4 * (nPolygons + 1);
+            pos += pos % 8;
+            this.ringVertices = slice(tables, pos).asLongBuffer();
+            pos += 8 * (nRings + 1);
+            this.polygonBoxes = slice(tables, pos).asDoubleBuffer();
+            pos += 8 * 5 * nPolygons;
+            this.ringBoxes = slice(tables, pos).asDoubleBuffer();
+
+            // map the coordinates
+            int nChunks = (int) ((nVertices + CHUNK_MASK) >>> CHUNK_SHIFT);
+            this.coords = new DoubleBuffer[nChunks];
+            for (int c = 0; c < nChunks; c++) {
+                long first = (long) c << CHUNK_SHIFT;
+                long size = Math.min(nVertices - first, 1L << CHUNK_SHIFT);
+                coords[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        coordsOffset + 16 * first, 16 * size)
+                        .order(ORDER).asDoubleBuffer();
+            }
+        } catch (IOException ex) {
+            this.file.close();
+            throw ex;
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(position);
+        return dup.slice().order(ORDER);
+    }
+
+
+    // ===================================================================
+    // general methods
+
+    /**
+     * Returns the number of polygons in this store.
+     */
+    public int polygonNumber() {
+        return nPolygons;
+    }
+
+    /**
+     * Returns the total number of rings of the polygons.
+     */
+    public int ringNumber() {
+        return nRings;
+    }
+
+    /**
+     * Returns the total number of vertices of the rings.
+     */
+    public long vertexNumber() {
+        return nVertices;
+    }
+
+    /**
+     * Closes the underlying file. The mapped memory is released when the
+     * store is garbage collected.
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+
+
+    // ===================================================================
+    // methods for polygons
+
+    /**
+     * Returns the number of rings of the specified polygon.
+     */
+    public int polygonRingNumber(int polygon) {
+        return polygonRings.get(polygon + 1) - polygonRings.get(polygon);
+    }
+
+    /**
+     * Returns the index of the k-th ring of the specified polygon, that can
+     * be used with the methods for rings.
+     */
+    public int polygonRingIndex(int polygon, int k) {
+        if (k < 0 || k >= polygonRingNumber(polygon))
+            throw new IndexOutOfBoundsException("Ring index: " + k);
+        return polygonRings.get(polygon) + k;
+    }
+
+    /**
+     * Returns the bounding box of the specified polygon.
+     */
+    public GJBox2D polygonBoundingBox(int polygon) {
+        return box(polygonBoxes, polygon);
+    }
+
+    /**
+     * Returns the signed area of the specified polygon, computed as the sum
+     * of the signed areas of its rings.
+     */
+    public double polygonArea(int polygon) {
+        return polygonBoxes.get(5 * polygon + 4);
+    }
+
+    /**
+     * Creates the specified polygon: a GJSimplePolygon2D if the polygon has
+     * only one ring, or a GJMultiPolygon2D otherwise.
+     */
+    public GJPolygon2D polygon(int polygon) {
+        int first = polygonRings.get(polygon);
+        int last = polygonRings.get(polygon + 1);
+        if (last - first == 1) {
+            GJSimplePolygon2D result = new GJSimplePolygon2D(
+                    ringVertexNumber(first));
+            copyRing(first, result.vertices);
+            return result;
+        }
+        GJMultiPolygon2D result = new GJMultiPolygon2D(last - first);
+        for (int r = first; r < last; r++)
+            result.addRing(ring(r));
+        return result;
+    }
+
+    /**
+     * Checks if the specified polygon contains the point. Results are the
+     * same as for GJPolygons2D.containsAll: points located on a ring, with
+     * precision given by GJShape2D.ACCURACY, are contained, and other points
+     * are contained if their winding number equals 1 for polygons with
+     * positive area, or 0 otherwise. Rings whose bounding box does not
+     * contain the point are not processed.
+     */
+    public boolean contains(int polygon, double x, double y) {
+        double area = polygonArea(polygon);
+        if (area > 0 && !boxContains(polygonBoxes, polygon, x, y))
+            return false;
+
+        int first = polygonRings.get(polygon);
+        int last = polygonRings.get(polygon + 1);
+        int wn = 0;
+        for (int r = first; r < last; r++) {
+            if (!boxContains(ringBoxes, r, x, y))
+                continue;
+            if (ringBoundaryContains(r, x, y))
+                return true;
+            wn += ringWindingNumber(r, x, y);
+        }
+        return area > 0 ? wn == 1 : wn == 0;
+    }
+
+
+    // ===================================================================
+    // methods for rings
+
+    /**
+     * Returns the number of vertices of the specified ring.
+     */
+    public int ringVertexNumber(int ring) {
+        return (int) (ringVertices.get(ring + 1) - ringVertices.get(ring));
+    }
+
+    /**
+     * Returns the x-coordinate of the i-th vertex of the specified ring.
+     */
+    public double vertexX(int ring, int i) {
+        return x(vertexIndex(ring, i));
+    }
+
+    /**
+     * Returns the y-coordinate of the i-th vertex of the specified ring.
+     */
+    public double vertexY(int ring, int i) {
+        return y(vertexIndex(ring, i));
+    }
+
+    /**
+     * Returns the bounding box of the specified ring.
+     */
+    public GJBox2D ringBoundingBox(int ring) {
+        return box(ringBoxes, ring);
+    }
+
+    /**
+     * Returns the signed area of the specified ring.
+     */
+    public double ringArea(int ring) {
+        return ringBoxes.get(5 * ring + 4);
+    }
+
+    /**
+     * Creates a linear ring with the vertices of the specified ring.
+     */
+    public GJLinearRing2D ring(int ring) {
+        GJLinearRing2D result = new GJLinearRing2D(ringVertexNumber(ring));
+        copyRing(ring, result.vertices);
+        return result;
+    }
+
+
+    // ===================================================================
+    // private methods
+
+    private long vertexIndex(int ring, int i) {
+        if (i < 0 || i >= ringVertexNumber(ring))
+            throw new IndexOutOfBoundsException("Vertex index: " + i);
+        return ringVertices.get(ring) + i;
+    }
+
+    private double x(long vertex) {
+        return coords[(int) (vertex >>> CHUNK_SHIFT)]
+                .get(2 * (int) (vertex & CHUNK_MASK));
+    }
+
+    private double y(long vertex) {
+        return coords[(int) (vertex >>> CHUNK_SHIFT)]
+                .get(2 * (int) (vertex & CHUNK_MASK) + 1);
+    }
+
+    /**
+     * Appends the vertices of the ring to the list.
+     */
+    private void copyRing(int ring, GJPackedPointList2D vertices) {
+        long first = ringVertices.get(ring);
+        long last = ringVertices.get(ring + 1);
+        for (long v = first; v < last; v++)
+            vertices.add(x(v), y(v));
+    }
+
+    private static GJBox2D box(DoubleBuffer boxes, int index) {
+        int k = 5 * index;
+        return new GJBox2D(boxes.get(k), boxes.get(k + 1), boxes.get(k + 2),
+                boxes.get(k + 3));
+    }
+
+    /**
+     * Checks if the point is inside the box, enlarged by GJShape2D.ACCURACY
+     * to keep the points located on the boundary.
+     */
+    private static boolean boxContains(DoubleBuffer boxes, int index,
+            double x, double y) {
+        int k = 5 * index;
+        double eps = GJShape2D.ACCURACY;
+        return x >= boxes.get(k) - eps && x <= boxes.get(k + 1) + eps
+                && y >= boxes.get(k + 2) - eps && y <= boxes.get(k + 3) + eps;
+    }
+
+    /**
+     * Same computation as GJPolylines2D.edgesContain, for a ring of the
+     * store.
+     */
+    private boolean ringBoundaryContains(int ring, double x, double y) {
+        long first = ringVertices.get(ring);
+        long last = ringVertices.get(ring + 1);
+        if (first == last)
+            return false;
+        double x1 = x(last - 1), y1 = y(last - 1);
+        for (long v = first; v < last; v++) {
+            double x2 = x(v), y2 = y(v);
+            double dx = x2 - x1, dy = y2 - y1;
+            double denom = dx * dx + dy * dy;
+            if (denom != 0
+                    && Math.abs((x - x1) * dy - (y - y1) * dx)
+                            / Math.sqrt(denom) < GJShape2D.ACCURACY) {
+                double t = ((x - x1) * dx + (y - y1) * dy) / denom;
+                if (t >= -GJShape2D.ACCURACY && t - 1 <= GJShape2D.ACCURACY)
+                    return true;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+        return false;
+    }
+
+    /**
+     * Same computation as GJPolygons2D.windingNumber, for a ring of the
+     * store.
+     */
+    private int ringWindingNumber(int ring, double x, double y) {
+        long first = ringVertices.get(ring);
+        long last = ringVertices.get(ring + 1);
+        if (first == last)
+            return 0;
+        int wn = 0;
+        double x1 = x(last - 1), y1 = y(last - 1);
+        for (long v = first; v < last; v++) {
+            double x2 = x(v), y2 = y(v);
+            double left = (x2 - x1) * (y - y1) - (x - x1) * (y2 - y1);
+            if (y1 <= y) {
+                if (y2 > y && left > 0)
+                    wn++;
+            } else {
+                if (y2 <= y && left < 0)
+                    wn--;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+        return wn;
+    }
+}
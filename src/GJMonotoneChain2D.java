@@ -0,0 +1,413 @@
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Computes the convex hull of a set of points by the monotone chain
+ * algorithm of Andrew. Points are sorted by x, then by y, and the lower and
+ * upper hulls are built by scanning the sorted points. The complexity is
+ * O(n log n), whatever the number of vertices of the hull.
+ * <br>
+ * Before sorting, the extreme points in eight directions are computed, and
+ * the points located strictly inside the octagon they define are discarded
+ * (Akl-Toussaint heuristic). For large sets of points, the remaining points
+ * are split into chunks whose hulls are computed in parallel, then merged.
+ * <br>
+ * Orientation tests use a floating point filter, and are computed exactly
+ * when the filter can not decide the sign. The resulting polygon is
+ * oriented counter-clockwise, and does not contain colinear or duplicate
+ * vertices. The hull of colinear points is a degenerate polygon with the
+ * two extremities as vertices.
+ *
+ * @see GJJarvisMarch2D
+ */
+public class GJMonotoneChain2D implements GJConvexHull2D {
+
+	// ===================================================================
+	// constants
+
+	/** Minimal number of points processed by a single parallel task */
+	private final static int CHUNK_SIZE = 1 << 16;
+
+	/** Relative error bound of the floating point orientation test */
+	private final static double ORIENTATION_ERROR = (3 + 16 * 0x1p-53) * 0x1p-53;
+
+
+	// ===================================================================
+	// constructor
+
+	/**
+	 * Creates a new Convex hull calculator.
+	 */
+	public GJMonotoneChain2D() {
+	}
+
+
+	// ===================================================================
+	// methods implementing the GJConvexHull2D interface
+
+	/**
+	 * Computes the convex hull of a set of points, as an instance of
+	 * GJSimplePolygon2D.
+	 */
+	public GJPolygon2D convexHull(Collection<? extends GJPoint2D> points) {
+		int n = points.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		if (points instanceof GJPackedPointList2D) {
+			double[] coords = ((GJPackedPointList2D) points).coordinates();
+			for (int i = 0; i < n; i++) {
+				xs[i] = coords[2 * i];
+				ys[i] = coords[2 * i + 1];
+			}
+		} else {
+			int i = 0;
+			for (GJPoint2D point : points) {
+				xs[i] = point.x();
+				ys[i] = point.y();
+				i++;
+			}
+		}
+		return computeHull(xs, ys, n);
+	}
+
+	/**
+	 * Computes the convex hull of a set of points given by their coordinates.
+	 * The input arrays are not modified.
+	 */
+	public GJSimplePolygon2D convexHull(double[] xs, double[] ys) {
+		int n = xs.length;
+		if (ys.length != n)
+			throw new IllegalArgumentException(
+					"Coordinate arrays must have the same length");
+		return computeHull(xs.clone(), ys.clone(), n);
+	}
+
+
+	// ===================================================================
+	// hull computation
+
+	/**
+	 * Computes the hull of the points, using the arrays as working memory.
+	 */
+	private GJSimplePolygon2D computeHull(double[] xs, double[] ys, int n) {
+		double[] octagon = octagon(xs, ys, n);
+		HullTask task = new HullTask(xs, ys, 0, n, octagon);
+		double[] hull = n <= CHUNK_SIZE ? task.compute() : task.invoke();
+		int m = hull.length / 2;
+		double[] hx = new double[m], hy = new double[m];
+		for (int i = 0; i < m; i++) {
+			hx[i] = hull[2 * i];
+			hy[i] = hull[2 * i + 1];
+		}
+		return new GJSimplePolygon2D(hx, hy);
+	}
+
+	/**
+	 * Computes the counter-clockwise polygon joining the extreme points in
+	 * the directions of the axes and of the diagonals, without repeated
+	 * vertices. Returns null if the polygon has less than three vertices.
+	 */
+	private static double[] octagon(double[] xs, double[] ys, int n) {
+		if (n < 3)
+			return null;
+		// indices of extreme points, in counter-clockwise order starting
+		// from the minimal y: min y, min x-y, max x, max x+y, max y,
+		// max y-x, min x, min x+y
+		int[] ext = new int[8];
+		for (int i = 1; i < n; i++) {
+			double x = xs[i], y = ys[i];
+			if (y < ys[ext[0]]) ext[0] = i;
+			if (y - x < ys[ext[1]] - xs[ext[1]]) ext[1] = i;
+			if (x > xs[ext[2]]) ext[2] = i;
+			if (x + y > xs[ext[3]] + ys[ext[3]]) ext[3] = i;
+			if (y > ys[ext[4]]) ext[4] = i;
+			if (y - x > ys[ext[5]] - xs[ext[5]]) ext[5] = i;
+			if (x < xs[ext[6]]) ext[6] = i;
+			if (x + y < xs[ext[7]] + ys[ext[7]]) ext[7] = i;
+		}
+
+		double[] octagon = new double[16];
+		int m = 0;
+		for (int k = 0; k < 8; k++) {
+			double x = xs[ext[k]], y = ys[ext[k]];
+			if (m > 0 && x == octagon[2 * m - 2] && y == octagon[2 * m - 1])
+				continue;
+			octagon[2 * m] = x;
+			octagon[2 * m + 1] = y;
+			m++;
+		}
+		if (m > 1 && octagon[0] == octagon[2 * m - 2]
+				&& octagon[1] == octagon[2 * m - 1])
+			m--;
+		if (m < 3)
+			return null;
+
+		double[] result = new double[2 * m];
+		System.arraycopy(octagon, 0, result, 0, 2 * m);
+		return result;
+	}
+
+	/**
+	 * Checks if the point is strictly inside the convex polygon.
+	 */
+	private static boolean strictlyInside(double[] polygon, double x, double y) {
+		int m = polygon.length / 2;
+		double x1 = polygon[2 * m - 2], y1 = polygon[2 * m - 1];
+		for (int k = 0; k < m; k++) {
+			double x2 = polygon[2 * k], y2 = polygon[2 * k + 1];
+			if (orientation(x1, y1, x2, y2, x, y) <= 0)
+				return false;
+			x1 = x2;
+			y1 = y2;
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the hull of points sorted by x, then y, stored in the
+	 * range [lo, hi) of the arrays. Returns the coordinates of the vertices,
+	 * in counter-clockwise order, starting from the lowest x.
+	 */
+	private static double[] monotoneChain(double[] xs, double[] ys, int lo,
+			int hi) {
+		int n = hi - lo;
+		if (n == 0)
+			return new double[0];
+		double[] hx = new double[2 * n + 1];
+		double[] hy = new double[2 * n + 1];
+		int k = 0;
+
+		// lower hull
+		for (int i = lo; i < hi; i++) {
+			while (k >= 2 && orientation(hx[k - 2], hy[k - 2], hx[k - 1],
+					hy[k - 1], xs[i], ys[i]) <= 0)
+				k--;
+			hx[k] = xs[i];
+			hy[k] = ys[i];
+			k++;
+		}
+
+		// upper hull
+		int lower = k + 1;
+		for (int i = hi - 2; i >= lo; i--) {
+			while (k >= lower && orientation(hx[k - 2], hy[k - 2], hx[k - 1],
+					hy[k - 1], xs[i], ys[i]) <= 0)
+				k--;
+			hx[k] = xs[i];
+			hy[k] = ys[i];
+			k++;
+		}
+
+		// the last vertex is the same as the first one
+		if (k > 1)
+			k--;
+
+		// remove duplicates, that remain for identical or colinear points
+		double[] hull = new double[2 * k];
+		int m = 0;
+		for (int i = 0; i < k; i++) {
+			if (m > 0 && hx[i] == hull[2 * m - 2] && hy[i] == hull[2 * m - 1])
+				continue;
+			hull[2 * m] = hx[i];
+			hull[2 * m + 1] = hy[i];
+			m++;
+		}
+		if (m > 1 && hull[0] == hull[2 * m - 2] && hull[1] == hull[2 * m - 1])
+			m--;
+		if (2 * m == hull.length)
+			return hull;
+		double[] result = new double[2 * m];
+		System.arraycopy(hull, 0, result, 0, 2 * m);
+		return result;
+	}
+
+
+	// ===================================================================
+	// orientation predicate
+
+	/**
+	 * Returns the sign of the orientation of the three points: +1 if they
+	 * are in counter-clockwise order, -1 if they are in clockwise order, and
+	 * 0 if they are colinear. The sign is computed exactly, using a floating
+	 * point filter adapted from J. R. Shewchuk, and arbitrary precision
+	 * arithmetic when the filter fails.
+	 */
+	static int orientation(double ax, double ay, double bx, double by,
+			double cx, double cy) {
+		double detLeft = (ax - cx) * (by - cy);
+		double detRight = (ay - cy) * (bx - cx);
+		double det = detLeft - detRight;
+
+		double detSum;
+		if (detLeft > 0) {
+			if (detRight <= 0)
+				return signum(det);
+			detSum = detLeft + detRight;
+		} else if (detLeft < 0) {
+			if (detRight >= 0)
+				return signum(det);
+			detSum = -detLeft - detRight;
+		} else {
+			return signum(det);
+		}
+
+		double bound = ORIENTATION_ERROR * detSum;
+		if (det > bound || -det > bound)
+			return signum(det);
+		return exactOrientation(ax, ay, bx, by, cx, cy);
+	}
+
+	private static int exactOrientation(double ax, double ay, double bx,
+			double by, double cx, double cy) {
+		BigDecimal x = new BigDecimal(cx), y = new BigDecimal(cy);
+		BigDecimal left = new BigDecimal(ax).subtract(x).multiply(
+				new BigDecimal(by).subtract(y));
+		BigDecimal right = new BigDecimal(ay).subtract(y).multiply(
+				new BigDecimal(bx).subtract(x));
+		return left.compareTo(right);
+	}
+
+	private static int signum(double value) {
+		return value > 0 ? 1 : (value < 0 ? -1 : 0);
+	}
+
+
+	// ===================================================================
+	// sorting
+
+	/**
+	 * Sorts the points in the range [lo, hi) by increasing x, then by
+	 * increasing y, using quick sort with median of three pivot.
+	 */
+	static void sort(double[] xs, double[] ys, int lo, int hi) {
+		while (hi - lo > 16) {
+			int mid = (lo + hi) >>> 1;
+			if (compare(xs, ys, mid, lo) < 0) swap(xs, ys, mid, lo);
+			if (compare(xs, ys, hi - 1, lo) < 0) swap(xs, ys, hi - 1, lo);
+			if (compare(xs, ys, hi - 1, mid) < 0) swap(xs, ys, hi - 1, mid);
+			double px = xs[mid], py = ys[mid];
+
+			// three-way partition: < pivot in [lo, lt), == in [lt, gt]
+			int lt = lo, i = lo, gt = hi - 1;
+			while (i <= gt) {
+				int c = compare(xs[i], ys[i], px, py);
+				if (c < 0)
+					swap(xs, ys, lt++, i++);
+				else if (c > 0)
+					swap(xs, ys, i, gt--);
+				else
+					i++;
+			}
+
+			// recurse on the smaller part
+			if (lt - lo < hi - gt - 1) {
+				sort(xs, ys, lo, lt);
+				lo = gt + 1;
+			} else {
+				sort(xs, ys, gt + 1, hi);
+				hi = lt;
+			}
+		}
+
+		// insertion sort for small ranges
+		for (int i = lo + 1; i < hi; i++) {
+			double x = xs[i], y = ys[i];
+			int j = i - 1;
+			while (j >= lo && compare(xs[j], ys[j], x, y) > 0) {
+				xs[j + 1] = xs[j];
+				ys[j + 1] = ys[j];
+				j--;
+			}
+			xs[j + 1] = x;
+			ys[j + 1] = y;
+		}
+	}
+
+	private static int compare(double[] xs, double[] ys, int i, int j) {
+		return compare(xs[i], ys[i], xs[j], ys[j]);
+	}
+
+	static int compare(double x1, double y1, double x2, double y2) {
+		if (x1 < x2) return -1;
+		if (x1 > x2) return 1;
+		if (y1 < y2) return -1;
+		if (y1 > y2) return 1;
+		return 0;
+	}
+
+	private static void swap(double[] xs, double[] ys, int i, int j) {
+		double tmp = xs[i];
+		xs[i] = xs[j];
+		xs[j] = tmp;
+		tmp = ys[i];
+		ys[i] = ys[j];
+		ys[j] = tmp;
+	}
+
+
+	// ===================================================================
+	// parallel computation
+
+	/**
+	 * Computes the hull of the points in a range of the arrays. Small
+	 * ranges discard the points inside the octagon, then sort the remaining
+	 * points and compute their hull. Large ranges are split in two halves,
+	 * whose hulls are merged by computing the hull of their vertices.
+	 */
+	private static class HullTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		final double[] xs, ys;
+		final int lo, hi;
+		final double[] octagon;
+
+		HullTask(double[] xs, double[] ys, int lo, int hi, double[] octagon) {
+			this.xs = xs;
+			this.ys = ys;
+			this.lo = lo;
+			this.hi = hi;
+			this.octagon = octagon;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (hi - lo <= CHUNK_SIZE) {
+				// move the points outside the octagon at the beginning
+				int end = lo;
+				for (int i = lo; i < hi; i++) {
+					if (octagon != null
+							&& strictlyInside(octagon, xs[i], ys[i]))
+						continue;
+					xs[end] = xs[i];
+					ys[end] = ys[i];
+					end++;
+				}
+				sort(xs, ys, lo, end);
+				return monotoneChain(xs, ys, lo, end);
+			}
+
+			int mid = (lo + hi) >>> 1;
+			HullTask task1 = new HullTask(xs, ys, lo, mid, octagon);
+			HullTask task2 = new HullTask(xs, ys, mid, hi, octagon);
+			invokeAll(task1, task2);
+			double[] hull1 = task1.join();
+			double[] hull2 = task2.join();
+
+			// merge the two hulls
+			int n1 = hull1.length / 2, n2 = hull2.length / 2;
+			double[] mx = new double[n1 + n2], my = new double[n1 + n2];
+			for (int i = 0; i < n1; i++) {
+				mx[i] = hull1[2 * i];
+				my[i] = hull1[2 * i + 1];
+			}
+			for (int i = 0; i < n2; i++) {
+				mx[n1 + i] = hull2[2 * i];
+				my[n1 + i] = hull2[2 * i + 1];
+			}
+			sort(mx, my, 0, n1 + n2);
+			return monotoneChain(mx, my, 0, n1 + n2);
+		}
+	}
+}
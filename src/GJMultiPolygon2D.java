@@ -436,6 +436,15 @@ public class GJMultiPolygon2D implements GJDomain2D, GJPolygon2D {
         return this.contains(new GJPoint2D(x, y));
     }
 
+    /**
+     * Checks which points are contained in the polygon, by summing the
+     * winding angles of the rings for each point, as the contains method.
+     */
+    public void containsAll(double[] xs, double[] ys, boolean[] result) {
+        for (int i = 0; i < xs.length; i++)
+            result[i] = this.contains(xs[i], ys[i]);
+    }
+
     public void draw(Graphics2D g2) {
         g2.draw(this.boundary().getGeneralPath());
     }
@@ -494,6 +503,11 @@ public class GJMultiPolygon2D implements GJDomain2D, GJPolygon2D {
         
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return rings.hashCode();
+    }
    
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -0,0 +1,211 @@
+import static java.lang.Math.*;
+
+
+/**
+ * <p>
+ * A point whose coordinates can be modified. Contrary to GJPoint2D, the
+ * operations of this class modify the point in place, and return the point
+ * itself such that operations can be chained. This avoids creating objects
+ * in loops that apply many successive operations to a point.
+ * </p>
+ * <p>
+ * Mutable points are meant to be used as temporary variables. They can be
+ * converted to a GJPoint2D with the toPoint method, when the result has to
+ * be stored or passed to other shapes.
+ * </p>
+ * @see GJMutableVector2D
+ */
+public class GJMutablePoint2D {
+
+	// ===================================================================
+	// class variables
+
+	/** The x coordinate of this point.*/
+	protected double x;
+
+	/** The y coordinate of this point.*/
+	protected double y;
+
+
+	// ===================================================================
+	// constructors
+
+	/**
+	 * Constructs a new point located at the origin.
+	 */
+	public GJMutablePoint2D() {
+	}
+
+	public GJMutablePoint2D(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public GJMutablePoint2D(GJPoint2D point) {
+		this.x = point.x;
+		this.y = point.y;
+	}
+
+
+	// ===================================================================
+	// accessors
+
+	public double x() {
+		return x;
+	}
+
+	public double y() {
+		return y;
+	}
+
+	/**
+	 * Changes the coordinates of this point.
+	 */
+	public GJMutablePoint2D set(double x, double y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	public GJMutablePoint2D set(GJPoint2D point) {
+		return set(point.x, point.y);
+	}
+
+	public GJMutablePoint2D set(GJMutablePoint2D point) {
+		return set(point.x, point.y);
+	}
+
+	/**
+	 * Sets the coordinates of this point to the i-th point of an array of
+	 * coordinates in the order x0, y0, x1, y1...
+	 */
+	public GJMutablePoint2D set(double[] coords, int i) {
+		return set(coords[2 * i], coords[2 * i + 1]);
+	}
+
+	/**
+	 * Stores the coordinates of this point as the i-th point of an array of
+	 * coordinates in the order x0, y0, x1, y1...
+	 */
+	public void get(double[] coords, int i) {
+		coords[2 * i] = x;
+		coords[2 * i + 1] = y;
+	}
+
+	/**
+	 * Returns a new immutable point with the coordinates of this point.
+	 */
+	public GJPoint2D toPoint() {
+		return new GJPoint2D(x, y);
+	}
+
+
+	// ===================================================================
+	// in-place operations
+
+	/**
+	 * Adds the coordinates of the given vector to the coordinates of this
+	 * point.
+	 */
+	public GJMutablePoint2D add(GJVector2D v) {
+		return translate(v.x, v.y);
+	}
+
+	public GJMutablePoint2D add(GJMutableVector2D v) {
+		return translate(v.x, v.y);
+	}
+
+	/**
+	 * Removes the coordinates of the given vector from the coordinates of
+	 * this point.
+	 */
+	public GJMutablePoint2D subtract(GJVector2D v) {
+		return translate(-v.x, -v.y);
+	}
+
+	public GJMutablePoint2D subtract(GJMutableVector2D v) {
+		return translate(-v.x, -v.y);
+	}
+
+	/**
+	 * Translates this point by the amount given in each direction.
+	 */
+	public GJMutablePoint2D translate(double tx, double ty) {
+		this.x += tx;
+		this.y += ty;
+		return this;
+	}
+
+	/**
+	 * Scales the coordinates of this point by the amount given in each
+	 * direction.
+	 */
+	public GJMutablePoint2D scale(double kx, double ky) {
+		this.x *= kx;
+		this.y *= ky;
+		return this;
+	}
+
+	public GJMutablePoint2D scale(double k) {
+		return scale(k, k);
+	}
+
+	/**
+	 * Rotates this point by a given angle around the origin.
+	 *
+	 * @param theta the angle of rotation, in radians
+	 */
+	public GJMutablePoint2D rotate(double theta) {
+		double cot = cos(theta);
+		double sit = sin(theta);
+		return set(x * cot - y * sit, x * sit + y * cot);
+	}
+
+	/**
+	 * Rotates this point by a given angle around an arbitrary center.
+	 *
+	 * @param cx the x-coordinate of the center of the rotation
+	 * @param cy the y-coordinate of the center of the rotation
+	 * @param theta the angle of rotation, in radians
+	 */
+	public GJMutablePoint2D rotate(double cx, double cy, double theta) {
+		double cot = cos(theta);
+		double sit = sin(theta);
+		double dx = x - cx, dy = y - cy;
+		return set(cx + dx * cot - dy * sit, cy + dx * sit + dy * cot);
+	}
+
+	/**
+	 * Applies the affine transform to this point.
+	 */
+	public GJMutablePoint2D transform(GJAffineTransform2D trans) {
+		return set(
+				x * trans.m00 + y * trans.m01 + trans.m02,
+				x * trans.m10 + y * trans.m11 + trans.m12);
+	}
+
+
+	// ===================================================================
+	// queries
+
+	public double distance(double x, double y) {
+		return hypot(this.x - x, this.y - y);
+	}
+
+	public double distance(GJPoint2D point) {
+		return distance(point.x, point.y);
+	}
+
+	public double distance(GJMutablePoint2D point) {
+		return distance(point.x, point.y);
+	}
+
+
+	// ===================================================================
+	// Override the Object methods
+
+	@Override
+	public String toString() {
+		return "GJMutablePoint2D(" + x + ", " + y + ")";
+	}
+}
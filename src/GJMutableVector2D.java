@@ -0,0 +1,172 @@
+import static java.lang.Math.*;
+
+
+/**
+ * <p>
+ * A vector whose coordinates can be modified. Contrary to GJVector2D, the
+ * operations of this class modify the vector in place, and return the
+ * vector itself such that operations can be chained.
+ * </p>
+ * @see GJMutablePoint2D
+ */
+public class GJMutableVector2D {
+
+	// ===================================================================
+	// class variables
+
+	/** The x coordinate of this vector.*/
+	protected double x;
+
+	/** The y coordinate of this vector.*/
+	protected double y;
+
+
+	// ===================================================================
+	// constructors
+
+	/**
+	 * Constructs a new null vector.
+	 */
+	public GJMutableVector2D() {
+	}
+
+	public GJMutableVector2D(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public GJMutableVector2D(GJVector2D vector) {
+		this.x = vector.x;
+		this.y = vector.y;
+	}
+
+
+	// ===================================================================
+	// accessors
+
+	public double x() {
+		return x;
+	}
+
+	public double y() {
+		return y;
+	}
+
+	/**
+	 * Changes the coordinates of this vector.
+	 */
+	public GJMutableVector2D set(double x, double y) {
+		this.x = x;
+		this.y = y;
+		return this;
+	}
+
+	public GJMutableVector2D set(GJVector2D vector) {
+		return set(vector.x, vector.y);
+	}
+
+	public GJMutableVector2D set(GJMutableVector2D vector) {
+		return set(vector.x, vector.y);
+	}
+
+	/**
+	 * Sets this vector to the vector joining the two points.
+	 */
+	public GJMutableVector2D set(GJPoint2D point1, GJPoint2D point2) {
+		return set(point2.x - point1.x, point2.y - point1.y);
+	}
+
+	/**
+	 * Returns a new immutable vector with the coordinates of this vector.
+	 */
+	public GJVector2D toVector() {
+		return new GJVector2D(x, y);
+	}
+
+
+	// ===================================================================
+	// in-place operations
+
+	public GJMutableVector2D add(GJVector2D v) {
+		return set(x + v.x, y + v.y);
+	}
+
+	public GJMutableVector2D add(GJMutableVector2D v) {
+		return set(x + v.x, y + v.y);
+	}
+
+	public GJMutableVector2D subtract(GJVector2D v) {
+		return set(x - v.x, y - v.y);
+	}
+
+	public GJMutableVector2D subtract(GJMutableVector2D v) {
+		return set(x - v.x, y - v.y);
+	}
+
+	/**
+	 * Multiplies this vector by a scalar amount.
+	 */
+	public GJMutableVector2D times(double k) {
+		return set(x * k, y * k);
+	}
+
+	/**
+	 * Replaces this vector by its opposite.
+	 */
+	public GJMutableVector2D negate() {
+		return set(-x, -y);
+	}
+
+	/**
+	 * Divides this vector by its norm.
+	 */
+	public GJMutableVector2D normalize() {
+		double r = hypot(x, y);
+		return set(x / r, y / r);
+	}
+
+	/**
+	 * Rotates this vector by the given angle.
+	 * @param theta the angle of rotation, in radians counter-clockwise
+	 */
+	public GJMutableVector2D rotate(double theta) {
+		double cot = cos(theta);
+		double sit = sin(theta);
+		return set(x * cot - y * sit, x * sit + y * cot);
+	}
+
+	/**
+	 * Transforms this vector, by using only the linear part of the
+	 * transform.
+	 */
+	public GJMutableVector2D transform(GJAffineTransform2D trans) {
+		return set(
+				x * trans.m00 + y * trans.m01,
+				x * trans.m10 + y * trans.m11);
+	}
+
+
+	// ===================================================================
+	// queries
+
+	public double norm() {
+		return hypot(x, y);
+	}
+
+	public double dot(GJMutableVector2D v) {
+		return x * v.x + y * v.y;
+	}
+
+	public double cross(GJMutableVector2D v) {
+		return x * v.y - v.x * y;
+	}
+
+
+	// ===================================================================
+	// Override the Object methods
+
+	@Override
+	public String toString() {
+		return "GJMutableVector2D(" + x + ", " + y + ")";
+	}
+}
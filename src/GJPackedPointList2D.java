@@ -0,0 +1,260 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+
+/**
+ * A list of points that stores the coordinates in a single array of doubles,
+ * in the order x0, y0, x1, y1... Compared to a list of GJPoint2D, this
+ * avoids one object per vertex, and keeps the coordinates of consecutive
+ * vertices close to each other in memory.
+ * <br>
+ * The points returned by the get method and by the iterators are created on
+ * demand: two successive calls return equal but distinct instances. As
+ * GJPoint2D is immutable, this does not change the behavior of the list.
+ * The coordinates can be accessed without creating points by using the
+ * x(int) and y(int) methods. The list does not accept null elements.
+ */
+public class GJPackedPointList2D extends AbstractList<GJPoint2D>
+implements RandomAccess {
+
+    // ===================================================================
+    // class variables
+
+    /** The coordinates of the points, followed by unused capacity */
+    private double[] coords;
+
+    /** The number of points in the list */
+    private int size = 0;
+
+
+    // ===================================================================
+    // constructors
+
+    public GJPackedPointList2D() {
+        this(10);
+    }
+
+    /**
+     * Creates an empty list with enough memory for the specified number of
+     * points.
+     */
+    public GJPackedPointList2D(int capacity) {
+        this.coords = new double[2 * capacity];
+    }
+
+    public GJPackedPointList2D(Collection<? extends GJPoint2D> points) {
+        this(points.size());
+        addAll(points);
+    }
+
+    /**
+     * Creates a list of points from two arrays, one for each coordinate.
+     */
+    public GJPackedPointList2D(double[] xcoords, double[] ycoords) {
+        int n = xcoords.length;
+        this.coords = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            coords[2 * i] = xcoords[i];
+            coords[2 * i + 1] = ycoords[i];
+        }
+        this.size = n;
+    }
+
+
+    // ===================================================================
+    // methods specific to GJPackedPointList2D
+
+    /**
+     * Returns the x-coordinate of the i-th point.
+     */
+    public double x(int i) {
+        checkIndex(i);
+        return coords[2 * i];
+    }
+
+    /**
+     * Returns the y-coordinate of the i-th point.
+     */
+    public double y(int i) {
+        checkIndex(i);
+        return coords[2 * i + 1];
+    }
+
+    /**
+     * Returns the array storing the coordinates, in the order x0, y0, x1,
+     * y1... Only the first 2*size() values are meaningful. The array is
+     * shared with the list, is replaced when the list grows, and must not be
+     * modified.
+     */
+    double[] coordinates() {
+        return coords;
+    }
+
+    /**
+     * Adds a point at the end of the list, given by its coordinates.
+     */
+    public void add(double x, double y) {
+        ensureCapacity(size + 1);
+        coords[2 * size] = x;
+        coords[2 * size + 1] = y;
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Returns a new list containing the points transformed by the affine
+     * transform, computed directly on the coordinates.
+     */
+    GJPackedPointList2D transform(GJAffineTransform2D trans) {
+        GJPackedPointList2D result = new GJPackedPointList2D(size);
+        trans.transform(coords, 0, result.coords, 0, size);
+        result.size = size;
+        return result;
+    }
+
+    /**
+     * Ensures the list can store the specified number of points without
+     * reallocating memory.
+     */
+    public void ensureCapacity(int capacity) {
+        if (2 * capacity > coords.length)
+            coords = Arrays.copyOf(coords, Math.max(2 * capacity, 2 * coords.length));
+    }
+
+    /**
+     * Reduces the memory used by the list to the number of points.
+     */
+    public void trimToSize() {
+        if (coords.length > 2 * size)
+            coords = Arrays.copyOf(coords, 2 * size);
+    }
+
+
+    // ===================================================================
+    // methods implementing the List interface
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public GJPoint2D get(int index) {
+        checkIndex(index);
+        return new GJPoint2D(coords[2 * index], coords[2 * index + 1]);
+    }
+
+    @Override
+    public GJPoint2D set(int index, GJPoint2D point) {
+        GJPoint2D previous = get(index);
+        coords[2 * index] = point.x();
+        coords[2 * index + 1] = point.y();
+        return previous;
+    }
+
+    @Override
+    public boolean add(GJPoint2D point) {
+        double x = point.x(), y = point.y();
+        ensureCapacity(size + 1);
+        coords[2 * size] = x;
+        coords[2 * size + 1] = y;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(int index, GJPoint2D point) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        double x = point.x(), y = point.y();
+        ensureCapacity(size + 1);
+        System.arraycopy(coords, 2 * index, coords, 2 * index + 2,
+                2 * (size - index));
+        coords[2 * index] = x;
+        coords[2 * index + 1] = y;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends GJPoint2D> points) {
+        if (points instanceof GJPackedPointList2D) {
+            GJPackedPointList2D list = (GJPackedPointList2D) points;
+            int n = list.size;
+            ensureCapacity(size + n);
+            System.arraycopy(list.coords, 0, coords, 2 * size, 2 * n);
+            size += n;
+            modCount++;
+            return n > 0;
+        }
+        ensureCapacity(size + points.size());
+        return super.addAll(points);
+    }
+
+    @Override
+    public GJPoint2D remove(int index) {
+        GJPoint2D previous = get(index);
+        System.arraycopy(coords, 2 * index + 2, coords, 2 * index,
+                2 * (size - index - 1));
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        System.arraycopy(coords, 2 * toIndex, coords, 2 * fromIndex,
+                2 * (size - toIndex));
+        size -= toIndex - fromIndex;
+        modCount++;
+    }
+
+    /**
+     * Compares the coordinates directly when the other list is also a
+     * packed list, and uses the generic list comparison otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof GJPackedPointList2D))
+            return super.equals(obj);
+
+        GJPackedPointList2D that = (GJPackedPointList2D) obj;
+        if (this.size != that.size)
+            return false;
+        for (int i = 0; i < 2 * size; i++)
+            if (!GJEqualUtils.areEqual(this.coords[i], that.coords[i]))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the same value as the generic list hash code, but computed
+     * from the coordinates without creating the points.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++)
+            hash = 31 * hash
+                    + GJPoint2D.hashCode(coords[2 * i], coords[2 * i + 1]);
+        return hash;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+    }
+}
@@ -615,6 +615,16 @@ implements GJContour2D, GJConic2D, Cloneable {
         
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, xv);
+        hash = GJHashCodeUtils.hash(hash, yv);
+        hash = GJHashCodeUtils.hash(hash, a);
+        hash = GJHashCodeUtils.hash(hash, theta);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -75,6 +75,9 @@ implements GJSmoothOrientedCurve2D, Cloneable {
 	 */
 	double t1 = 1;
 
+    /** The adaptive polyline approximation, computed on first demand */
+    private GJFlattenedCurve2D flattened = null;
+
     // ==========================================================
     // constructor
 
@@ -88,6 +91,16 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     // ==========================================================
     // methods specific to GJParabolaArc2D
 
+    /**
+     * Returns the adaptive polyline approximation of this curve, computed
+     * once and reused by the approximated queries.
+     */
+    protected GJFlattenedCurve2D flattened() {
+        if (flattened == null)
+            flattened = new GJFlattenedCurve2D(this);
+        return flattened;
+    }
+
     public GJParabola2D getParabola() {
         return this.parabola;
     }
@@ -293,8 +306,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     }
 
     public double distance(double x, double y) {
-        // TODO Auto-generated method stub
-        return this.asPolyline(100).distance(x, y);
+        return this.flattened().distance(x, y);
     }
 
     /**
@@ -338,8 +350,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     }
 
     public GJBox2D boundingBox() {
-        // TODO Auto-generated method stub
-        return this.asPolyline(100).boundingBox();
+        return this.flattened().boundingBox();
     }
 
     public GJParabolaArc2D transform(GJAffineTransform2D trans) {
@@ -406,7 +417,7 @@ implements GJSmoothOrientedCurve2D, Cloneable {
     public java.awt.geom.GeneralPath getGeneralPath() {
         if (!this.isBounded())
             throw new GJUnboundedShape2DException(this);
-        return this.asPolyline(32).asGeneralPath();
+        return this.flattened().polyline().asGeneralPath();
     }
 
 
@@ -458,6 +469,15 @@ implements GJSmoothOrientedCurve2D, Cloneable {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, parabola);
+        hash = GJHashCodeUtils.hash(hash, t0);
+        hash = GJHashCodeUtils.hash(hash, t1);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
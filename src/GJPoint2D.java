@@ -233,6 +233,17 @@ implements GJGeometricObject2D, GJPointShape2D, Cloneable, GJCirculinearShape2D
 				(pt1.y + pt2.y + pt3.y) / 3);
 	}
 
+	/**
+	 * Computes the hash code of the point with the given coordinates, without
+	 * creating the point. The result is the same as the hashCode method.
+	 */
+	static int hashCode(double x, double y) {
+		int hash = GJHashCodeUtils.SEED;
+		hash = GJHashCodeUtils.hash(hash, x);
+		hash = GJHashCodeUtils.hash(hash, y);
+		return hash;
+	}
+
 	// ===================================================================
 	// class variables
 
@@ -569,10 +580,9 @@ implements GJGeometricObject2D, GJPointShape2D, Cloneable, GJCirculinearShape2D
 	 * Returns the transformed point.
 	 */
 	public GJPoint2D transform(GJAffineTransform2D trans) {
-		double[] tab = trans.coefficients();
 		return new GJPoint2D(
-				x * tab[0] + y * tab[1] + tab[2], 
-				x * tab[3] + y * tab[4] + tab[5]);
+				x * trans.m00 + y * trans.m01 + trans.m02, 
+				x * trans.m10 + y * trans.m11 + trans.m12);
 	}
 
 	// ===================================================================
@@ -662,6 +672,11 @@ implements GJGeometricObject2D, GJPointShape2D, Cloneable, GJCirculinearShape2D
         return true;
 	}
 
+	@Override
+	public int hashCode() {
+		return hashCode(x, y);
+	}
+
 	/**
 	 * @deprecated not necessary to clone immutable objects (0.11.2)
 	 */
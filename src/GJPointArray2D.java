@@ -394,6 +394,11 @@ implements GJPointSet2D, GJCirculinearShape2D, Cloneable {
         
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return points.hashCode();
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
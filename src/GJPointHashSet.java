@@ -0,0 +1,412 @@
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * A set of points that considers as identical the points whose coordinates
+ * differ by at most a given tolerance, GJShape2D.ACCURACY by default.
+ * <br>
+ * The points are hashed on the cells of a grid whose size equals the
+ * tolerance, such that a point close to another one lies either in the same
+ * cell or in one of the 8 neighbor cells. Cell indices are stored as
+ * doubles, such that large coordinates are still hashed on distinct cells.
+ * Adding, removing and finding a point are performed in constant expected
+ * time, instead of the linear time needed for searching a list of points.
+ * <br>
+ * As for GJPackedPointList2D, the coordinates are stored in a single array
+ * and the points are created on demand. The points can be accessed by their
+ * index, which follows the insertion order until a point is removed: the
+ * last point then replaces the removed one.
+ * <br>
+ * The tolerance is not transitive: when several points are within the
+ * tolerance of each other, the first one added is kept. For this reason,
+ * this set does not follow the general contract of the Set interface, which
+ * relies on the equals method of the points.
+ */
+public class GJPointHashSet extends AbstractSet<GJPoint2D> {
+
+    // ===================================================================
+    // class variables
+
+    /** The maximal difference between coordinates of identical points */
+    private final double tolerance;
+
+    /** The coordinates of the points, followed by unused capacity */
+    private double[] coords;
+
+    /** The number of points in the set */
+    private int size = 0;
+
+    /** Index of the first point of each hash chain, or -1 */
+    private int[] heads;
+
+    /** Index of the next point in the same hash chain, or -1 */
+    private int[] next;
+
+    /** The number of modifications, for detecting concurrent changes */
+    private int modCount = 0;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates an empty set using GJShape2D.ACCURACY as tolerance.
+     */
+    public GJPointHashSet() {
+        this(GJShape2D.ACCURACY);
+    }
+
+    /**
+     * Creates an empty set using the specified tolerance.
+     */
+    public GJPointHashSet(double tolerance) {
+        this(tolerance, 16);
+    }
+
+    /**
+     * Creates an empty set using the specified tolerance, with enough
+     * memory for the specified number of points.
+     */
+    public GJPointHashSet(double tolerance, int capacity) {
+        if (!(tolerance > 0))
+            throw new IllegalArgumentException(
+                    "Tolerance must be positive: " + tolerance);
+        this.tolerance = tolerance;
+        capacity = Math.max(capacity, 2);
+        this.coords = new double[2 * capacity];
+        this.next = new int[capacity];
+        this.heads = newTable(Integer.highestOneBit(2 * capacity - 1) * 2);
+    }
+
+    /**
+     * Creates a set using GJShape2D.ACCURACY as tolerance, and containing
+     * the specified points.
+     */
+    public GJPointHashSet(Collection<? extends GJPoint2D> points) {
+        this(GJShape2D.ACCURACY, points.size());
+        addAll(points);
+    }
+
+
+    // ===================================================================
+    // methods specific to GJPointHashSet
+
+    /**
+     * Returns the tolerance used for comparing points.
+     */
+    public double tolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the index of the point whose coordinates differ from the
+     * given ones by at most the tolerance, or -1 if there is no such point.
+     */
+    public int indexOf(double x, double y) {
+        // cells of the coordinates within the tolerance, that are usually
+        // the cell of the point and its two neighbors
+        double cx0 = cell(x - tolerance), cx1 = cell(x + tolerance);
+        double cy0 = cell(y - tolerance), cy1 = cell(y + tolerance);
+        int mask = heads.length - 1;
+        for (double ix = cx0; ix <= cx1; ix = nextCell(ix)) {
+            for (double iy = cy0; iy <= cy1; iy = nextCell(iy)) {
+                for (int k = heads[hash(ix, iy) & mask]; k >= 0; k = next[k]) {
+                    if (Math.abs(coords[2 * k] - x) <= tolerance
+                            && Math.abs(coords[2 * k + 1] - y) <= tolerance)
+                        return k;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns true if the set contains a point close to the given
+     * coordinates.
+     */
+    public boolean contains(double x, double y) {
+        return indexOf(x, y) >= 0;
+    }
+
+    /**
+     * Adds a point given by its coordinates, unless the set already contains
+     * a point close to it. The new point gets the index size()-1.
+     * @return true if the point was added
+     */
+    public boolean add(double x, double y) {
+        if (indexOf(x, y) >= 0)
+            return false;
+
+        int k = size;
+        if (k == next.length) {
+            coords = Arrays.copyOf(coords, 4 * k);
+            next = Arrays.copyOf(next, 2 * k);
+        }
+        coords[2 * k] = x;
+        coords[2 * k + 1] = y;
+        size++;
+        modCount++;
+
+        if (2 * size > heads.length)
+            rehash(2 * heads.length);
+        else
+            link(k);
+        return true;
+    }
+
+    /**
+     * Removes the point close to the given coordinates, if any. The last
+     * point of the set takes the index of the removed point.
+     * @return true if a point was removed
+     */
+    public boolean remove(double x, double y) {
+        int k = indexOf(x, y);
+        if (k < 0)
+            return false;
+        removeIndex(k);
+        return true;
+    }
+
+    /**
+     * Returns the x-coordinate of the i-th point.
+     */
+    public double x(int i) {
+        checkIndex(i);
+        return coords[2 * i];
+    }
+
+    /**
+     * Returns the y-coordinate of the i-th point.
+     */
+    public double y(int i) {
+        checkIndex(i);
+        return coords[2 * i + 1];
+    }
+
+    /**
+     * Returns a new point with the coordinates of the i-th point.
+     */
+    public GJPoint2D get(int i) {
+        checkIndex(i);
+        return new GJPoint2D(coords[2 * i], coords[2 * i + 1]);
+    }
+
+
+    // ===================================================================
+    // methods implementing the Set interface
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+        if (!(obj instanceof GJPoint2D))
+            return false;
+        GJPoint2D point = (GJPoint2D) obj;
+        return indexOf(point.x, point.y) >= 0;
+    }
+
+    @Override
+    public boolean add(GJPoint2D point) {
+        return add(point.x, point.y);
+    }
+
+    @Override
+    public boolean remove(Object obj) {
+        if (!(obj instanceof GJPoint2D))
+            return false;
+        GJPoint2D point = (GJPoint2D) obj;
+        return remove(point.x, point.y);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(heads, -1);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<GJPoint2D> iterator() {
+        return new PointIterator();
+    }
+
+
+    // ===================================================================
+    // management of the hash table
+
+    private void removeIndex(int k) {
+        unlink(k);
+        int last = size - 1;
+        if (k != last) {
+            unlink(last);
+            coords[2 * k] = coords[2 * last];
+            coords[2 * k + 1] = coords[2 * last + 1];
+            link(k);
+        }
+        size--;
+        modCount++;
+    }
+
+    private int slot(int k) {
+        return hash(cell(coords[2 * k]), cell(coords[2 * k + 1]))
+                & (heads.length - 1);
+    }
+
+    private void link(int k) {
+        int slot = slot(k);
+        next[k] = heads[slot];
+        heads[slot] = k;
+    }
+
+    private void unlink(int k) {
+        int slot = slot(k);
+        if (heads[slot] == k) {
+            heads[slot] = next[k];
+            return;
+        }
+        int prev = heads[slot];
+        while (next[prev] != k)
+            prev = next[prev];
+        next[prev] = next[k];
+    }
+
+    private void rehash(int capacity) {
+        heads = newTable(capacity);
+        for (int k = 0; k < size; k++)
+            link(k);
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, -1);
+        return table;
+    }
+
+    /**
+     * Returns the index of the cell containing the value. The index is an
+     * integer stored as a double, for avoiding overflows with coordinates
+     * much larger than the tolerance. Negative zero is converted to zero.
+     */
+    private double cell(double value) {
+        return Math.floor(value / tolerance) + 0.0;
+    }
+
+    /**
+     * Returns the index of the cell following the given one, or NaN after an
+     * infinite index. For large indices, consecutive doubles are used as
+     * consecutive cells.
+     */
+    private static double nextCell(double index) {
+        double next = index + 1;
+        if (next > index)
+            return next;
+        return Double.isInfinite(index) ? Double.NaN : Math.nextUp(index);
+    }
+
+    private static int hash(double ix, double iy) {
+        return hash(Double.doubleToLongBits(ix), Double.doubleToLongBits(iy));
+    }
+
+    /**
+     * Mixes the indices of a grid cell into a hash code.
+     */
+    static int hash(long ix, long iy) {
+        long h = ix * 0x9E3779B97F4A7C15L + iy;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+    }
+
+
+    // ===================================================================
+    // inner class for iterating on points
+
+    private class PointIterator implements Iterator<GJPoint2D> {
+
+        /** Index of the next point to return */
+        int cursor = 0;
+
+        /** Index of the last returned point, or -1 */
+        int lastIndex = -1;
+
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        public GJPoint2D next() {
+            checkModCount();
+            if (cursor >= size)
+                throw new NoSuchElementException();
+            lastIndex = cursor++;
+            return new GJPoint2D(coords[2 * lastIndex], coords[2 * lastIndex + 1]);
+        }
+
+        /**
+         * Removes the last returned point. The last point of the set takes
+         * its place, and is returned by the next call to next().
+         */
+        public void remove() {
+            if (lastIndex < 0)
+                throw new IllegalStateException();
+            checkModCount();
+            removeIndex(lastIndex);
+            cursor = lastIndex;
+            lastIndex = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkModCount() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Checks the set with large coordinates, for which the cell indices do
+     * not fit in a long integer.
+     */
+    public static void main(String[] args) {
+        System.out.println("Check GJPointHashSet");
+
+        GJPointHashSet set = new GJPointHashSet();
+        check(set.add(1e7, 0), "first add of (1e7, 0)");
+        check(!set.add(1e7, 0), "second add of (1e7, 0)");
+        check(set.contains(1e7, 0), "contains (1e7, 0)");
+        check(set.add(Math.nextUp(1e7), 0), "add of the next double");
+        check(set.remove(1e7, 0), "remove (1e7, 0)");
+        check(!set.contains(1e7, 0), "contains removed point");
+        check(set.add(5, -1e7) && set.contains(5, -1e7), "add (5, -1e7)");
+        check(set.add(-1e300, 1e300) && !set.add(-1e300, 1e300),
+                "add (-1e300, 1e300) twice");
+        check(set.size() == 3, "size of set");
+
+        // points near 1e7 within the tolerance are merged
+        set = new GJPointHashSet(1e-8);
+        check(set.add(1e7, 1e7), "add (1e7, 1e7)");
+        check(!set.add(1e7 + 5e-9, 1e7 - 5e-9), "add a close point");
+        check(set.add(1e7 + 2e-8, 1e7), "add a distant point");
+
+        System.out.println("ok");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new RuntimeException("Check failed: " + message);
+    }
+}
@@ -26,6 +26,7 @@
 
 
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 
@@ -41,6 +42,12 @@ import java.util.Collection;
  */
 public class GJPolyCubicBezierCurve2D extends GJPolyCurve2D<GJCubicBezierCurve2D> {
 
+    /**
+     * Distance relative to the coordinates under which an intersection is
+     * considered to be located at the junction of two curves.
+     */
+    private final static double JUNCTION_PRECISION = 1e-9;
+
     // ===================================================================
     // Static methods
 
@@ -126,6 +133,82 @@ public class GJPolyCubicBezierCurve2D extends GJPolyCurve2D<GJCubicBezierCurve2D
     // ===================================================================
     // Methods specific to GJPolyCubicBezierCurve2D
 
+    /**
+     * Computes the intersections with a cubic Bezier curve. Only the curves
+     * whose bounding box intersects the box of the other curve are processed.
+     * A crossing at the junction of two consecutive curves is reported once.
+     */
+    public Collection<GJPoint2D> intersections(GJCubicBezierCurve2D curve) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        GJBox2D box = curve.boundingBox();
+        int first = 0;
+        for (GJCubicBezierCurve2D bezier : curves) {
+            int size = points.size();
+            GJBox2D bezierBox = bezier.boundingBox();
+            if (bezierBox.intersects(box))
+                addPoints(points, first, bezier.intersections(curve),
+                        bezier.firstPoint(), bezierBox);
+            first = size;
+        }
+        return points;
+    }
+
+    /**
+     * Computes the intersections with another poly Bezier curve. A crossing
+     * at the junction of two consecutive curves is reported once.
+     */
+    public Collection<GJPoint2D> intersections(GJPolyCubicBezierCurve2D poly) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        GJBox2D box = this.boundingBox();
+        int first = 0;
+        for (GJCubicBezierCurve2D bezier : poly.curves) {
+            int size = points.size();
+            GJBox2D bezierBox = bezier.boundingBox();
+            if (bezierBox.intersects(box))
+                addPoints(points, first, this.intersections(bezier),
+                        bezier.firstPoint(), bezierBox);
+            first = size;
+        }
+        return points;
+    }
+
+    /**
+     * Computes the intersections with a circle or a circle arc. A crossing
+     * at the junction of two consecutive curves is reported once.
+     */
+    public Collection<GJPoint2D> intersections(GJCircularShape2D circle) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        int first = 0;
+        for (GJCubicBezierCurve2D bezier : curves) {
+            int size = points.size();
+            addPoints(points, first, bezier.intersections(circle),
+                    bezier.firstPoint(), bezier.boundingBox());
+            first = size;
+        }
+        return points;
+    }
+
+    /**
+     * Adds the intersections found on a curve to the list. The points from
+     * index first are those found on the previous curve: if one of them is
+     * the junction point, the points found at the junction are skipped. The
+     * tolerance is relative to the magnitude of the box of the curve.
+     */
+    private static void addPoints(ArrayList<GJPoint2D> points, int first,
+            Collection<GJPoint2D> found, GJPoint2D junction, GJBox2D box) {
+        double magnitude = Math.max(
+                Math.max(Math.abs(box.getMinX()), Math.abs(box.getMaxX())),
+                Math.max(Math.abs(box.getMinY()), Math.abs(box.getMaxY())));
+        double tol = Math.max(magnitude * JUNCTION_PRECISION, Double.MIN_NORMAL);
+
+        boolean reported = false;
+        for (int i = first, n = points.size(); i < n && !reported; i++)
+            reported = points.get(i).distance(junction) <= tol;
+        for (GJPoint2D point : found)
+            if (!reported || point.distance(junction) > tol)
+                points.add(point);
+    }
+
     /**
      * Returns a new set of GJPolyCubicBezierCurve2D.
      */
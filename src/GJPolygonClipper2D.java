@@ -0,0 +1,1069 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Computes boolean operations (intersection, union, difference, exclusive or)
+ * between two polygonal regions, using the plane sweep algorithm of Martinez,
+ * Rueda and Feito ("A simple algorithm for Boolean operations on polygons",
+ * Advances in Engineering Software, 2013).
+ * <br>
+ * Each operand is given as a set of linear rings. A point belongs to an
+ * operand if it is enclosed by an odd number of its rings, so orientation of
+ * input rings is ignored, and holes or multiple rings are processed
+ * transparently. The result is a GJMultiPolygon2D whose outer rings are
+ * oriented counter-clockwise and whose holes are oriented clockwise.
+ * <br>
+ * Edges are subdivided at their intersections during a single sweep of the
+ * vertices, in O((n+k) log n) for n edges and k intersections.
+ * <br>
+ * Large collections of polygons are merged with a cascaded union: polygons
+ * are grouped by proximity of their bounding boxes into a binary tree, whose
+ * nodes are merged bottom-up in parallel. Only the rings whose bounding box
+ * overlaps the other operand are processed by the sweep, the other ones are
+ * copied to the result.
+ *
+ * @see GJPolygons2D#union(GJPolygon2D, GJPolygon2D)
+ */
+public class GJPolygonClipper2D {
+
+    /**
+     * The boolean operations that can be computed.
+     */
+    public enum Operation {
+        INTERSECTION, UNION, DIFFERENCE, XOR
+    }
+
+    // ===================================================================
+    // static methods
+
+    /**
+     * Computes the boolean operation between the regions of two polygons.
+     */
+    public static GJMultiPolygon2D compute(GJPolygon2D subject,
+                                           GJPolygon2D clipping,
+                                           Operation operation) {
+        return compute(subject.contours(), clipping.contours(), operation);
+    }
+
+    /**
+     * Computes the boolean operation between the regions enclosed by two sets
+     * of linear rings.
+     */
+    public static GJMultiPolygon2D compute(
+            Collection<? extends GJLinearRing2D> subject,
+            Collection<? extends GJLinearRing2D> clipping,
+            Operation operation) {
+        GJPolygonClipper2D clipper = new GJPolygonClipper2D(operation);
+        return clipper.process(subject, clipping);
+    }
+
+    /**
+     * Computes the union of the regions of a collection of polygons, by
+     * recursively merging groups of neighbor polygons. Polygons whose
+     * bounding boxes are disjoint from all the others are not processed, and
+     * their rings are added to the result.
+     */
+    public static GJMultiPolygon2D union(
+            Collection<? extends GJPolygon2D> polygons) {
+        ArrayList<Part> parts = new ArrayList<Part>(polygons.size());
+        for (GJPolygon2D polygon : polygons) {
+            Part part = new Part();
+            for (GJLinearRing2D ring : polygon.contours())
+                part.add(ring, ringBounds(ring));
+            if (!part.rings.isEmpty())
+                parts.add(part);
+        }
+
+        if (parts.isEmpty())
+            return new GJMultiPolygon2D(new ArrayList<GJLinearRing2D>(0));
+        Part[] array = parts.toArray(new Part[parts.size()]);
+        Part result = new UnionTask(array, 0, array.length).invoke();
+        return new GJMultiPolygon2D(result.rings);
+    }
+
+
+    // ===================================================================
+    // inner classes
+
+    /**
+     * A set of rings, with the bounds of each ring, and global bounds.
+     * Bounds are stored as arrays {xmin, xmax, ymin, ymax}.
+     */
+    private static class Part {
+        final ArrayList<GJLinearRing2D> rings = new ArrayList<GJLinearRing2D>();
+        final ArrayList<double[]> ringBounds = new ArrayList<double[]>();
+        final double[] bounds = emptyBounds();
+
+        void add(GJLinearRing2D ring, double[] box) {
+            rings.add(ring);
+            ringBounds.add(box);
+            bounds[0] = Math.min(bounds[0], box[0]);
+            bounds[1] = Math.max(bounds[1], box[1]);
+            bounds[2] = Math.min(bounds[2], box[2]);
+            bounds[3] = Math.max(bounds[3], box[3]);
+        }
+
+        void addAll(Part part) {
+            for (int i = 0; i < part.rings.size(); i++)
+                add(part.rings.get(i), part.ringBounds.get(i));
+        }
+
+        double center(int dir) {
+            return dir == 0 ? bounds[0] + bounds[1] : bounds[2] + bounds[3];
+        }
+    }
+
+    /**
+     * Computes the union of a range of parts, by splitting the range at the
+     * median of the centers along the direction of largest extent, and by
+     * merging the unions of each half.
+     */
+    private static class UnionTask extends RecursiveTask<Part> {
+        private static final long serialVersionUID = 1L;
+
+        final Part[] parts;
+        final int lo, hi;
+
+        UnionTask(Part[] parts, int lo, int hi) {
+            this.parts = parts;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Part compute() {
+            if (hi - lo == 1)
+                return parts[lo];
+
+            // extent of the centers of the parts
+            double[] box = emptyBounds();
+            for (int i = lo; i < hi; i++) {
+                box[0] = Math.min(box[0], parts[i].center(0));
+                box[1] = Math.max(box[1], parts[i].center(0));
+                box[2] = Math.min(box[2], parts[i].center(1));
+                box[3] = Math.max(box[3], parts[i].center(1));
+            }
+            final int dir = box[1] - box[0] >= box[3] - box[2] ? 0 : 1;
+            Arrays.sort(parts, lo, hi, new Comparator<Part>() {
+                public int compare(Part p1, Part p2) {
+                    return Double.compare(p1.center(dir), p2.center(dir));
+                }
+            });
+
+            int mid = (lo + hi) >>> 1;
+            UnionTask task1 = new UnionTask(parts, lo, mid);
+            UnionTask task2 = new UnionTask(parts, mid, hi);
+            ForkJoinTask.invokeAll(task1, task2);
+            return merge(task1.join(), task2.join());
+        }
+    }
+
+    /**
+     * Computes the union of two parts. Only the rings whose bounds overlap
+     * the bounds of the other part can be modified by the union, the other
+     * ones are simply added to the result.
+     */
+    private static Part merge(Part part1, Part part2) {
+        Part result = new Part();
+        if (!overlap(part1.bounds, part2.bounds)) {
+            result.addAll(part1);
+            result.addAll(part2);
+            return result;
+        }
+
+        ArrayList<GJLinearRing2D> rings1 = new ArrayList<GJLinearRing2D>();
+        ArrayList<GJLinearRing2D> rings2 = new ArrayList<GJLinearRing2D>();
+        keepDisjointRings(part1, part2.bounds, rings1, result);
+        keepDisjointRings(part2, part1.bounds, rings2, result);
+        if (rings1.isEmpty() || rings2.isEmpty()) {
+            for (GJLinearRing2D ring : rings1)
+                result.add(ring, ringBounds(ring));
+            for (GJLinearRing2D ring : rings2)
+                result.add(ring, ringBounds(ring));
+            return result;
+        }
+
+        GJPolygonClipper2D clipper = new GJPolygonClipper2D(Operation.UNION);
+        for (GJLinearRing2D ring : clipper.process(rings1, rings2).contours())
+            result.add(ring, ringBounds(ring));
+        return result;
+    }
+
+    /**
+     * Adds to the result the rings of the part whose bounds are disjoint
+     * from the given bounds, and the other rings to the list.
+     */
+    private static void keepDisjointRings(Part part, double[] bounds,
+                                          ArrayList<GJLinearRing2D> overlapping,
+                                          Part result) {
+        for (int i = 0; i < part.rings.size(); i++) {
+            double[] box = part.ringBounds.get(i);
+            if (overlap(box, bounds))
+                overlapping.add(part.rings.get(i));
+            else
+                result.add(part.rings.get(i), box);
+        }
+    }
+
+    private static double[] ringBounds(GJLinearRing2D ring) {
+        double[] box = emptyBounds();
+        for (GJPoint2D vertex : ring.vertices()) {
+            box[0] = Math.min(box[0], vertex.x());
+            box[1] = Math.max(box[1], vertex.x());
+            box[2] = Math.min(box[2], vertex.y());
+            box[3] = Math.max(box[3], vertex.y());
+        }
+        return box;
+    }
+
+    /**
+     * An extremity of an edge. The edge is processed when the sweep line
+     * reaches its left event, and removed from the sweep line at its right
+     * event.
+     */
+    private static class SweepEvent {
+        final double x;
+        final double y;
+        boolean left;
+        SweepEvent other;
+        final boolean subject;
+        /** The coordinates of the input segment the edge was split from */
+        final double[] segment;
+        int contourId;
+        /** The creation order of the event, for ordering duplicated edges */
+        int sequence;
+        /** The next edge in the cycle of coincident edges, if any */
+        SweepEvent twin;
+
+        /** Whether the edge is an inside-outside transition of its operand */
+        boolean inOut;
+        /** Whether the closest edge of the other operand below is inOut */
+        boolean otherInOut;
+        /** Whether the region below the coincident edges is in the result */
+        boolean resultBelow;
+        /** +1 or -1 if the edge belongs to the result, 0 otherwise */
+        int resultTransition;
+
+        SweepEvent(double x, double y, boolean left, SweepEvent other,
+                   boolean subject, double[] segment) {
+            this.x = x;
+            this.y = y;
+            this.left = left;
+            this.other = other;
+            this.subject = subject;
+            this.segment = segment;
+        }
+
+        /**
+         * Checks if the edge is located below the given point.
+         */
+        boolean isBelow(double px, double py) {
+            return left ? signedArea(x, y, other.x, other.y, px, py) > 0
+                    : signedArea(other.x, other.y, x, y, px, py) > 0;
+        }
+
+        boolean isAbove(double px, double py) {
+            return !isBelow(px, py);
+        }
+
+        boolean isVertical() {
+            return x == other.x;
+        }
+
+        boolean samePoint(double px, double py) {
+            return x == px && y == py;
+        }
+
+        boolean samePoint(SweepEvent event) {
+            return x == event.x && y == event.y;
+        }
+    }
+
+    private static double signedArea(double x0, double y0, double x1,
+                                     double y1, double x2, double y2) {
+        return (x0 - x2) * (y1 - y2) - (x1 - x2) * (y0 - y2);
+    }
+
+    /**
+     * Processing order of events: from left to right, then from bottom to
+     * top. Right events are processed before left events at the same point.
+     */
+    private static final Comparator<SweepEvent> EVENT_ORDER =
+        new Comparator<SweepEvent>() {
+        public int compare(SweepEvent e1, SweepEvent e2) {
+            if (e1.x != e2.x)
+                return e1.x > e2.x ? 1 : -1;
+            if (e1.y != e2.y)
+                return e1.y > e2.y ? 1 : -1;
+            if (e1.left != e2.left)
+                return e1.left ? 1 : -1;
+            // same point and same side: the lower edge is processed first.
+            // The cross product changes sign exactly when events are
+            // swapped, keeping the order consistent with rounding errors.
+            double cross = (e1.other.x - e1.x) * (e2.other.y - e1.y)
+                    - (e1.other.y - e1.y) * (e2.other.x - e1.x);
+            if (cross != 0)
+                return (cross > 0) == e1.left ? -1 : 1;
+            if (e1.subject != e2.subject)
+                return e1.subject ? -1 : 1;
+            return 0;
+        }
+    };
+
+    /**
+     * Order of the edges intersected by the sweep line, from bottom to top.
+     */
+    private static final Comparator<SweepEvent> SEGMENT_ORDER =
+        new Comparator<SweepEvent>() {
+        public int compare(SweepEvent le1, SweepEvent le2) {
+            if (le1 == le2)
+                return 0;
+
+            if (signedArea(le1.x, le1.y, le1.other.x, le1.other.y,
+                    le2.x, le2.y) != 0
+                    || signedArea(le1.x, le1.y, le1.other.x, le1.other.y,
+                            le2.other.x, le2.other.y) != 0) {
+                // edges are not colinear
+                if (le1.samePoint(le2))
+                    return le1.isBelow(le2.other.x, le2.other.y) ? -1 : 1;
+                if (le1.x == le2.x)
+                    return le1.y < le2.y ? -1 : 1;
+
+                // compare with the edge inserted first
+                if (EVENT_ORDER.compare(le1, le2) == 1)
+                    return le2.isAbove(le1.x, le1.y) ? -1 : 1;
+                return le1.isBelow(le2.x, le2.y) ? -1 : 1;
+            }
+
+            // colinear edges
+            if (le1.subject == le2.subject) {
+                if (le1.samePoint(le2)) {
+                    if (le1.contourId != le2.contourId)
+                        return le1.contourId > le2.contourId ? 1 : -1;
+                    // duplicated edges of a contour must both be kept
+                    return le1.sequence > le2.sequence ? 1 : -1;
+                }
+            } else {
+                return le1.subject ? -1 : 1;
+            }
+
+            return EVENT_ORDER.compare(le1, le2) == 1 ? 1 : -1;
+        }
+    };
+
+
+    /**
+     * Lexicographic order of the positions of events.
+     */
+    private static final Comparator<SweepEvent> POINT_ORDER =
+        new Comparator<SweepEvent>() {
+        public int compare(SweepEvent e1, SweepEvent e2) {
+            if (e1.x != e2.x)
+                return e1.x > e2.x ? 1 : -1;
+            if (e1.y != e2.y)
+                return e1.y > e2.y ? 1 : -1;
+            return 0;
+        }
+    };
+
+
+    // ===================================================================
+    // class variables
+
+    /**
+     * The distance between a crossing point and an extremity of the edges,
+     * relative to the coordinates, under which the crossing is moved on the
+     * extremity.
+     */
+    private static final double SNAP_PRECISION = 1e-12;
+
+    private final Operation operation;
+
+    private final PriorityQueue<SweepEvent> queue =
+        new PriorityQueue<SweepEvent>(16, EVENT_ORDER);
+
+    private final TreeSet<SweepEvent> sweepLine =
+        new TreeSet<SweepEvent>(SEGMENT_ORDER);
+
+    /** The bounds of the subject and of the clipping operand */
+    private final double[] subjectBox = emptyBounds();
+    private final double[] clippingBox = emptyBounds();
+
+    /** The left event being processed */
+    private SweepEvent current = null;
+
+    /**
+     * Whether the current event must be inserted again in the sweep line,
+     * either because an edge was divided at its position, or because its
+     * edge was divided to become coincident with a neighbor edge
+     */
+    private boolean reinsertCurrent = false;
+
+    /** The number of events created, used for numbering them */
+    private int eventCount = 0;
+
+
+    // ===================================================================
+    // constructor
+
+    private GJPolygonClipper2D(Operation operation) {
+        this.operation = operation;
+    }
+
+
+    // ===================================================================
+    // processing
+
+    private GJMultiPolygon2D process(
+            Collection<? extends GJLinearRing2D> subject,
+            Collection<? extends GJLinearRing2D> clipping) {
+        int contourId = 0;
+        for (GJLinearRing2D ring : subject)
+            addRing(ring, true, contourId++, subjectBox);
+        for (GJLinearRing2D ring : clipping)
+            addRing(ring, false, contourId++, clippingBox);
+
+        // intersection of disjoint operands is empty
+        if (operation == Operation.INTERSECTION
+                && !overlap(subjectBox, clippingBox))
+            return new GJMultiPolygon2D(new ArrayList<GJLinearRing2D>(0));
+
+        ArrayList<SweepEvent> sortedEvents = subdivideEdges();
+        return new GJMultiPolygon2D(connectEdges(sortedEvents));
+    }
+
+    private static double[] emptyBounds() {
+        return new double[] {
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+    }
+
+    private static boolean overlap(double[] box1, double[] box2) {
+        return box1[0] <= box2[1] && box2[0] <= box1[1]
+                && box1[2] <= box2[3] && box2[2] <= box1[3];
+    }
+
+    /**
+     * Adds the two events of each edge of the ring to the event queue.
+     */
+    private void addRing(GJLinearRing2D ring, boolean subject, int contourId,
+                         double[] box) {
+        int n = ring.vertexNumber();
+        for (int i = 0; i < n; i++) {
+            GJPoint2D p1 = ring.vertex(i);
+            GJPoint2D p2 = ring.vertex((i + 1) % n);
+            double x1 = p1.x(), y1 = p1.y();
+            double x2 = p2.x(), y2 = p2.y();
+
+            // skip degenerated edges
+            if (x1 == x2 && y1 == y2)
+                continue;
+
+            // the left event is the first one in lexicographic order
+            boolean firstLeft = x1 < x2 || (x1 == x2 && y1 < y2);
+            double[] segment = firstLeft ? new double[] { x1, y1, x2, y2 }
+                    : new double[] { x2, y2, x1, y1 };
+            SweepEvent e1 = new SweepEvent(x1, y1, firstLeft, null, subject,
+                    segment);
+            SweepEvent e2 = new SweepEvent(x2, y2, !firstLeft, e1, subject,
+                    segment);
+            e1.other = e2;
+            e1.contourId = e2.contourId = contourId;
+            e1.sequence = eventCount++;
+            e2.sequence = eventCount++;
+
+            box[0] = Math.min(box[0], x1);
+            box[1] = Math.max(box[1], x1);
+            box[2] = Math.min(box[2], y1);
+            box[3] = Math.max(box[3], y1);
+
+            queue.add(e1);
+            queue.add(e2);
+        }
+    }
+
+    /**
+     * Sweeps the events from left to right, subdividing the edges at their
+     * intersections, and computing for each edge whether it belongs to the
+     * result. Returns the processed events in sweep order.
+     */
+    private ArrayList<SweepEvent> subdivideEdges() {
+        ArrayList<SweepEvent> sortedEvents = new ArrayList<SweepEvent>(
+                queue.size());
+        double rightBound = Math.min(subjectBox[1], clippingBox[1]);
+
+        while (!queue.isEmpty()) {
+            SweepEvent event = queue.poll();
+            sortedEvents.add(event);
+
+            // no edge can belong to the result beyond the bounds
+            if ((operation == Operation.INTERSECTION && event.x > rightBound)
+                    || (operation == Operation.DIFFERENCE
+                            && event.x > subjectBox[1]))
+                break;
+
+            if (event.left) {
+                current = event;
+                reinsertCurrent = false;
+                sweepLine.add(event);
+                SweepEvent prev = sweepLine.lower(event);
+                SweepEvent next = sweepLine.higher(event);
+                if (next != null)
+                    possibleIntersection(event, next);
+                if (prev != null)
+                    possibleIntersection(prev, event);
+                current = null;
+
+                // An edge passing through the left point was divided: the
+                // new events must be processed before the current one, so
+                // that it is compared to the correct neighbors. An edge
+                // divided to become coincident with its neighbor may also
+                // have been inserted on the wrong side of it.
+                if (reinsertCurrent) {
+                    removeFromSweepLine(event);
+                    sortedEvents.remove(sortedEvents.size() - 1);
+                    queue.add(event);
+                    continue;
+                }
+
+                // coincident edges above depend on the fields of the new edge
+                computeFields(event, prev);
+                next = sweepLine.higher(event);
+                while (next != null && coincident(next, event)) {
+                    computeFields(next, event);
+                    event = next;
+                    next = sweepLine.higher(next);
+                }
+            } else {
+                SweepEvent left = event.other;
+                SweepEvent prev = null, next = null;
+                if (sweepLine.contains(left)) {
+                    prev = sweepLine.lower(left);
+                    next = sweepLine.higher(left);
+                    sweepLine.remove(left);
+                } else {
+                    // Subdivisions may slightly move the extremities of edges
+                    // already in the sweep line, and break their order. In
+                    // that case, the edge is searched by iteration.
+                    boolean found = false;
+                    Iterator<SweepEvent> iter = sweepLine.iterator();
+                    while (iter.hasNext()) {
+                        SweepEvent e = iter.next();
+                        if (found) {
+                            next = e;
+                            break;
+                        }
+                        if (e == left) {
+                            iter.remove();
+                            found = true;
+                        } else {
+                            prev = e;
+                        }
+                    }
+                    if (!found)
+                        continue;
+                }
+                if (prev != null && next != null)
+                    possibleIntersection(prev, next);
+            }
+        }
+        return sortedEvents;
+    }
+
+    /**
+     * Removes an edge from the sweep line. If the order of the edges was
+     * broken by a subdivision, the edge is searched by iteration.
+     */
+    private void removeFromSweepLine(SweepEvent edge) {
+        if (sweepLine.remove(edge))
+            return;
+        Iterator<SweepEvent> iter = sweepLine.iterator();
+        while (iter.hasNext()) {
+            if (iter.next() == edge) {
+                iter.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Computes the transition flags of the edge, from the flags of the edge
+     * located immediately below. Among a set of coincident edges, only the
+     * upper one may belong to the result, depending on the state of the
+     * regions below and above the set.
+     */
+    private void computeFields(SweepEvent event, SweepEvent prev) {
+        if (prev == null) {
+            event.inOut = false;
+            event.otherInOut = true;
+        } else {
+            // an edge starting on a vertical edge lies on its right side,
+            // that is considered as the region below the vertical edge
+            boolean prevIn = prev.isVertical() && !prev.samePoint(event)
+                    ? prev.inOut : !prev.inOut;
+            if (event.subject == prev.subject) {
+                event.inOut = prevIn;
+                event.otherInOut = prev.otherInOut;
+            } else {
+                event.inOut = !prev.otherInOut;
+                event.otherInOut = !prevIn;
+            }
+        }
+
+        if (prev != null && coincident(event, prev)) {
+            event.resultBelow = prev.resultBelow;
+            prev.resultTransition = 0;
+        } else {
+            event.resultBelow = inResult(event, false);
+        }
+
+        boolean above = inResult(event, true);
+        if (above == event.resultBelow)
+            event.resultTransition = 0;
+        else
+            event.resultTransition = above ? 1 : -1;
+    }
+
+    /**
+     * Checks if the region located immediately above or below the edge
+     * belongs to the result.
+     */
+    private boolean inResult(SweepEvent event, boolean above) {
+        boolean thisIn = above ? !event.inOut : event.inOut;
+        boolean thatIn = !event.otherInOut;
+        boolean subjectIn = event.subject ? thisIn : thatIn;
+        boolean clippingIn = event.subject ? thatIn : thisIn;
+        switch (operation) {
+        case INTERSECTION:
+            return subjectIn && clippingIn;
+        case UNION:
+            return subjectIn || clippingIn;
+        case DIFFERENCE:
+            return subjectIn && !clippingIn;
+        case XOR:
+            return subjectIn ^ clippingIn;
+        }
+        return false;
+    }
+
+    private static boolean coincident(SweepEvent se1, SweepEvent se2) {
+        return se1.samePoint(se2) && se1.other.samePoint(se2.other);
+    }
+
+    /**
+     * Checks the intersection of the edges of two events, and subdivides them
+     * if necessary. Overlapping edges are subdivided such that their common
+     * parts become coincident edges.
+     */
+    private void possibleIntersection(SweepEvent se1, SweepEvent se2) {
+        double[] inter = intersection(se1, se2);
+        if (inter == null)
+            return;
+        int n = inter.length / 2;
+
+        // edges intersect at an extremity of both edges
+        if (n == 1 && (se1.samePoint(se2) || se1.other.samePoint(se2.other)))
+            return;
+
+        if (n == 1) {
+            double x = inter[0], y = inter[1];
+            if (!se1.samePoint(x, y) && !se1.other.samePoint(x, y))
+                divideEdge(se1, x, y);
+            if (!se2.samePoint(x, y) && !se2.other.samePoint(x, y))
+                divideEdge(se2, x, y);
+            return;
+        }
+
+        // the edges overlap
+        ArrayList<SweepEvent> events = new ArrayList<SweepEvent>(4);
+        boolean leftCoincide = false;
+        boolean rightCoincide = false;
+
+        if (se1.samePoint(se2)) {
+            leftCoincide = true;
+        } else if (EVENT_ORDER.compare(se1, se2) == 1) {
+            events.add(se2);
+            events.add(se1);
+        } else {
+            events.add(se1);
+            events.add(se2);
+        }
+
+        if (se1.other.samePoint(se2.other)) {
+            rightCoincide = true;
+        } else if (EVENT_ORDER.compare(se1.other, se2.other) == 1) {
+            events.add(se2.other);
+            events.add(se1.other);
+        } else {
+            events.add(se1.other);
+            events.add(se2.other);
+        }
+
+        if (leftCoincide) {
+            // the longest edge is divided, and both edges become coincident
+            if (!rightCoincide) {
+                SweepEvent e0 = events.get(0);
+                divideEdge(events.get(1).other, e0.x, e0.y);
+                if (current == se1 || current == se2)
+                    reinsertCurrent = true;
+            } else if ((current == se1 || current == se2)
+                    && SEGMENT_ORDER.compare(se1, se2) > 0) {
+                // the current edge became coincident after its insertion,
+                // when divided by another neighbor, and lies on the wrong
+                // side of the edge below or above it
+                reinsertCurrent = true;
+            }
+            link(se1, se2);
+            return;
+        }
+
+        // the edges share the right extremity
+        if (rightCoincide) {
+            SweepEvent e1 = events.get(1);
+            divideEdge(events.get(0), e1.x, e1.y);
+            return;
+        }
+
+        SweepEvent e1 = events.get(1), e2 = events.get(2);
+        if (events.get(0) != events.get(3).other) {
+            // no edge includes totally the other one
+            divideEdge(events.get(0), e1.x, e1.y);
+            divideEdge(e1, e2.x, e2.y);
+            return;
+        }
+
+        // one edge includes the other one
+        divideEdge(events.get(0), e1.x, e1.y);
+        divideEdge(events.get(3).other, e2.x, e2.y);
+    }
+
+    /**
+     * Merges the cycles of coincident edges of the two edges.
+     */
+    private static void link(SweepEvent se1, SweepEvent se2) {
+        for (SweepEvent e = se1.twin; e != null && e != se1; e = e.twin) {
+            if (e == se2)
+                return;
+        }
+        SweepEvent next1 = se1.twin == null ? se1 : se1.twin;
+        SweepEvent next2 = se2.twin == null ? se2 : se2.twin;
+        se1.twin = next2;
+        se2.twin = next1;
+    }
+
+    /**
+     * Splits the edge of the left event at the given point, together with
+     * the coincident edges.
+     */
+    private void divideEdge(SweepEvent se, double x, double y) {
+        if (se.twin == null) {
+            splitEdge(se, x, y);
+            return;
+        }
+
+        ArrayList<SweepEvent> edges = new ArrayList<SweepEvent>();
+        SweepEvent e = se;
+        do {
+            edges.add(e);
+            e = e.twin;
+        } while (e != se);
+
+        // the new edges are also coincident
+        SweepEvent first = null;
+        for (SweepEvent edge : edges) {
+            SweepEvent next = splitEdge(edge, x, y);
+            if (first == null)
+                first = next;
+            else
+                link(first, next);
+        }
+    }
+
+    /**
+     * Splits the edge of the left event at the given point, adds the two new
+     * events to the queue, and returns the left event of the new edge.
+     */
+    private SweepEvent splitEdge(SweepEvent se, double x, double y) {
+        SweepEvent r = new SweepEvent(x, y, false, se, se.subject,
+                se.segment);
+        SweepEvent l = new SweepEvent(x, y, true, se.other, se.subject,
+                se.segment);
+        r.contourId = l.contourId = se.contourId;
+        r.sequence = eventCount++;
+        l.sequence = eventCount++;
+        if (current != null && se != current && current.samePoint(x, y))
+            reinsertCurrent = true;
+
+        // avoid a rounding error: the left event would be processed after
+        // the right event
+        if (EVENT_ORDER.compare(l, se.other) > 0) {
+            se.other.left = true;
+            l.left = false;
+        }
+
+        se.other.other = l;
+        se.other = r;
+        queue.add(l);
+        queue.add(r);
+        return l;
+    }
+
+    /**
+     * Computes the intersection of the edges of two left events. Returns null
+     * if they do not intersect, the coordinates of the intersection point, or
+     * the coordinates of the extremities of the overlapping part.
+     * <br>
+     * Crossing points are computed from the original segments the edges were
+     * split from, in a canonical order, such that coincident edges are split
+     * at exactly the same points.
+     */
+    private static double[] intersection(SweepEvent se1, SweepEvent se2) {
+        double[] a = se1.segment;
+        double[] b = se2.segment;
+        if (compare(b, a) < 0) {
+            double[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+
+        double vax = a[2] - a[0], vay = a[3] - a[1];
+        double vbx = b[2] - b[0], vby = b[3] - b[1];
+        double ex = b[0] - a[0], ey = b[1] - a[1];
+
+        double kross = vax * vby - vay * vbx;
+        if (kross * kross > 0) {
+            double s = (ex * vby - ey * vbx) / kross;
+            if (s < 0 || s > 1)
+                return null;
+            double t = (ex * vay - ey * vax) / kross;
+            if (t < 0 || t > 1)
+                return null;
+
+            double x, y;
+            if (s == 0 || s == 1) {
+                x = s == 0 ? a[0] : a[2];
+                y = s == 0 ? a[1] : a[3];
+            } else if (t == 0 || t == 1) {
+                x = t == 0 ? b[0] : b[2];
+                y = t == 0 ? b[1] : b[3];
+            } else {
+                x = a[0] + s * vax;
+                y = a[1] + s * vay;
+
+                // the crossing is kept within the boxes of the segments,
+                // such that it lies exactly on vertical or horizontal ones
+                x = clamp(x, a[0], a[2], b[0], b[2]);
+                y = clamp(y, a[1], a[3], b[1], b[3]);
+
+                // a crossing close to an extremity of the edges is moved on
+                // it, such that crossings of several edges at the same point
+                // do not create tiny edges with an inconsistent order
+                double tol = SNAP_PRECISION * magnitude(a, b);
+                SweepEvent snap = closest(x, y, tol, se1, se1.other, se2,
+                        se2.other);
+                if (snap != null) {
+                    x = snap.x;
+                    y = snap.y;
+                }
+            }
+
+            // the point must belong to the current parts of the segments
+            if (!contains(se1, x, y) || !contains(se2, x, y))
+                return null;
+            return new double[] { x, y };
+        }
+
+        // parallel segments
+        kross = ex * vay - ey * vax;
+        if (kross * kross > 0)
+            return null;
+
+        // colinear segments: compute the common part of the edges
+        SweepEvent start = POINT_ORDER.compare(se1, se2) > 0 ? se1 : se2;
+        SweepEvent end = POINT_ORDER.compare(se1.other, se2.other) < 0 ?
+                se1.other : se2.other;
+        int cmp = POINT_ORDER.compare(start, end);
+        if (cmp > 0)
+            return null;
+        if (cmp == 0)
+            return new double[] { start.x, start.y };
+        return new double[] { start.x, start.y, end.x, end.y };
+    }
+
+    /**
+     * Restricts the value to the intersection of two intervals, given by
+     * their bounds in any order.
+     */
+    private static double clamp(double value, double a1, double a2,
+                                double b1, double b2) {
+        double min = Math.max(Math.min(a1, a2), Math.min(b1, b2));
+        double max = Math.min(Math.max(a1, a2), Math.max(b1, b2));
+        return Math.max(min, Math.min(value, max));
+    }
+
+    /**
+     * Returns the largest absolute value of the coordinates of two segments.
+     */
+    private static double magnitude(double[] seg1, double[] seg2) {
+        double max = 0;
+        for (int i = 0; i < 4; i++)
+            max = Math.max(max, Math.max(Math.abs(seg1[i]), Math.abs(seg2[i])));
+        return max;
+    }
+
+    /**
+     * Returns the event closest to the point among the given ones, or null
+     * if none of them is within the tolerance in both coordinates.
+     */
+    private static SweepEvent closest(double x, double y, double tol,
+                                      SweepEvent... events) {
+        SweepEvent best = null;
+        double bestDist = tol;
+        for (SweepEvent event : events) {
+            double dist = Math.max(Math.abs(event.x - x),
+                    Math.abs(event.y - y));
+            if (dist <= bestDist) {
+                best = event;
+                bestDist = dist;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks if the point is located between the extremities of the edge,
+     * using the lexicographic order of coordinates.
+     */
+    private static boolean contains(SweepEvent se, double x, double y) {
+        SweepEvent e1 = se, e2 = se.other;
+        if (POINT_ORDER.compare(e1, e2) > 0) {
+            e1 = se.other;
+            e2 = se;
+        }
+        return (x > e1.x || (x == e1.x && y >= e1.y))
+                && (x < e2.x || (x == e2.x && y <= e2.y));
+    }
+
+    /**
+     * Lexicographic comparison of the coordinates of two segments.
+     */
+    private static int compare(double[] seg1, double[] seg2) {
+        for (int i = 0; i < 4; i++) {
+            if (seg1[i] != seg2[i])
+                return seg1[i] < seg2[i] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Connects the edges belonging to the result into rings. Each edge is
+     * oriented such that the result is located on its left, and rings are
+     * followed by turning at each vertex to the first outgoing edge in
+     * clockwise order. Outer rings are therefore oriented counter-clockwise,
+     * holes are oriented clockwise, and rings touching at a vertex are kept
+     * separated.
+     *
+     * @throws IllegalStateException if the result edges do not form rings
+     */
+    private static ArrayList<GJLinearRing2D> connectEdges(
+            ArrayList<SweepEvent> sortedEvents) {
+        // for each result edge, keep the event at its origin
+        ArrayList<SweepEvent> edges = new ArrayList<SweepEvent>();
+        for (SweepEvent event : sortedEvents) {
+            if (!event.left || event.resultTransition == 0)
+                continue;
+            edges.add(event.resultTransition > 0 ? event : event.other);
+        }
+        Collections.sort(edges, POINT_ORDER);
+
+        int n = edges.size();
+        boolean[] used = new boolean[n];
+        ArrayList<GJLinearRing2D> rings = new ArrayList<GJLinearRing2D>();
+        for (int i = 0; i < n; i++) {
+            if (used[i])
+                continue;
+
+            ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+            int current = i;
+            do {
+                used[current] = true;
+                SweepEvent edge = edges.get(current);
+                points.add(new GJPoint2D(edge.x, edge.y));
+                current = nextEdge(edges, used, edge, i);
+            } while (current != i && current != -1);
+
+            // each vertex of the result has as many incoming as outgoing
+            // edges, unless the transitions of the edges are inconsistent
+            if (current == -1)
+                throw new IllegalStateException(
+                        "Unclosed ring starting at " + points.get(0));
+            if (points.size() > 2)
+                rings.add(new GJLinearRing2D(points));
+        }
+        return rings;
+    }
+
+    /**
+     * Returns the index of the edge following the given edge along the
+     * boundary of the result, or -1 if no edge can be found. The first edge
+     * of the ring is considered as available to close the ring.
+     */
+    private static int nextEdge(ArrayList<SweepEvent> edges, boolean[] used,
+                                SweepEvent edge, int first) {
+        SweepEvent end = edge.other;
+
+        // find the first edge starting at the end of current edge
+        int lo = 0, hi = edges.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (POINT_ORDER.compare(edges.get(mid), end) < 0)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        // choose the edge with the smallest clockwise turn from the
+        // direction back to the origin of current edge
+        double refAngle = Math.atan2(edge.y - end.y, edge.x - end.x);
+        int best = -1;
+        double bestTurn = Double.POSITIVE_INFINITY;
+        for (int k = lo; k < edges.size() && edges.get(k).samePoint(end); k++) {
+            if (used[k] && k != first)
+                continue;
+            SweepEvent next = edges.get(k);
+            double turn = refAngle - Math.atan2(next.other.y - next.y,
+                    next.other.x - next.x);
+            if (turn <= 0)
+                turn += 2 * Math.PI;
+            if (turn < bestTurn) {
+                bestTurn = turn;
+                best = k;
+            }
+        }
+        return best;
+    }
+
+
+    public static void main(String[] args) {
+        ArrayList<GJLinearRing2D> subject = new ArrayList<GJLinearRing2D>();
+        subject.add(new GJLinearRing2D(new double[] {0, 10, 10, 0},
+                new double[] {0, 0, 10, 10}));
+        ArrayList<GJLinearRing2D> clipping = new ArrayList<GJLinearRing2D>();
+        clipping.add(new GJLinearRing2D(new double[] {5, 15, 15, 5},
+                new double[] {5, 5, 15, 15}));
+
+        System.out.println("Check GJPolygonClipper2D");
+
+        for (Operation op : Operation.values())
+            System.out.println(op + ": " + compute(subject, clipping, op).area());
+    }
+}
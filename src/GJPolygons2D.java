@@ -1,6 +1,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.RecursiveAction;
 
 import static java.lang.Math.*;
 
@@ -201,21 +202,7 @@ public final class GJPolygons2D {
 	 * @since 0.9.1
      */
     public final static double computeArea(GJLinearRing2D ring) {
-        double area = 0;
-        
-        // number of vertices
-        int n = ring.vertexNumber();
-       
-        // initialize with the last vertex
-        GJPoint2D prev = ring.vertex(n-1);
-        
-        // iterate on edges
-        for (GJPoint2D point : ring.vertices()) {
-            area += prev.x() * point.y() - prev.y() * point.x();
-            prev = point;
-        }
-        
-        return area /= 2;
+        return ring.area();
     }
 
 
@@ -229,6 +216,10 @@ public final class GJPolygons2D {
      */
     public final static int windingNumber(Collection<GJPoint2D> vertices,
             GJPoint2D point) {
+        if (vertices instanceof GJPackedPointList2D)
+            return windingNumber((GJPackedPointList2D) vertices,
+                    point.x(), point.y());
+
         int wn = 0; // the winding number counter
 
         // Extract the last point of the collection
@@ -264,6 +255,329 @@ public final class GJPolygons2D {
         return wn;
     }
 
+    /**
+     * Computes the winding number of the polygon formed by packed vertices,
+     * with the same rules as windingNumber(Collection, GJPoint2D), but
+     * without creating points.
+     */
+    static int windingNumber(GJPackedPointList2D vertices, double x,
+            double y) {
+        double[] c = vertices.coordinates();
+        int n = vertices.size();
+        if (n == 0)
+            return 0;
+        int wn = 0;
+
+        // Iterate on couple of vertices, starting from couple (last,first)
+        double x1 = c[2 * n - 2], y1 = c[2 * n - 1];
+        for (int i = 0; i < n; i++) {
+            double x2 = c[2 * i], y2 = c[2 * i + 1];
+            double left = (x2 - x1) * (y - y1) - (x - x1) * (y2 - y1);
+            if (y1 <= y) {
+                if (y2 > y && left > 0) // an upward crossing
+                    wn++;
+            } else {
+                if (y2 <= y && left < 0) // a downward crossing
+                    wn--;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+
+        return wn;
+    }
+
+    /**
+     * Minimal number of points in a chunk processed by the containsAll
+     * method. Larger sets of points are processed in parallel.
+     */
+    private final static int CONTAINS_CHUNK_SIZE = 8192;
+
+    /**
+     * Checks which points are contained in the region bounded by the linear
+     * rings, and stores the results in the output array. Results are the
+     * same as for GJSimplePolygon2D.contains: points located on an edge,
+     * with precision given by GJShape2D.ACCURACY, are contained, and other
+     * points are contained if their winding number, computed with the same
+     * rules as the windingNumber method, equals 1 for counter-clockwise
+     * rings, or 0 for clockwise rings.
+     * <br>
+     * The points are sorted by y, and processed by a sweep line that keeps
+     * the edges crossing the current ordinate, such that each point is only
+     * compared to the edges of its scanline. Large sets of points are split
+     * into chunks of consecutive scanlines, processed in parallel.
+     * @param rings the boundary of the region
+     * @param xs the x coordinates of the points
+     * @param ys the y coordinates of the points
+     * @param result the array that receives the results
+     */
+    public final static void containsAll(
+            Collection<? extends GJLinearRing2D> rings,
+            double[] xs, double[] ys, boolean[] result) {
+        int n = xs.length;
+        if (ys.length != n || result.length < n)
+            throw new IllegalArgumentException(
+                    "Coordinate arrays must have the same length, and the "
+                    + "result array must contain at least " + n + " values");
+        if (n == 0)
+            return;
+
+        EdgeTable edges = new EdgeTable(rings);
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        sortIndices(order, ys, 0, n);
+
+        ScanlineTask task = new ScanlineTask(edges, xs, ys, order, result,
+                0, n);
+        if (n <= CONTAINS_CHUNK_SIZE)
+            task.compute();
+        else
+            task.invoke();
+    }
+
+    /**
+     * The edges of a set of rings, sorted by their minimal y coordinate.
+     */
+    private final static class EdgeTable {
+        final double[] x1s, y1s, x2s, y2s;
+        final double[] ymins, ymaxs;
+        final int size;
+        final double area;
+
+        EdgeTable(Collection<? extends GJLinearRing2D> rings) {
+            int n = 0;
+            for (GJLinearRing2D ring : rings)
+                n += ring.vertexNumber();
+            double[] coords = new double[4 * n];
+            double[] ymins = new double[n];
+
+            // extract non degenerated edges, and compute the area
+            double area = 0;
+            int e = 0;
+            for (GJLinearRing2D ring : rings) {
+                int nv = ring.vertexNumber();
+                if (nv == 0)
+                    continue;
+                GJPoint2D prev = ring.vertex(nv - 1);
+                for (GJPoint2D point : ring.vertices()) {
+                    double x1 = prev.x(), y1 = prev.y();
+                    double x2 = point.x(), y2 = point.y();
+                    prev = point;
+                    area += x1 * y2 - y1 * x2;
+                    if (x1 == x2 && y1 == y2)
+                        continue;
+                    coords[4 * e] = x1;
+                    coords[4 * e + 1] = y1;
+                    coords[4 * e + 2] = x2;
+                    coords[4 * e + 3] = y2;
+                    ymins[e] = min(y1, y2);
+                    e++;
+                }
+            }
+            this.size = e;
+            this.area = area / 2;
+
+            int[] order = new int[e];
+            for (int i = 0; i < e; i++)
+                order[i] = i;
+            sortIndices(order, ymins, 0, e);
+
+            this.x1s = new double[e];
+            this.y1s = new double[e];
+            this.x2s = new double[e];
+            this.y2s = new double[e];
+            this.ymins = new double[e];
+            this.ymaxs = new double[e];
+            for (int i = 0; i < e; i++) {
+                int k = order[i];
+                x1s[i] = coords[4 * k];
+                y1s[i] = coords[4 * k + 1];
+                x2s[i] = coords[4 * k + 2];
+                y2s[i] = coords[4 * k + 3];
+                this.ymins[i] = ymins[k];
+                this.ymaxs[i] = max(y1s[i], y2s[i]);
+            }
+        }
+
+        /**
+         * Checks if the point lies on the edge, using the same tolerance as
+         * GJLineSegment2D.contains.
+         */
+        boolean onEdge(int i, double x, double y) {
+            double x1 = x1s[i], y1 = y1s[i];
+            double dx = x2s[i] - x1, dy = y2s[i] - y1;
+            if (abs((x - x1) * dy - (y - y1) * dx) / hypot(dx, dy)
+                    >= GJShape2D.ACCURACY)
+                return false;
+            double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+            return t >= -GJShape2D.ACCURACY && t - 1 <= GJShape2D.ACCURACY;
+        }
+
+        /**
+         * Same computation as the isLeft method, for the edge i.
+         */
+        int isLeft(int i, double x, double y) {
+            double x1 = x1s[i], y1 = y1s[i];
+            return (int) signum(
+                    (x2s[i] - x1) * (y - y1) - (x - x1) * (y2s[i] - y1));
+        }
+    }
+
+    /**
+     * Classifies the points of a range of the sorted points, by sweeping a
+     * horizontal line and updating the set of edges close to the line.
+     */
+    private final static class ScanlineTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final EdgeTable edges;
+        final double[] xs, ys;
+        final int[] order;
+        final boolean[] result;
+        final int lo, hi;
+
+        ScanlineTask(EdgeTable edges, double[] xs, double[] ys, int[] order,
+                     boolean[] result, int lo, int hi) {
+            this.edges = edges;
+            this.xs = xs;
+            this.ys = ys;
+            this.order = order;
+            this.result = result;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > CONTAINS_CHUNK_SIZE) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(
+                        new ScanlineTask(edges, xs, ys, order, result, lo, mid),
+                        new ScanlineTask(edges, xs, ys, order, result, mid, hi));
+                return;
+            }
+
+            final double eps = GJShape2D.ACCURACY;
+            double[] ymins = edges.ymins;
+            double[] ymaxs = edges.ymaxs;
+            int m = edges.size;
+
+            // edges close to the first scanline
+            double y0 = ys[order[lo]];
+            int[] active = new int[m];
+            int count = 0;
+            int next = 0;
+            while (next < m && ymins[next] - eps <= y0) {
+                if (ymaxs[next] + eps >= y0)
+                    active[count++] = next;
+                next++;
+            }
+
+            for (int k = lo; k < hi; k++) {
+                int i = order[k];
+                double x = xs[i];
+                double y = ys[i];
+
+                // update the set of active edges
+                while (next < m && ymins[next] - eps <= y) {
+                    if (ymaxs[next] + eps >= y)
+                        active[count++] = next;
+                    next++;
+                }
+
+                int winding = 0;
+                boolean boundary = false;
+                for (int j = 0; j < count; j++) {
+                    int e = active[j];
+                    if (ymaxs[e] + eps < y) {
+                        active[j--] = active[--count];
+                        continue;
+                    }
+                    if (edges.onEdge(e, x, y)) {
+                        boundary = true;
+                        break;
+                    }
+
+                    // same rules as the windingNumber method
+                    double y1 = edges.y1s[e], y2 = edges.y2s[e];
+                    if (y1 <= y) {
+                        if (y2 > y && edges.isLeft(e, x, y) > 0)
+                            winding++;
+                    } else {
+                        if (y2 <= y && edges.isLeft(e, x, y) < 0)
+                            winding--;
+                    }
+                }
+
+                if (boundary)
+                    result[i] = true;
+                else
+                    result[i] = edges.area > 0 ? winding == 1 : winding == 0;
+            }
+        }
+    }
+
+    /**
+     * Sorts the range [lo, hi) of the index array according to the values
+     * of the keys, using a quicksort with three-way partition. NaN keys are
+     * placed at the end.
+     */
+    private final static void sortIndices(int[] indices, double[] keys,
+            int lo, int hi) {
+        while (hi - lo > 16) {
+            // median of three pivot
+            int m = (lo + hi) >>> 1;
+            double a = keys[indices[lo]], b = keys[indices[m]];
+            double c = keys[indices[hi - 1]];
+            double pivot = Double.compare(a, b) < 0
+                    ? (Double.compare(b, c) < 0 ? b
+                            : Double.compare(a, c) < 0 ? c : a)
+                    : (Double.compare(a, c) < 0 ? a
+                            : Double.compare(b, c) < 0 ? c : b);
+
+            // partition into [lo, lt) < pivot, [lt, gt) == pivot, [gt, hi) > pivot
+            int lt = lo, i = lo, gt = hi;
+            while (i < gt) {
+                int cmp = Double.compare(keys[indices[i]], pivot);
+                if (cmp < 0)
+                    swap(indices, lt++, i++);
+                else if (cmp > 0)
+                    swap(indices, i, --gt);
+                else
+                    i++;
+            }
+
+            // recurse on the smaller part, iterate on the larger one
+            if (lt - lo < hi - gt) {
+                sortIndices(indices, keys, lo, lt);
+                lo = gt;
+            } else {
+                sortIndices(indices, keys, gt, hi);
+                hi = lt;
+            }
+        }
+
+        // insertion sort for small ranges
+        for (int i = lo + 1; i < hi; i++) {
+            int index = indices[i];
+            double key = keys[index];
+            int j = i - 1;
+            while (j >= lo && Double.compare(keys[indices[j]], key) > 0) {
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            indices[j + 1] = index;
+        }
+    }
+
+    private final static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
     /**
      * Tests if a point is Left|On|Right of an infinite line.
      * Input:  three points P0, P1, and P2
@@ -317,6 +631,61 @@ public final class GJPolygons2D {
         	return GJMultiPolygon2D.create(rings);
     }
     
+    /**
+     * Computes the union of the regions of two polygons. The result is a new
+     * polygon, that can be multiple.
+     * @see GJPolygonClipper2D
+     */
+    public final static GJMultiPolygon2D union(GJPolygon2D polygon1,
+    		GJPolygon2D polygon2) {
+    	return GJPolygonClipper2D.compute(polygon1, polygon2,
+    			GJPolygonClipper2D.Operation.UNION);
+    }
+
+    /**
+     * Computes the union of the regions of a collection of polygons, by
+     * merging groups of neighbor polygons in parallel. The result is a new
+     * polygon, that can be multiple.
+     * @see GJPolygonClipper2D#union(Collection)
+     */
+    public final static GJMultiPolygon2D union(
+    		Collection<? extends GJPolygon2D> polygons) {
+    	return GJPolygonClipper2D.union(polygons);
+    }
+
+    /**
+     * Computes the intersection of the regions of two polygons. The result is
+     * a new polygon, that can be multiple or empty.
+     * @see GJPolygonClipper2D
+     */
+    public final static GJMultiPolygon2D intersection(GJPolygon2D polygon1,
+    		GJPolygon2D polygon2) {
+    	return GJPolygonClipper2D.compute(polygon1, polygon2,
+    			GJPolygonClipper2D.Operation.INTERSECTION);
+    }
+
+    /**
+     * Computes the region of the first polygon that does not belong to the
+     * second one. The result is a new polygon, that can be multiple or empty.
+     * @see GJPolygonClipper2D
+     */
+    public final static GJMultiPolygon2D difference(GJPolygon2D polygon1,
+    		GJPolygon2D polygon2) {
+    	return GJPolygonClipper2D.compute(polygon1, polygon2,
+    			GJPolygonClipper2D.Operation.DIFFERENCE);
+    }
+
+    /**
+     * Computes the region that belongs to exactly one of the two polygons.
+     * The result is a new polygon, that can be multiple or empty.
+     * @see GJPolygonClipper2D
+     */
+    public final static GJMultiPolygon2D exclusiveOr(GJPolygon2D polygon1,
+    		GJPolygon2D polygon2) {
+    	return GJPolygonClipper2D.compute(polygon1, polygon2,
+    			GJPolygonClipper2D.Operation.XOR);
+    }
+
     private final static GJLinearRing2D convertContourToLinearRing(
     		GJContour2D contour) {
     	// process the basic case of simple class cast
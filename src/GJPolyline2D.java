@@ -339,10 +339,9 @@ implements GJCirculinearContinuousCurve2D, Cloneable {
      * @see math.geom2d.GJShape2D#transform(math.geom2d.GJAffineTransform2D)
      */
     public GJPolyline2D transform(GJAffineTransform2D trans) {
-        GJPoint2D[] pts = new GJPoint2D[vertices.size()];
-		for (int i = 0; i < vertices.size(); i++)
-            pts[i] = trans.transform(vertices.get(i));
-        return new GJPolyline2D(pts);
+        GJPolyline2D result = new GJPolyline2D();
+        result.vertices = vertices.transform(trans);
+        return result;
     }
 
     /*
@@ -436,6 +435,11 @@ implements GJCirculinearContinuousCurve2D, Cloneable {
                 return false;
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return vertices.hashCode();
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -1,5 +1,6 @@
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 
 /**
@@ -10,7 +11,7 @@ import java.util.Collection;
  */
 public abstract class GJPolylines2D {
 
-	static ArrayList<GJPoint2D> simplifyPolyline(ArrayList<GJPoint2D> vertices,
+	static ArrayList<GJPoint2D> simplifyPolyline(List<GJPoint2D> vertices,
                                                  double distMax) {
 		// index of last vertex
     	int last = vertices.size() - 1;
@@ -25,7 +26,7 @@ public abstract class GJPolylines2D {
 		return newVerts;
     }
     
-	static ArrayList<GJPoint2D> simplifyClosedPolyline(ArrayList<GJPoint2D> vertices,
+	static ArrayList<GJPoint2D> simplifyClosedPolyline(List<GJPoint2D> vertices,
                                                        double distMax) {
 		
 		
@@ -61,7 +62,7 @@ public abstract class GJPolylines2D {
 	/**
 	 * Used for constructing simplified polylines.
 	 */
-	private static int[] recurseSimplify(ArrayList<GJPoint2D> vertices, int first,
+	private static int[] recurseSimplify(List<GJPoint2D> vertices, int first,
                                          int last, double distMax) {
 		if (last - first < 2) {
 			return new int[0];
@@ -142,32 +143,220 @@ public abstract class GJPolylines2D {
 
     /**
      * Return all intersection points between the 2 polylines.
-     * This method implements a naive algorithm, that tests all possible edge
-     * couples.
-     * It is supposed that only one point is returned by intersection.
+     * Edges are split into monotone chains, and only the couples of edges
+     * whose bounding boxes overlap are tested, see GJEdgeIntersector2D.
+     * It is supposed that only one point is returned by intersection, and
+     * points closer than GJShape2D.ACCURACY are merged.
      * @param poly1 a first polyline
      * @param poly2 a second polyline
      * @return the set of intersection points
      */
     public static Collection<GJPoint2D> intersect(
             GJLinearCurve2D poly1, GJLinearCurve2D poly2) {
-    	// array for storing intersections
-        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
-        
-        // iterate on edge couples
-        GJPoint2D point;
-        for (GJLineSegment2D edge1 : poly1.edges()) {
-            for (GJLineSegment2D edge2 : poly2.edges()) {
-            	// if the intersection is not empty, add it to the set
-                point = edge1.intersection(edge2);
-                if (point != null) {
-                	// we keep only one intersection by couple
-                	if (!points.contains(point))
-                		points.add(point);
-                }
+        return new GJEdgeIntersector2D(
+                poly1.vertices, intersectedEdgeNumber(poly1),
+                poly2.vertices, intersectedEdgeNumber(poly2)).compute();
+    }
+
+    /**
+     * Returns the points where the polyline intersects itself. Edges that
+     * are not adjacent intersect if they have a common point, and adjacent
+     * edges if they overlap beyond their common vertex.
+     * @param polyline a polyline or a linear ring
+     * @return the set of self-intersection points
+     */
+    public static Collection<GJPoint2D> selfIntersections(
+            GJLinearCurve2D polyline) {
+        return new GJEdgeIntersector2D(polyline.vertices,
+                intersectedEdgeNumber(polyline), isClosed(polyline), false)
+                .compute();
+    }
+
+    /**
+     * Checks if the polyline intersects itself, with the same conventions
+     * as the selfIntersections method. The computation stops at the first
+     * intersection found.
+     */
+    public static boolean hasSelfIntersections(GJLinearCurve2D polyline) {
+        return !new GJEdgeIntersector2D(polyline.vertices,
+                intersectedEdgeNumber(polyline), isClosed(polyline), true)
+                .compute().isEmpty();
+    }
+
+    /**
+     * Returns the number of edges considered for intersections. As for the
+     * edges method of GJLinearRing2D, the closing edge of a ring is ignored
+     * when its extremities are the same.
+     */
+    private static int intersectedEdgeNumber(GJLinearCurve2D curve) {
+        int n = curve.vertices.size();
+        int nEdges = curve.edgeNumber();
+        if (nEdges == n && n > 1) {
+            GJPackedPointList2D vertices = curve.vertices;
+            double dx = vertices.x(n - 1) - vertices.x(0);
+            double dy = vertices.y(n - 1) - vertices.y(0);
+            if (Math.hypot(dx, dy) <= GJShape2D.ACCURACY)
+                nEdges--;
+        }
+        return nEdges;
+    }
+
+    /**
+     * Checks if the last edge of the curve ends at its first vertex, either
+     * directly or through a last vertex repeating the first one. In both
+     * cases the first and the last intersected edges are adjacent.
+     */
+    private static boolean isClosed(GJLinearCurve2D curve) {
+        return curve.edgeNumber() == curve.vertices.size();
+    }
+
+    // ===================================================================
+    // computations on packed vertices
+
+    /*
+     * The following methods process the vertices of linear curves stored in
+     * a GJPackedPointList2D, without creating points or edges. The edge i
+     * joins the vertices i and (i+1) modulo the number of vertices, such
+     * that passing n-1 edges processes an open polyline, and n edges a
+     * closed one.
+     */
+
+    /**
+     * Computes the sum of the lengths of the edges.
+     */
+    static double length(GJPackedPointList2D vertices, int nEdges) {
+        double[] c = vertices.coordinates();
+        int n = vertices.size();
+        double length = 0;
+        for (int i = 0; i < nEdges; i++) {
+            int j = (i + 1) % n;
+            length += Math.hypot(c[2 * j] - c[2 * i], c[2 * j + 1] - c[2 * i + 1]);
+        }
+        return length;
+    }
+
+    /**
+     * Computes the minimal distance between the point and the non
+     * degenerated edges, or Double.MAX_VALUE if there is no such edge.
+     */
+    static double distance(GJPackedPointList2D vertices, int nEdges,
+            double x, double y) {
+        int i = closestEdgeIndex(vertices, nEdges, x, y);
+        if (i < 0)
+            return Double.MAX_VALUE;
+        return Math.sqrt(edgeSquaredDistance(vertices, i, x, y));
+    }
+
+    /**
+     * Returns the index of the non degenerated edge closest to the point,
+     * the first one in case of equality, or -1 if there is no such edge.
+     */
+    static int closestEdgeIndex(GJPackedPointList2D vertices, int nEdges,
+            double x, double y) {
+        double minDist = Double.POSITIVE_INFINITY;
+        int index = -1;
+        for (int i = 0; i < nEdges; i++) {
+            double dist = edgeSquaredDistance(vertices, i, x, y);
+            if (dist < minDist) {
+                minDist = dist;
+                index = i;
             }
         }
+        return index;
+    }
+
+    /**
+     * Returns the position of the projection of the point on the edge,
+     * between 0 and 1.
+     */
+    static double edgeProjection(GJPackedPointList2D vertices, int i,
+            double x, double y) {
+        double[] c = vertices.coordinates();
+        int j = (i + 1) % vertices.size();
+        double x1 = c[2 * i], y1 = c[2 * i + 1];
+        double dx = c[2 * j] - x1, dy = c[2 * j + 1] - y1;
+        double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+        return Math.max(0, Math.min(t, 1));
+    }
 
-        return points;
+    /**
+     * Checks if the point lies on one of the non degenerated edges, using
+     * the same tolerance as GJLineSegment2D.contains.
+     */
+    static boolean edgesContain(GJPackedPointList2D vertices, int nEdges,
+            double x, double y) {
+        double[] c = vertices.coordinates();
+        int n = vertices.size();
+        for (int i = 0; i < nEdges; i++) {
+            int j = (i + 1) % n;
+            double x1 = c[2 * i], y1 = c[2 * i + 1];
+            double dx = c[2 * j] - x1, dy = c[2 * j + 1] - y1;
+            double denom = dx * dx + dy * dy;
+            if (denom == 0)
+                continue;
+            if (Math.abs((x - x1) * dy - (y - y1) * dx) / Math.sqrt(denom)
+                    >= GJShape2D.ACCURACY)
+                continue;
+            double t = ((x - x1) * dx + (y - y1) * dy) / denom;
+            if (t >= -GJShape2D.ACCURACY && t - 1 <= GJShape2D.ACCURACY)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the bounding box of the vertices.
+     */
+    static GJBox2D boundingBox(GJPackedPointList2D vertices) {
+        double[] c = vertices.coordinates();
+        double xmin = Double.POSITIVE_INFINITY, xmax = Double.NEGATIVE_INFINITY;
+        double ymin = Double.POSITIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        for (int i = 0, n = vertices.size(); i < n; i++) {
+            double x = c[2 * i], y = c[2 * i + 1];
+            xmin = Math.min(xmin, x);
+            xmax = Math.max(xmax, x);
+            ymin = Math.min(ymin, y);
+            ymax = Math.max(ymax, y);
+        }
+        return new GJBox2D(xmin, xmax, ymin, ymax);
+    }
+
+    /**
+     * Computes the signed area of the closed polyline formed by the
+     * vertices, positive if the vertices are oriented counter-clockwise.
+     */
+    static double signedArea(GJPackedPointList2D vertices) {
+        double[] c = vertices.coordinates();
+        int n = vertices.size();
+        if (n == 0)
+            return 0;
+        double area = 0;
+        double xp = c[2 * n - 2], yp = c[2 * n - 1];
+        for (int i = 0; i < n; i++) {
+            double x = c[2 * i], y = c[2 * i + 1];
+            area += xp * y - yp * x;
+            xp = x;
+            yp = y;
+        }
+        return area / 2;
+    }
+
+    /**
+     * Returns the squared distance between the point and the edge, or
+     * positive infinity if the edge is degenerated.
+     */
+    private static double edgeSquaredDistance(GJPackedPointList2D vertices,
+            int i, double x, double y) {
+        double[] c = vertices.coordinates();
+        int j = (i + 1) % vertices.size();
+        double x1 = c[2 * i], y1 = c[2 * i + 1];
+        double dx = c[2 * j] - x1, dy = c[2 * j + 1] - y1;
+        double denom = dx * dx + dy * dy;
+        if (denom == 0)
+            return Double.POSITIVE_INFINITY;
+        double t = ((x - x1) * dx + (y - y1) * dy) / denom;
+        t = Math.max(0, Math.min(t, 1));
+        double ex = x1 + t * dx - x, ey = y1 + t * dy - y;
+        return ex * ex + ey * ey;
     }
 }
@@ -0,0 +1,343 @@
+/**
+ * A polygon prepared for repeated point queries. The edges of the polygon
+ * are copied into arrays of doubles, in the order of the rings, and indexed
+ * by an implicit binary tree of bounding boxes: the node associated to the
+ * range [lo, hi) of edges has its children in [lo, mid) and [mid, hi), and
+ * stores the bounds of the edges of the range. As consecutive edges of a
+ * ring are close to each other, the boxes of the nodes are small, and a
+ * query only visits the nodes close to the part of the boundary it depends
+ * on.
+ * <br>
+ * The orientation and the bounding box of the polygon are computed once.
+ * Containment and distance queries run in about O(log n) for n edges, and
+ * do not allocate memory. Containment follows the rules of
+ * GJSimplePolygon2D: points located on the boundary, with precision given by
+ * GJShape2D.ACCURACY, are contained, and other points are classified by
+ * their winding number, depending on the orientation of the polygon.
+ * <br>
+ * The polygon is copied at construction: later modifications of the
+ * original polygon are not taken into account.
+ * @see GJPolygons2D#windingNumber(java.util.Collection, GJPoint2D)
+ */
+public class GJPreparedPolygon2D {
+
+    // ===================================================================
+    // constants
+
+    /** The maximal number of edges in the leaves of the tree */
+    private final static int LEAF_SIZE = 8;
+
+    /** Returned by the computation of crossings for points on the boundary */
+    private final static int ON_BOUNDARY = Integer.MIN_VALUE;
+
+
+    // ===================================================================
+    // class variables
+
+    /** The polygon used to build this instance */
+    private final GJPolygon2D polygon;
+
+    /** The coordinates of the extremities of the edges */
+    private final double[] x1s, y1s, x2s, y2s;
+
+    /** The number of edges */
+    private final int edgeNumber;
+
+    /** The signed area of the polygon */
+    private final double area;
+
+    /**
+     * The bounds of the tree nodes, stored as {xmin, xmax, ymin, ymax} at
+     * position 4*k for node k. Children of node k are nodes 2k+1 and 2k+2.
+     */
+    private final double[] nodeBounds;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Prepares the given polygon, that can be simple or multiple.
+     */
+    public GJPreparedPolygon2D(GJPolygon2D polygon) {
+        this.polygon = polygon;
+
+        int n = 0;
+        for (GJLinearRing2D ring : polygon.contours())
+            n += ring.vertexNumber();
+        double[] x1s = new double[n], y1s = new double[n];
+        double[] x2s = new double[n], y2s = new double[n];
+
+        // copy the edges, excluding degenerated ones
+        double area = 0;
+        int e = 0;
+        for (GJLinearRing2D ring : polygon.contours()) {
+            int nv = ring.vertexNumber();
+            if (nv == 0)
+                continue;
+            GJPoint2D prev = ring.vertex(nv - 1);
+            for (GJPoint2D vertex : ring.vertices()) {
+                double x1 = prev.x(), y1 = prev.y();
+                double x2 = vertex.x(), y2 = vertex.y();
+                prev = vertex;
+                area += x1 * y2 - y1 * x2;
+
+                if (x1 == x2 && y1 == y2)
+                    continue;
+                x1s[e] = x1;
+                y1s[e] = y1;
+                x2s[e] = x2;
+                y2s[e] = y2;
+                e++;
+            }
+        }
+
+        this.x1s = x1s;
+        this.y1s = y1s;
+        this.x2s = x2s;
+        this.y2s = y2s;
+        this.edgeNumber = e;
+        this.area = area / 2;
+
+        // allocate a complete tree with enough levels
+        int depth = 0;
+        for (int m = e; m > LEAF_SIZE; m = (m + 1) / 2)
+            depth++;
+        this.nodeBounds = new double[4 * ((2 << depth) - 1)];
+        if (e > 0)
+            makeTree(0, 0, e);
+    }
+
+    /**
+     * Computes the bounds of the node associated to the range [lo, hi) of
+     * edges, and of its descendants.
+     */
+    private void makeTree(int node, int lo, int hi) {
+        double xmin, xmax, ymin, ymax;
+        if (hi - lo <= LEAF_SIZE) {
+            xmin = ymin = Double.POSITIVE_INFINITY;
+            xmax = ymax = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                xmin = Math.min(xmin, Math.min(x1s[i], x2s[i]));
+                xmax = Math.max(xmax, Math.max(x1s[i], x2s[i]));
+                ymin = Math.min(ymin, Math.min(y1s[i], y2s[i]));
+                ymax = Math.max(ymax, Math.max(y1s[i], y2s[i]));
+            }
+        } else {
+            int mid = (lo + hi) >>> 1;
+            int left = 2 * node + 1, right = 2 * node + 2;
+            makeTree(left, lo, mid);
+            makeTree(right, mid, hi);
+            xmin = Math.min(nodeBounds[4 * left], nodeBounds[4 * right]);
+            xmax = Math.max(nodeBounds[4 * left + 1], nodeBounds[4 * right + 1]);
+            ymin = Math.min(nodeBounds[4 * left + 2], nodeBounds[4 * right + 2]);
+            ymax = Math.max(nodeBounds[4 * left + 3], nodeBounds[4 * right + 3]);
+        }
+        nodeBounds[4 * node] = xmin;
+        nodeBounds[4 * node + 1] = xmax;
+        nodeBounds[4 * node + 2] = ymin;
+        nodeBounds[4 * node + 3] = ymax;
+    }
+
+
+    // ===================================================================
+    // accessors
+
+    /**
+     * Returns the polygon used to build this instance.
+     */
+    public GJPolygon2D polygon() {
+        return polygon;
+    }
+
+    /**
+     * Returns the number of non degenerated edges of the polygon.
+     */
+    public int edgeNumber() {
+        return edgeNumber;
+    }
+
+    /**
+     * Returns the signed area of the polygon, positive if the polygon is
+     * oriented counter-clockwise.
+     */
+    public double area() {
+        return area;
+    }
+
+    /**
+     * Returns the bounding box of the polygon.
+     */
+    public GJBox2D boundingBox() {
+        if (edgeNumber == 0)
+            return new GJBox2D(Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        return new GJBox2D(nodeBounds[0], nodeBounds[1],
+                nodeBounds[2], nodeBounds[3]);
+    }
+
+
+    // ===================================================================
+    // queries
+
+    public boolean contains(GJPoint2D point) {
+        return contains(point.x(), point.y());
+    }
+
+    /**
+     * Returns true if the point (x, y) lies inside the polygon, or on its
+     * boundary with precision given by GJShape2D.ACCURACY.
+     */
+    public boolean contains(double x, double y) {
+        int winding = edgeNumber == 0 ? 0 : crossings(0, 0, edgeNumber, x, y);
+        if (winding == ON_BOUNDARY)
+            return true;
+        return area > 0 ? winding == 1 : winding == 0;
+    }
+
+    /**
+     * Computes the winding number of the edges of the range around the
+     * point, by counting the edges crossing the horizontal ray starting from
+     * the point towards the right. Returns ON_BOUNDARY if the point lies on
+     * an edge of the range.
+     */
+    private int crossings(int node, int lo, int hi, double x, double y) {
+        // only edges overlapping the ray, or close to the point, are relevant
+        int k = 4 * node;
+        if (nodeBounds[k + 1] < x - GJShape2D.ACCURACY
+                || nodeBounds[k + 2] > y + GJShape2D.ACCURACY
+                || nodeBounds[k + 3] < y - GJShape2D.ACCURACY)
+            return 0;
+
+        if (hi - lo > LEAF_SIZE) {
+            int mid = (lo + hi) >>> 1;
+            int w1 = crossings(2 * node + 1, lo, mid, x, y);
+            if (w1 == ON_BOUNDARY)
+                return ON_BOUNDARY;
+            int w2 = crossings(2 * node + 2, mid, hi, x, y);
+            if (w2 == ON_BOUNDARY)
+                return ON_BOUNDARY;
+            return w1 + w2;
+        }
+
+        int winding = 0;
+        for (int i = lo; i < hi; i++) {
+            if (onEdge(i, x, y))
+                return ON_BOUNDARY;
+
+            // same rules as GJPolygons2D.windingNumber
+            double y1 = y1s[i], y2 = y2s[i];
+            if (y1 <= y) {
+                if (y2 > y && isLeft(i, x, y) > 0)
+                    winding++;
+            } else {
+                if (y2 <= y && isLeft(i, x, y) < 0)
+                    winding--;
+            }
+        }
+        return winding;
+    }
+
+    public double distance(GJPoint2D point) {
+        return distance(point.x(), point.y());
+    }
+
+    /**
+     * Returns the distance of the point to the polygon, or zero if the point
+     * lies inside the polygon.
+     */
+    public double distance(double x, double y) {
+        if (contains(x, y))
+            return 0;
+        return boundaryDistance(x, y);
+    }
+
+    /**
+     * Returns the distance of the point to the closest edge of the polygon.
+     */
+    public double boundaryDistance(double x, double y) {
+        if (edgeNumber == 0)
+            return Double.POSITIVE_INFINITY;
+        return Math.sqrt(nearest(0, 0, edgeNumber, x, y,
+                Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Returns either the given squared distance, or the squared distance to
+     * a closer edge of the range. The child closer to the point is explored
+     * first, and nodes farther than the current best are skipped.
+     */
+    private double nearest(int node, int lo, int hi, double x, double y,
+                           double best) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++)
+                best = Math.min(best, squaredDistance(i, x, y));
+            return best;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int left = 2 * node + 1, right = 2 * node + 2;
+        double d1 = boxDistance(left, x, y);
+        double d2 = boxDistance(right, x, y);
+        if (d1 <= d2) {
+            if (d1 < best)
+                best = nearest(left, lo, mid, x, y, best);
+            if (d2 < best)
+                best = nearest(right, mid, hi, x, y, best);
+        } else {
+            if (d2 < best)
+                best = nearest(right, mid, hi, x, y, best);
+            if (d1 < best)
+                best = nearest(left, lo, mid, x, y, best);
+        }
+        return best;
+    }
+
+
+    // ===================================================================
+    // edge computations
+
+    /**
+     * Returns the squared distance between the point and the box of the
+     * node, or zero if the point is inside the box.
+     */
+    private double boxDistance(int node, double x, double y) {
+        int k = 4 * node;
+        double dx = Math.max(0, Math.max(nodeBounds[k] - x, x - nodeBounds[k + 1]));
+        double dy = Math.max(0, Math.max(nodeBounds[k + 2] - y, y - nodeBounds[k + 3]));
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Tests if the point is on the left (>0), on the line (=0) or on the
+     * right (<0) of the edge, as in GJPolygons2D.
+     */
+    private int isLeft(int i, double x, double y) {
+        double x1 = x1s[i], y1 = y1s[i];
+        return (int) Math.signum(
+                (x2s[i] - x1) * (y - y1) - (x - x1) * (y2s[i] - y1));
+    }
+
+    /**
+     * Checks if the point lies on the edge, using the same tolerance as
+     * GJLineSegment2D.contains.
+     */
+    private boolean onEdge(int i, double x, double y) {
+        double x1 = x1s[i], y1 = y1s[i];
+        double dx = x2s[i] - x1, dy = y2s[i] - y1;
+        double denom = Math.hypot(dx, dy);
+        if (Math.abs((x - x1) * dy - (y - y1) * dx) / denom >= GJShape2D.ACCURACY)
+            return false;
+        double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+        return t >= -GJShape2D.ACCURACY && t - 1 <= GJShape2D.ACCURACY;
+    }
+
+    private double squaredDistance(int i, double x, double y) {
+        double x1 = x1s[i], y1 = y1s[i];
+        double dx = x2s[i] - x1, dy = y2s[i] - y1;
+        double t = ((x - x1) * dx + (y - y1) * dy) / (dx * dx + dy * dy);
+        t = Math.max(0, Math.min(t, 1));
+        double ex = x1 + t * dx - x;
+        double ey = y1 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+}
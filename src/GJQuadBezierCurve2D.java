@@ -48,6 +48,9 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      */
 	protected double x2, y2;
 
+    /** The adaptive polyline approximation, computed on first demand */
+    private GJFlattenedCurve2D flattened = null;
+
     // ===================================================================
     // constructors
 
@@ -149,6 +152,16 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
         return tab;
     }
 
+    /**
+     * Returns the adaptive polyline approximation of this curve, computed
+     * once and reused by the approximated queries.
+     */
+    protected GJFlattenedCurve2D flattened() {
+        if (flattened == null)
+            flattened = new GJFlattenedCurve2D(this);
+        return flattened;
+    }
+
     // ===================================================================
     // methods from GJOrientedCurve2D interface
 
@@ -158,7 +171,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      * @see math.geom2d.domain.OrientedCurve2D#windingAngle(GJPoint2D)
      */
     public double windingAngle(GJPoint2D point) {
-        return this.asPolyline(100).windingAngle(point);
+        return this.flattened().polyline().windingAngle(point);
     }
 
     /**
@@ -169,7 +182,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      * @return true if the point is on the left side of the curve.
      */
     public boolean isInside(GJPoint2D pt) {
-        return this.asPolyline(100).isInside(pt);
+        return this.flattened().polyline().isInside(pt);
     }
 
     public double signedDistance(GJPoint2D point) {
@@ -278,7 +291,7 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
      * @see math.geom2d.curve.Curve2D#intersections(math.geom2d.line.LinearShape2D)
      */
     public Collection<GJPoint2D> intersections(GJLinearShape2D line) {
-        return this.asPolyline(100).intersections(line);
+        return this.flattened().polyline().intersections(line);
     }
 
     /**
@@ -313,19 +326,22 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
     }
 
     /**
-     * Computes position by approximating cubic spline with a polyline.
+     * Computes position of the closest point of the curve.
+     * 
+     * @see #project(GJPoint2D)
      */
     public double position(GJPoint2D point) {
-		int N = 100;
-		return this.asPolyline(N).position(point) / (N);
+		return this.project(point);
    }
 
     /**
-     * Computes position by approximating cubic spline with a polyline.
+     * Computes position of the orthogonal projection of the point on the
+     * curve, by isolating the roots of the cubic polynomial (B(t)-P).B'(t).
      */
     public double project(GJPoint2D point) {
-        int N = 100;
-        return this.asPolyline(N).project(point)/(N);
+        return GJBezierCurves2D.project(
+        		new double[]{x1, ctrlx, x2}, new double[]{y1, ctrly, y2},
+        		point.x(), point.y());
     }
 
     /**
@@ -388,12 +404,12 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
     }
 
     /**
-     * Computes approximated distance, computed on a polyline.
+     * Computes distance to the orthogonal projection of the point.
      * 
      * @see math.geom2d.Shape2D#distance(double, double)
      */
     public double distance(double x, double y) {
-        return this.asPolyline(100).distance(x, y);
+        return this.point(this.project(new GJPoint2D(x, y))).distance(x, y);
     }
 
     /**
@@ -524,6 +540,16 @@ implements GJSmoothCurve2D, GJContinuousOrientedCurve2D, Cloneable {
         
         return true;
     }
+
+    /**
+     * As curves are compared with a tolerance, the coordinates of the control
+     * points can not be used for computing the hash code. All curves share
+     * the same hash code, which is consistent with the equals method.
+     */
+    @Override
+    public int hashCode() {
+        return GJQuadBezierCurve2D.class.hashCode();
+    }
     
 	/**
 	 * @deprecated not necessary to clone immutable objects (0.11.2)
@@ -373,6 +373,11 @@ public class GJRectangle2D implements GJPolygon2D {
         return true;
     }
 
+    public void containsAll(double[] xs, double[] ys, boolean[] result) {
+        for (int i = 0; i < xs.length; i++)
+            result[i] = contains(xs[i], ys[i]);
+    }
+
     public void draw(Graphics2D g2) {
     	this.asRing().draw(g2);
     }
@@ -448,4 +453,14 @@ public class GJRectangle2D implements GJPolygon2D {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, x0);
+        hash = GJHashCodeUtils.hash(hash, y0);
+        hash = GJHashCodeUtils.hash(hash, w);
+        hash = GJHashCodeUtils.hash(hash, h);
+        return hash;
+    }
+
 }
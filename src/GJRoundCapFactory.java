@@ -2,14 +2,37 @@ import static java.lang.Math.PI;
 
 /**
  * Generate a circular cap at the end of a curve.
+ * With a positive tolerance, the cap is a polyline that encloses the half
+ * circle, within the tolerance (see GJCircleArc2D.flattenOutside).
  * @author dlegland
  *
  */
 public class GJRoundCapFactory implements GJCapFactory {
 
+	/** The chord error used for flattening caps, or 0 for exact caps */
+	private double tolerance = 0;
+	
 	public GJRoundCapFactory() {
 	}
 	
+	/**
+	 * Creates a new cap factory that produces polylines approximating
+	 * circle arcs with the given chord error.
+	 */
+	public GJRoundCapFactory(double tolerance) {
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		this.tolerance = tolerance;
+	}
+	
+	/**
+	 * Returns the chord error used for flattening caps, or 0 if caps are
+	 * exact circle arcs.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+	
 	/* (non-Javadoc)
 	 * @see math.geom2d.circulinear.buffer.GJCapFactory#createCap(math.geom2d.GJPoint2D, math.geom2d.GJVector2D, double)
 	 */
@@ -18,7 +41,7 @@ public class GJRoundCapFactory implements GJCapFactory {
 		double angle = direction.angle();
 		double angle1 = GJAngle2D.formatAngle(angle - PI/2);
 		double angle2 = GJAngle2D.formatAngle(angle + PI/2);
-		return new GJCircleArc2D(center, dist, angle1, angle2, true);
+		return createArc(new GJCircleArc2D(center, dist, angle1, angle2, true));
 	}
 
 	public GJCirculinearContinuousCurve2D createCap(GJPoint2D p1, GJPoint2D p2) {
@@ -27,7 +50,16 @@ public class GJRoundCapFactory implements GJCapFactory {
 		
 		double angle1 = GJAngle2D.horizontalAngle(center, p1);
 		double angle2 = GJAngle2D.horizontalAngle(center, p2);
-		return new GJCircleArc2D(center, radius, angle1, angle2, true);
+		return createArc(new GJCircleArc2D(center, radius, angle1, angle2, true));
+	}
+	
+	/**
+	 * Returns either the arc, or its flattened version.
+	 */
+	private GJCirculinearContinuousCurve2D createArc(GJCircleArc2D arc) {
+		if (tolerance > 0)
+			return arc.flattenOutside(tolerance);
+		return arc;
 	}
 
 }
@@ -2,11 +2,40 @@ import static java.lang.Math.PI;
 
 
 /**
+ * Generates a circular join between two consecutive parallel curves.
+ * If a positive tolerance is specified, the circle arc is replaced by a
+ * polyline enclosing the arc, whose distance to the arc is lower than the
+ * tolerance. As the polyline is never closer to the base curve than the
+ * buffer distance, flattened buffers always contain the exact buffers.
  * @author dlegland
  *
  */
 public class GJRoundJoinFactory implements GJJoinFactory {
 
+	/** The chord error used for flattening joins, or 0 for exact joins */
+	private double tolerance = 0;
+	
+	public GJRoundJoinFactory() {
+	}
+	
+	/**
+	 * Creates a new join factory that produces polylines approximating
+	 * circle arcs with the given chord error.
+	 */
+	public GJRoundJoinFactory(double tolerance) {
+		if (!(tolerance > 0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		this.tolerance = tolerance;
+	}
+	
+	/**
+	 * Returns the chord error used for flattening joins, or 0 if joins are
+	 * exact circle arcs.
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
 	/**
 	 * Creates a join between the parallels of two curves at the specified
 	 * distance.
@@ -56,7 +85,10 @@ public class GJRoundJoinFactory implements GJJoinFactory {
 			return new GJCircleArc2D(center, Math.abs(dist), startAngle, 0);
 		
 		// otherwise add a circle arc to the polycurve
-		return new GJCircleArc2D(
+		GJCircleArc2D arc = new GJCircleArc2D(
 				center, Math.abs(dist), startAngle, endAngle, dist > 0);
+		if (tolerance > 0)
+			return arc.flattenOutside(tolerance);
+		return arc;
 	}
 }
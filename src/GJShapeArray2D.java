@@ -1,11 +1,18 @@
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.Set;
 
 
 /**
- * Default Implementation of GJShapeSet2D.
+ * Default Implementation of GJShapeSet2D.<br>
+ * The shape array can optionally maintain a spatial index of its shapes (see
+ * setIndexed), used to speed up the contains, distance and clip methods for
+ * large sets. The index is updated by the add and remove methods of the
+ * array, but not by modifications of the collection returned by shapes().
  * @author dlegland
  *
  */
@@ -30,6 +37,9 @@ implements GJShapeSet2D<T>, Cloneable {
     /** The inner array of curves */
     protected ArrayList<T> shapes;
 
+    /** The optional spatial index of the shapes, null if not indexed */
+    protected GJShapeIndex2D<T> index = null;
+
     
     // ===================================================================
     // Constructors
@@ -65,11 +75,15 @@ implements GJShapeSet2D<T>, Cloneable {
     public boolean add(T shape) {
         if(shapes.contains(shape))
         	return false;
+        if (index != null)
+        	index.add(shape);
         return shapes.add(shape);
     }
 
 	public void add(int index, T shape) {
 		this.shapes.add(index, shape);
+		if (this.index != null)
+			this.index.add(shape);
 	}
 
     /**
@@ -88,11 +102,18 @@ implements GJShapeSet2D<T>, Cloneable {
      * @param shape the shape to remove
      */
     public boolean remove(T shape) {
-    	return shapes.remove(shape);
+    	if (!shapes.remove(shape))
+    		return false;
+    	if (index != null)
+    		index.remove(shape);
+    	return true;
     }
 
 	public T remove(int index) {
-		return this.shapes.remove(index);
+		T shape = this.shapes.remove(index);
+		if (this.index != null)
+			this.index.remove(shape);
+		return shape;
 	}
 
     /**
@@ -111,6 +132,8 @@ implements GJShapeSet2D<T>, Cloneable {
      */
     public void clear() {
     	shapes.clear();
+    	if (index != null)
+    		index.clear();
     }
 
 	public int size() {
@@ -126,6 +149,24 @@ implements GJShapeSet2D<T>, Cloneable {
         return shapes;
     }
 
+    /**
+     * Enables or disables the spatial index of the shapes. When enabled, the
+     * index is built from the current shapes using bulk loading.
+     */
+    public void setIndexed(boolean indexed) {
+    	if (indexed)
+    		this.index = new GJShapeIndex2D<T>(shapes);
+    	else
+    		this.index = null;
+    }
+
+    /**
+     * Returns true if the shapes of this array are spatially indexed.
+     */
+    public boolean isIndexed() {
+    	return this.index != null;
+    }
+
     
     // ===================================================================
     // Methods implementing the GJShape2D interface
@@ -133,17 +174,44 @@ implements GJShapeSet2D<T>, Cloneable {
     /* (non-Javadoc)
 	 * @see math.geom2d.GJShape2D#clip(math.geom2d.GJBox2D)
 	 */
+	/**
+	 * Clips each shape by the box, in the order of the array. Bounded shapes
+	 * whose bounding box does not intersect the clipping box are skipped. If
+	 * the array is indexed, the index is only used for finding these shapes,
+	 * and the result is the same as without index.
+	 */
 	public GJShape2D clip(GJBox2D box) {
-		ArrayList<GJShape2D> clippedShapes = new ArrayList<GJShape2D>(this.size());
-		for (T shape : shapes)
+		Set<T> candidates = null;
+		if (index != null) {
+			candidates = Collections.newSetFromMap(
+					new IdentityHashMap<T, Boolean>());
+			index.query(box, candidates);
+		}
+
+		ArrayList<GJShape2D> clippedShapes = new ArrayList<GJShape2D>();
+		for (T shape : shapes) {
+			if (candidates == null ? !overlaps(shape, box)
+					: !candidates.contains(shape))
+				continue;
 			clippedShapes.add(shape.clip(box));
+		}
 		return new GJShapeArray2D<GJShape2D>(clippedShapes);
 	}
 
+	/**
+	 * Same test as the queries of GJShapeIndex2D: unbounded shapes are
+	 * always kept, other shapes if their bounding box intersects the box.
+	 */
+	private static boolean overlaps(GJShape2D shape, GJBox2D box) {
+		return !shape.isBounded() || box.intersects(shape.boundingBox());
+	}
+
 	/* (non-Javadoc)
 	 * @see math.geom2d.GJShape2D#contains(double, double)
 	 */
 	public boolean contains(double x, double y) {
+		if (index != null)
+			return index.contains(x, y);
         for (GJShape2D shape : shapes) {
             if (shape.contains(x, y))
                 return true;
@@ -199,6 +267,8 @@ implements GJShapeSet2D<T>, Cloneable {
 	 * @see math.geom2d.GJShape2D#getDistance(double, double)
 	 */
 	public double distance(double x, double y) {
+		if (index != null)
+			return index.distance(x, y);
         double dist = Double.POSITIVE_INFINITY;
         for (GJShape2D shape : shapes)
             dist = Math.min(dist, shape.distance(x, y));
@@ -308,6 +378,11 @@ implements GJShapeSet2D<T>, Cloneable {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        return shapes.hashCode();
+    }
+
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
 	 */
@@ -0,0 +1,803 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+
+/**
+ * A spatial index for shapes, based on an R-tree built on the bounding boxes
+ * of the shapes.<br>
+ * When the index is created from a collection of shapes, the tree is
+ * bulk-loaded using the Sort-Tile-Recursive (STR) algorithm, resulting in
+ * nearly full nodes with small overlap. Shapes can then be added and removed
+ * dynamically: insertion chooses subtrees and splits nodes using the R*-tree
+ * heuristics (minimal overlap enlargement, minimal margin split axis and
+ * minimal overlap distribution), and removal reinserts the content of
+ * underfull nodes.<br>
+ * Unbounded shapes can not be indexed by their bounding box, they are stored
+ * in a separate list that is scanned by every query.
+ * @see GJShapeArray2D
+ */
+public class GJShapeIndex2D<T extends GJShape2D> implements Iterable<T> {
+
+    // ===================================================================
+    // constants
+
+    /** Maximal number of children of a node */
+    private final static int MAX_ENTRIES = 16;
+
+    /** Minimal number of children of a node, except the root */
+    private final static int MIN_ENTRIES = 6;
+
+
+    // ===================================================================
+    // inner classes
+
+    /**
+     * Common base class for tree nodes and leaf entries.
+     */
+    private static abstract class Bounds {
+        double xmin, xmax, ymin, ymax;
+
+        /**
+         * Copies the bounds of the box. Bounds are reordered, as some shapes
+         * return boxes whose min and max values are swapped.
+         */
+        void setBounds(GJBox2D box) {
+            xmin = Math.min(box.getMinX(), box.getMaxX());
+            xmax = Math.max(box.getMinX(), box.getMaxX());
+            ymin = Math.min(box.getMinY(), box.getMaxY());
+            ymax = Math.max(box.getMinY(), box.getMaxY());
+        }
+
+        double centerX() {
+            return (xmin + xmax) * .5;
+        }
+
+        double centerY() {
+            return (ymin + ymax) * .5;
+        }
+
+        double area() {
+            return (xmax - xmin) * (ymax - ymin);
+        }
+
+        boolean intersects(double x0, double x1, double y0, double y1) {
+            return xmin <= x1 && x0 <= xmax && ymin <= y1 && y0 <= ymax;
+        }
+
+        boolean contains(double x, double y) {
+            return xmin <= x && x <= xmax && ymin <= y && y <= ymax;
+        }
+
+        /** Distance from the point to the rectangle, zero if inside */
+        double distance(double x, double y) {
+            double dx = Math.max(Math.max(xmin - x, 0), x - xmax);
+            double dy = Math.max(Math.max(ymin - y, 0), y - ymax);
+            return Math.hypot(dx, dy);
+        }
+    }
+
+    /**
+     * A leaf entry, associating a shape with its bounding box.
+     */
+    private static class Entry<T> extends Bounds {
+        final T shape;
+
+        Entry(T shape, GJBox2D box) {
+            this.shape = shape;
+            setBounds(box);
+        }
+    }
+
+    /**
+     * A node of the tree. Children are entries for leaf nodes, and nodes for
+     * internal nodes.
+     */
+    private static class Node extends Bounds {
+        final boolean leaf;
+        Node parent = null;
+        Bounds[] children = new Bounds[MAX_ENTRIES + 1];
+        int count = 0;
+
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+
+        void add(Bounds child) {
+            children[count++] = child;
+            if (child instanceof Node)
+                ((Node) child).parent = this;
+        }
+
+        void removeAt(int i) {
+            count--;
+            children[i] = children[count];
+            children[count] = null;
+        }
+
+        /** Recomputes the bounds from the children */
+        void updateBounds() {
+            xmin = ymin = Double.POSITIVE_INFINITY;
+            xmax = ymax = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++)
+                include(children[i]);
+        }
+
+        void include(Bounds b) {
+            xmin = Math.min(xmin, b.xmin);
+            xmax = Math.max(xmax, b.xmax);
+            ymin = Math.min(ymin, b.ymin);
+            ymax = Math.max(ymax, b.ymax);
+        }
+    }
+
+    /**
+     * An element of the priority queue used by nearest neighbor search.
+     */
+    private static class QueueItem {
+        final Bounds item;
+        final double dist;
+
+        QueueItem(Bounds item, double dist) {
+            this.item = item;
+            this.dist = dist;
+        }
+    }
+
+    private final static Comparator<Bounds> CENTER_X_COMPARATOR =
+            new Comparator<Bounds>() {
+        public int compare(Bounds b1, Bounds b2) {
+            return Double.compare(b1.centerX(), b2.centerX());
+        }
+    };
+
+    private final static Comparator<Bounds> CENTER_Y_COMPARATOR =
+            new Comparator<Bounds>() {
+        public int compare(Bounds b1, Bounds b2) {
+            return Double.compare(b1.centerY(), b2.centerY());
+        }
+    };
+
+    private final static Comparator<QueueItem> QUEUE_COMPARATOR =
+            new Comparator<QueueItem>() {
+        public int compare(QueueItem i1, QueueItem i2) {
+            return Double.compare(i1.dist, i2.dist);
+        }
+    };
+
+
+    // ===================================================================
+    // static constructors
+
+    public static <T extends GJShape2D> GJShapeIndex2D<T> create(
+            Collection<? extends T> shapes) {
+        return new GJShapeIndex2D<T>(shapes);
+    }
+
+
+    // ===================================================================
+    // class variables
+
+    /** The root of the tree, always a non null node */
+    private Node root;
+
+    /** The shapes that can not be indexed by their bounding box */
+    private ArrayList<T> unbounded = new ArrayList<T>();
+
+    /** The number of shapes stored in the tree */
+    private int treeSize = 0;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates an empty index.
+     */
+    public GJShapeIndex2D() {
+        this.root = new Node(true);
+        this.root.updateBounds();
+    }
+
+    /**
+     * Creates an index containing the given shapes, using STR bulk loading.
+     */
+    public GJShapeIndex2D(Collection<? extends T> shapes) {
+        ArrayList<Bounds> entries = new ArrayList<Bounds>(shapes.size());
+        for (T shape : shapes) {
+            GJBox2D box = shape.boundingBox();
+            if (isIndexable(shape, box))
+                entries.add(new Entry<T>(shape, box));
+            else
+                unbounded.add(shape);
+        }
+        this.treeSize = entries.size();
+        this.root = bulkLoad(entries, true);
+    }
+
+
+    // ===================================================================
+    // bulk loading
+
+    /**
+     * Packs the given list of entries or nodes into nodes of the next level,
+     * and recursively packs the resulting nodes until a single root remains.
+     */
+    private Node bulkLoad(ArrayList<Bounds> items, boolean leaf) {
+        if (items.size() <= MAX_ENTRIES) {
+            Node node = new Node(leaf);
+            for (Bounds item : items)
+                node.add(item);
+            node.updateBounds();
+            return node;
+        }
+
+        // number of nodes, and number of vertical slices
+        int n = items.size();
+        int nodeCount = (n + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * MAX_ENTRIES;
+
+        Bounds[] array = items.toArray(new Bounds[n]);
+        Arrays.sort(array, CENTER_X_COMPARATOR);
+
+        ArrayList<Bounds> nodes = new ArrayList<Bounds>(nodeCount);
+        for (int s = 0; s < n; s += sliceSize) {
+            int sEnd = Math.min(s + sliceSize, n);
+            Arrays.sort(array, s, sEnd, CENTER_Y_COMPARATOR);
+
+            // pack the slice into nodes
+            for (int i = s; i < sEnd; i += MAX_ENTRIES) {
+                Node node = new Node(leaf);
+                int iEnd = Math.min(i + MAX_ENTRIES, sEnd);
+                for (int j = i; j < iEnd; j++)
+                    node.add(array[j]);
+                node.updateBounds();
+                nodes.add(node);
+            }
+        }
+
+        return bulkLoad(nodes, false);
+    }
+
+    private static boolean isIndexable(GJShape2D shape, GJBox2D box) {
+        if (!shape.isBounded())
+            return false;
+        double xmin = box.getMinX(), xmax = box.getMaxX();
+        double ymin = box.getMinY(), ymax = box.getMaxY();
+        if (Double.isNaN(xmin) || Double.isNaN(xmax)
+                || Double.isNaN(ymin) || Double.isNaN(ymax))
+            return false;
+        return !Double.isInfinite(xmin) && !Double.isInfinite(xmax)
+                && !Double.isInfinite(ymin) && !Double.isInfinite(ymax);
+    }
+
+
+    // ===================================================================
+    // dynamic management
+
+    /**
+     * Adds a shape to the index.
+     */
+    public void add(T shape) {
+        GJBox2D box = shape.boundingBox();
+        if (!isIndexable(shape, box)) {
+            unbounded.add(shape);
+            return;
+        }
+        insert(new Entry<T>(shape, box));
+        treeSize++;
+    }
+
+    /**
+     * Inserts an entry into the leaf chosen with R*-tree heuristics, and
+     * splits overflowing nodes up to the root.
+     */
+    private void insert(Entry<T> entry) {
+        Node node = root;
+        while (!node.leaf) {
+            node.include(entry);
+            node = (Node) node.children[chooseSubtree(node, entry)];
+        }
+        node.add(entry);
+        node.include(entry);
+
+        // split nodes while they overflow
+        while (node.count > MAX_ENTRIES) {
+            Node sibling = split(node);
+            Node parent = node.parent;
+            if (parent == null) {
+                // grow the tree
+                parent = new Node(false);
+                parent.add(node);
+                parent.add(sibling);
+                parent.updateBounds();
+                root = parent;
+                break;
+            }
+            parent.add(sibling);
+            node = parent;
+        }
+    }
+
+    /**
+     * Chooses the child of the node that should receive the entry. For nodes
+     * whose children are leaves, the child needing the minimal overlap
+     * enlargement is chosen, otherwise the child needing the minimal area
+     * enlargement. Ties are resolved by the minimal area.
+     */
+    private static int chooseSubtree(Node node, Bounds entry) {
+        boolean leafChildren = ((Node) node.children[0]).leaf;
+
+        int best = 0;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestEnlarge = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+
+        for (int i = 0; i < node.count; i++) {
+            Bounds child = node.children[i];
+            double x0 = Math.min(child.xmin, entry.xmin);
+            double x1 = Math.max(child.xmax, entry.xmax);
+            double y0 = Math.min(child.ymin, entry.ymin);
+            double y1 = Math.max(child.ymax, entry.ymax);
+
+            double area = child.area();
+            double enlarge = (x1 - x0) * (y1 - y0) - area;
+
+            double overlap = 0;
+            if (leafChildren) {
+                // increase of the overlap with the other children
+                for (int j = 0; j < node.count; j++) {
+                    if (j == i)
+                        continue;
+                    Bounds other = node.children[j];
+                    overlap += overlap(x0, x1, y0, y1, other)
+                            - overlap(child.xmin, child.xmax, child.ymin,
+                                    child.ymax, other);
+                }
+            }
+
+            if (overlap < bestOverlap
+                    || (overlap == bestOverlap && (enlarge < bestEnlarge
+                    || (enlarge == bestEnlarge && area < bestArea)))) {
+                best = i;
+                bestOverlap = overlap;
+                bestEnlarge = enlarge;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    private static double overlap(double x0, double x1, double y0, double y1,
+                                  Bounds b) {
+        double dx = Math.min(x1, b.xmax) - Math.max(x0, b.xmin);
+        double dy = Math.min(y1, b.ymax) - Math.max(y0, b.ymin);
+        return dx > 0 && dy > 0 ? dx * dy : 0;
+    }
+
+    /**
+     * Splits an overflowing node using the R*-tree split: the axis is chosen
+     * to minimize the sum of margins, and the distribution to minimize the
+     * overlap, then the area. The node keeps the first group, and the new
+     * sibling containing the second group is returned.
+     */
+    private static Node split(Node node) {
+        int n = node.count;
+        Bounds[] items = Arrays.copyOf(node.children, n);
+
+        // sort by lower bound then by upper bound along each axis
+        Bounds[][] sorts = new Bounds[4][];
+        for (int s = 0; s < 4; s++) {
+            sorts[s] = items.clone();
+            Arrays.sort(sorts[s], boundComparator(s));
+        }
+
+        // choose the axis with the minimal margin sum
+        double marginX = marginSum(sorts[0]) + marginSum(sorts[1]);
+        double marginY = marginSum(sorts[2]) + marginSum(sorts[3]);
+        int first = marginX <= marginY ? 0 : 2;
+
+        // choose the distribution with minimal overlap, then minimal area
+        Bounds[] bestSort = null;
+        int bestK = 0;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int s = first; s < first + 2; s++) {
+            Bounds[] sort = sorts[s];
+            for (int k = MIN_ENTRIES; k <= n - MIN_ENTRIES; k++) {
+                Node g1 = group(sort, 0, k);
+                Node g2 = group(sort, k, n);
+                double ov = overlap(g1.xmin, g1.xmax, g1.ymin, g1.ymax, g2);
+                double area = g1.area() + g2.area();
+                if (ov < bestOverlap || (ov == bestOverlap && area < bestArea)) {
+                    bestSort = sort;
+                    bestK = k;
+                    bestOverlap = ov;
+                    bestArea = area;
+                }
+            }
+        }
+
+        // dispatch children
+        Arrays.fill(node.children, null);
+        node.count = 0;
+        Node sibling = new Node(node.leaf);
+        for (int i = 0; i < n; i++) {
+            if (i < bestK)
+                node.add(bestSort[i]);
+            else
+                sibling.add(bestSort[i]);
+        }
+        node.updateBounds();
+        sibling.updateBounds();
+        return sibling;
+    }
+
+    private static double marginSum(Bounds[] sort) {
+        int n = sort.length;
+        double sum = 0;
+        for (int k = MIN_ENTRIES; k <= n - MIN_ENTRIES; k++) {
+            Node g1 = group(sort, 0, k);
+            Node g2 = group(sort, k, n);
+            sum += (g1.xmax - g1.xmin) + (g1.ymax - g1.ymin)
+                    + (g2.xmax - g2.xmin) + (g2.ymax - g2.ymin);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns a temporary leaf node whose bounds enclose the items between
+     * the two indices.
+     */
+    private static Node group(Bounds[] sort, int i0, int i1) {
+        Node node = new Node(true);
+        node.xmin = node.ymin = Double.POSITIVE_INFINITY;
+        node.xmax = node.ymax = Double.NEGATIVE_INFINITY;
+        for (int i = i0; i < i1; i++)
+            node.include(sort[i]);
+        return node;
+    }
+
+    private static Comparator<Bounds> boundComparator(final int s) {
+        return new Comparator<Bounds>() {
+            public int compare(Bounds b1, Bounds b2) {
+                switch (s) {
+                case 0: return Double.compare(b1.xmin, b2.xmin);
+                case 1: return Double.compare(b1.xmax, b2.xmax);
+                case 2: return Double.compare(b1.ymin, b2.ymin);
+                default: return Double.compare(b1.ymax, b2.ymax);
+                }
+            }
+        };
+    }
+
+    /**
+     * Removes the given shape from the index. Shapes are compared using the
+     * equals method. The bounding box of the shape is used to locate it, if
+     * the shape was modified since its insertion the whole tree is scanned.
+     * @return true if the shape was found
+     */
+    public boolean remove(T shape) {
+        if (unbounded.remove(shape))
+            return true;
+
+        GJBox2D box = shape.boundingBox();
+        boolean found = false;
+        if (isIndexable(shape, box))
+            found = remove(shape, root, new Entry<T>(shape, box));
+        if (!found)
+            found = remove(shape, root, null);
+        if (found)
+            treeSize--;
+        return found;
+    }
+
+    /**
+     * Searches the shape in the subtrees intersecting the bounds of the
+     * given entry, or in the whole tree if the entry is null.
+     */
+    private boolean remove(T shape, Node node, Bounds bounds) {
+        for (int i = 0; i < node.count; i++) {
+            Bounds child = node.children[i];
+            if (bounds != null && !child.intersects(
+                    bounds.xmin, bounds.xmax, bounds.ymin, bounds.ymax))
+                continue;
+            if (node.leaf) {
+                if (((Entry<?>) child).shape.equals(shape)) {
+                    node.removeAt(i);
+                    condense(node);
+                    return true;
+                }
+            } else if (remove(shape, (Node) child, bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes underfull nodes on the path from the node to the root, updates
+     * bounds, and reinserts the orphaned entries.
+     */
+    @SuppressWarnings("unchecked")
+    private void condense(Node node) {
+        ArrayList<Bounds> orphans = new ArrayList<Bounds>();
+        while (node.parent != null) {
+            Node parent = node.parent;
+            if (node.count < MIN_ENTRIES) {
+                for (int i = 0; i < parent.count; i++) {
+                    if (parent.children[i] == node) {
+                        parent.removeAt(i);
+                        break;
+                    }
+                }
+                collectEntries(node, orphans);
+            } else {
+                node.updateBounds();
+            }
+            node = parent;
+        }
+        root.updateBounds();
+
+        // shorten the tree if the root has a single child
+        while (!root.leaf && root.count == 1) {
+            root = (Node) root.children[0];
+            root.parent = null;
+        }
+        if (!root.leaf && root.count == 0)
+            root = new Node(true);
+        if (root.count == 0)
+            root.updateBounds();
+
+        for (Bounds entry : orphans)
+            insert((Entry<T>) entry);
+    }
+
+    private static void collectEntries(Node node, Collection<Bounds> entries) {
+        for (int i = 0; i < node.count; i++) {
+            if (node.leaf)
+                entries.add(node.children[i]);
+            else
+                collectEntries((Node) node.children[i], entries);
+        }
+    }
+
+    /**
+     * Removes all shapes from the index.
+     */
+    public void clear() {
+        root = new Node(true);
+        root.updateBounds();
+        unbounded.clear();
+        treeSize = 0;
+    }
+
+
+    // ===================================================================
+    // general accessors
+
+    /**
+     * Returns the number of shapes in the index.
+     */
+    public int size() {
+        return treeSize + unbounded.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the bounding box of the indexed bounded shapes, or an infinite
+     * box if the index contains unbounded shapes.
+     */
+    public GJBox2D boundingBox() {
+        if (!unbounded.isEmpty())
+            return GJBox2D.INFINITE_BOX;
+        return new GJBox2D(root.xmin, root.xmax, root.ymin, root.ymax);
+    }
+
+    /**
+     * Returns all the shapes of the index.
+     */
+    public Collection<T> shapes() {
+        ArrayList<T> shapes = new ArrayList<T>(size());
+        query(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, shapes);
+        return shapes;
+    }
+
+    public Iterator<T> iterator() {
+        return shapes().iterator();
+    }
+
+
+    // ===================================================================
+    // queries
+
+    /**
+     * Returns the shapes whose bounding box intersects the given window.
+     * Unbounded shapes are always returned.
+     */
+    public Collection<T> query(GJBox2D window) {
+        ArrayList<T> result = new ArrayList<T>();
+        query(window, result);
+        return result;
+    }
+
+    /**
+     * Adds to the result the shapes whose bounding box intersects the given
+     * window. Unbounded shapes are always added.
+     * @return the number of shapes added to the collection
+     */
+    public int query(GJBox2D window, Collection<? super T> result) {
+        return query(window.getMinX(), window.getMaxX(),
+                window.getMinY(), window.getMaxY(), result);
+    }
+
+    /**
+     * Adds to the result the shapes whose bounding box intersects the window
+     * given by its bounds. Unbounded shapes are always added.
+     * @return the number of shapes added to the collection
+     */
+    public int query(double x0, double x1, double y0, double y1,
+                     Collection<? super T> result) {
+        result.addAll(unbounded);
+        int count = unbounded.size();
+        if (treeSize > 0 && root.intersects(x0, x1, y0, y1))
+            count += query(root, x0, x1, y0, y1, result);
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int query(Node node, double x0, double x1, double y0, double y1,
+                      Collection<? super T> result) {
+        int count = 0;
+        for (int i = 0; i < node.count; i++) {
+            Bounds child = node.children[i];
+            if (!child.intersects(x0, x1, y0, y1))
+                continue;
+            if (node.leaf) {
+                result.add(((Entry<T>) child).shape);
+                count++;
+            } else {
+                count += query((Node) child, x0, x1, y0, y1, result);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the shapes that contain the given point.
+     */
+    public Collection<T> containing(GJPoint2D point) {
+        ArrayList<T> result = new ArrayList<T>();
+        containing(point.x(), point.y(), result);
+        return result;
+    }
+
+    /**
+     * Adds to the result the shapes that contain the given point.
+     * @return the number of shapes added to the collection
+     */
+    public int containing(double x, double y, Collection<? super T> result) {
+        int count = 0;
+        for (T shape : unbounded) {
+            if (shape.contains(x, y)) {
+                result.add(shape);
+                count++;
+            }
+        }
+        if (treeSize > 0 && root.contains(x, y))
+            count += containing(root, x, y, result, false);
+        return count;
+    }
+
+    /**
+     * Checks if at least one shape of the index contains the point.
+     */
+    public boolean contains(double x, double y) {
+        for (T shape : unbounded)
+            if (shape.contains(x, y))
+                return true;
+        return treeSize > 0 && root.contains(x, y)
+                && containing(root, x, y, null, true) > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int containing(Node node, double x, double y,
+                           Collection<? super T> result, boolean stopFirst) {
+        int count = 0;
+        for (int i = 0; i < node.count; i++) {
+            Bounds child = node.children[i];
+            if (!child.contains(x, y))
+                continue;
+            if (node.leaf) {
+                T shape = ((Entry<T>) child).shape;
+                if (!shape.contains(x, y))
+                    continue;
+                if (stopFirst)
+                    return 1;
+                result.add(shape);
+                count++;
+            } else {
+                count += containing((Node) child, x, y, result, stopFirst);
+                if (stopFirst && count > 0)
+                    return count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the shape closest to the given point, according to the
+     * distance method of the shapes, or null if the index is empty.
+     */
+    public T nearest(GJPoint2D point) {
+        return nearest(point.x(), point.y());
+    }
+
+    /**
+     * Returns the shape closest to the given point, according to the
+     * distance method of the shapes, or null if the index is empty.
+     * The tree is explored in increasing order of distance to node bounds,
+     * and the search stops when the next node is farther than the best
+     * shape found so far.
+     */
+    @SuppressWarnings("unchecked")
+    public T nearest(double x, double y) {
+        T best = null;
+        double bestDist = Double.POSITIVE_INFINITY;
+
+        for (T shape : unbounded) {
+            double dist = shape.distance(x, y);
+            if (dist < bestDist) {
+                best = shape;
+                bestDist = dist;
+            }
+        }
+        if (treeSize == 0)
+            return best;
+
+        PriorityQueue<QueueItem> queue =
+                new PriorityQueue<QueueItem>(32, QUEUE_COMPARATOR);
+        queue.add(new QueueItem(root, root.distance(x, y)));
+        while (!queue.isEmpty()) {
+            QueueItem item = queue.poll();
+            if (item.dist >= bestDist)
+                break;
+
+            if (item.item instanceof Entry) {
+                T shape = ((Entry<T>) item.item).shape;
+                double dist = shape.distance(x, y);
+                if (dist < bestDist) {
+                    best = shape;
+                    bestDist = dist;
+                }
+                continue;
+            }
+
+            Node node = (Node) item.item;
+            for (int i = 0; i < node.count; i++) {
+                Bounds child = node.children[i];
+                double dist = child.distance(x, y);
+                if (dist < bestDist)
+                    queue.add(new QueueItem(child, dist));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the distance to the closest shape, or positive infinity if
+     * the index is empty.
+     */
+    public double distance(double x, double y) {
+        T shape = nearest(x, y);
+        return shape == null ? Double.POSITIVE_INFINITY : shape.distance(x, y);
+    }
+}
@@ -36,9 +36,9 @@ public class GJSimplePolygon2D implements GJPolygon2D {
 
     /**
      * The inner ordered list of vertices. The last point is connected to the
-     * first one.
+     * first one. Coordinates are stored in a single array of doubles.
      */
-    protected ArrayList<GJPoint2D> vertices;
+    protected GJPackedPointList2D vertices;
 
     // ===================================================================
     // constructors
@@ -47,7 +47,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * Empty constructor: no vertex.
      */
     public GJSimplePolygon2D() {
-    	vertices = new ArrayList<GJPoint2D>();
+    	vertices = new GJPackedPointList2D();
     }
 
     /**
@@ -56,7 +56,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * @param vertices the vertices stored in an array of GJPoint2D
      */
     public GJSimplePolygon2D(GJPoint2D... vertices) {
-        this.vertices = new ArrayList<GJPoint2D>(vertices.length);
+        this.vertices = new GJPackedPointList2D(vertices.length);
         for (GJPoint2D vertex : vertices)
             this.vertices.add(vertex);
     }
@@ -70,14 +70,11 @@ public class GJSimplePolygon2D implements GJPolygon2D {
 	 *            the y coordinate of each vertex
 	 */
 	public GJSimplePolygon2D(double[] xcoords, double[] ycoords) {
-		vertices = new ArrayList<GJPoint2D>(xcoords.length);
-		for (int i = 0; i < xcoords.length; i++)
-			vertices.add(new GJPoint2D(xcoords[i], ycoords[i]));
+		vertices = new GJPackedPointList2D(xcoords, ycoords);
 	}
 
 	public GJSimplePolygon2D(Collection<? extends GJPoint2D> points) {
-		this.vertices = new ArrayList<GJPoint2D>(points.size());
-		this.vertices.addAll(points);
+		this.vertices = new GJPackedPointList2D(points);
 	}
 
 	/**
@@ -85,7 +82,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
 	 * vertices.
 	 */
 	public GJSimplePolygon2D(int nVertices) {
-    	vertices = new ArrayList<GJPoint2D>(nVertices);
+    	vertices = new GJPackedPointList2D(nVertices);
     }
 	
     /**
@@ -94,13 +91,11 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * @param ring the boundary of the polygon
      */
     public GJSimplePolygon2D(GJLinearRing2D ring) {
-        this.vertices = new ArrayList<GJPoint2D>(ring.vertexNumber());
-        this.vertices.addAll(ring.vertices());
+        this.vertices = new GJPackedPointList2D(ring.vertices());
     }
 
     public GJSimplePolygon2D(GJSimplePolygon2D poly) {
-    	this.vertices = new ArrayList<GJPoint2D>(poly.vertexNumber());
-    	this.vertices.addAll(poly.vertices);
+    	this.vertices = new GJPackedPointList2D(poly.vertices);
     }
     
     // ===================================================================
@@ -115,7 +110,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * @return the number of windings of the curve around the point
      */
     public int getWindingNumber(double x, double y) {
-        return GJPolygons2D.windingNumber(vertices, new GJPoint2D(x, y));
+        return GJPolygons2D.windingNumber(vertices, x, y);
     }
         
     /**
@@ -211,7 +206,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * @return the signed area of the polygon.
      */
     public double area() {
-    	return GJPolygons2D.computeArea(this);
+    	return GJPolylines2D.signedArea(vertices);
     }
 
     /**
@@ -390,7 +385,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * Returns the bounding box of the polygon.
      */
     public GJBox2D boundingBox() {
-        return boundary().boundingBox();
+        return GJPolylines2D.boundingBox(vertices);
     }
 
     /**
@@ -443,7 +438,7 @@ public class GJSimplePolygon2D implements GJPolygon2D {
      * given by GJShape2D.ACCURACY.
      */
     public boolean contains(double x, double y) {
-    	if (this.boundary().contains(x, y))
+    	if (GJPolylines2D.edgesContain(vertices, vertices.size(), x, y))
     		return true;
     	
     	double area = this.area();
@@ -455,6 +450,16 @@ public class GJSimplePolygon2D implements GJPolygon2D {
     	}
     }
 
+    /**
+     * Checks which points are contained in the polygon. Points are processed
+     * together by a scanline algorithm, that gives the same results as the
+     * contains method.
+     * @see GJPolygons2D#containsAll(Collection, double[], double[], boolean[])
+     */
+    public void containsAll(double[] xs, double[] ys, boolean[] result) {
+        GJPolygons2D.containsAll(this.contours(), xs, ys, result);
+    }
+
     /**
      * Returns a general path iterator.
      */
@@ -544,6 +549,11 @@ public class GJSimplePolygon2D implements GJPolygon2D {
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        return vertices.hashCode();
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
@@ -0,0 +1,415 @@
+import java.util.ArrayList;
+import java.util.Collection;
+
+
+/**
+ * A static KD-tree storing point coordinates in parallel arrays of doubles.
+ * The tree is implicit: the node associated to the range [lo, hi) of the
+ * arrays is stored at the middle index of the range, its left subtree in
+ * [lo, mid) and its right subtree in [mid+1, hi). No node object is created.
+ * <br>
+ * The tree is built in O(n log n) by selecting the median of each range with
+ * a quickselect partition, alternating x and y coordinates at each depth.
+ * The tree can be rebuilt from new coordinates without allocating memory,
+ * as long as the number of points does not exceed the current capacity.
+ * <br>
+ * Each stored point keeps the index it had in the input arrays, accessible
+ * with the <code>index</code> method, so that query results can be related
+ * to the original data.
+ * @see GJKDTree2D
+ */
+public class GJStaticKDTree2D {
+
+    // ===================================================================
+    // class variables
+
+    /** The x coordinates of the points, in tree order */
+    private double[] xs;
+
+    /** The y coordinates of the points, in tree order */
+    private double[] ys;
+
+    /** The indices of the points in the input data, in tree order */
+    private int[] indices;
+
+    /** The number of points in the tree */
+    private int size = 0;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates an empty tree, preallocating storage for the given number of
+     * points.
+     */
+    public GJStaticKDTree2D(int capacity) {
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.indices = new int[capacity];
+    }
+
+    /**
+     * Creates a new tree from the given collection of points.
+     */
+    public GJStaticKDTree2D(Collection<? extends GJPoint2D> points) {
+        this(points.size());
+        int i = 0;
+        for (GJPoint2D point : points) {
+            xs[i] = point.x();
+            ys[i] = point.y();
+            indices[i] = i;
+            i++;
+        }
+        this.size = i;
+        makeTree(0, size, 0);
+    }
+
+    /**
+     * Creates a new tree from the first n values of the given coordinate
+     * arrays. The input arrays are not modified.
+     */
+    public GJStaticKDTree2D(double[] xs, double[] ys, int n) {
+        this(n);
+        rebuild(xs, ys, n);
+    }
+
+
+    // ===================================================================
+    // tree construction
+
+    /**
+     * Replaces the content of the tree by the first n values of the given
+     * coordinate arrays, and rebuilds the tree. Inner arrays are reused if
+     * their capacity is sufficient. The input arrays are not modified.
+     */
+    public void rebuild(double[] xs, double[] ys, int n) {
+        if (xs.length < n || ys.length < n)
+            throw new IllegalArgumentException(
+                    "Coordinate arrays must contain at least " + n + " values");
+        if (this.xs.length < n) {
+            this.xs = new double[n];
+            this.ys = new double[n];
+            this.indices = new int[n];
+        }
+
+        System.arraycopy(xs, 0, this.xs, 0, n);
+        System.arraycopy(ys, 0, this.ys, 0, n);
+        for (int i = 0; i < n; i++)
+            this.indices[i] = i;
+        this.size = n;
+
+        makeTree(0, n, 0);
+    }
+
+    /**
+     * Recursively partitions the range [lo, hi) such that the median along
+     * the direction given by depth is located at the middle of the range.
+     */
+    private void makeTree(int lo, int hi, int depth) {
+        if (hi - lo < 2)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi, mid, depth % 2);
+
+        makeTree(lo, mid, depth + 1);
+        makeTree(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Rearranges the range [lo, hi) such that the element at position k is
+     * the one that would be there if the range was sorted according to the
+     * given direction, all elements before being lower or equal, and all
+     * elements after being greater or equal. Uses a three-way partition to
+     * cope with multiple points.
+     */
+    private void select(int lo, int hi, int k, int dir) {
+        double[] a = dir == 0 ? xs : ys;
+        double[] b = dir == 0 ? ys : xs;
+
+        hi--;
+        while (hi > lo) {
+            // median of three pivot
+            int m = (lo + hi) >>> 1;
+            if (compare(a, b, m, lo) < 0)
+                swap(m, lo);
+            if (compare(a, b, hi, lo) < 0)
+                swap(hi, lo);
+            if (compare(a, b, hi, m) < 0)
+                swap(hi, m);
+            double pa = a[m];
+            double pb = b[m];
+
+            // partition into [lo, lt) < pivot, [lt, gt] == pivot, (gt, hi] > pivot
+            int lt = lo, i = lo, gt = hi;
+            while (i <= gt) {
+                int c = compare(a[i], b[i], pa, pb);
+                if (c < 0)
+                    swap(lt++, i++);
+                else if (c > 0)
+                    swap(i, gt--);
+                else
+                    i++;
+            }
+
+            if (k < lt)
+                hi = lt - 1;
+            else if (k > gt)
+                lo = gt + 1;
+            else
+                return;
+        }
+    }
+
+    private static int compare(double[] a, double[] b, int i, int j) {
+        return compare(a[i], b[i], a[j], b[j]);
+    }
+
+    /**
+     * Lexicographic comparison of coordinates, using the same convention as
+     * the comparators of GJKDTree2D.
+     */
+    private static int compare(double a1, double b1, double a2, double b2) {
+        if (a1 < a2)
+            return -1;
+        if (a1 > a2)
+            return +1;
+        return Double.compare(b1, b2);
+    }
+
+    private void swap(int i, int j) {
+        double tx = xs[i];
+        xs[i] = xs[j];
+        xs[j] = tx;
+        double ty = ys[i];
+        ys[i] = ys[j];
+        ys[j] = ty;
+        int ti = indices[i];
+        indices[i] = indices[j];
+        indices[j] = ti;
+    }
+
+
+    // ===================================================================
+    // accessors
+
+    /**
+     * Returns the number of points in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x coordinate of the point at the given position in tree
+     * order.
+     */
+    public double x(int i) {
+        return xs[i];
+    }
+
+    /**
+     * Returns the y coordinate of the point at the given position in tree
+     * order.
+     */
+    public double y(int i) {
+        return ys[i];
+    }
+
+    /**
+     * Returns the index in the input data of the point at the given position
+     * in tree order.
+     */
+    public int index(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Returns the point at the given position in tree order.
+     */
+    public GJPoint2D point(int i) {
+        return new GJPoint2D(xs[i], ys[i]);
+    }
+
+
+    // ===================================================================
+    // queries
+
+    public boolean contains(GJPoint2D point) {
+        return find(point.x(), point.y()) != -1;
+    }
+
+    public boolean contains(double x, double y) {
+        return find(x, y) != -1;
+    }
+
+    /**
+     * Returns the position in tree order of a point with the given
+     * coordinates, or -1 if no such point exists.
+     */
+    public int find(double x, double y) {
+        int lo = 0, hi = size, depth = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int res = depth % 2 == 0 ?
+                    compare(x, y, xs[mid], ys[mid]) :
+                    compare(y, x, ys[mid], xs[mid]);
+            if (res == 0)
+                return mid;
+            if (res < 0)
+                hi = mid;
+            else
+                lo = mid + 1;
+            depth++;
+        }
+        return -1;
+    }
+
+    public Collection<GJPoint2D> rangeSearch(GJBox2D range) {
+        ArrayList<GJPoint2D> points = new ArrayList<GJPoint2D>();
+        rangeSearch(range, points, 0, size, 0);
+        return points;
+    }
+
+    /**
+     * range search, by recursively adding points to the collection.
+     */
+    private void rangeSearch(GJBox2D range, Collection<GJPoint2D> points,
+                             int lo, int hi, int depth) {
+        if (lo >= hi)
+            return;
+
+        int mid = (lo + hi) >>> 1;
+        double x = xs[mid];
+        double y = ys[mid];
+
+        // check if point is in range
+        boolean tx1 = range.getMinX() < x;
+        boolean ty1 = range.getMinY() < y;
+        boolean tx2 = x <= range.getMaxX();
+        boolean ty2 = y <= range.getMaxY();
+
+        // adds the point if it is present
+        if (tx1 && tx2 && ty1 && ty2)
+            points.add(new GJPoint2D(x, y));
+
+        int dir = depth % 2;
+        if (dir == 0 ? tx1 : ty1)
+            rangeSearch(range, points, lo, mid, depth + 1);
+        if (dir == 0 ? tx2 : ty2)
+            rangeSearch(range, points, mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Stores in the result array the positions in tree order of the points
+     * located within the range, using the same bounds convention as
+     * <code>rangeSearch(GJBox2D)</code>. Returns the number of points found,
+     * that may be greater than the length of the array; in that case only
+     * the first positions are stored.
+     */
+    public int rangeSearch(double xmin, double xmax, double ymin, double ymax,
+                           int[] result) {
+        return rangeSearch(xmin, xmax, ymin, ymax, result, 0, 0, size, 0);
+    }
+
+    private int rangeSearch(double xmin, double xmax, double ymin, double ymax,
+                            int[] result, int count, int lo, int hi, int depth) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double x = xs[mid];
+            double y = ys[mid];
+
+            boolean tx1 = xmin < x;
+            boolean ty1 = ymin < y;
+            boolean tx2 = x <= xmax;
+            boolean ty2 = y <= ymax;
+
+            if (tx1 && tx2 && ty1 && ty2) {
+                if (count < result.length)
+                    result[count] = mid;
+                count++;
+            }
+
+            boolean left = depth % 2 == 0 ? tx1 : ty1;
+            boolean right = depth % 2 == 0 ? tx2 : ty2;
+            depth++;
+
+            // recurse on the left side, iterate on the right side
+            if (left && right) {
+                count = rangeSearch(xmin, xmax, ymin, ymax, result, count,
+                        lo, mid, depth);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else if (right) {
+                lo = mid + 1;
+            } else {
+                break;
+            }
+        }
+        return count;
+    }
+
+    public GJPoint2D nearestNeighbor(GJPoint2D point) {
+        int i = nearestNeighbor(point.x(), point.y());
+        return i == -1 ? null : point(i);
+    }
+
+    /**
+     * Returns the position in tree order of the point closest to the given
+     * coordinates, or -1 if the tree is empty.
+     */
+    public int nearestNeighbor(double x, double y) {
+        if (size == 0)
+            return -1;
+        int mid = size >>> 1;
+        return nearestNeighbor(x, y, mid, squaredDistance(mid, x, y),
+                0, size, 0);
+    }
+
+    /**
+     * Return either the same candidate, or the position of a point closer to
+     * the query.
+     */
+    private int nearestNeighbor(double x, double y, int candidate,
+                                double distCand, int lo, int hi, int depth) {
+        int mid = (lo + hi) >>> 1;
+
+        double dist = squaredDistance(mid, x, y);
+        if (dist < distCand) {
+            candidate = mid;
+            distCand = dist;
+        }
+
+        double delta = depth % 2 == 0 ? x - xs[mid] : y - ys[mid];
+
+        // first try on the canonical side
+        int lo1, hi1, lo2, hi2;
+        if (delta < 0) {
+            lo1 = lo; hi1 = mid; lo2 = mid + 1; hi2 = hi;
+        } else {
+            lo1 = mid + 1; hi1 = hi; lo2 = lo; hi2 = mid;
+        }
+
+        if (lo1 < hi1) {
+            candidate = nearestNeighbor(x, y, candidate, distCand,
+                    lo1, hi1, depth + 1);
+            distCand = squaredDistance(candidate, x, y);
+        }
+
+        // other side is explored only if the splitting line is close enough
+        if (lo2 < hi2 && delta * delta < distCand) {
+            candidate = nearestNeighbor(x, y, candidate, distCand,
+                    lo2, hi2, depth + 1);
+        }
+
+        return candidate;
+    }
+
+    private double squaredDistance(int i, double x, double y) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -567,6 +567,16 @@ public class GJStraightLine2D extends GJAbstractLine2D implements
 
         return true;
     }
+
+    @Override
+    public int hashCode() {
+        int hash = GJHashCodeUtils.SEED;
+        hash = GJHashCodeUtils.hash(hash, x0);
+        hash = GJHashCodeUtils.hash(hash, y0);
+        hash = GJHashCodeUtils.hash(hash, dx);
+        hash = GJHashCodeUtils.hash(hash, dy);
+        return hash;
+    }
     
 	/**
 	 * @deprecated use copy constructor instead (0.11.2)
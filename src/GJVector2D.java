@@ -297,8 +297,9 @@ public class GJVector2D implements GJGeometricObject2D, Cloneable {
      * @return the transformed vector.
      */
     public GJVector2D transform(GJAffineTransform2D trans) {
-		double[] tab = trans.coefficients();
-		return new GJVector2D(x * tab[0] + y * tab[1], x * tab[3] + y * tab[4]);
+		return new GJVector2D(
+				x * trans.m00 + y * trans.m01, 
+				x * trans.m10 + y * trans.m11);
 	}
 
     /**
@@ -344,6 +345,14 @@ public class GJVector2D implements GJGeometricObject2D, Cloneable {
 		return true;
 	}
 
+	@Override
+	public int hashCode() {
+		int hash = GJHashCodeUtils.SEED;
+		hash = GJHashCodeUtils.hash(hash, x);
+		hash = GJHashCodeUtils.hash(hash, y);
+		return hash;
+	}
+
 	/**
 	 * Display the coordinates of the vector. Typical output is:
 	 * <code>x=3 y=4</code>.
@@ -0,0 +1,284 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+
+
+/**
+ * Reads geometries in the Well-Known Binary format (WKB). Supported types
+ * are Point, LineString, Polygon, MultiPolygon and GeometryCollection,
+ * converted respectively to GJPoint2D, GJPolyline2D, GJSimplePolygon2D,
+ * GJMultiPolygon2D and GJShapeArray2D. Polygons with holes are converted to
+ * GJMultiPolygon2D, with the same conventions as GJWKTReader.
+ * <br>
+ * Both byte orders are accepted. Geometries with Z or M ordinates, in the
+ * ISO or in the extended PostGIS variants, are accepted, and only the x and
+ * y coordinates are kept. The SRID of extended geometries is ignored.
+ * <br>
+ * The input is either a buffer, or a channel read through a buffer of
+ * fixed size. Successive geometries are returned one by one by the read
+ * method.
+ *
+ * @see GJWKBWriter
+ * @see GJWKTReader
+ */
+public class GJWKBReader {
+
+    // ===================================================================
+    // constants
+
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Maximal number of elements allocated before reading them, such that
+     * corrupted counts do not exhaust memory
+     */
+    private final static int MAX_PREALLOCATION = 1 << 16;
+
+    private final static int POINT = 1;
+    private final static int LINESTRING = 2;
+    private final static int POLYGON = 3;
+    private final static int MULTIPOLYGON = 6;
+    private final static int GEOMETRYCOLLECTION = 7;
+
+    /** Flags of the extended format */
+    private final static int EWKB_Z = 0x80000000;
+    private final static int EWKB_M = 0x40000000;
+    private final static int EWKB_SRID = 0x20000000;
+
+
+    // ===================================================================
+    // class variables
+
+    /** The channel to read, or null if reading a buffer */
+    private final ReadableByteChannel channel;
+
+    private final ByteBuffer buffer;
+
+    /** The type of the last geometry header read */
+    private int type;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates a reader for the remaining bytes of the buffer. The position
+     * and the byte order of the buffer are not modified.
+     */
+    public GJWKBReader(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer.duplicate();
+    }
+
+    /**
+     * Creates a reader for the bytes of a channel. The channel is not closed
+     * by the reader.
+     */
+    public GJWKBReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+    }
+
+
+    // ===================================================================
+    // public methods
+
+    /**
+     * Parses a single geometry from an array of bytes.
+     * @throws IOException if the array does not contain exactly one geometry
+     */
+    public static GJShape2D read(byte[] bytes) throws IOException {
+        GJWKBReader reader = new GJWKBReader(ByteBuffer.wrap(bytes));
+        GJShape2D shape = reader.read();
+        if (shape == null || reader.read() != null)
+            throw new StreamCorruptedException("Expected a single WKB geometry");
+        return shape;
+    }
+
+    /**
+     * Reads the next geometry, or returns null at the end of the input.
+     * @throws IOException if the input can not be read, or if it is not
+     *             valid WKB
+     */
+    public GJShape2D read() throws IOException {
+        if (!fill(1))
+            return null;
+        return readGeometry();
+    }
+
+
+    // ===================================================================
+    // geometries
+
+    private GJShape2D readGeometry() throws IOException {
+        int dims = readHeader();
+        switch (type) {
+        case POINT: {
+            double x = readDouble();
+            double y = readDouble();
+            skipOrdinates(dims);
+            if (Double.isNaN(x) && Double.isNaN(y))
+                throw new StreamCorruptedException(
+                        "Empty points are not supported");
+            return new GJPoint2D(x, y);
+        }
+        case LINESTRING: {
+            GJPolyline2D polyline = new GJPolyline2D();
+            readCoordinates(polyline.vertices, dims);
+            return polyline;
+        }
+        case POLYGON:
+            return readPolygon(dims);
+        case MULTIPOLYGON: {
+            int n = readCount();
+            GJMultiPolygon2D polygon = new GJMultiPolygon2D(
+                    Math.min(n, MAX_PREALLOCATION));
+            for (int i = 0; i < n; i++) {
+                int polygonDims = readHeader();
+                if (type != POLYGON)
+                    throw new StreamCorruptedException(
+                            "Expected a polygon in multipolygon");
+                for (GJLinearRing2D ring : GJWKTReader.orientRings(
+                        readRings(polygonDims)))
+                    polygon.addRing(ring);
+            }
+            return polygon;
+        }
+        case GEOMETRYCOLLECTION: {
+            int n = readCount();
+            ArrayList<GJShape2D> shapes = new ArrayList<GJShape2D>(
+                    Math.min(n, MAX_PREALLOCATION));
+            for (int i = 0; i < n; i++)
+                shapes.add(readGeometry());
+            return new GJShapeArray2D<GJShape2D>(shapes);
+        }
+        default:
+            throw new StreamCorruptedException(
+                    "Unsupported WKB geometry type: " + type);
+        }
+    }
+
+    /**
+     * Reads the byte order and the type of a geometry, stores the type, and
+     * returns the number of ordinates of each point.
+     */
+    private int readHeader() throws IOException {
+        ensure(5);
+        int order = buffer.get();
+        if (order == 0)
+            buffer.order(ByteOrder.BIG_ENDIAN);
+        else if (order == 1)
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        else
+            throw new StreamCorruptedException("Invalid WKB byte order: "
+                    + order);
+
+        int code = buffer.getInt();
+        int dims = 2;
+        if ((code & EWKB_Z) != 0)
+            dims++;
+        if ((code & EWKB_M) != 0)
+            dims++;
+        if ((code & EWKB_SRID) != 0) {
+            ensure(4);
+            buffer.getInt();
+        }
+        code &= 0x1FFFFFFF;
+
+        // ISO codes: 1000 for Z, 2000 for M, 3000 for ZM
+        int iso = code / 1000;
+        if (iso == 1 || iso == 2)
+            dims++;
+        else if (iso == 3)
+            dims += 2;
+        this.type = code % 1000;
+        return dims;
+    }
+
+    private GJPolygon2D readPolygon(int dims) throws IOException {
+        ArrayList<GJLinearRing2D> rings = readRings(dims);
+        if (rings.isEmpty())
+            return new GJSimplePolygon2D();
+        return GJWKTReader.createPolygon(rings);
+    }
+
+    private ArrayList<GJLinearRing2D> readRings(int dims) throws IOException {
+        int n = readCount();
+        ArrayList<GJLinearRing2D> rings = new ArrayList<GJLinearRing2D>(
+                Math.min(n, MAX_PREALLOCATION));
+        for (int i = 0; i < n; i++) {
+            GJLinearRing2D ring = new GJLinearRing2D();
+            readCoordinates(ring.vertices, dims);
+            GJWKTReader.removeClosingVertex(ring.vertices);
+            rings.add(ring);
+        }
+        return rings;
+    }
+
+    private void readCoordinates(GJPackedPointList2D vertices, int dims)
+            throws IOException {
+        int n = readCount();
+        vertices.ensureCapacity(Math.min(n, MAX_PREALLOCATION));
+        for (int i = 0; i < n; i++) {
+            ensure(8 * dims);
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+            for (int d = 2; d < dims; d++)
+                buffer.getDouble();
+            vertices.add(x, y);
+        }
+    }
+
+
+    // ===================================================================
+    // access to bytes
+
+    private int readCount() throws IOException {
+        ensure(4);
+        int n = buffer.getInt();
+        if (n < 0)
+            throw new StreamCorruptedException("Invalid element count: "
+                    + (n & 0xFFFFFFFFL));
+        return n;
+    }
+
+    private double readDouble() throws IOException {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    private void skipOrdinates(int dims) throws IOException {
+        for (int d = 2; d < dims; d++)
+            readDouble();
+    }
+
+    private void ensure(int nBytes) throws IOException {
+        if (!fill(nBytes))
+            throw new EOFException("Unexpected end of WKB input");
+    }
+
+    /**
+     * Reads bytes from the channel until the buffer contains at least the
+     * specified number of bytes, and returns false if the input ends before.
+     */
+    private boolean fill(int nBytes) throws IOException {
+        if (buffer.remaining() >= nBytes)
+            return true;
+        if (channel == null)
+            return false;
+        buffer.compact();
+        while (buffer.position() < nBytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
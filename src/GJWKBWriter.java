@@ -0,0 +1,184 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+
+
+/**
+ * Writes geometries in the Well-Known Binary format (WKB). GJPoint2D,
+ * GJPolyline2D, GJSimplePolygon2D, GJMultiPolygon2D and GJShapeArray2D are
+ * written respectively as Point, LineString, Polygon, MultiPolygon and
+ * GeometryCollection. As WKB has no type for linear rings, GJLinearRing2D
+ * is written as a closed LineString. The rings of multi-polygons are
+ * grouped with the same conventions as GJWKTWriter.
+ * <br>
+ * The bytes are written to a channel through a buffer of fixed size. The
+ * flush method must be called after the last geometry.
+ *
+ * @see GJWKBReader
+ * @see GJWKTWriter
+ */
+public class GJWKBWriter {
+
+    // ===================================================================
+    // constants
+
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    private final static int POINT = 1;
+    private final static int LINESTRING = 2;
+    private final static int POLYGON = 3;
+    private final static int MULTIPOLYGON = 6;
+    private final static int GEOMETRYCOLLECTION = 7;
+
+
+    // ===================================================================
+    // class variables
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer buffer;
+
+    /** The byte order code written before each geometry */
+    private final byte orderCode;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates a writer using the little-endian byte order, that is the most
+     * common one.
+     */
+    public GJWKBWriter(WritableByteChannel channel) {
+        this(channel, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public GJWKBWriter(WritableByteChannel channel, ByteOrder order) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(order);
+        this.orderCode = (byte) (order == ByteOrder.BIG_ENDIAN ? 0 : 1);
+    }
+
+
+    // ===================================================================
+    // public methods
+
+    /**
+     * Returns the WKB representation of the geometry, using the
+     * little-endian byte order.
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported
+     */
+    public static byte[] toWKB(GJShape2D shape) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            GJWKBWriter writer = new GJWKBWriter(Channels.newChannel(bytes));
+            writer.write(shape);
+            writer.flush();
+        } catch (IOException ex) {
+            // byte array streams do not throw IOException
+            throw new RuntimeException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the geometry. The bytes may be kept in the inner buffer until
+     * the next call to flush.
+     * @throws IOException if the channel can not be written
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported
+     */
+    public void write(GJShape2D shape) throws IOException {
+        if (shape instanceof GJPoint2D) {
+            GJPoint2D point = (GJPoint2D) shape;
+            writeHeader(POINT);
+            ensure(16);
+            buffer.putDouble(point.x()).putDouble(point.y());
+        } else if (shape instanceof GJPolyline2D) {
+            writeHeader(LINESTRING);
+            writeCoordinates(((GJPolyline2D) shape).vertices, false);
+        } else if (shape instanceof GJLinearRing2D) {
+            writeHeader(LINESTRING);
+            writeCoordinates(((GJLinearRing2D) shape).vertices, true);
+        } else if (shape instanceof GJSimplePolygon2D) {
+            GJPackedPointList2D vertices = ((GJSimplePolygon2D) shape).vertices;
+            writeHeader(POLYGON);
+            writeCount(vertices.isEmpty() ? 0 : 1);
+            if (!vertices.isEmpty())
+                writeCoordinates(vertices, true);
+        } else if (shape instanceof GJMultiPolygon2D) {
+            ArrayList<ArrayList<GJLinearRing2D>> polygons =
+                GJWKTWriter.groupRings(((GJMultiPolygon2D) shape).rings);
+            writeHeader(MULTIPOLYGON);
+            writeCount(polygons.size());
+            for (ArrayList<GJLinearRing2D> rings : polygons) {
+                writeHeader(POLYGON);
+                writeCount(rings.size());
+                for (GJLinearRing2D ring : rings)
+                    writeCoordinates(ring.vertices, true);
+            }
+        } else if (shape instanceof GJShapeArray2D<?>) {
+            Collection<?> shapes = ((GJShapeArray2D<?>) shape).shapes;
+            writeHeader(GEOMETRYCOLLECTION);
+            writeCount(shapes.size());
+            for (Object item : shapes)
+                write((GJShape2D) item);
+        } else {
+            throw new IllegalArgumentException("Unsupported geometry class: "
+                    + shape.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes the content of the inner buffer to the channel.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+
+    // ===================================================================
+    // private methods
+
+    private void writeHeader(int type) throws IOException {
+        ensure(5);
+        buffer.put(orderCode).putInt(type);
+    }
+
+    private void writeCount(int n) throws IOException {
+        ensure(4);
+        buffer.putInt(n);
+    }
+
+    /**
+     * Writes the number of points followed by their coordinates. If closed
+     * is true, the first point is repeated at the end.
+     */
+    private void writeCoordinates(GJPackedPointList2D vertices,
+            boolean closed) throws IOException {
+        int n = vertices.size();
+        writeCount(closed && n > 0 ? n + 1 : n);
+        for (int i = 0; i < n; i++) {
+            ensure(16);
+            buffer.putDouble(vertices.x(i)).putDouble(vertices.y(i));
+        }
+        if (closed && n > 0) {
+            ensure(16);
+            buffer.putDouble(vertices.x(0)).putDouble(vertices.y(0));
+        }
+    }
+
+    private void ensure(int nBytes) throws IOException {
+        if (buffer.remaining() < nBytes)
+            flush();
+    }
+}
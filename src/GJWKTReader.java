@@ -0,0 +1,471 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+
+
+/**
+ * Reads geometries in the Well-Known Text format (WKT). Supported types are
+ * POINT, LINESTRING, LINEARRING, POLYGON, MULTIPOLYGON and
+ * GEOMETRYCOLLECTION, converted respectively to GJPoint2D, GJPolyline2D,
+ * GJLinearRing2D, GJSimplePolygon2D, GJMultiPolygon2D and GJShapeArray2D.
+ * <br>
+ * The input is either a character sequence, or a channel read through a
+ * buffer of fixed size, such that large inputs containing many geometries
+ * are read in a single pass with bounded memory. Successive geometries are
+ * separated by white spaces or semicolons, and are returned one by one by
+ * the read method.
+ * <br>
+ * Coordinates with more than two values (Z or M ordinates) are accepted, and
+ * only the first two values are kept. The closing vertex of rings is
+ * removed. Polygons with holes are converted to GJMultiPolygon2D. The outer
+ * ring of each polygon is oriented counter-clockwise, and the holes
+ * clockwise, as expected by the polygon classes.
+ *
+ * @see GJWKTWriter
+ */
+public class GJWKTReader {
+
+    // ===================================================================
+    // constants
+
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    /** Largest integer whose conversion to double is exact */
+    private final static long MAX_EXACT = 1L << 53;
+
+    /** Powers of ten that are exactly representable as doubles */
+    private final static double[] POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+        1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+
+    // ===================================================================
+    // class variables
+
+    /** The text to parse, or null if reading a channel */
+    private final CharSequence text;
+
+    /** The channel to parse, or null if reading a text */
+    private final ReadableByteChannel channel;
+
+    /** The buffer of bytes read from the channel */
+    private final ByteBuffer buffer;
+
+    /** The number of characters read before the current one */
+    private long position = 0;
+
+    /** Characters of the current number, used by the parsing fallback */
+    private final StringBuilder digits = new StringBuilder();
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates a reader that parses the geometries of a text.
+     */
+    public GJWKTReader(CharSequence text) {
+        this.text = text;
+        this.channel = null;
+        this.buffer = null;
+    }
+
+    /**
+     * Creates a reader that parses the geometries of a channel, encoded in
+     * ASCII or UTF-8. The channel is not closed by the reader.
+     */
+    public GJWKTReader(ReadableByteChannel channel) {
+        this.text = null;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.buffer.flip();
+    }
+
+
+    // ===================================================================
+    // public methods
+
+    /**
+     * Parses a single geometry from a text.
+     * @throws IOException if the text does not contain exactly one geometry
+     */
+    public static GJShape2D read(CharSequence text) throws IOException {
+        GJWKTReader reader = new GJWKTReader(text);
+        GJShape2D shape = reader.read();
+        if (shape == null || reader.read() != null)
+            throw new IOException("Expected a single WKT geometry");
+        return shape;
+    }
+
+    /**
+     * Reads the next geometry, or returns null at the end of the input.
+     * @throws IOException if the input can not be read, or if it is not
+     *             valid WKT
+     */
+    public GJShape2D read() throws IOException {
+        int c = skipSpaces();
+        while (c == ';') {
+            next();
+            c = skipSpaces();
+        }
+        if (c < 0)
+            return null;
+        return readGeometry();
+    }
+
+
+    // ===================================================================
+    // geometries
+
+    private GJShape2D readGeometry() throws IOException {
+        String tag = readWord();
+        skipDimension();
+        boolean empty = readEmpty();
+
+        if (tag.equals("POINT")) {
+            if (empty)
+                throw error("Empty points are not supported");
+            expect('(');
+            GJPoint2D point = readPoint();
+            expect(')');
+            return point;
+        }
+        if (tag.equals("LINESTRING")) {
+            GJPolyline2D polyline = new GJPolyline2D();
+            if (!empty)
+                readCoordinates(polyline.vertices);
+            return polyline;
+        }
+        if (tag.equals("LINEARRING")) {
+            GJLinearRing2D ring = new GJLinearRing2D();
+            if (!empty) {
+                readCoordinates(ring.vertices);
+                removeClosingVertex(ring.vertices);
+            }
+            return ring;
+        }
+        if (tag.equals("POLYGON")) {
+            if (empty)
+                return new GJSimplePolygon2D();
+            return createPolygon(readRings());
+        }
+        if (tag.equals("MULTIPOLYGON")) {
+            GJMultiPolygon2D polygon = new GJMultiPolygon2D();
+            if (empty)
+                return polygon;
+            expect('(');
+            do {
+                for (GJLinearRing2D ring : orientRings(readRings()))
+                    polygon.addRing(ring);
+            } while (nextSeparator());
+            return polygon;
+        }
+        if (tag.equals("GEOMETRYCOLLECTION")) {
+            ArrayList<GJShape2D> shapes = new ArrayList<GJShape2D>();
+            if (!empty) {
+                expect('(');
+                do {
+                    skipSpaces();
+                    shapes.add(readGeometry());
+                } while (nextSeparator());
+            }
+            return new GJShapeArray2D<GJShape2D>(shapes);
+        }
+        throw error("Unsupported geometry type " + tag);
+    }
+
+    /**
+     * Reads a list of rings enclosed in parentheses.
+     */
+    private ArrayList<GJLinearRing2D> readRings() throws IOException {
+        ArrayList<GJLinearRing2D> rings = new ArrayList<GJLinearRing2D>(1);
+        expect('(');
+        do {
+            GJLinearRing2D ring = new GJLinearRing2D();
+            readCoordinates(ring.vertices);
+            removeClosingVertex(ring.vertices);
+            rings.add(ring);
+        } while (nextSeparator());
+        return rings;
+    }
+
+    /**
+     * Reads a list of points enclosed in parentheses, and adds them to the
+     * list of vertices.
+     */
+    private void readCoordinates(GJPackedPointList2D vertices)
+            throws IOException {
+        expect('(');
+        do {
+            double x = readNumber();
+            double y = readNumber();
+            skipOrdinates();
+            vertices.add(x, y);
+        } while (nextSeparator());
+    }
+
+    private GJPoint2D readPoint() throws IOException {
+        double x = readNumber();
+        double y = readNumber();
+        skipOrdinates();
+        return new GJPoint2D(x, y);
+    }
+
+
+    // ===================================================================
+    // conversion of rings, shared with GJWKBReader
+
+    /**
+     * Removes the last vertex if it is equal to the first one.
+     */
+    static void removeClosingVertex(GJPackedPointList2D vertices) {
+        int n = vertices.size();
+        if (n > 1 && vertices.x(0) == vertices.x(n - 1)
+                && vertices.y(0) == vertices.y(n - 1))
+            vertices.remove(n - 1);
+    }
+
+    /**
+     * Orients the first ring counter-clockwise, and the other rings
+     * clockwise.
+     */
+    static ArrayList<GJLinearRing2D> orientRings(
+            ArrayList<GJLinearRing2D> rings) {
+        for (int i = 0; i < rings.size(); i++) {
+            GJLinearRing2D ring = rings.get(i);
+            double area = ring.area();
+            if (i == 0 ? area < 0 : area > 0)
+                rings.set(i, ring.reverse());
+        }
+        return rings;
+    }
+
+    /**
+     * Creates a simple polygon for a single ring, or a multi-polygon for a
+     * ring with holes.
+     */
+    static GJPolygon2D createPolygon(ArrayList<GJLinearRing2D> rings) {
+        orientRings(rings);
+        if (rings.size() == 1)
+            return new GJSimplePolygon2D(rings.get(0).vertices);
+        return new GJMultiPolygon2D(rings);
+    }
+
+
+    // ===================================================================
+    // lexical analysis
+
+    /**
+     * Reads a word made of letters, converted to upper case.
+     */
+    private String readWord() throws IOException {
+        StringBuilder word = new StringBuilder(16);
+        int c = peek();
+        while (isLetter(c)) {
+            word.append((char) Character.toUpperCase(c));
+            next();
+            c = peek();
+        }
+        if (word.length() == 0)
+            throw error("Expected a geometry type");
+        return word.toString();
+    }
+
+    /**
+     * Skips the optional dimension tag following the geometry type: Z, M or
+     * ZM.
+     */
+    private void skipDimension() throws IOException {
+        int c = skipSpaces();
+        if (c != 'Z' && c != 'z' && c != 'M' && c != 'm')
+            return;
+        next();
+        c = peek();
+        if (c == 'M' || c == 'm')
+            next();
+    }
+
+    /**
+     * Checks if the next word is EMPTY, and skips it.
+     */
+    private boolean readEmpty() throws IOException {
+        int c = skipSpaces();
+        if (c != 'E' && c != 'e')
+            return false;
+        if (!readWord().equals("EMPTY"))
+            throw error("Expected EMPTY or '('");
+        return true;
+    }
+
+    /**
+     * Skips the values of a coordinate after x and y.
+     */
+    private void skipOrdinates() throws IOException {
+        int c = skipSpaces();
+        while (c != ',' && c != ')') {
+            readNumber();
+            c = skipSpaces();
+        }
+    }
+
+    /**
+     * Reads the character following an element of a list: returns true for
+     * a comma, and false for a closing parenthesis.
+     */
+    private boolean nextSeparator() throws IOException {
+        int c = skipSpaces();
+        if (c == ',') {
+            next();
+            return true;
+        }
+        if (c == ')') {
+            next();
+            return false;
+        }
+        throw error("Expected ',' or ')'");
+    }
+
+    private void expect(int expected) throws IOException {
+        if (skipSpaces() != expected)
+            throw error("Expected '" + (char) expected + "'");
+        next();
+    }
+
+    /**
+     * Parses a decimal number. Numbers whose digits fit in 53 bits, with
+     * small exponents, are converted directly, other numbers are
+     * converted by Double.parseDouble.
+     */
+    private double readNumber() throws IOException {
+        int c = skipSpaces();
+        digits.setLength(0);
+        boolean negative = false;
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            digits.append((char) c);
+            next();
+            c = peek();
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        boolean exact = true, any = false;
+        while (c >= '0' && c <= '9') {
+            any = true;
+            if (mantissa < MAX_EXACT / 10) {
+                mantissa = 10 * mantissa + (c - '0');
+            } else {
+                exact = false;
+                exponent++;
+            }
+            digits.append((char) c);
+            next();
+            c = peek();
+        }
+        if (c == '.') {
+            digits.append('.');
+            next();
+            c = peek();
+            while (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa < MAX_EXACT / 10) {
+                    mantissa = 10 * mantissa + (c - '0');
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+                digits.append((char) c);
+                next();
+                c = peek();
+            }
+        }
+        if (!any)
+            throw error("Expected a number");
+        if (c == 'e' || c == 'E') {
+            digits.append('e');
+            next();
+            c = peek();
+            boolean negExp = false;
+            if (c == '-' || c == '+') {
+                negExp = c == '-';
+                digits.append((char) c);
+                next();
+                c = peek();
+            }
+            int exp = 0;
+            boolean expDigits = false;
+            while (c >= '0' && c <= '9') {
+                expDigits = true;
+                if (exp < 10000)
+                    exp = 10 * exp + (c - '0');
+                digits.append((char) c);
+                next();
+                c = peek();
+            }
+            if (!expDigits)
+                throw error("Expected an exponent");
+            exponent += negExp ? -exp : exp;
+        }
+
+        if (exact && exponent >= -22 && exponent <= 22) {
+            double value = mantissa;
+            value = exponent < 0 ? value / POWERS[-exponent]
+                    : value * POWERS[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(digits.toString());
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    /**
+     * Skips white spaces, and returns the next character without consuming
+     * it.
+     */
+    private int skipSpaces() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at character " + position);
+    }
+
+
+    // ===================================================================
+    // access to characters
+
+    /**
+     * Returns the current character, or -1 at the end of the input.
+     */
+    private int peek() throws IOException {
+        if (text != null)
+            return position < text.length() ? text.charAt((int) position) : -1;
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n = 0;
+            while (n == 0)
+                n = channel.read(buffer);
+            buffer.flip();
+            if (n < 0)
+                return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Moves to the next character. Must be called after peek.
+     */
+    private void next() {
+        if (text == null)
+            buffer.position(buffer.position() + 1);
+        position++;
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+
+/**
+ * Writes geometries in the Well-Known Text format (WKT). GJPoint2D,
+ * GJPolyline2D, GJLinearRing2D, GJSimplePolygon2D, GJMultiPolygon2D and
+ * GJShapeArray2D are written respectively as POINT, LINESTRING, LINEARRING,
+ * POLYGON, MULTIPOLYGON and GEOMETRYCOLLECTION.
+ * <br>
+ * The text is appended to the output as the geometries are processed, one
+ * geometry per line, without building intermediate strings. The first
+ * vertex of each ring is repeated at the end of the ring. The rings of a
+ * GJMultiPolygon2D are grouped into polygons: each ring with a positive
+ * area is the shell of a polygon, and each ring with a negative area is a
+ * hole of the smallest shell enclosing it, or a polygon on its own if no
+ * shell encloses it.
+ *
+ * @see GJWKTReader
+ */
+public class GJWKTWriter {
+
+    // ===================================================================
+    // class variables
+
+    private final Appendable output;
+
+
+    // ===================================================================
+    // constructors
+
+    /**
+     * Creates a writer that appends geometries to the output, that may be a
+     * StringBuilder or a java.io.Writer.
+     */
+    public GJWKTWriter(Appendable output) {
+        this.output = output;
+    }
+
+
+    // ===================================================================
+    // public methods
+
+    /**
+     * Returns the WKT representation of the geometry.
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported
+     */
+    public static String toWKT(GJShape2D shape) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            new GJWKTWriter(builder).writeGeometry(shape);
+        } catch (IOException ex) {
+            // string builders do not throw IOException
+            throw new RuntimeException(ex);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the geometry, followed by a new line.
+     * @throws IOException if the output can not be written
+     * @throws IllegalArgumentException if the class of the geometry is not
+     *             supported
+     */
+    public void write(GJShape2D shape) throws IOException {
+        writeGeometry(shape);
+        output.append('\n');
+    }
+
+
+    // ===================================================================
+    // geometries
+
+    private void writeGeometry(GJShape2D shape) throws IOException {
+        if (shape instanceof GJPoint2D) {
+            GJPoint2D point = (GJPoint2D) shape;
+            output.append("POINT (");
+            writeNumber(point.x());
+            output.append(' ');
+            writeNumber(point.y());
+            output.append(')');
+        } else if (shape instanceof GJPolyline2D) {
+            output.append("LINESTRING ");
+            writeCoordinates(((GJPolyline2D) shape).vertices, false);
+        } else if (shape instanceof GJLinearRing2D) {
+            output.append("LINEARRING ");
+            writeCoordinates(((GJLinearRing2D) shape).vertices, true);
+        } else if (shape instanceof GJSimplePolygon2D) {
+            GJPackedPointList2D vertices = ((GJSimplePolygon2D) shape).vertices;
+            output.append("POLYGON ");
+            if (vertices.isEmpty()) {
+                output.append("EMPTY");
+            } else {
+                output.append('(');
+                writeCoordinates(vertices, true);
+                output.append(')');
+            }
+        } else if (shape instanceof GJMultiPolygon2D) {
+            output.append("MULTIPOLYGON ");
+            writeMultiPolygon(groupRings(((GJMultiPolygon2D) shape).rings));
+        } else if (shape instanceof GJShapeArray2D<?>) {
+            Collection<?> shapes = ((GJShapeArray2D<?>) shape).shapes;
+            output.append("GEOMETRYCOLLECTION ");
+            if (shapes.isEmpty()) {
+                output.append("EMPTY");
+                return;
+            }
+            output.append('(');
+            boolean first = true;
+            for (Object item : shapes) {
+                if (!first)
+                    output.append(", ");
+                writeGeometry((GJShape2D) item);
+                first = false;
+            }
+            output.append(')');
+        } else {
+            throw new IllegalArgumentException("Unsupported geometry class: "
+                    + shape.getClass().getName());
+        }
+    }
+
+    private void writeMultiPolygon(
+            ArrayList<ArrayList<GJLinearRing2D>> polygons) throws IOException {
+        if (polygons.isEmpty()) {
+            output.append("EMPTY");
+            return;
+        }
+        output.append('(');
+        for (int p = 0; p < polygons.size(); p++) {
+            if (p > 0)
+                output.append(", ");
+            output.append('(');
+            ArrayList<GJLinearRing2D> rings = polygons.get(p);
+            for (int r = 0; r < rings.size(); r++) {
+                if (r > 0)
+                    output.append(", ");
+                writeCoordinates(rings.get(r).vertices, true);
+            }
+            output.append(')');
+        }
+        output.append(')');
+    }
+
+    /**
+     * Writes a list of coordinates enclosed in parentheses, or EMPTY for an
+     * empty list. If closed is true, the first vertex is repeated at the end.
+     */
+    private void writeCoordinates(GJPackedPointList2D vertices,
+            boolean closed) throws IOException {
+        int n = vertices.size();
+        if (n == 0) {
+            output.append("EMPTY");
+            return;
+        }
+        output.append('(');
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                output.append(", ");
+            writeNumber(vertices.x(i));
+            output.append(' ');
+            writeNumber(vertices.y(i));
+        }
+        if (closed) {
+            output.append(", ");
+            writeNumber(vertices.x(0));
+            output.append(' ');
+            writeNumber(vertices.y(0));
+        }
+        output.append(')');
+    }
+
+    /**
+     * Writes a number with a representation that restores the same double.
+     * Integer values are written without decimal part.
+     */
+    private void writeNumber(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            throw new IllegalArgumentException(
+                    "Can not write non finite coordinate: " + value);
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            if (value == 0 && 1 / value < 0)
+                output.append('-');
+            output.append(Long.toString((long) value));
+        } else {
+            output.append(Double.toString(value));
+        }
+    }
+
+
+    // ===================================================================
+    // grouping of rings, shared with GJWKBWriter
+
+    /**
+     * Groups the rings into polygons: each ring with positive area is the
+     * shell of a polygon, and each ring with negative area is a hole of the
+     * smallest shell containing it. The containment is tested with a vertex
+     * of the hole that is not located on the shell. Holes contained in no
+     * shell are written as polygons on their own.
+     */
+    static ArrayList<ArrayList<GJLinearRing2D>> groupRings(
+            Collection<GJLinearRing2D> rings) {
+        ArrayList<ArrayList<GJLinearRing2D>> polygons =
+            new ArrayList<ArrayList<GJLinearRing2D>>();
+        ArrayList<GJLinearRing2D> shells = new ArrayList<GJLinearRing2D>();
+        ArrayList<GJLinearRing2D> holes = new ArrayList<GJLinearRing2D>();
+        for (GJLinearRing2D ring : rings) {
+            if (ring.area() > 0) {
+                shells.add(ring);
+                ArrayList<GJLinearRing2D> polygon =
+                    new ArrayList<GJLinearRing2D>(1);
+                polygon.add(ring);
+                polygons.add(polygon);
+            } else {
+                holes.add(ring);
+            }
+        }
+        if (holes.isEmpty())
+            return polygons;
+
+        // bounds and areas of shells, for selecting the smallest one
+        int nShells = shells.size();
+        GJBox2D[] boxes = new GJBox2D[nShells];
+        double[] areas = new double[nShells];
+        for (int i = 0; i < nShells; i++) {
+            boxes[i] = shells.get(i).boundingBox();
+            areas[i] = shells.get(i).area();
+        }
+
+        for (GJLinearRing2D hole : holes) {
+            int best = -1;
+            for (int i = 0; i < nShells; i++) {
+                if (best >= 0 && areas[i] >= areas[best])
+                    continue;
+                if (boxes[i].containsBounds(hole)
+                        && encloses(shells.get(i), hole))
+                    best = i;
+            }
+            if (best >= 0) {
+                polygons.get(best).add(hole);
+            } else {
+                ArrayList<GJLinearRing2D> polygon =
+                    new ArrayList<GJLinearRing2D>(1);
+                polygon.add(hole);
+                polygons.add(polygon);
+            }
+        }
+        return polygons;
+    }
+
+    /**
+     * Checks if the shell encloses the hole, by testing the first vertex of
+     * the hole that is not located on the shell. If all the vertices are on
+     * the shell, the hole is considered as enclosed.
+     */
+    private static boolean encloses(GJLinearRing2D shell, GJLinearRing2D hole) {
+        GJPackedPointList2D vertices = hole.vertices;
+        for (int i = 0, n = vertices.size(); i < n; i++) {
+            double x = vertices.x(i), y = vertices.y(i);
+            if (shell.contains(x, y))
+                continue;
+            return GJPolygons2D.windingNumber(shell.vertices, x, y) != 0;
+        }
+        return true;
+    }
+}